@@ -0,0 +1,40 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ball.update (di chuyển + quản lý vệt trail) cho nhiều bóng trong một khung hình.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BallTrailBenchmark {
+    @Param({"1", "8", "32"})
+    int balls;
+
+    private BenchWorld world;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = new BenchWorld(0, balls, 7);
+        // làm nóng để trail đầy
+        for (int i = 0; i < 120; i++) frame();
+    }
+
+    @Benchmark
+    public int frame() {
+        int n = 0;
+        for (Ball b : world.entities.getBalls()) {
+            b.update(BenchWorld.DT);
+            b.collideWithWalls(BenchWorld.WIDTH, world.height);
+            b.collideWithPaddle(world.paddle);
+            n++;
+        }
+        return n;
+    }
+}
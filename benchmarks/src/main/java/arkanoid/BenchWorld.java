@@ -0,0 +1,78 @@
+package arkanoid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Dựng thế giới cố định cho benchmark: lưới gạch N viên (20 cột), paddle phủ hết đáy
+ * để bóng không bao giờ rơi, và các bóng bay theo hướng ngẫu nhiên có seed.
+ */
+final class BenchWorld {
+    static final int COLS = 20;
+    static final double WIDTH = 800;
+    static final double DT = 1.0 / 120.0;
+
+    final double height;
+    final EntityManager entities = new EntityManager();
+    final CollisionManager collisions = new CollisionManager();
+    final GameState state = new GameState();
+    final PowerUpManager powerUps = new PowerUpManager();
+    final Paddle paddle;
+    private final List<String> levelLines;
+    private final int brickCount;
+
+    BenchWorld(int brickCount, int ballCount, long seed) {
+        SoundManager.get().setHeadless(true);
+        this.brickCount = brickCount;
+        Random rnd = new Random(seed);
+
+        int rows = Math.max(1, (brickCount + COLS - 1) / COLS);
+        levelLines = new ArrayList<>();
+        int placed = 0;
+        for (int r = 0; r < rows; r++) {
+            StringBuilder sb = new StringBuilder();
+            for (int c = 0; c < COLS; c++) {
+                if (placed++ >= brickCount) {
+                    sb.append('0');
+                } else {
+                    // chủ yếu gạch nhiều hit, thỉnh thoảng gạch bất tử / gạch nổ
+                    int k = rnd.nextInt(40);
+                    sb.append(k == 0 ? 'X' : k == 1 ? 'E' : (char) ('1' + rnd.nextInt(9)));
+                }
+            }
+            levelLines.add(sb.toString());
+        }
+        height = Math.max(600, 60 + rows * 30 + 240);
+
+        paddle = new Paddle(0, height - 40, WIDTH, 16, WIDTH);
+        loadBricks();
+        for (int i = 0; i < ballCount; i++) {
+            Ball b = new Ball(40 + rnd.nextDouble() * (WIDTH - 80), height - 120 - rnd.nextDouble() * 100, 8, paddle);
+            b.setStuck(false);
+            double a = -Math.PI / 2 + (rnd.nextDouble() - 0.5) * 1.6;
+            b.setVelocity(Math.cos(a), Math.sin(a));
+            entities.addBall(b);
+        }
+        state.setRunning(true);
+    }
+
+    private void loadBricks() {
+        LevelData ld = LevelLoader.parse(levelLines, WIDTH);
+        entities.clearBricks();
+        entities.addBricks(ld.bricks);
+        entities.configureBrickGrid(ld);
+    }
+
+    /**
+     * Giữ thế giới ở trạng thái ổn định: nạp lại gạch khi đã vỡ quá 10%, bỏ power-up rơi ra
+     * và cập nhật hạt/mảnh vụn do va chạm sinh ra (như Game làm mỗi khung hình).
+     * Chi phí nạp lại được chia đều cho nhiều khung hình. dt: thời gian đã trôi kể từ lần gọi trước.
+     */
+    void keepSteady(double dt) {
+        if (entities.getBricks().size() < brickCount * 9 / 10) loadBricks();
+        if (entities.getPowerUps().size() > 32) entities.getPowerUps().clear();
+        collisions.getEmitter().update(dt);
+        collisions.getDebrisEmitter().update(dt);
+    }
+}
@@ -0,0 +1,48 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CollisionManager.handleCollisions cho một khung hình, theo số gạch và số bóng.
+ * Chạy với -prof gc để xem byte cấp phát mỗi khung hình (gc.alloc.rate.norm).
+ * BenchWorld.keepSteady() (nạp lại gạch, bỏ power-up, cập nhật hạt) chạy ngay trong phần đo, mỗi
+ * STEADY_EVERY khung một lần (không dùng @Setup(Level.Invocation): không tin cậy với thao tác cỡ micro giây).
+ * Vì vậy ns/op gồm cả phần chia đều của nó: cập nhật hạt/mảnh vụn tỉ lệ với số hạt đang sống,
+ * nạp lại gạch chỉ xảy ra sau khi đã vỡ 10% số gạch. Cấp phát còn lại đến từ PowerUp rơi ra và
+ * từ việc nạp lại gạch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    @Param({"60", "240", "960"})
+    int bricks;
+
+    @Param({"1", "8", "32"})
+    int balls;
+
+    private static final int STEADY_EVERY = 16;
+
+    private BenchWorld world;
+    private int frames;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = new BenchWorld(bricks, balls, 42);
+    }
+
+    @Benchmark
+    public CollisionResult frame() {
+        if (++frames == STEADY_EVERY) {
+            frames = 0;
+            world.keepSteady(STEADY_EVERY * BenchWorld.DT);
+        }
+        return world.collisions.handleCollisions(world.entities, world.state, world.paddle,
+                world.powerUps, BenchWorld.WIDTH, world.height, BenchWorld.DT);
+    }
+}
@@ -0,0 +1,48 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EntityManager.updateAll với số power-up, đạn và HUD message cố định.
+ * Thực thể ra khỏi màn hình được đưa lại đầu màn để số lượng không đổi.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityUpdateBenchmark {
+    @Param({"16", "128", "512"})
+    int entities;
+
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SoundManager.get().setHeadless(true);
+        em = new EntityManager();
+        PowerUp.PowerType[] types = PowerUp.PowerType.values();
+        for (int i = 0; i < entities; i++) {
+            em.addPowerUp(new PowerUp(20 + (i * 37) % 760, (i * 53) % 600, types[i % types.length]));
+            em.addBullet(new Bullet(20 + (i * 29) % 760, 100 + (i * 61) % 500));
+        }
+        for (int i = 0; i < Math.max(1, entities / 16); i++) {
+            em.addHUDMessage(new HUDMessage("HUD " + i, 1e9));
+        }
+    }
+
+    @Benchmark
+    public EntityManager frame() {
+        em.updateAll(BenchWorld.DT);
+        for (PowerUp pu : em.getPowerUps()) {
+            if (pu.y > 600) pu.y = 0;
+        }
+        for (Bullet b : em.getBullets()) {
+            if (b.y < 0) b.y = 600;
+        }
+        return em;
+    }
+}
@@ -0,0 +1,59 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Truy vấn HighScoreService trên lịch sử 1 triệu entry đã nén và đọc lại từ đĩa
+ * (trước đây là giới hạn 1ms/truy vấn trong HighScoreServiceTest).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HighScoreBenchmark {
+    private static final int ENTRIES = 1_000_000;
+    private static final int PLAYERS = 5000;
+
+    private HighScoreService service;
+    private final Random rnd = new Random(3);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path file = Files.createTempDirectory("highscore-bench").resolve("highscore");
+        HighScoreService writer = new HighScoreService(file);
+        for (int i = 0; i < ENTRIES; i++) {
+            writer.submit("P" + rnd.nextInt(PLAYERS), rnd.nextInt(100_000), rnd.nextInt(6));
+        }
+        writer.flush();
+        service = new HighScoreService(file);
+        service.getHistorySize(); // nạp và dựng chỉ mục ngoài phần đo
+    }
+
+    @Benchmark
+    public double percentileRank() {
+        return service.percentileRank(rnd.nextInt(100_000));
+    }
+
+    @Benchmark
+    public HighScoreService.Entry personalBest() {
+        return service.getPersonalBest("P" + rnd.nextInt(PLAYERS));
+    }
+
+    @Benchmark
+    public int topTen() {
+        return service.getTop(HighScoreService.MAX_ENTRIES).size();
+    }
+
+    @Benchmark
+    public int topForLevel() {
+        return service.getTopForLevel(rnd.nextInt(6), HighScoreService.MAX_ENTRIES).size();
+    }
+}
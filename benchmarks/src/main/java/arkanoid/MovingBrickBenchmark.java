@@ -0,0 +1,44 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovingBrickBroadphase.update trên lưới gạch động rows x 100 (level sinh cỡ lớn);
+ * gạch nảy giữa hai tường nên số lượng không đổi (trước đây là giới hạn thời gian trong MovingBrickBroadphaseTest).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MovingBrickBenchmark {
+    private static final int COLS = 100;
+
+    @Param({"6", "60"})
+    int rows;
+
+    private EntityManager em;
+    private MovingBrickBroadphase sap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        em = new EntityManager();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < COLS; c++) {
+                MovingBrick mb = new MovingBrick(30 + c * 7.4, 60 + r * 14, 6, 12, 1, MovingBrick.BrickType.WEAK);
+                mb.setDirection(c % 2 == 0 ? 1 : -1);
+                em.addBrick(mb);
+            }
+        }
+        sap = new MovingBrickBroadphase();
+    }
+
+    @Benchmark
+    public EntityManager frame() {
+        sap.update(em, 800, BenchWorld.DT);
+        return em;
+    }
+}
@@ -0,0 +1,44 @@
+package arkanoid;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParticleEmitter.update ở tải ổn định: mỗi khung hình phát thêm đúng số hạt vừa chết
+ * để số hạt sống dao động quanh giá trị particles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleBenchmark {
+    // tuổi thọ trung bình của hạt nổ (0.35 + 0.45/2 giây)
+    private static final double AVG_LIFE = 0.575;
+
+    @Param({"500", "2000", "8000"})
+    int particles;
+
+    private ParticleEmitter emitter;
+    private double spawnAccumulator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SoundManager.get().setHeadless(true);
+        emitter = new ParticleEmitter();
+        // làm nóng tới trạng thái ổn định (2 giây mô phỏng)
+        for (int i = 0; i < 240; i++) frame();
+    }
+
+    @Benchmark
+    public ParticleEmitter frame() {
+        spawnAccumulator += particles * BenchWorld.DT / AVG_LIFE;
+        int n = (int) spawnAccumulator;
+        spawnAccumulator -= n;
+        if (n > 0) emitter.emitExplosion(400, 300, n);
+        emitter.update(BenchWorld.DT);
+        return emitter;
+    }
+}
@@ -0,0 +1,82 @@
+package arkanoid;
+
+import javafx.scene.input.KeyCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Một bước Simulation.step đầy đủ trên level thật (gạch, bóng, hạt, power-up),
+ * bóng được giữ trên sân bằng rào chắn để mô phỏng không dừng.
+ * botTicks: số bước/giây khi bot điều khiển paddle như SimulationTest (trước đây là ngưỡng 1000 bước/giây trong test).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+    // 5 = màn boss (boss di chuyển, bắn, va chạm với bóng/đạn laser)
+    @Param({"0", "3", "5"})
+    int level;
+
+    private Simulation sim;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        SoundManager.get().setHeadless(true);
+        sim = new Simulation(800, 600);
+        sim.startLevel(level);
+        sim.getGameState().setRunning(true);
+    }
+
+    @Benchmark
+    public Simulation frame() {
+        GameState gs = sim.getGameState();
+        // màn boss không có gạch phá được: chỉ nạp lại khi boss đã chết
+        boolean cleared = sim.isBossLevel() ? sim.getBoss() == null || sim.getBoss().isDead()
+                : sim.countRemainingDestructibleBricks() == 0;
+        if (!gs.isRunning() || cleared) {
+            sim.startLevel(level);
+            gs.setRunning(true);
+        }
+        if (!gs.isBarrierActive()) gs.setBarrierActive(true, 600 - 20);
+        sim.launchBalls();
+        sim.step(BenchWorld.DT);
+        return sim;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Simulation botTicks() {
+        GameState gs = sim.getGameState();
+        boolean cleared = sim.isBossLevel() ? sim.getBoss() == null || sim.getBoss().isDead()
+                : sim.countRemainingDestructibleBricks() == 0;
+        if (!gs.isRunning() || cleared) {
+            sim.startLevel(level);
+            gs.setRunning(true);
+        }
+        followBall();
+        sim.launchBalls();
+        sim.step(BenchWorld.DT);
+        return sim;
+    }
+
+    // Đưa tâm paddle về phía bóng thấp nhất (cùng bot với SimulationTest)
+    private void followBall() {
+        Paddle p = sim.getPaddle();
+        Ball target = null;
+        for (Ball b : sim.getEntityManager().getBalls()) {
+            if (target == null || b.getY() > target.getY()) target = b;
+        }
+        p.release(KeyCode.LEFT);
+        p.release(KeyCode.RIGHT);
+        if (target == null) return;
+        double pc = p.getX() + p.getWidth() / 2.0;
+        double bc = target.centerX();
+        if (bc < pc - 10) p.press(KeyCode.LEFT);
+        else if (bc > pc + 10) p.press(KeyCode.RIGHT);
+    }
+}
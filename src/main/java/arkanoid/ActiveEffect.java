@@ -25,6 +25,10 @@ public class ActiveEffect {
         remaining -= dt;
     }
 
+    public double getRemaining() {
+        return remaining;
+    }
+
     public void setRemaining(double remaining) {
         this.remaining = remaining;
     }
@@ -0,0 +1,77 @@
+package arkanoid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tải trước tài nguyên trên một nhóm luồng nền (ảnh, ảnh nền, âm thanh) trong lúc màn Intro chạy.
+ * Các kho tài nguyên gửi việc qua submit(); seal() báo đã gửi xong, nhóm luồng tự tắt khi mọi việc hoàn thành.
+ * getProgress() đọc được từ luồng JavaFX để vẽ thanh tiến trình.
+ */
+public final class AssetPreloader {
+    private final ExecutorService pool;
+    private final List<CompletableFuture<?>> jobs = new ArrayList<>();
+    private final AtomicInteger done = new AtomicInteger();
+    private volatile int total = 0;
+    private CompletableFuture<Void> all;
+
+    public AssetPreloader() {
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Tải ảnh + âm thanh cho màn hình width x height (gọi trên luồng JavaFX lúc khởi động)
+    public static AssetPreloader start(double width, double height) {
+        AssetPreloader loader = new AssetPreloader();
+        Assets.get().preload(loader, width, height);
+        SoundManager.get().preload(loader);
+        loader.seal();
+        return loader;
+    }
+
+    // Gửi một việc tải; chỉ gọi trước seal()
+    public synchronized <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (all != null) throw new IllegalStateException("AssetPreloader đã seal");
+        CompletableFuture<T> f = CompletableFuture.supplyAsync(task, pool);
+        f.whenComplete((v, ex) -> done.incrementAndGet());
+        jobs.add(f);
+        total = jobs.size();
+        return f;
+    }
+
+    // Không gửi thêm việc; trả về future hoàn thành khi mọi việc xong (kể cả việc lỗi)
+    public synchronized CompletableFuture<Void> seal() {
+        if (all != null) return all;
+        CompletableFuture<?>[] fs = jobs.toArray(new CompletableFuture<?>[0]);
+        all = CompletableFuture.allOf(fs).handle((v, ex) -> null);
+        all.whenComplete((v, ex) -> pool.shutdown());
+        return all;
+    }
+
+    // Tỉ lệ việc đã xong, 0..1
+    public double getProgress() {
+        int t = total;
+        return t == 0 ? 1.0 : Math.min(1.0, done.get() / (double) t);
+    }
+
+    public boolean isDone() {
+        CompletableFuture<Void> f;
+        synchronized (this) {
+            f = all;
+        }
+        return f != null && f.isDone();
+    }
+
+    public synchronized CompletableFuture<Void> future() {
+        return seal();
+    }
+}
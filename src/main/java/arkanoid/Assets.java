@@ -0,0 +1,385 @@
+package arkanoid;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.stage.Screen;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Kho ảnh dùng chung cho mọi sprite trong game.
+ * - preload() giải mã song song mọi sprite một lần (gọi lúc khởi động, qua {@link AssetPreloader}),
+ *   ảnh nhỏ được xếp vào atlas; ảnh nền màn chơi được giải mã sẵn ở kích thước màn hình.
+ * - sprite(img, w, h) trả về bản đã thu phóng sẵn đúng kích thước trên màn hình (theo output scale),
+ *   cũng nằm trong atlas, nên mỗi khung hình chỉ là một lệnh vẽ không co giãn từ cùng một texture.
+ *   Kích thước mới được giải mã ở luồng nền; trong lúc chờ thì vẽ co giãn từ ảnh gốc.
+ * Chỉ gọi sprite()/draw() từ luồng JavaFX.
+ */
+public final class Assets {
+    public enum Img {
+        BALL("/Image/Ball/ball.png"),
+        FIREBALL("/Image/Ball/fireball.png"),
+        BRICK_1("/Image/Brick/brick1.png"),
+        BRICK_2("/Image/Brick/brick2.png"),
+        BRICK_3("/Image/Brick/brick3.png"),
+        BRICK_UNBREAKABLE("/Image/Brick/unbreakable_brick.png"),
+        BRICK_EXPLOSIVE_1("/Image/Brick/explosive_brick1.png"),
+        BRICK_EXPLOSIVE_2("/Image/Brick/explosive_brick2.png"),
+        BRICK_EXPLOSIVE_3("/Image/Brick/explosive_brick3.png"),
+        BRICK_EXPLOSIVE_4("/Image/Brick/explosive_brick4.png"),
+        PADDLE("/Image/Paddle/platform.png"),
+        PADDLE_BASE("/Image/Paddle/platform_base-Sheet.png"),
+        PADDLE_REDUCED("/Image/Paddle/platform_reduced.png"),
+        PADDLE_ENLARGED("/Image/Paddle/platform_enlarged.png"),
+        PADDLE_LASER("/Image/Paddle/laser.png"),
+        BOSS_1("/Image/Boss/1.png"),
+        BOSS_2("/Image/Boss/2.png"),
+        BOSS_3("/Image/Boss/3.png"),
+        BOSS_4("/Image/Boss/4.png"),
+        BOSS_5("/Image/Boss/5.png"),
+        BOSS_6("/Image/Boss/6.png"),
+        PU_SHRINK_PADDLE("/Image/PowerUp/SHRINK_PADDLE.png"),
+        PU_EXPAND_PADDLE("/Image/PowerUp/EXPAND_PADDLE.png"),
+        PU_TINY_BALL("/Image/PowerUp/TINY_BALL.png"),
+        PU_MULTI_BALL("/Image/PowerUp/MULTI_BALL.png"),
+        PU_SLOW_BALL("/Image/PowerUp/SLOW_BALL.png"),
+        PU_FAST_BALL("/Image/PowerUp/FAST_BALL.png"),
+        PU_NEXT_LEVEL("/Image/PowerUp/NEXT_LEVEL.png"),
+        PU_EXTRA_LIFE("/Image/PowerUp/EXTRA_LIFE.png"),
+        PU_SUDDEN_DEATH("/Image/PowerUp/SUDDEN_DEATH.png"),
+        PU_LASER_PADDLE("/Image/PowerUp/LASER_PADDLE.png"),
+        PU_FIREBALL("/Image/PowerUp/FIREBALL.png"),
+        PU_BARRIER("/Image/PowerUp/BARRIER.png"),
+        PU_WEAKEN("/Image/PowerUp/WEAKEN.png"),
+        PU_SCORE_MULTIPLIER("/Image/PowerUp/SCORE_MULTIPLIER.png"),
+        // Ảnh nền toàn màn hình: không giải mã ở kích thước gốc, chỉ tải bản đã thu phóng
+        LEVEL_BG_1("/Image/Background/level_b1.png", false),
+        LEVEL_BG_2("/Image/Background/level_b2.png", false),
+        LEVEL_BG_3("/Image/Background/level_b3.png", false),
+        LEVEL_BG_4("/Image/Background/level_b4.png", false),
+        LEVEL_BG_5("/Image/Background/level_b5.png", false),
+        LEVEL_BG_6("/Image/Background/level_b6.png", false),
+        LEVEL_BG_7("/Image/Background/level_b7.png", false),
+        LEVEL_BG_8("/Image/Background/level_b8.png", false);
+
+        public static final Img[] EXPLOSIVE_FRAMES = {BRICK_EXPLOSIVE_1, BRICK_EXPLOSIVE_2, BRICK_EXPLOSIVE_3, BRICK_EXPLOSIVE_4};
+        public static final Img[] BOSS_FRAMES = {BOSS_1, BOSS_2, BOSS_3, BOSS_4, BOSS_5, BOSS_6};
+        public static final Img[] LEVEL_BACKGROUNDS = {LEVEL_BG_1, LEVEL_BG_2, LEVEL_BG_3, LEVEL_BG_4,
+                LEVEL_BG_5, LEVEL_BG_6, LEVEL_BG_7, LEVEL_BG_8};
+        private static final Map<PowerUp.PowerType, Img> POWER_UPS = new EnumMap<>(PowerUp.PowerType.class);
+
+        static {
+            for (PowerUp.PowerType pt : PowerUp.PowerType.values()) POWER_UPS.put(pt, valueOf("PU_" + pt.name()));
+        }
+
+        final String path;
+        final boolean eager;
+
+        Img(String path) {
+            this(path, true);
+        }
+
+        Img(String path, boolean eager) {
+            this.path = path;
+            this.eager = eager;
+        }
+
+        public static Img powerUp(PowerUp.PowerType type) {
+            return POWER_UPS.get(type);
+        }
+    }
+
+    // Một vùng ảnh trong atlas (hoặc một ảnh riêng nếu quá lớn)
+    public static final class Sprite {
+        final Image image;
+        final int sx, sy, w, h;
+
+        Sprite(Image image, int sx, int sy, int w, int h) {
+            this.image = image;
+            this.sx = sx;
+            this.sy = sy;
+            this.w = w;
+            this.h = h;
+        }
+
+        public int getWidth() {
+            return w;
+        }
+
+        public int getHeight() {
+            return h;
+        }
+    }
+
+    // Một kích thước đang giải mã ở luồng nền
+    private static final class PendingSize {
+        final Img img;
+        final int w, h;
+        final CompletableFuture<Image> job;
+
+        PendingSize(Img img, int w, int h, CompletableFuture<Image> job) {
+            this.img = img;
+            this.w = w;
+            this.h = h;
+            this.job = job;
+        }
+    }
+
+    private static final int PAGE_SIZE = 1024;
+    private static final int MAX_PACKED = 512;          // ảnh lớn hơn cạnh này không xếp vào atlas
+    private static final int MAX_SIZED_PER_IMAGE = 16;  // số kích thước thu phóng sẵn tối đa cho mỗi ảnh
+
+    private static final Assets INSTANCE = new Assets();
+
+    public static Assets get() {
+        return INSTANCE;
+    }
+
+    // Ảnh gốc (chỉ ghi trong preload, đọc sau khi preload xong)
+    private final Map<Img, Sprite> base = new EnumMap<>(Img.class);
+    private final List<AtlasPage> basePages = new ArrayList<>();
+    // Bản thu phóng sẵn theo từng ảnh (chỉ dùng trên luồng JavaFX)
+    private final Map<Img, List<Sprite>> sized = new EnumMap<>(Img.class);
+    private final List<AtlasPage> sizedPages = new ArrayList<>();
+    // Bản thu phóng đang giải mã ở luồng nền (chỉ dùng trên luồng JavaFX)
+    private final List<PendingSize> pendingSized = new ArrayList<>();
+    // Ảnh không tải được (không thử lại mỗi khung hình)
+    private final Set<Img> missing = EnumSet.noneOf(Img.class);
+    private CompletableFuture<Void> loading;
+    // Ảnh nền đang giải mã sẵn ở kích thước scaledW x scaledH (prepare() lấy lại thay vì giải mã lần nữa)
+    private final Map<Img, CompletableFuture<Image>> pendingScaled = new EnumMap<>(Img.class);
+    private int scaledW, scaledH;
+    private double outputScale = 0;
+
+    private Assets() {
+    }
+
+    /**
+     * Bắt đầu giải mã song song mọi sprite (gọi lại nhiều lần không sao).
+     * Trả về future hoàn thành khi atlas đã sẵn sàng.
+     */
+    public synchronized CompletableFuture<Void> preload() {
+        if (loading != null) return loading;
+        AssetPreloader loader = new AssetPreloader();
+        preload(loader, 0, 0);
+        loader.seal();
+        return loading;
+    }
+
+    /**
+     * Gửi việc giải mã sprite vào loader; screenW, screenH > 0 thì giải mã sẵn cả ảnh nền màn chơi
+     * ở kích thước màn hình (gọi trên luồng JavaFX vì cần output scale của màn hình).
+     */
+    public synchronized CompletableFuture<Void> preload(AssetPreloader loader, double screenW, double screenH) {
+        if (loading != null) return loading;
+        Map<Img, CompletableFuture<Image>> decoded = new EnumMap<>(Img.class);
+        for (Img img : Img.values()) {
+            if (img.eager) decoded.put(img, loader.submit(() -> decode(img, 0, 0)));
+        }
+        if (screenW > 0 && screenH > 0) {
+            if (outputScale == 0) outputScale = Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+            scaledW = Math.max(1, (int) Math.round(screenW * outputScale));
+            scaledH = Math.max(1, (int) Math.round(screenH * outputScale));
+            for (Img img : Img.LEVEL_BACKGROUNDS) {
+                pendingScaled.put(img, loader.submit(() -> decode(img, scaledW, scaledH)));
+            }
+        }
+        loading = CompletableFuture.allOf(decoded.values().toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    // xếp atlas tuần tự theo thứ tự enum để kết quả ổn định
+                    for (Map.Entry<Img, CompletableFuture<Image>> e : decoded.entrySet()) {
+                        Image img = e.getValue().join();
+                        if (img != null) base.put(e.getKey(), pack(img, basePages));
+                    }
+                })
+                .whenComplete((v, ex) -> {
+                    if (ex != null) System.err.println("Lỗi tải ảnh: " + ex.getMessage());
+                });
+        return loading;
+    }
+
+    private void awaitLoaded() {
+        CompletableFuture<Void> f = preload();
+        if (!f.isDone()) {
+            try {
+                f.join();
+            } catch (Exception e) {
+                // lỗi đã được báo trong preload; các ảnh thiếu sẽ vẽ dự phòng
+            }
+        }
+    }
+
+    // Ảnh ở kích thước gốc; null nếu tải lỗi
+    public Sprite sprite(Img img) {
+        awaitLoaded();
+        return base.get(img);
+    }
+
+    public boolean isAvailable(Img img) {
+        return img.eager ? sprite(img) != null : !missing.contains(img);
+    }
+
+    /**
+     * Bản đã thu phóng sẵn để vẽ ở kích thước w x h (đơn vị logic).
+     * Tạo một lần cho mỗi kích thước; trong lúc giải mã kích thước mới thì trả về ảnh gốc
+     * (vẽ co giãn). Null nếu ảnh không tải được.
+     */
+    public Sprite sprite(Img img, double w, double h) {
+        if (outputScale == 0) outputScale = Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+        int pw = Math.max(1, (int) Math.round(w * outputScale));
+        int ph = Math.max(1, (int) Math.round(h * outputScale));
+
+        List<Sprite> list = sized.get(img);
+        if (list != null) {
+            for (int i = 0; i < list.size(); i++) {
+                Sprite s = list.get(i);
+                if (s.w == pw && s.h == ph) return s;
+            }
+        }
+        if (missing.contains(img)) return null;
+        Sprite orig = null;
+        if (img.eager) {
+            orig = sprite(img);
+            if (orig == null) {
+                missing.add(img);
+                return null;
+            }
+            if (orig.w == pw && orig.h == ph) return orig;
+        }
+        if (list == null) {
+            list = new ArrayList<>(2);
+            sized.put(img, list);
+        }
+        if (list.size() >= MAX_SIZED_PER_IMAGE) return orig; // quá nhiều kích thước: vẽ co giãn từ ảnh gốc
+        // ảnh nền không có bản gốc để vẽ tạm: giải mã ngay (thường đã có sẵn qua prepare())
+        if (orig == null) return addSized(img, list, null, decode(img, pw, ph));
+
+        int inFlight = 0;
+        for (int i = 0; i < pendingSized.size(); i++) {
+            PendingSize p = pendingSized.get(i);
+            if (p.img != img) continue;
+            if (p.w == pw && p.h == ph) {
+                if (!p.job.isDone()) return orig;
+                Image scaled = p.job.join();
+                if (scaled == null) return orig; // giải mã lỗi: giữ mục này để không thử lại
+                pendingSized.remove(i);
+                return addSized(img, list, orig, scaled);
+            }
+            inFlight++;
+        }
+        if (list.size() + inFlight < MAX_SIZED_PER_IMAGE) {
+            pendingSized.add(new PendingSize(img, pw, ph, CompletableFuture.supplyAsync(() -> decode(img, pw, ph))));
+        }
+        return orig;
+    }
+
+    private Sprite addSized(Img img, List<Sprite> list, Sprite orig, Image scaled) {
+        if (scaled == null) {
+            if (orig == null) missing.add(img);
+            return orig;
+        }
+        Sprite s = pack(scaled, sizedPages);
+        list.add(s);
+        return s;
+    }
+
+    /**
+     * Tạo trước bản thu phóng w x h cho nhiều ảnh, giải mã song song (vd. toàn bộ ảnh nền màn chơi).
+     */
+    public void prepare(Img[] imgs, double w, double h) {
+        if (outputScale == 0) outputScale = Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+        int pw = Math.max(1, (int) Math.round(w * outputScale));
+        int ph = Math.max(1, (int) Math.round(h * outputScale));
+        List<CompletableFuture<Image>> jobs = new ArrayList<>();
+        for (Img img : imgs) {
+            CompletableFuture<Image> pending;
+            synchronized (this) {
+                pending = pw == scaledW && ph == scaledH ? pendingScaled.remove(img) : null;
+            }
+            jobs.add(pending != null ? pending : CompletableFuture.supplyAsync(() -> decode(img, pw, ph)));
+        }
+        for (int i = 0; i < imgs.length; i++) {
+            Img img = imgs[i];
+            Image scaled = jobs.get(i).join();
+            if (sized.containsKey(img) || missing.contains(img)) continue;
+            List<Sprite> list = new ArrayList<>(2);
+            sized.put(img, list);
+            addSized(img, list, img.eager ? sprite(img) : null, scaled);
+        }
+    }
+
+    /**
+     * Vẽ ảnh vào (x, y, w, h); trả về false nếu ảnh không có để nơi gọi vẽ dự phòng.
+     */
+    public boolean draw(GraphicsContext gc, Img img, double x, double y, double w, double h) {
+        Sprite s = sprite(img, w, h);
+        if (s == null) return false;
+        gc.drawImage(s.image, s.sx, s.sy, s.w, s.h, x, y, w, h);
+        return true;
+    }
+
+    // Giải mã ảnh; w,h > 0 thì để bộ giải mã thu phóng (mượt) về đúng kích thước
+    private static Image decode(Img img, int w, int h) {
+        try (InputStream in = Assets.class.getResourceAsStream(img.path)) {
+            if (in == null) {
+                System.err.println("Không tìm thấy tài nguyên ảnh: " + img.path);
+                return null;
+            }
+            Image image = w > 0 ? new Image(in, w, h, false, true) : new Image(in);
+            if (image.isError()) {
+                System.err.println("Lỗi tải ảnh: " + img.path);
+                return null;
+            }
+            return image;
+        } catch (Exception e) {
+            System.err.println("Lỗi tải ảnh: " + img.path + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    // Chép ảnh vào trang atlas còn chỗ; ảnh lớn được giữ riêng
+    private static Sprite pack(Image img, List<AtlasPage> pages) {
+        int w = (int) img.getWidth();
+        int h = (int) img.getHeight();
+        if (w > MAX_PACKED || h > MAX_PACKED) return new Sprite(img, 0, 0, w, h);
+        for (int i = 0; i < pages.size(); i++) {
+            Sprite s = pages.get(i).add(img, w, h);
+            if (s != null) return s;
+        }
+        AtlasPage page = new AtlasPage();
+        pages.add(page);
+        return page.add(img, w, h);
+    }
+
+    /**
+     * Một trang atlas xếp theo kệ (shelf): ảnh được đặt từ trái sang phải,
+     * hết chỗ thì xuống kệ mới. Chừa 1px giữa các ảnh để tránh lem màu khi lọc.
+     */
+    private static final class AtlasPage {
+        private static final int PAD = 1;
+        final WritableImage image = new WritableImage(PAGE_SIZE, PAGE_SIZE);
+        private int cursorX = 0, cursorY = 0, shelfH = 0;
+
+        Sprite add(Image src, int w, int h) {
+            if (cursorX + w > PAGE_SIZE) {
+                cursorX = 0;
+                cursorY += shelfH + PAD;
+                shelfH = 0;
+            }
+            if (cursorY + h > PAGE_SIZE) return null;
+            image.getPixelWriter().setPixels(cursorX, cursorY, w, h, src.getPixelReader(), 0, 0);
+            Sprite s = new Sprite(image, cursorX, cursorY, w, h);
+            cursorX += w + PAD;
+            shelfH = Math.max(shelfH, h);
+            return s;
+        }
+    }
+}
@@ -2,12 +2,8 @@ package arkanoid;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.effect.BlendMode;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class Ball extends GameObject {
     private double vx, vy; // vận tốc theo trục x,y
     private double speed; // vận tốc tổng cố định (để chuẩn hóa khi đổi hướng)
@@ -16,37 +12,26 @@ public class Ball extends GameObject {
     private Paddle paddle; // tham chiếu tới paddle để đặt bóng trên paddle khi stuck
     private boolean fireball = false;     // nếu true => phá hủy mọi brick chạm phải
     private boolean penetrating = false;   // nếu true => không nảy khi va chạm brick (xuyên phá)
-    private final List<TrailSegment> trail = new ArrayList<>();
     private double trailTimer = 0.0;
     private double trailInterval = 0.02;    // sinh 1 trail mỗi 0.02s (tăng để vệt mượt hơn)
-    private int trailMax = 30;              // số segment tối đa giữ lại
+    private final int trailMax = 30;        // số segment tối đa giữ lại
     private double trailLife = 0.45;        // mỗi segment sống 0.45s
     private double trailRadiusMul = 0.9;    // segment radius = ball.radius * mul
-    private static Image imgBallNormal; // Ảnh bóng thường
-    private static Image imgFireball;   // Ảnh bóng lửa
-
-
-    static {
-        try {
-            imgBallNormal = new Image(Ball.class.getResourceAsStream("/Image/Ball/ball.png"));
-            if (imgBallNormal.isError()) imgBallNormal = null;
-        } catch (Exception e) {
-            System.err.println("Không tải được ảnh bóng (ball.png). Sẽ dùng màu cam dự phòng.");
-            imgBallNormal = null;
-        }
-
-        try {
-            // Tải ảnh fireball mới
-            imgFireball = new Image(Ball.class.getResourceAsStream("/Image/Ball/fireball.png"));
-            if (imgFireball.isError()) {
-                throw new Exception("Lỗi khi tải ảnh: " + imgFireball.getException().getMessage());
-            }
-        } catch (Exception e) {
-            System.err.println("LỖI: Không tải được ảnh /Image/Ball/fireball.png. " + e.getMessage());
-            imgFireball = null;
-        }
-    }
-
+    // Vệt đuôi dạng ring buffer cố định: segment cũ nhất ở trailHead, không tạo object cho từng segment
+    private final double[] trailX = new double[trailMax];
+    private final double[] trailY = new double[trailMax];
+    private final double[] trailR = new double[trailMax];
+    private final double[] trailLeft = new double[trailMax]; // thời gian sống còn lại
+    private int trailHead = 0;
+    private int trailCount = 0;
+
+    // Màu vẽ trail (tạo sẵn, tránh cấp phát mỗi khung hình)
+    private static final Color FIRE_HALO = Color.rgb(255, 140, 30);
+    private static final Color FIRE_OUTER = Color.rgb(255, 160, 40);
+    private static final Color FIRE_INNER = Color.rgb(255, 100, 20);
+    private static final Color FIRE_CORE = Color.rgb(255, 220, 140);
+    private static final Color TRAIL_FILL = Color.ORANGE.deriveColor(0, 1, 1, 0.55);
+    private static final Color TRAIL_STROKE = Color.ORANGE.deriveColor(0, 1, 1, 0.9);
     public Ball(double x, double y, double radius, Paddle paddle) {
         // x,y truyền vào là tâm, chuyển về góc trái trên cho GameObject
         super(x - radius, y - radius, radius * 2, radius * 2);
@@ -57,13 +42,24 @@ public class Ball extends GameObject {
         this.vy = -speed; // mặc định hướng lên
     }
 
-    // Setter & Getter thêm cho Boss collision
+    // Dịch chuyển tức thời (khôi phục save): không nội suy từ chỗ cũ
     public void setX(double x) {
         this.x = x;
+        this.prevX = x;
     }
 
     public void setY(double y) {
         this.y = y;
+        this.prevY = y;
+    }
+
+    // Đẩy bóng ra khỏi tường/boss khi va chạm: vẫn nội suy từ vị trí đầu bước
+    public void correctX(double x) {
+        this.x = x;
+    }
+
+    public void correctY(double y) {
+        this.y = y;
     }
 
     public double getX() {
@@ -100,12 +96,12 @@ public class Ball extends GameObject {
         normalizeVelocity();
     }
 
-    // Phóng bóng khi người chơi nhấn SPACE
-    public void launch() {
+    // Phóng bóng khi người chơi nhấn SPACE; hướng ngang lấy từ nguồn ngẫu nhiên của mô phỏng
+    public void launch(GameRandom random) {
         if (!stuckToPaddle) return;
         stuckToPaddle = false;
         // Thêm thành phần ngang ngẫu nhiên để tạo độ khó/độ đa dạng
-        this.vx = 200 - Math.random() * 400;
+        this.vx = 200 - random.nextDouble() * 400;
         this.vy = -Math.sqrt(speed * speed - vx * vx);
         normalizeVelocity();
     }
@@ -114,6 +110,7 @@ public class Ball extends GameObject {
     public void resetToPaddle() {
         stuckToPaddle = true;
         positionOnPaddle();
+        snapshotPosition(); // dịch chuyển tức thời về paddle
         vx = 0;
         vy = -speed;
     }
@@ -141,65 +138,117 @@ public class Ball extends GameObject {
         }
         x += vx * deltaTime;
         y += vy * deltaTime;
-        // quản lý trail
+        updateTrail(deltaTime);
+    }
+
+    // Di chuyển thẳng theo vận tốc hiện tại trong time giây (CollisionManager dùng khi quét va chạm)
+    void advance(double time) {
+        x += vx * time;
+        y += vy * time;
+    }
+
+    // Phản xạ vận tốc qua pháp tuyến đơn vị (nx, ny) tại điểm chạm
+    void reflect(double nx, double ny) {
+        double dot = vx * nx + vy * ny;
+        if (dot >= 0) return; // đã đi ra xa bề mặt
+        vx -= 2 * dot * nx;
+        vy -= 2 * dot * ny;
+        clampBounceAngle();
+    }
+
+    // quản lý trail
+    void updateTrail(double deltaTime) {
         trailTimer += deltaTime;
         while (trailTimer >= trailInterval) {
             trailTimer -= trailInterval;
             // thêm segment tại vị trí tâm quả bóng
-            trail.add(new TrailSegment(centerX(), centerY(), radius * trailRadiusMul, trailLife));
-            if (trail.size() > trailMax) {
-                trail.remove(0);
-            }
+            pushTrail(centerX(), centerY(), radius * trailRadiusMul);
+        }
+        // update segments
+        for (int k = 0; k < trailCount; k++) {
+            int i = trailIndex(k);
+            trailLeft[i] = Math.max(0, trailLeft[i] - deltaTime);
+        }
+        // mọi segment có cùng tuổi thọ nên segment chết luôn là các segment cũ nhất
+        while (trailCount > 0 && trailLeft[trailHead] <= 0) {
+            trailHead = (trailHead + 1) % trailMax;
+            trailCount--;
         }
-        // update segments (và loại bỏ đã chết)
-        java.util.Iterator<TrailSegment> it = trail.iterator();
-        while (it.hasNext()) {
-            TrailSegment s = it.next();
-            s.update(deltaTime);
-            if (!s.isAlive()) it.remove();
+    }
+
+    // Thêm segment mới; khi đầy thì ghi đè segment cũ nhất
+    private void pushTrail(double cx, double cy, double r) {
+        int i;
+        if (trailCount == trailMax) {
+            i = trailHead;
+            trailHead = (trailHead + 1) % trailMax;
+        } else {
+            i = trailIndex(trailCount);
+            trailCount++;
         }
+        trailX[i] = cx;
+        trailY[i] = cy;
+        trailR[i] = r;
+        trailLeft[i] = trailLife;
+    }
+
+    // Vị trí trong mảng của segment thứ k (0 = cũ nhất)
+    private int trailIndex(int k) {
+        int i = trailHead + k;
+        return i >= trailMax ? i - trailMax : i;
+    }
+
+    private double trailAlpha(int i) {
+        return Math.max(0, trailLeft[i] / trailLife);
+    }
+
+    int trailSize() {
+        return trailCount;
     }
 
     @Override
     public void render(GraphicsContext gc) {
-        // sao chép ảnh chụp nhanh để tránh sửa đổi đồng thời
-        List<TrailSegment> snapshot = new ArrayList<>(trail);
+        // vị trí nội suy giữa 2 bước mô phỏng
+        double rx = renderX();
+        double ry = renderY();
 
         if (this.fireball) {
             // Additive glow: vẽ nhiều vòng lớn mờ dần với BlendMode.ADD
             gc.setGlobalBlendMode(BlendMode.ADD);
             gc.setGlobalAlpha(0.28);
-            gc.setFill(Color.rgb(255, 140, 30));
+            gc.setFill(FIRE_HALO);
             double haloR = radius * 2.4;
-            gc.fillOval(centerX() - haloR, centerY() - haloR, haloR * 2, haloR * 2);
+            gc.fillOval(rx + radius - haloR, ry + radius - haloR, haloR * 2, haloR * 2);
             gc.setGlobalAlpha(1.0);
             gc.setGlobalBlendMode(BlendMode.SRC_OVER);
 
             // ánh sáng mềm mại bên ngoài (lớn, rất mờ)
-            for (TrailSegment s : snapshot) {
-                double a = s.alpha(); // 0..1
+            gc.setFill(FIRE_OUTER);
+            for (int k = 0; k < trailCount; k++) {
+                int i = trailIndex(k);
+                double a = trailAlpha(i); // 0..1
                 // bán kính ngoài lớn hơn bán kính đoạn để tạo ra quầng sáng mềm
-                double outerR = s.radius * 2.2;
+                double outerR = trailR[i] * 2.2;
                 gc.setGlobalAlpha(a * 0.12);
-                gc.setFill(Color.rgb(255, 160, 40));
-                gc.fillOval(s.x - outerR, s.y - outerR, outerR * 2, outerR * 2);
+                gc.fillOval(trailX[i] - outerR, trailY[i] - outerR, outerR * 2, outerR * 2);
             }
 
             // ánh sáng bên trong (sáng hơn)
-            for (TrailSegment s : snapshot) {
-                double a = s.alpha();
-                double innerR = s.radius * 1.15;
-                gc.setGlobalAlpha(a * 0.28);
-                gc.setFill(Color.rgb(255, 100, 20));
-                gc.fillOval(s.x - innerR, s.y - innerR, innerR * 2, innerR * 2);
+            gc.setFill(FIRE_INNER);
+            for (int k = 0; k < trailCount; k++) {
+                int i = trailIndex(k);
+                double innerR = trailR[i] * 1.15;
+                gc.setGlobalAlpha(trailAlpha(i) * 0.28);
+                gc.fillOval(trailX[i] - innerR, trailY[i] - innerR, innerR * 2, innerR * 2);
             }
 
             // lõi tròn nhỏ cho vẻ ngoài sắc nét hơn
-            for (TrailSegment s : snapshot) {
-                double a = s.alpha();
-                gc.setGlobalAlpha(a * 0.9);
-                gc.setFill(Color.rgb(255, 220, 140));
-                gc.fillOval(s.x - s.radius, s.y - s.radius, s.radius * 2, s.radius * 2);
+            gc.setFill(FIRE_CORE);
+            for (int k = 0; k < trailCount; k++) {
+                int i = trailIndex(k);
+                double r = trailR[i];
+                gc.setGlobalAlpha(trailAlpha(i) * 0.9);
+                gc.fillOval(trailX[i] - r, trailY[i] - r, r * 2, r * 2);
             }
 
             // khôi phục sự pha trộn và alpha
@@ -207,33 +256,31 @@ public class Ball extends GameObject {
             gc.setGlobalBlendMode(BlendMode.SRC_OVER);
         }
 
-        for (TrailSegment s : snapshot) {
-            double a = s.alpha();
+        gc.setFill(TRAIL_FILL);
+        gc.setStroke(TRAIL_STROKE);
+        for (int k = 0; k < trailCount; k++) {
+            int i = trailIndex(k);
+            double a = trailAlpha(i);
+            double r = trailR[i];
             gc.setGlobalAlpha(a * 0.85);
-            gc.setFill(Color.ORANGE.deriveColor(0, 1, 1, 0.55));
-            gc.fillOval(s.x - s.radius, s.y - s.radius, s.radius * 2, s.radius * 2);
+            gc.fillOval(trailX[i] - r, trailY[i] - r, r * 2, r * 2);
             gc.setGlobalAlpha(a * 0.6);
-            gc.setStroke(Color.ORANGE.deriveColor(0, 1, 1, 0.9));
-            gc.strokeOval(s.x - s.radius, s.y - s.radius, s.radius * 2, s.radius * 2);
+            gc.strokeOval(trailX[i] - r, trailY[i] - r, r * 2, r * 2);
             gc.setGlobalAlpha(1.0);
         }
 
         // 3. Thay thế code vẽ hình tròn màu cam bằng logic if/else
 
-        if (this.fireball && imgFireball != null) {
-            // Vẽ ảnh fireball (tại tọa độ x, y của GameObject)
-            gc.drawImage(imgFireball, x, y, radius * 2, radius * 2);
-
-        } else if (imgBallNormal != null) {
-            // Vẽ ảnh bóng thường
-            gc.drawImage(imgBallNormal, x, y, radius * 2, radius * 2);
-
-        } else {
+        // Vẽ ảnh fireball hoặc bóng thường (tại tọa độ nội suy của GameObject)
+        Assets assets = Assets.get();
+        boolean drawn = this.fireball && assets.draw(gc, Assets.Img.FIREBALL, rx, ry, radius * 2, radius * 2);
+        if (!drawn) drawn = assets.draw(gc, Assets.Img.BALL, rx, ry, radius * 2, radius * 2);
+        if (!drawn) {
             // Dự phòng (fallback): Vẽ hình tròn màu cam
             gc.setFill(javafx.scene.paint.Color.ORANGE);
-            gc.fillOval(x, y, radius * 2, radius * 2);
+            gc.fillOval(rx, ry, radius * 2, radius * 2);
             gc.setStroke(javafx.scene.paint.Color.DARKGRAY);
-            gc.strokeOval(x, y, radius * 2, radius * 2);
+            gc.strokeOval(rx, ry, radius * 2, radius * 2);
         }
     }
 
@@ -264,30 +311,37 @@ public class Ball extends GameObject {
         this.fireball = f;
     }
 
-    // Kiểm tra va chạm và trả phản xạ với 2 cạnh tường trái/phải và trần
-    public void collideWithWalls(double arenaWidth, double arenaHeight) {
+    // Kiểm tra va chạm và trả phản xạ với 2 cạnh tường trái/phải và trần; trả về true nếu có nảy
+    public boolean collideWithWalls(double arenaWidth, double arenaHeight) {
+        boolean bounced = false;
         if (x <= 0) {
             x = 0;
             vx = Math.abs(vx); // bật về phải
-            SoundManager.get().play(SoundManager.Sfx.BOUNCE_WALL);
+            bounced = true;
         } else if (x + width >= arenaWidth) {
             x = arenaWidth - width;
             vx = -Math.abs(vx); // bật về trái
-            SoundManager.get().play(SoundManager.Sfx.BOUNCE_WALL);
+            bounced = true;
         }
 
         if (y <= 0) {
             y = 0;
             vy = Math.abs(vy); // bật xuống
-            SoundManager.get().play(SoundManager.Sfx.BOUNCE_WALL);
+            bounced = true;
         }
         clampBounceAngle();
+        return bounced;
+    }
+
+    // Va chạm với paddle: tính góc nảy dựa trên vị trí chạm trên paddle; trả về true nếu có chạm
+    public boolean collideWithPaddle(Paddle p) {
+        if (!this.intersects(p)) return false;
+        bounceOffPaddle(p);
+        return true;
     }
 
-    // Va chạm với paddle: tính góc nảy dựa trên vị trí chạm trên paddle
-    public void collideWithPaddle(Paddle p) {
-        if (!this.intersects(p)) return;
-        SoundManager.get().play(SoundManager.Sfx.BOUNCE_PADDLE);
+    // Phản hồi khi bóng chạm paddle (đã biết là chạm: chồng lấn hoặc vừa chạm khi quét)
+    void bounceOffPaddle(Paddle p) {
         // Kiểm tra xem có phải va chạm cạnh bên hoặc phía dưới paddle không
         if (y + height > paddle.getY() + 12) {
             // Va chạm cạnh bên hoặc phía dưới paddle
@@ -392,6 +446,7 @@ public class Ball extends GameObject {
 
     public void setPositionY(double newY) {
         this.y = newY;
+        this.prevY = newY;
     }
 
     // Đảo chiều theo trục Y để bật bóng lên (dùng khi barrier chặn 1 lần).
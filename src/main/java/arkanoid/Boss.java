@@ -1,7 +1,6 @@
 package arkanoid;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
@@ -27,13 +26,16 @@ public class Boss {
 
     private int hitCount = 0;
     private final List<PowerUp> droppedPowerUps = new ArrayList<>();
+    // Sự kiện bắn/trúng đạn/chết cho âm thanh; hàng đợi nhỏ riêng cho tới khi Simulation gắn hàng đợi chung
+    private GameEvents events = new GameEvents(16);
+    private GameRandom random = new GameRandom();
+    // vị trí ở bước mô phỏng trước và hệ số nội suy khi vẽ
+    private double prevX, prevY;
+    private double interpAlpha = 1.0;
 
     public List<BossBullet> bullets = new ArrayList<>();
 
-    // 1. Danh sách lưu 6 ảnh
-    private static final List<Image> bossFrames = new ArrayList<>();
-
-    // 2. Biến điều khiển animation (tĩnh)
+    // Biến điều khiển animation (tĩnh)
     private static double animTimer = 0.0;
     private static int currentFrameIndex = 0;
     private static final int NUM_FRAMES = 6; // Tổng số ảnh (1-6)
@@ -41,31 +43,10 @@ public class Boss {
     private static final double FRAME_DURATION = 0.1;
 
 
-    static {
-        for (int i = 1; i <= NUM_FRAMES; i++) {
-            String path = "/Image/Boss/" + i + ".png";
-            try {
-                Image img = new Image(Boss.class.getResourceAsStream(path));
-                if (img.isError()) {
-                    System.err.println("Lỗi tải ảnh Boss: " + path);
-                    bossFrames.add(null);
-                } else {
-                    bossFrames.add(img);
-                }
-            } catch (Exception e) {
-                System.err.println("Không tìm thấy tài nguyên Boss: " + path);
-                bossFrames.add(null);
-            }
-        }
-    }
-
     /**
      * Hàm này được gọi bởi Game.java mỗi frame để chạy animation
      */
     public static void updateAnimation(double dt) {
-        // Đảm bảo có ảnh để animate
-        if (bossFrames.isEmpty() || bossFrames.get(0) == null) return;
-
         animTimer += dt;
         if (animTimer >= FRAME_DURATION) {
             animTimer -= FRAME_DURATION;
@@ -77,6 +58,8 @@ public class Boss {
     public Boss(double x, double y, double width, double height, double leftBound, double rightBound) {
         this.x = x;
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
         this.width = width;
         this.height = height;
         this.leftBound = leftBound;
@@ -133,9 +116,9 @@ public class Boss {
     // Bắn 1 viên ngẫu nhiên
     private void shootRandom() {
         double bulletY = y + height;
-        double randomAngle = Math.toRadians(60 + Math.random() * 60); // 60°–120°
+        double randomAngle = Math.toRadians(60 + random.nextDouble() * 60); // 60°–120°
         bullets.add(new BossBullet(x + width / 2 - 4, bulletY, 8, 16, bulletSpeed, randomAngle));
-        SoundManager.get().play(SoundManager.Sfx.BOSS_SHOOT);
+        events.publish(GameEvents.BOSS_SHOOT);
     }
 
     // Bắn 2 viên cố định
@@ -148,33 +131,52 @@ public class Boss {
         for (double a : angles) {
             bullets.add(new BossBullet(x + width / 2 - 4, bulletY, 8, 16, bulletSpeed, a));
         }
-        SoundManager.get().play(SoundManager.Sfx.BOSS_SHOOT);
+        events.publish(GameEvents.BOSS_SHOOT);
     }
 
-    public void render(GraphicsContext gc) {
-        Image currentFrame = null;
-        if (!bossFrames.isEmpty() && currentFrameIndex < bossFrames.size()) {
-            currentFrame = bossFrames.get(currentFrameIndex);
-        }
+    // lưu vị trí trước khi chạy một bước mô phỏng, kể cả đạn và power-up boss thả ra
+    public void snapshotPosition() {
+        prevX = x;
+        prevY = y;
+        for (int i = 0; i < bullets.size(); i++) bullets.get(i).snapshotPosition();
+        for (int i = 0; i < droppedPowerUps.size(); i++) droppedPowerUps.get(i).snapshotPosition();
+    }
 
-        if (currentFrame != null) {
-            // Vẽ ảnh animation
-            gc.drawImage(currentFrame, x, y, width, height);
-        } else {
+    public void setInterpAlpha(double alpha) {
+        this.interpAlpha = alpha;
+        for (int i = 0; i < bullets.size(); i++) bullets.get(i).setInterpAlpha(alpha);
+        for (int i = 0; i < droppedPowerUps.size(); i++) droppedPowerUps.get(i).setInterpAlpha(alpha);
+    }
+
+    // vị trí nội suy giữa bước trước và bước hiện tại, dùng khi vẽ
+    double renderX() {
+        return prevX + (x - prevX) * interpAlpha;
+    }
+
+    double renderY() {
+        return prevY + (y - prevY) * interpAlpha;
+    }
+
+    public void render(GraphicsContext gc) {
+        double rx = renderX();
+        double ry = renderY();
+        // Vẽ ảnh animation
+        Assets.Img currentFrame = Assets.Img.BOSS_FRAMES[currentFrameIndex % NUM_FRAMES];
+        if (!Assets.get().draw(gc, currentFrame, rx, ry, width, height)) {
             // Dự phòng (fallback): Vẽ hình chữ nhật
             gc.setFill(Color.DARKRED);
-            gc.fillRect(x, y, width, height);
+            gc.fillRect(rx, ry, width, height);
             gc.setStroke(Color.WHITE);
             gc.setLineWidth(2);
-            gc.strokeRect(x, y, width, height);
+            gc.strokeRect(rx, ry, width, height);
         }
 
         // Thanh máu
         double barWidth = width * (health / maxHealth);
         gc.setFill(Color.LIMEGREEN);
-        gc.fillRect(x, y - 10, barWidth, 6);
+        gc.fillRect(rx, ry - 10, barWidth, 6);
         gc.setStroke(Color.BLACK);
-        gc.strokeRect(x, y - 10, width, 6);
+        gc.strokeRect(rx, ry - 10, width, 6);
 
         // Vẽ đạn
         for (BossBullet bullet : bullets) {
@@ -207,21 +209,57 @@ public class Boss {
         return height;
     }
 
+    public double getLeftBound() {
+        return leftBound;
+    }
+
+    public double getRightBound() {
+        return rightBound;
+    }
+
+    public double getDirection() {
+        return direction;
+    }
+
+    public void setDirection(double direction) {
+        this.direction = direction;
+    }
+
+    public double getHealth() {
+        return health;
+    }
+
+    public double getMaxHealth() {
+        return maxHealth;
+    }
+
+    // Đặt máu trực tiếp (dùng khi khôi phục save), không phát âm thanh / rơi PowerUp
+    public void setHealth(double health) {
+        this.health = Math.max(0, Math.min(maxHealth, health));
+    }
+
+    public void setEvents(GameEvents events) {
+        this.events = events;
+    }
+
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
     // Trừ máu boss khi trúng đạn
     public void takeDamage(double damage, PowerUpManager powerUpManager, EntityManager entities) {
         health -= damage;
         if (health < 0) health = 0;
         flashTimer = 0.2;
-        SoundManager.get().play(SoundManager.Sfx.BOSS_HIT);
+        events.publish(GameEvents.BOSS_HIT);
         hitCount++; // tăng đếm khi trúng bóng
-        if (hitCount >= 2 + (int) (Math.random() * 2)) {
+        if (hitCount >= 2 + (int) (random.nextDouble() * 2)) {
             dropPowerUp(powerUpManager, entities); // rơi PowerUp
             hitCount = 0;  // reset bộ đếm
         }
 
         if (health <= 0) {
-            // SFX: Boss chết
-            SoundManager.get().play(SoundManager.Sfx.BOSS_DEATH);
+            events.publish(GameEvents.BOSS_DEATH);
         }
     }
 
@@ -9,10 +9,15 @@ public class BossBullet {
     private double speed; // pixel/s
     private double angle; // góc bắn (radian)
     private double dx, dy; // vector vận tốc
+    // vị trí ở bước mô phỏng trước và hệ số nội suy khi vẽ
+    private double prevX, prevY;
+    private double interpAlpha = 1.0;
 
     public BossBullet(double x, double y, double width, double height, double speed, double angle) {
         this.x = x;
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
         this.width = width;
         this.height = height;
         this.speed = speed;
@@ -23,14 +28,46 @@ public class BossBullet {
         this.dy = Math.sin(angle) * speed;
     }
 
+    public double getVx() {
+        return dx;
+    }
+
+    public double getVy() {
+        return dy;
+    }
+
+    public void setVelocity(double vx, double vy) {
+        this.dx = vx;
+        this.dy = vy;
+    }
+
     public void update(double dt) {
         x += dx * dt;
         y += dy * dt;
     }
 
+    // lưu vị trí trước khi chạy một bước mô phỏng (nội suy khi vẽ, như GameObject)
+    public void snapshotPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    public void setInterpAlpha(double alpha) {
+        this.interpAlpha = alpha;
+    }
+
+    // vị trí nội suy giữa bước trước và bước hiện tại, dùng khi vẽ
+    double renderX() {
+        return prevX + (x - prevX) * interpAlpha;
+    }
+
+    double renderY() {
+        return prevY + (y - prevY) * interpAlpha;
+    }
+
     public void render(GraphicsContext gc) {
         gc.setFill(Color.ORANGERED);
-        gc.fillOval(x, y, width, height);
+        gc.fillOval(renderX(), renderY(), width, height);
     }
 
     // Kiểm tra va chạm với paddle
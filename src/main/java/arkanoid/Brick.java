@@ -1,12 +1,8 @@
 package arkanoid;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class Brick extends GameObject {
     public enum Type {NORMAL, INDESTRUCTIBLE, EXPLOSIVE}
 
@@ -28,18 +24,19 @@ public class Brick extends GameObject {
     public static final double FLASH_DURATION = 0.18; // độ dài flash
     private Color flashColor = Color.WHITE;
 
-    // 1. Ảnh cho gạch thường
-    private static Image imgBrick1;
-    private static Image imgBrick2;
-    private static Image imgBrick3;
-
-    // 2. Ảnh gạch đặc biệt
-    private static Image imgUnbreakable;
-
-    // 3. Ảnh động cho gạch nổ
-    private static final List<Image> imgExplosiveFrames = new ArrayList<>();
-
-    // 4. Biến điều khiển animation
+    // Trạng thái chỉ mục trong BrickGrid (do EntityManager quản lý)
+    long gridSeq = -1;   // thứ tự trong danh sách gạch
+    int gridC0 = -1, gridC1 = -1, gridR0 = -1, gridR1 = -1; // dải ô đang chiếm; gridC0 < 0 = chưa đăng ký
+    int queryStamp = 0;  // tránh trùng lặp khi truy vấn
+    // Đánh dấu của CollisionManager.handleExplosion (thay cho HashSet visited / toRemove)
+    int visitStamp = 0, blastStamp = 0;
+    // Ô (hàng, cột) trong lưới level; -1 nếu gạch không sinh từ LevelLoader
+    int slotRow = -1, slotCol = -1;
+    // Phiên bản hình ảnh (tăng khi ảnh gạch đổi) và trạng thái trong BrickLayer
+    int visualVersion = 0;
+    int layerGeneration = 0, layerVersion = -1;
+
+    // Biến điều khiển animation
     private static double explosiveAnimTimer = 0.0;
     private static int explosiveAnimIndex = 0;
     private static final double EXPLOSIVE_FRAME_DURATION = 0.1; // Thời gian mỗi khung hình (0.1s)
@@ -47,35 +44,6 @@ public class Brick extends GameObject {
     private static final int[] explosiveAnimSequence = {0, 1, 2, 3, 3, 2, 1, 0};
 
 
-    static {
-        // Tải 3 khung hình gạch thường
-        imgBrick1 = loadImage("/Image/Brick/brick1.png");
-        imgBrick2 = loadImage("/Image/Brick/brick2.png");
-        imgBrick3 = loadImage("/Image/Brick/brick3.png");
-        imgUnbreakable = loadImage("/Image/Brick/unbreakable_brick.png");
-
-        // Tải 4 khung hình gạch nổ
-        imgExplosiveFrames.add(loadImage("/Image/Brick/explosive_brick1.png"));
-        imgExplosiveFrames.add(loadImage("/Image/Brick/explosive_brick2.png"));
-        imgExplosiveFrames.add(loadImage("/Image/Brick/explosive_brick3.png"));
-        imgExplosiveFrames.add(loadImage("/Image/Brick/explosive_brick4.png"));
-    }
-
-    //Hàm trợ giúp tải ảnh (trả về null nếu lỗi)
-    private static Image loadImage(String path) {
-        try {
-            Image img = new Image(Brick.class.getResourceAsStream(path));
-            if (img.isError()) {
-                System.err.println("Lỗi tải ảnh Brick: " + path);
-                return null;
-            }
-            return img;
-        } catch (Exception e) {
-            System.err.println("Không tìm thấy tài nguyên Brick: " + path);
-            return null;
-        }
-    }
-
     // Cập nhật animation gạch nổ (gọi mỗi frame từ Game)
     public static void updateAnimation(double dt) {
         explosiveAnimTimer += dt;
@@ -138,36 +106,39 @@ public class Brick extends GameObject {
         gc.scale(renderScale, renderScale);
         gc.translate(-cx, -cy);
 
-        Image imageToDraw = null;
+        drawSprite(gc);
+        renderFlash(gc);
+
+        gc.restore();
+
+        // reset global alpha để không ảnh hưởng phần vẽ sau
+        gc.setGlobalAlpha(1.0);
+    }
+
+    // Vẽ ảnh gạch (không gồm flash, không áp dụng warp); BrickLayer dùng hàm này để vẽ sẵn
+    void drawSprite(GraphicsContext gc) {
+        Assets.Img imageToDraw;
 
         if (type == Type.INDESTRUCTIBLE) {
-            imageToDraw = imgUnbreakable;
+            imageToDraw = Assets.Img.BRICK_UNBREAKABLE;
         } else if (type == Type.EXPLOSIVE) {
             // Lấy index ảnh từ chuỗi
-            int frameIndex = explosiveAnimSequence[explosiveAnimIndex];
-            if (frameIndex < imgExplosiveFrames.size()) {
-                imageToDraw = imgExplosiveFrames.get(frameIndex);
-            }
+            imageToDraw = Assets.Img.EXPLOSIVE_FRAMES[explosiveAnimSequence[explosiveAnimIndex]];
         } else { // Gạch thường
             switch (hits) {
                 case 1:
-                    imageToDraw = imgBrick1;
+                    imageToDraw = Assets.Img.BRICK_1;
                     break;
                 case 2:
-                    imageToDraw = imgBrick2;
-                    break;
-                case 3:
-                    imageToDraw = imgBrick3;
+                    imageToDraw = Assets.Img.BRICK_2;
                     break;
                 default:
-                    imageToDraw = imgBrick3;
+                    imageToDraw = Assets.Img.BRICK_3;
             }
         }
         // Bắt đầu vẽ
-        if (imageToDraw != null) {
-            // Vẽ ảnh đã chọn
-            gc.drawImage(imageToDraw, x, y, width, height);
-        } else {
+        // Vẽ ảnh đã chọn (bản thu phóng sẵn trong atlas)
+        if (!Assets.get().draw(gc, imageToDraw, x, y, width, height)) {
             // Nếu ảnh tải lỗi, vẽ màu như cũ
             Color fill;
             switch (type) {
@@ -185,7 +156,10 @@ public class Brick extends GameObject {
             gc.setStroke(Color.DARKGRAY);
             gc.strokeRoundRect(x, y, width, height, 6, 6);
         }
+    }
 
+    // Lớp flash vẽ đè lên gạch
+    void renderFlash(GraphicsContext gc) {
         if (flashTimer > 0.0001) {
             double alpha = flashTimer / FLASH_DURATION;
             gc.save();
@@ -195,17 +169,22 @@ public class Brick extends GameObject {
             gc.setGlobalAlpha(1.0);
             gc.restore();
         }
+    }
 
-        gc.restore();
+    boolean isFlashing() {
+        return flashTimer > 0.0001;
+    }
 
-        // reset global alpha để không ảnh hưởng phần vẽ sau
-        gc.setGlobalAlpha(1.0);
+    // Gạch tĩnh có thể vẽ sẵn vào BrickLayer: không có animation, không warp
+    boolean isLayerStatic() {
+        return type != Type.EXPLOSIVE && !warpAnimating && renderAlpha >= 1.0 && renderScale == 1.0;
     }
 
     // Giảm số lần chịu đòn; trả true nếu brick bị phá hoàn toàn
     public boolean hit() {
         if (type == Type.INDESTRUCTIBLE) return false;
         hits--;
+        visualVersion++;
         return hits <= 0;
     }
 
@@ -218,6 +197,7 @@ public class Brick extends GameObject {
     public void weaken() {
         if (this.type == Type.NORMAL && this.hits > 1) {
             this.hits = this.hits - 1;
+            visualVersion++;
         }
         this.flashTimer = FLASH_DURATION;
     }
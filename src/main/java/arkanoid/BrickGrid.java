@@ -0,0 +1,177 @@
+package arkanoid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lưới không gian đều cho gạch (mỗi ô = 1 slot gạch của LevelLoader).
+ * Mỗi viên gạch được đăng ký vào mọi ô mà hình chữ nhật của nó chạm tới,
+ * nên truy vấn một vùng chỉ cần duyệt các ô liên quan thay vì toàn bộ danh sách.
+ * Tọa độ nằm ngoài lưới được kẹp vào ô biên, vì vậy kết quả luôn là tập cha
+ * của các viên gạch giao với vùng truy vấn.
+ */
+public class BrickGrid {
+    // Lưới mặc định (dùng khi chưa có LevelData): phủ màn 800x600
+    public static final double DEFAULT_CELL_W = 48;
+    public static final double DEFAULT_CELL_H = 30;
+
+    private double originX = 0;
+    private double originY = 0;
+    private double cellW = DEFAULT_CELL_W;
+    private double cellH = DEFAULT_CELL_H;
+    private int cols = 17;
+    private int rows = 20;
+    private List<Brick>[] cells;
+
+    private int size = 0;
+    private int queryStamp = 0;
+    // kích thước gạch lớn nhất đã đăng ký (dùng cho truy vấn có dung sai)
+    private double maxBrickW = 0;
+    private double maxBrickH = 0;
+
+    public BrickGrid() {
+        allocate();
+    }
+
+    // Cấu hình lại hình học lưới; các gạch cũ bị xóa khỏi lưới
+    public void configure(double originX, double originY, double cellW, double cellH, int cols, int rows) {
+        clear();
+        this.originX = originX;
+        this.originY = originY;
+        this.cellW = Math.max(1.0, cellW);
+        this.cellH = Math.max(1.0, cellH);
+        this.cols = Math.max(1, cols);
+        this.rows = Math.max(1, rows);
+        allocate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate() {
+        cells = (List<Brick>[]) new List<?>[cols * rows];
+        size = 0;
+        maxBrickW = 0;
+        maxBrickH = 0;
+    }
+
+    public void clear() {
+        for (List<Brick> cell : cells) {
+            if (cell == null) continue;
+            for (Brick b : cell) b.gridC0 = -1;
+            cell.clear();
+        }
+        size = 0;
+        maxBrickW = 0;
+        maxBrickH = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getCellWidth() {
+        return cellW;
+    }
+
+    public double getCellHeight() {
+        return cellH;
+    }
+
+    public double getMaxBrickWidth() {
+        return maxBrickW;
+    }
+
+    public double getMaxBrickHeight() {
+        return maxBrickH;
+    }
+
+    // Đăng ký gạch với số thứ tự seq (seq tăng dần theo thứ tự trong danh sách gạch)
+    public void insert(Brick b, long seq) {
+        if (b.gridC0 >= 0) remove(b);
+        b.gridSeq = seq;
+        b.gridC0 = col(b.getX());
+        b.gridC1 = col(b.getX() + b.getWidth());
+        b.gridR0 = row(b.getY());
+        b.gridR1 = row(b.getY() + b.getHeight());
+        for (int r = b.gridR0; r <= b.gridR1; r++) {
+            for (int c = b.gridC0; c <= b.gridC1; c++) {
+                int i = r * cols + c;
+                if (cells[i] == null) cells[i] = new ArrayList<>(4);
+                cells[i].add(b);
+            }
+        }
+        maxBrickW = Math.max(maxBrickW, b.getWidth());
+        maxBrickH = Math.max(maxBrickH, b.getHeight());
+        size++;
+    }
+
+    // Xóa gạch khỏi lưới; trả về false nếu gạch chưa được đăng ký
+    public boolean remove(Brick b) {
+        if (b.gridC0 < 0) return false;
+        for (int r = b.gridR0; r <= b.gridR1; r++) {
+            for (int c = b.gridC0; c <= b.gridC1; c++) {
+                List<Brick> cell = cells[r * cols + c];
+                if (cell != null) cell.remove(b);
+            }
+        }
+        b.gridC0 = -1;
+        size--;
+        return true;
+    }
+
+    // Gọi sau khi gạch di chuyển: chỉ đăng ký lại khi dải ô bị thay đổi
+    public void update(Brick b) {
+        if (b.gridC0 < 0) return;
+        int c0 = col(b.getX());
+        int c1 = col(b.getX() + b.getWidth());
+        int r0 = row(b.getY());
+        int r1 = row(b.getY() + b.getHeight());
+        if (c0 == b.gridC0 && c1 == b.gridC1 && r0 == b.gridR0 && r1 == b.gridR1) return;
+        long seq = b.gridSeq;
+        remove(b);
+        insert(b, seq);
+    }
+
+    /**
+     * Lấy các viên gạch có ô chạm vùng [minX,maxX] x [minY,maxY] vào out,
+     * không trùng lặp và sắp theo seq (tức đúng thứ tự của danh sách gạch).
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<Brick> out) {
+        out.clear();
+        if (size == 0) return;
+        int stamp = ++queryStamp;
+        int c0 = col(minX), c1 = col(maxX);
+        int r0 = row(minY), r1 = row(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                List<Brick> cell = cells[r * cols + c];
+                if (cell == null) continue;
+                for (int k = 0; k < cell.size(); k++) {
+                    Brick b = cell.get(k);
+                    if (b.queryStamp == stamp) continue;
+                    b.queryStamp = stamp;
+                    out.add(b);
+                }
+            }
+        }
+        // insertion sort: số ứng viên rất nhỏ
+        for (int i = 1; i < out.size(); i++) {
+            Brick cur = out.get(i);
+            int j = i - 1;
+            while (j >= 0 && out.get(j).gridSeq > cur.gridSeq) {
+                out.set(j + 1, out.get(j));
+                j--;
+            }
+            out.set(j + 1, cur);
+        }
+    }
+
+    private int col(double x) {
+        int c = (int) Math.floor((x - originX) / cellW);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int row(double y) {
+        int r = (int) Math.floor((y - originY) / cellH);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
@@ -0,0 +1,106 @@
+package arkanoid;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.stage.Screen;
+
+import java.util.List;
+
+/**
+ * Lớp gạch vẽ sẵn: các viên gạch tĩnh được vẽ một lần lên canvas ẩn rồi chụp thành ảnh,
+ * mỗi khung hình chỉ cần vẽ một ảnh cộng với các viên đang thay đổi
+ * (gạch nổ có animation, gạch di chuyển, hiệu ứng flash).
+ * Ảnh được dựng lại khi tập gạch tĩnh thay đổi: gạch bị đánh, bị phá hoặc thêm mới.
+ * Trong lúc warp-in thì vẽ trực tiếp từng viên như cũ.
+ */
+public class BrickLayer {
+    private final double width, height;
+    private Canvas canvas;
+    private WritableImage image;
+    private double scale = 1.0;
+
+    // Thế hệ ảnh hiện tại; gạch đã vẽ vào ảnh ghi lại thế hệ và phiên bản hình của nó
+    private int generation = 0;
+    private int bakedCount = 0;
+    private int rebuilds = 0;
+
+    public BrickLayer(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void render(GraphicsContext gc, List<Brick> bricks) {
+        if (anyWarping(bricks)) {
+            for (int i = 0; i < bricks.size(); i++) bricks.get(i).render(gc);
+            return;
+        }
+        if (isStale(bricks)) rebuild(bricks);
+
+        if (image != null) gc.drawImage(image, 0, 0, width, height);
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick b = bricks.get(i);
+            if (!b.isLayerStatic()) b.render(gc);
+            else if (b.isFlashing()) b.renderFlash(gc);
+        }
+    }
+
+    // số lần đã dựng lại ảnh (dùng để kiểm tra / đo đạc)
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    private static boolean anyWarping(List<Brick> bricks) {
+        for (int i = 0; i < bricks.size(); i++) {
+            if (bricks.get(i).isWarpAnimating()) return true;
+        }
+        return false;
+    }
+
+    // Ảnh cũ khi có gạch tĩnh chưa được vẽ vào (mới/đổi hình) hoặc gạch đã vẽ không còn trong danh sách
+    boolean isStale(List<Brick> bricks) {
+        int matched = 0;
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick b = bricks.get(i);
+            if (!b.isLayerStatic()) continue;
+            if (b.layerGeneration != generation || b.layerVersion != b.visualVersion) return true;
+            matched++;
+        }
+        return matched != bakedCount;
+    }
+
+    // Ghi nhận các gạch tĩnh hiện tại là đã nằm trong ảnh
+    void markBaked(List<Brick> bricks) {
+        generation++;
+        bakedCount = 0;
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick b = bricks.get(i);
+            if (!b.isLayerStatic()) continue;
+            b.layerGeneration = generation;
+            b.layerVersion = b.visualVersion;
+            bakedCount++;
+        }
+    }
+
+    private void rebuild(List<Brick> bricks) {
+        markBaked(bricks);
+        rebuilds++;
+        if (canvas == null) {
+            scale = Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+            canvas = new Canvas(Math.ceil(width * scale), Math.ceil(height * scale));
+        }
+        GraphicsContext lg = canvas.getGraphicsContext2D();
+        lg.setTransform(1, 0, 0, 1, 0, 0);
+        lg.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        lg.scale(scale, scale);
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick b = bricks.get(i);
+            if (b.isLayerStatic()) b.drawSprite(lg);
+        }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        image = canvas.snapshot(params, image);
+    }
+}
@@ -8,10 +8,34 @@ public class Bullet {
     public double w = 6, h = 12;
     private final double vy = -480; // tốc độ đạn
     private boolean alive = true;
+    // vị trí ở bước mô phỏng trước và hệ số nội suy khi vẽ
+    private double prevX, prevY;
+    private double interpAlpha = 1.0;
 
     public Bullet(double x, double y) {
         this.x = x - w / 2.0;
         this.y = y - h / 2.0;
+        this.prevX = this.x;
+        this.prevY = this.y;
+    }
+
+    // lưu vị trí trước khi chạy một bước mô phỏng (nội suy khi vẽ, như GameObject)
+    public void snapshotPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    public void setInterpAlpha(double alpha) {
+        this.interpAlpha = alpha;
+    }
+
+    // vị trí nội suy giữa bước trước và bước hiện tại, dùng khi vẽ
+    double renderX() {
+        return prevX + (x - prevX) * interpAlpha;
+    }
+
+    double renderY() {
+        return prevY + (y - prevY) * interpAlpha;
     }
 
     public void update(double dt) {
@@ -20,10 +44,12 @@ public class Bullet {
     }
 
     public void render(GraphicsContext gc) {
+        double rx = renderX();
+        double ry = renderY();
         gc.setFill(Color.CYAN);
-        gc.fillRect(x, y, w, h);
+        gc.fillRect(rx, ry, w, h);
         gc.setStroke(Color.WHITE);
-        gc.strokeRect(x, y, w, h);
+        gc.strokeRect(rx, ry, w, h);
     }
 
     public boolean isAlive() {
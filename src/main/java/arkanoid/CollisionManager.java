@@ -2,13 +2,47 @@ package arkanoid;
 
 import javafx.scene.paint.Color;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CollisionManager {
     // Hiệu ứng nổ trực quan
     private final List<Explosion> explosions;
     // HUD hiện điểm số
     private final List<ScorePopup> scorePopups = new ArrayList<>();
+    // Danh sách tạm dùng lại cho truy vấn BrickGrid
+    private final List<Brick> ballCandidates = new ArrayList<>();
+    private final List<Brick> bulletCandidates = new ArrayList<>();
+    private final List<Brick> explosionCandidates = new ArrayList<>();
+
+    // Bộ đệm dùng lại mỗi lần gọi để khung hình ổn định không cấp phát
+    private final CollisionResult result = new CollisionResult();
+    private final List<Ball> ballsToRemove = new ArrayList<>();
+    private final List<Brick> explosionQueue = new ArrayList<>();
+    private final List<Brick> explosionRemove = new ArrayList<>();
+    private int explosionStamp = 0;
+    // Pool cho hiệu ứng nổ và popup điểm (giống DebrisEmitter)
+    private final List<Explosion> explosionPool = new ArrayList<>();
+    private final List<ScorePopup> popupPool = new ArrayList<>();
+    // Chuỗi "+N" đã tạo, theo N
+    private final String[] popupTexts = new String[POPUP_TEXT_CACHE];
+
+    private static final int POPUP_TEXT_CACHE = 1024;
+    private static final Color DEBRIS_COLOR = Color.rgb(0, 255, 255);
+    // 8 hướng lân cận và 4 hướng nổ thẳng
+    private static final int[] NEIGHBOUR_DC = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOUR_DR = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] CARDINAL_DC = {1, -1, 0, 0};
+    private static final int[] CARDINAL_DR = {0, 0, 1, -1};
+
+    // Quét va chạm liên tục của bóng: số lần chạm tối đa xử lý trong một bước
+    private static final int MAX_IMPACTS_PER_STEP = 8;
+    private static final int HIT_NONE = 0, HIT_WALL_LEFT = 1, HIT_WALL_RIGHT = 2, HIT_WALL_TOP = 3,
+            HIT_PADDLE = 4, HIT_BRICK = 5;
+    private final Sweep sweep = new Sweep();
+
+    // Sự kiện cho âm thanh / hiệu ứng; Simulation gắn hàng đợi chung và đọc ra sau mỗi bước
+    private GameEvents events = new GameEvents();
 
     // particle emitter
     private ParticleEmitter emitter;
@@ -26,6 +60,20 @@ public class CollisionManager {
         this.debrisEmitter = new DebrisEmitter();
     }
 
+    public GameEvents getEvents() {
+        return events;
+    }
+
+    public void setEvents(GameEvents events) {
+        this.events = events;
+    }
+
+    // Hạt và mảnh vỡ dùng chung nguồn ngẫu nhiên của Simulation
+    public void setRandom(GameRandom random) {
+        emitter.setRandom(random);
+        debrisEmitter.setRandom(random);
+    }
+
     public ParticleEmitter getEmitter() {
         return emitter;
     }
@@ -74,62 +122,122 @@ public class CollisionManager {
         this.flashAlpha = flashAlpha;
     }
 
-    //Xử lý tất cả các va chạm trong game và trả về kết quả (sự kiện).
+    // Thêm popup điểm (lấy từ pool nếu có)
+    public void addScorePopup(double centerX, double centerY, String text) {
+        ScorePopup sp = popupPool.isEmpty() ? null : popupPool.remove(popupPool.size() - 1);
+        if (sp == null) {
+            sp = new ScorePopup(centerX, centerY, text);
+        } else {
+            sp.init(centerX, centerY, text, null, ScorePopup.DEFAULT_COLOR, ScorePopup.DEFAULT_LIFE, ScorePopup.DEFAULT_VY);
+        }
+        scorePopups.add(sp);
+    }
+
+    // Hiệu ứng khi đọc sự kiện gạch vỡ: mảnh vỡ và popup điểm phía trên viên gạch
+    void onBrickDestroyed(double cx, double cy, double w, double h, int displayed) {
+        debrisEmitter.emitDebris(cx, cy, w, h, 20, DEBRIS_COLOR);
+        addScorePopup(cx, cy - 6, popupText(displayed)); // -6 để nhấc popup lên hơi trên brick
+    }
+
+    // Hiệu ứng khi đọc sự kiện nổ: hạt nổ li ti và khói tại tâm vụ nổ
+    void onExplosion(double cx, double cy) {
+        emitter.emitExplosion(cx, cy, 28);
+        emitter.emitSmoke(cx, cy + 6, 6);
+    }
+
+    // Chuỗi "+value", dùng lại chuỗi đã tạo cho các giá trị nhỏ
+    String popupText(int value) {
+        if (value < 0 || value >= POPUP_TEXT_CACHE) return "+" + value;
+        String t = popupTexts[value];
+        if (t == null) {
+            t = "+" + value;
+            popupTexts[value] = t;
+        }
+        return t;
+    }
+
+    private void addExplosion(double x, double y, double maxRadius, double maxLife) {
+        if (explosionPool.isEmpty()) {
+            explosions.add(new Explosion(x, y, maxRadius, maxLife));
+        } else {
+            Explosion ex = explosionPool.remove(explosionPool.size() - 1);
+            ex.init(x, y, maxRadius, maxLife);
+            explosions.add(ex);
+        }
+    }
+
+    // Cập nhật popup; popup hết hạn trả về pool, giữ nguyên thứ tự vẽ của popup còn sống
+    private void updateScorePopups(double dt) {
+        int n = 0;
+        for (int i = 0; i < scorePopups.size(); i++) {
+            ScorePopup sp = scorePopups.get(i);
+            sp.update(dt);
+            if (sp.isAlive()) scorePopups.set(n++, sp);
+            else popupPool.add(sp);
+        }
+        for (int i = scorePopups.size() - 1; i >= n; i--) scorePopups.remove(i);
+    }
+
+    private void updateExplosions(double dt) {
+        int n = 0;
+        for (int i = 0; i < explosions.size(); i++) {
+            Explosion ex = explosions.get(i);
+            ex.update(dt);
+            if (ex.isAlive()) explosions.set(n++, ex);
+            else explosionPool.add(ex);
+        }
+        for (int i = explosions.size() - 1; i >= n; i--) explosions.remove(i);
+    }
+
+    // Xử lý tất cả các va chạm trong game và trả về kết quả (sự kiện).
+    // Kết quả là đối tượng dùng lại, chỉ hợp lệ tới lần gọi kế tiếp.
     public CollisionResult handleCollisions(EntityManager entities, GameState state, Paddle paddle,
                                             PowerUpManager powerUpManager, double gameWidth, double gameHeight, double dt) {
 
-        CollisionResult result = new CollisionResult();
-        List<Ball> ballsToRemove = new ArrayList<>();
+        result.reset();
+        ballsToRemove.clear();
 
         // 1. Va chạm của Bóng
-        for (Ball bl : entities.getBalls()) {
-            bl.update(dt);
-            bl.collideWithWalls(gameWidth, gameHeight);
-            bl.collideWithPaddle(paddle);
-
-            // Bóng vs Gạch
+        List<Ball> balls = entities.getBalls();
+        for (int i = 0; i < balls.size(); i++) {
+            Ball bl = balls.get(i);
+            // Chồng lấn có sẵn đầu bước (paddle/gạch di chuyển đè lên bóng) xử lý theo độ chen như cũ
+            if (bl.collideWithWalls(gameWidth, gameHeight)) events.publish(GameEvents.BOUNCE_WALL);
+            if (bl.collideWithPaddle(paddle)) events.publish(GameEvents.BOUNCE_PADDLE);
             handleBallBrickCollisions(bl, entities, state, powerUpManager);
 
+            // Di chuyển có quét va chạm: tường, paddle, gạch theo đúng thứ tự thời gian
+            if (bl.isStuck()) bl.update(dt);
+            else sweepBall(bl, entities, state, paddle, powerUpManager, gameWidth, dt);
+
             if (state.isBarrierActive() && bl.getY() > gameHeight - 40) {
                 bl.bounceUp(); // Nảy lên
-                SoundManager.get().play(SoundManager.Sfx.BARRIER_BREAK);
+                events.publish(GameEvents.BARRIER_BREAK);
                 bl.setPositionY(state.getBarrierY() - bl.getRadius() - 30); // Đặt lại vị trí
                 state.consumeBarrier(); // Dùng mất rào chắn
             }
 
-            // cập nhật score popups
-            java.util.Iterator<ScorePopup> spIt = scorePopups.iterator();
-            while (spIt.hasNext()) {
-                ScorePopup sp = spIt.next();
-                sp.update(dt);
-                if (!sp.isAlive()) spIt.remove();
-            }
-
-            // Cập nhật các explosion
-            Iterator<Explosion> expIt = explosions.iterator();
-            while (expIt.hasNext()) {
-                Explosion ex = expIt.next();
-                ex.update(dt);
-                if (!ex.isAlive()) expIt.remove();
-            }
-
             // Bóng vs Đáy
             if (bl.getY() > gameHeight) {
                 ballsToRemove.add(bl); // Đánh dấu để xóa
             }
         }
-        entities.getBalls().removeAll(ballsToRemove);
+        if (!ballsToRemove.isEmpty()) balls.removeAll(ballsToRemove);
+
+        // Popup điểm và vụ nổ: một lần mỗi bước, không phụ thuộc số bóng
+        updateScorePopups(dt);
+        updateExplosions(dt);
 
         // 2. Va chạm của Đạn
         handleBulletBrickCollisions(entities, state, powerUpManager);
 
         // 3. Va chạm của PowerUp (với Paddle)
-        Iterator<PowerUp> pIt = entities.getPowerUps().iterator();
-        while (pIt.hasNext()) {
-            PowerUp pu = pIt.next();
+        List<PowerUp> powerUps = entities.getPowerUps();
+        for (int i = 0; i < powerUps.size(); i++) {
+            PowerUp pu = powerUps.get(i);
             if (pu.collidesWithPaddle(paddle)) {
                 result.collectedPowerUps.add(pu);
-                pIt.remove();
+                powerUps.remove(i--);
             }
         }
 
@@ -146,87 +254,181 @@ public class CollisionManager {
         return result;
     }
 
-    // Xử lý va chạm giữa 1 quả bóng và tất cả các viên gạch
-    private void handleBallBrickCollisions(Ball bl, EntityManager entities, GameState state, PowerUpManager powerUpManager) {
-        Iterator<Brick> it = entities.getBricks().iterator();
-        while (it.hasNext()) {
-            Brick b = it.next();
-            if (bl.collideWithBrick(b, bl.isFireball())) {
-                Brick.Type t = b.getType();
-
-                if (bl.isFireball()) {
-                    // Fireball phá hủy ngay lập tức
-                    double bx = b.getX() + b.getWidth() / 2.0;
-                    double by = b.getY() + b.getHeight() / 2.0;
-                    if (t == Brick.Type.EXPLOSIVE) {
-                        handleExplosion(b, entities, state); // Kích nổ
-                        SoundManager.get().play(SoundManager.Sfx.EXPLOSION);
-                    } else if (t == Brick.Type.INDESTRUCTIBLE) {
-                        SoundManager.get().play(SoundManager.Sfx.BOUNCE_PADDLE);
-                        // Không phá hủy gạch bất tử
-                        continue;
-                    } else {
-                        SoundManager.get().play(SoundManager.Sfx.BRICK_BREAK);
-                        it.remove();
-                    }
-                    state.addScore(100);
-                    powerUpManager.trySpawnPowerUp(bx, by, entities);
-                } else {
-                    if (t == Brick.Type.INDESTRUCTIBLE) {
-                        // Gạch bất tử: chỉ nảy lại
-                        SoundManager.get().play(SoundManager.Sfx.BOUNCE_PADDLE);
-                        continue;
-                    } else if (t == Brick.Type.EXPLOSIVE) {
-                        SoundManager.get().play(SoundManager.Sfx.EXPLOSION);
-                    } else {
-                        SoundManager.get().play(SoundManager.Sfx.BRICK_BREAK);
-                    }
-                    // Gạch thường
-                    boolean removed = b.hit(); // Gạch bị đánh
-                    if (removed) {
-                        // Gạch bị phá hủy
-                        double bx = b.getX() + b.getWidth() / 2.0;
-                        double by = b.getY() + b.getHeight() / 2.0;
-                        it.remove();
-                        state.addScore(100);
-                        powerUpManager.trySpawnPowerUp(bx, by, entities);
-                        // Tạo hiệu ứng nổ cho viên trung tâm
-                        double maxR = Math.max(b.getWidth(), b.getHeight()) * 1.8;
-
-                        debrisEmitter.emitDebris(bx, by, b.getWidth(), b.getHeight(), 20, Color.rgb(0, 255, 255));
-
-                        int displayed = (int) Math.round(100 * state.getScoreMultiplier());
-                        scorePopups.add(new ScorePopup(bx, by - 6, "+" + displayed)); // -6 để nhấc popup lên hơi trên brick
-                        if (t == Brick.Type.EXPLOSIVE) {
-                            handleExplosion(b, entities, state); // Kích nổ
-                        }
-                    } else {
-                        // Gạch chỉ bị trúng (chưa vỡ)
-                        if (b.isDestructible()) state.addScore(50);
-                    }
+    // Di chuyển bóng hết dt, dừng tại từng điểm chạm sớm nhất (swept circle vs AABB) rồi phản xạ và đi tiếp
+    // với thời gian còn lại. Bóng nhanh / bước dài không xuyên qua gạch mỏng hay tường.
+    private void sweepBall(Ball bl, EntityManager entities, GameState state, Paddle paddle,
+                           PowerUpManager powerUpManager, double gameWidth, double dt) {
+        double remaining = dt;
+        Brick lastHit = null; // viên vừa chạm không xét lại ngay (tránh chạm lặp khi bóng còn sát mép)
+        for (int impacts = 0; impacts < MAX_IMPACTS_PER_STEP && remaining > 0; impacts++) {
+            double r = bl.getRadius();
+            double cx = bl.centerX(), cy = bl.centerY();
+            double dx = bl.getVx() * remaining, dy = bl.getVy() * remaining;
+
+            // Tường trái/phải/trần (theo hộp bao của bóng như collideWithWalls)
+            double best = Double.POSITIVE_INFINITY;
+            int hitKind = HIT_NONE;
+            double tw = dx < 0 ? (r - cx) / dx : dx > 0 ? (gameWidth - r - cx) / dx : Double.POSITIVE_INFINITY;
+            if (tw <= 1) {
+                best = Math.max(0, tw);
+                hitKind = dx < 0 ? HIT_WALL_LEFT : HIT_WALL_RIGHT;
+            }
+            double tt = dy < 0 ? (r - cy) / dy : Double.POSITIVE_INFINITY;
+            if (tt <= 1 && Math.max(0, tt) < best) {
+                best = Math.max(0, tt);
+                hitKind = HIT_WALL_TOP;
+            }
 
+            // Paddle
+            if (sweep.circleVsBox(cx, cy, r, dx, dy, paddle.getX(), paddle.getY(), paddle.getWidth(), paddle.getHeight())
+                    && sweep.t < best) {
+                best = sweep.t;
+                hitKind = HIT_PADDLE;
+            }
+
+            // Gạch trong hộp bao của cả quãng đường; cùng thời điểm thì viên đứng trước trong danh sách thắng
+            Brick hitBrick = null;
+            double hnx = 0, hny = 0;
+            entities.queryBricks(Math.min(cx, cx + dx) - r, Math.min(cy, cy + dy) - r,
+                    Math.max(cx, cx + dx) + r, Math.max(cy, cy + dy) + r, ballCandidates);
+            for (int k = 0; k < ballCandidates.size(); k++) {
+                Brick b = ballCandidates.get(k);
+                if (b == lastHit) continue;
+                if (!sweep.circleVsBox(cx, cy, r, dx, dy, b.getX(), b.getY(), b.getWidth(), b.getHeight())) continue;
+                if (sweep.t < best) {
+                    best = sweep.t;
+                    hitKind = HIT_BRICK;
+                    hitBrick = b;
+                    hnx = sweep.nx;
+                    hny = sweep.ny;
                 }
-                break; // Chỉ xử lý 1 va chạm gạch mỗi bóng, mỗi khung hình
             }
+
+            if (hitKind == HIT_NONE) {
+                bl.advance(remaining);
+                break;
+            }
+            bl.advance(remaining * best);
+            remaining -= remaining * best;
+            lastHit = hitBrick;
+
+            switch (hitKind) {
+                case HIT_WALL_LEFT:
+                    bl.correctX(0); // đặt đúng lên tường để collideWithWalls chắc chắn phản xạ
+                    bl.collideWithWalls(gameWidth, Double.POSITIVE_INFINITY);
+                    events.publish(GameEvents.BOUNCE_WALL);
+                    break;
+                case HIT_WALL_RIGHT:
+                    bl.correctX(gameWidth - bl.getWidth());
+                    bl.collideWithWalls(gameWidth, Double.POSITIVE_INFINITY);
+                    events.publish(GameEvents.BOUNCE_WALL);
+                    break;
+                case HIT_WALL_TOP:
+                    bl.correctY(0);
+                    bl.collideWithWalls(gameWidth, Double.POSITIVE_INFINITY);
+                    events.publish(GameEvents.BOUNCE_WALL);
+                    break;
+                case HIT_PADDLE:
+                    bl.bounceOffPaddle(paddle);
+                    events.publish(GameEvents.BOUNCE_PADDLE);
+                    break;
+                default:
+                    // Fireball xuyên qua gạch phá được, còn lại phản xạ theo pháp tuyến tại điểm chạm
+                    if (!bl.isFireball() || hitBrick.getType() == Brick.Type.INDESTRUCTIBLE) bl.reflect(hnx, hny);
+                    applyBrickHit(bl, hitBrick, entities, state, powerUpManager);
+            }
+        }
+        bl.updateTrail(dt);
+    }
+
+    // Xử lý va chạm giữa 1 quả bóng và các viên gạch gần nó (lấy từ BrickGrid)
+    private void handleBallBrickCollisions(Ball bl, EntityManager entities, GameState state, PowerUpManager powerUpManager) {
+        // seq của viên gạch cuối cùng đã xét; chỉ xét tiếp các viên đứng sau trong danh sách
+        long lastSeq = -1;
+        boolean requery = true;
+        while (requery) {
+            requery = false;
+            double d = bl.getRadius() * 2;
+            entities.queryBricks(bl.getX(), bl.getY(), bl.getX() + d, bl.getY() + d, ballCandidates);
+            for (int i = 0; i < ballCandidates.size(); i++) {
+                Brick b = ballCandidates.get(i);
+                if (b.gridSeq <= lastSeq) continue;
+                if (!bl.collideWithBrick(b, bl.isFireball())) continue;
+                if (!applyBrickHit(bl, b, entities, state, powerUpManager)) {
+                    // Không phá hủy gạch bất tử; bóng đã bị đẩy ra nên truy vấn lại
+                    lastSeq = b.gridSeq;
+                    requery = true;
+                    break;
+                }
+                return; // Chỉ xử lý 1 chồng lấn gạch mỗi bóng ở đầu bước
+            }
+        }
+    }
+
+    // Hậu quả khi bóng chạm gạch b (sự kiện âm thanh/hiệu ứng, điểm, phá gạch, nổ, power-up).
+    // Trả về false nếu là gạch bất tử (chỉ nảy lại, không bị phá).
+    private boolean applyBrickHit(Ball bl, Brick b, EntityManager entities, GameState state, PowerUpManager powerUpManager) {
+        Brick.Type t = b.getType();
+        if (t == Brick.Type.INDESTRUCTIBLE) {
+            // Gạch bất tử: chỉ nảy lại
+            events.publish(GameEvents.BRICK_BOUNCE);
+            return false;
+        }
+        int explosive = t == Brick.Type.EXPLOSIVE ? 1 : 0;
+        if (bl.isFireball()) {
+            // Fireball phá hủy ngay lập tức
+            double bx = b.getX() + b.getWidth() / 2.0;
+            double by = b.getY() + b.getHeight() / 2.0;
+            events.publish(GameEvents.BRICK_HIT, bx, by, 0, 0, explosive);
+            if (t == Brick.Type.EXPLOSIVE) {
+                handleExplosion(b, entities, state); // Kích nổ
+            } else {
+                entities.removeBrick(b);
+            }
+            state.addScore(100);
+            powerUpManager.trySpawnPowerUp(bx, by, entities);
+            return true;
+        }
+        events.publish(GameEvents.BRICK_HIT, b.getX() + b.getWidth() / 2.0, b.getY() + b.getHeight() / 2.0, 0, 0, explosive);
+        // Gạch thường
+        boolean removed = b.hit(); // Gạch bị đánh
+        if (removed) {
+            // Gạch bị phá hủy
+            double bx = b.getX() + b.getWidth() / 2.0;
+            double by = b.getY() + b.getHeight() / 2.0;
+            entities.removeBrick(b);
+            state.addScore(100);
+            powerUpManager.trySpawnPowerUp(bx, by, entities);
+
+            // mảnh vỡ + popup điểm tạo khi đọc sự kiện (onBrickDestroyed)
+            int displayed = (int) Math.round(100 * state.getScoreMultiplier());
+            events.publish(GameEvents.BRICK_DESTROYED, bx, by, b.getWidth(), b.getHeight(), displayed);
+            if (t == Brick.Type.EXPLOSIVE) {
+                handleExplosion(b, entities, state); // Kích nổ
+            }
+        } else {
+            // Gạch chỉ bị trúng (chưa vỡ)
+            if (b.isDestructible()) state.addScore(50);
         }
+        return true;
     }
 
     // Xử lý va chạm giữa đạn và gạch
     private void handleBulletBrickCollisions(EntityManager entities, GameState state, PowerUpManager powerUpManager) {
-        Iterator<Bullet> bit = entities.getBullets().iterator();
-        while (bit.hasNext()) {
-            Bullet bullet = bit.next();
+        List<Bullet> bullets = entities.getBullets();
+        for (int k = 0; k < bullets.size(); k++) {
+            Bullet bullet = bullets.get(k);
             if (!bullet.isAlive()) continue;
 
-            Iterator<Brick> bIt2 = entities.getBricks().iterator();
-            while (bIt2.hasNext()) {
-                Brick br2 = bIt2.next();
+            entities.queryBricks(bullet.x, bullet.y, bullet.x + bullet.w, bullet.y + bullet.h, bulletCandidates);
+            for (int i = 0; i < bulletCandidates.size(); i++) {
+                Brick br2 = bulletCandidates.get(i);
                 if (bullet.collidesWithBrick(br2)) {
-                    SoundManager.get().play(SoundManager.Sfx.LASER_SHOT);
                     // Đạn phá hủy gạch ngay lập tức
                     double bx = br2.getX() + br2.getWidth() / 2.0;
                     double by = br2.getY() + br2.getHeight() / 2.0;
-                    bIt2.remove();
+                    events.publish(GameEvents.LASER_HIT, bx, by);
+                    entities.removeBrick(br2);
                     state.addScore(100);
                     powerUpManager.trySpawnPowerUp(bx, by, entities);
                     bullet.kill(); // Đạn biến mất
@@ -238,76 +440,64 @@ public class CollisionManager {
 
     // Xử lý logic gạch nổ
     private void handleExplosion(Brick center, EntityManager entities, GameState state) {
-        double stepX = center.getWidth() + 8;
-        double stepY = center.getHeight() + 6;
-        int[] dir = new int[]{-1, 0, 1};
-        Queue<Brick> q = new LinkedList<>();
-        Set<Brick> visited = new HashSet<>();
-        Set<Brick> toRemoveSet = new HashSet<>();
+        // Bước giữa hai gạch kề nhau: theo ô lưới của level (khe giữa gạch co lại trên lưới lớn),
+        // không có lưới level thì dùng khe mặc định (ngang 8, dọc 6)
+        double stepX, stepY;
+        if (entities.hasLevelGrid()) {
+            stepX = entities.getBrickGrid().getCellWidth();
+            stepY = entities.getBrickGrid().getCellHeight();
+        } else {
+            stepX = center.getWidth() + 8;
+            stepY = center.getHeight() + 6;
+        }
+        // visitStamp == stamp: đã đưa vào hàng đợi; blastStamp == stamp: đã có trong danh sách xóa
+        int stamp = ++explosionStamp;
+        List<Brick> q = explosionQueue;
+        List<Brick> toRemove = explosionRemove;
+        q.clear();
+        toRemove.clear();
 
         q.add(center);
-        visited.add(center);
+        center.visitStamp = stamp;
 
-        while (!q.isEmpty()) {
-            Brick cur = q.poll();
-            if (cur.isDestructible()) toRemoveSet.add(cur);
+        for (int head = 0; head < q.size(); head++) {
+            Brick cur = q.get(head);
+            if (cur.isDestructible()) markForRemoval(cur, stamp);
 
             double cx = cur.getX() + cur.getWidth() / 2.0;
             double cy = cur.getY() + cur.getHeight() / 2.0;
 
             // 1) 8 gạch lân cận để kích nổ dây chuyền
-            for (int dx : dir) {
-                for (int dy : dir) {
-                    if (dx == 0 && dy == 0) continue;
-                    double tx = cx + dx * stepX;
-                    double ty = cy + dy * stepY;
-
-                    for (Brick b : entities.getBricks()) {
-                        if (visited.contains(b)) continue;
-                        double bx = b.getX() + b.getWidth() / 2.0;
-                        double by = b.getY() + b.getHeight() / 2.0;
-                        double tolX = b.getWidth() * 0.6;
-                        double tolY = b.getHeight() * 0.6;
-                        if (Math.abs(bx - tx) <= tolX && Math.abs(by - ty) <= tolY) {
-                            if (b.getType() == Brick.Type.EXPLOSIVE) {
-                                visited.add(b);
-                                q.add(b);
-                            }
-                            break;
-                        }
-                    }
+            for (int n = 0; n < NEIGHBOUR_DC.length; n++) {
+                int dx = NEIGHBOUR_DC[n], dy = NEIGHBOUR_DR[n];
+                double tx = cx + dx * stepX;
+                double ty = cy + dy * stepY;
+
+                Brick b = neighbourAt(cur, dx, dy, tx, ty, entities, stamp);
+                if (b != null && b.getType() == Brick.Type.EXPLOSIVE) {
+                    b.visitStamp = stamp;
+                    q.add(b);
                 }
             }
 
             // 2) 4 hướng nổ (2 ô)
-            int[][] card = new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-            for (int[] d : card) {
-                int dx = d[0], dy = d[1];
+            for (int n = 0; n < CARDINAL_DC.length; n++) {
+                int dx = CARDINAL_DC[n], dy = CARDINAL_DR[n];
                 for (int step = 1; step <= 2; step++) {
                     double tx = cx + dx * step * stepX;
                     double ty = cy + dy * step * stepY;
-                    Brick found = null;
-                    for (Brick b : entities.getBricks()) {
-                        double bx = b.getX() + b.getWidth() / 2.0;
-                        double by = b.getY() + b.getHeight() / 2.0;
-                        double tolX = b.getWidth() * 0.6;
-                        double tolY = b.getHeight() * 0.6;
-                        if (Math.abs(bx - tx) <= tolX && Math.abs(by - ty) <= tolY) {
-                            found = b;
-                            break;
-                        }
-                    }
+                    Brick found = neighbourAt(cur, dx * step, dy * step, tx, ty, entities, 0);
                     if (found != null) {
-                        if (found.getType() == Brick.Type.EXPLOSIVE && !visited.contains(found)) {
-                            visited.add(found);
+                        if (found.getType() == Brick.Type.EXPLOSIVE && found.visitStamp != stamp) {
+                            found.visitStamp = stamp;
                             q.add(found);
                         }
                         if (found.isDestructible()) {
-                            toRemoveSet.add(found);
+                            markForRemoval(found, stamp);
                             double fx = found.getX() + found.getWidth() / 2.0;
                             double fy = found.getY() + found.getHeight() / 2.0;
                             double mR = Math.max(found.getWidth(), found.getHeight()) * 1.6;
-                            explosions.add(new Explosion(fx, fy, mR, 0.45));
+                            addExplosion(fx, fy, mR, 0.45);
                         }
                     }
                 }
@@ -315,26 +505,88 @@ public class CollisionManager {
         }
 
         // Xóa tất cả các gạch trong vụ nổ
-        for (Brick b : toRemoveSet) {
+        for (int i = 0; i < toRemove.size(); i++) {
+            Brick b = toRemove.get(i);
             // tạo hiệu ứng nổ nếu chưa có (đảm bảo center cũng có)
             double bx = b.getX() + b.getWidth() / 2.0;
             double by = b.getY() + b.getHeight() / 2.0;
-            explosions.add(new Explosion(bx, by, Math.max(b.getWidth(), b.getHeight()) * 1.6, 0.45));
+            addExplosion(bx, by, Math.max(b.getWidth(), b.getHeight()) * 1.6, 0.45);
             // vị trí trung tâm của viên nổ
             double cx = center.getX() + center.getWidth() / 2.0;
             double cy = center.getY() + center.getHeight() / 2.0;
-            // hạt nổ li ti
-            emitter.emitExplosion(cx, cy, 28);
-            emitter.emitSmoke(cx, cy + 6, 6);
+            // hạt nổ li ti (tạo khi đọc sự kiện)
+            events.publish(GameEvents.EXPLOSION, cx, cy);
             // rung màn hình
             shakeDuration = 0.45;
             shakeTime = shakeDuration;
             shakeMagnitude = 10;
             // choáng
             flashAlpha = Math.max(flashAlpha, 0.85);
-            if (entities.getBricks().remove(b)) {
+            if (entities.removeBrick(b)) {
                 state.addScore(100);
             }
         }
+        q.clear();
+        toRemove.clear();
+    }
+
+    private void markForRemoval(Brick b, int stamp) {
+        if (b.blastStamp == stamp) return;
+        b.blastStamp = stamp;
+        explosionRemove.add(b);
+    }
+
+    // Gạch lân cận của cur lệch (dc, dr) ô. Nếu mọi gạch đứng yên đều nằm trong bảng slot của level
+    // thì tra trực tiếp ô đó (bước nổ = đúng 1 ô nên chỉ viên ở ô đó khớp dung sai), chỉ còn
+    // phải kiểm tra gạch di chuyển quanh (tx, ty) qua lưới; ngược lại dùng truy vấn theo tọa độ.
+    // Bỏ qua các viên có visitStamp == skipStamp (0 = không bỏ qua viên nào).
+    private Brick neighbourAt(Brick cur, int dc, int dr, double tx, double ty,
+                              EntityManager entities, int skipStamp) {
+        if (!entities.hasSlotLookup() || cur.slotRow < 0
+                || entities.brickAtSlot(cur.slotRow, cur.slotCol) != cur) {
+            return findBrickNear(tx, ty, entities, skipStamp);
+        }
+        Brick best = entities.brickAtSlot(cur.slotRow + dr, cur.slotCol + dc);
+        if (best != null && skipped(best, skipStamp)) best = null;
+        // Gạch di chuyển nằm trong lưới như mọi gạch khác: chỉ xét các ô quanh (tx, ty).
+        // Ứng viên đã sắp theo seq nên viên di chuyển khớp đầu tiên có seq nhỏ nhất.
+        queryNear(tx, ty, entities);
+        for (int i = 0; i < explosionCandidates.size(); i++) {
+            Brick b = explosionCandidates.get(i);
+            if (best != null && b.gridSeq > best.gridSeq) break;
+            if (!(b instanceof MovingBrick) || skipped(b, skipStamp)) continue;
+            if (isNear(b, tx, ty)) return b;
+        }
+        return best;
+    }
+
+    private static boolean skipped(Brick b, int skipStamp) {
+        return skipStamp != 0 && b.visitStamp == skipStamp;
+    }
+
+    private static boolean isNear(Brick b, double tx, double ty) {
+        double bx = b.getX() + b.getWidth() / 2.0;
+        double by = b.getY() + b.getHeight() / 2.0;
+        return Math.abs(bx - tx) <= b.getWidth() * 0.6 && Math.abs(by - ty) <= b.getHeight() * 0.6;
+    }
+
+    // Tìm viên gạch đầu tiên (theo thứ tự danh sách) có tâm gần (tx, ty) trong dung sai 60% kích thước,
+    // bỏ qua các viên đã đánh dấu skipStamp. Tâm nằm trong dung sai <=> điểm nằm trong hình chữ nhật gạch nới 10%.
+    private Brick findBrickNear(double tx, double ty, EntityManager entities, int skipStamp) {
+        queryNear(tx, ty, entities);
+        for (int i = 0; i < explosionCandidates.size(); i++) {
+            Brick b = explosionCandidates.get(i);
+            if (skipped(b, skipStamp)) continue;
+            if (isNear(b, tx, ty)) return b;
+        }
+        return null;
+    }
+
+    // Lấy vào explosionCandidates mọi gạch có thể có tâm gần (tx, ty) theo dung sai của isNear
+    private void queryNear(double tx, double ty, EntityManager entities) {
+        BrickGrid grid = entities.getBrickGrid();
+        double mx = grid.getMaxBrickWidth() * 0.1 + 1;
+        double my = grid.getMaxBrickHeight() * 0.1 + 1;
+        entities.queryBricks(tx - mx, ty - my, tx + mx, ty + my, explosionCandidates);
     }
 }
@@ -3,9 +3,16 @@ package arkanoid;
 import java.util.ArrayList;
 import java.util.List;
 
-// Lớp tiện ích để truyền thông tin sự kiện từ CollisionManager về Game
+// Lớp tiện ích để truyền thông tin sự kiện từ CollisionManager về Game.
+// CollisionManager dùng lại một đối tượng duy nhất: kết quả chỉ hợp lệ tới lần gọi handleCollisions kế tiếp.
 public class CollisionResult {
     public boolean ballLost = false;
     public boolean allDestructibleBricksCleared = false;
     public final List<PowerUp> collectedPowerUps = new ArrayList<>();
-}
\ No newline at end of file
+
+    void reset() {
+        ballLost = false;
+        allDestructibleBricksCleared = false;
+        collectedPowerUps.clear();
+    }
+}
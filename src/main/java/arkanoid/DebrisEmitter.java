@@ -10,6 +10,11 @@ import java.util.List;
 public class DebrisEmitter {
     private final List<Debris> active = new ArrayList<>();
     private final List<Debris> pool = new ArrayList<>();
+    private GameRandom random = new GameRandom();
+
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
 
     private Debris obtain() {
         if (!pool.isEmpty()) return pool.remove(pool.size() - 1);
@@ -20,23 +25,23 @@ public class DebrisEmitter {
         // sinh ra số mảnh vụn trong khu vực ảnh hưởng của viên gạch
         for (int i = 0; i < count; i++) {
             Debris d = obtain();
-            double sizeW = (brickW / 6.0) * (0.6 + Math.random() * 0.9);
-            double sizeH = (brickH / 6.0) * (0.6 + Math.random() * 0.9);
+            double sizeW = (brickW / 6.0) * (0.6 + random.nextDouble() * 0.9);
+            double sizeH = (brickH / 6.0) * (0.6 + random.nextDouble() * 0.9);
             // vị trí ngẫu nhiên bên trong giới hạn gạch
-            double px = cx - brickW / 2.0 + Math.random() * brickW;
-            double py = cy - brickH / 2.0 + Math.random() * brickH;
+            double px = cx - brickW / 2.0 + random.nextDouble() * brickW;
+            double py = cy - brickH / 2.0 + random.nextDouble() * brickH;
             // độ lệch vận tốc tỏa ra khỏi center
             double dirX = px - cx;
             double dirY = py - cy;
             double len = Math.sqrt(dirX * dirX + dirY * dirY) + 0.0001;
             dirX /= len;
             dirY /= len;
-            double spread = 120 + Math.random() * 220;
-            double vx = dirX * (spread * (0.6 + Math.random() * 0.9)) + (Math.random() - 0.5) * 80;
-            double vy = dirY * (spread * (0.2 + Math.random() * 0.6)) - Math.random() * 160; // bias upward
-            double angle = Math.random() * Math.PI * 2;
-            double angularV = (Math.random() - 0.5) * 10.0;
-            double life = 0.8 + Math.random() * 0.9;
+            double spread = 120 + random.nextDouble() * 220;
+            double vx = dirX * (spread * (0.6 + random.nextDouble() * 0.9)) + (random.nextDouble() - 0.5) * 80;
+            double vy = dirY * (spread * (0.2 + random.nextDouble() * 0.6)) - random.nextDouble() * 160; // bias upward
+            double angle = random.nextDouble() * Math.PI * 2;
+            double angularV = (random.nextDouble() - 0.5) * 10.0;
+            double life = 0.8 + random.nextDouble() * 0.9;
             d.init(px - sizeW / 2.0, py - sizeH / 2.0, sizeW, sizeH, vx, vy, angle, angularV, life, color);
             active.add(d);
         }
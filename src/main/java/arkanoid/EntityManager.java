@@ -1,18 +1,33 @@
 package arkanoid;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 public class EntityManager {
     private final List<Ball> balls = new ArrayList<>();
     private final List<Brick> bricks = new ArrayList<>();
+    private final List<Brick> bricksView = Collections.unmodifiableList(bricks);
     private final List<FlyingBrick> flyingBricks = new ArrayList<>();
     private final List<PowerUp> powerUps = new ArrayList<>();
     private final List<Bullet> bullets = new ArrayList<>();
     private final List<ActiveEffect> activeEffects = new ArrayList<>();
     private final List<HUDMessage> hudMessages = new ArrayList<>();
 
+    // Chỉ mục không gian cho gạch; luôn đồng bộ với danh sách bricks
+    private final BrickGrid brickGrid = new BrickGrid();
+    private long nextBrickSeq = 0;
+
+    // Bảng tra theo (hàng, cột) của level cho gạch đứng yên; gạch di chuyển giữ riêng
+    private Brick[] slots = new Brick[0];
+    private int slotRows = 0, slotCols = 0;
+    private final List<Brick> movingBricks = new ArrayList<>();
+    // tăng mỗi khi tập gạch di chuyển đổi (MovingBrickBroadphase dựng lại các hàng)
+    private int movingVersion = 0;
+    private int unslottedStatic = 0; // số gạch đứng yên không có trong bảng slot
+
     public EntityManager() {
     }
 
@@ -55,8 +70,13 @@ public class EntityManager {
         return balls;
     }
 
+    // Chỉ đọc: thêm/xóa gạch phải đi qua addBrick/removeBrick để BrickGrid và bảng slot luôn đồng bộ
     public List<Brick> getBricks() {
-        return bricks;
+        return bricksView;
+    }
+
+    public BrickGrid getBrickGrid() {
+        return brickGrid;
     }
 
     public List<FlyingBrick> getFlyingBricks() {
@@ -86,6 +106,12 @@ public class EntityManager {
 
     public void addBrick(Brick b) {
         bricks.add(b);
+        brickGrid.insert(b, nextBrickSeq++);
+        indexSlot(b);
+    }
+
+    public void addBricks(Collection<? extends Brick> list) {
+        for (Brick b : list) addBrick(b);
     }
 
     public void addPowerUp(PowerUp p) {
@@ -109,10 +135,113 @@ public class EntityManager {
         activeEffects.remove(e);
     }
 
+    // Xóa gạch khỏi danh sách và lưới; trả về true nếu gạch có trong danh sách
+    public boolean removeBrick(Brick b) {
+        if (!bricks.remove(b)) return false;
+        brickGrid.remove(b);
+        unindexSlot(b);
+        return true;
+    }
+
+    // Gọi sau khi gạch di chuyển (MovingBrick) để cập nhật ô trong lưới
+    public void onBrickMoved(Brick b) {
+        brickGrid.update(b);
+    }
+
+    // Dựng lại lưới và bảng slot theo hình học của level (cell = 1 slot gạch), gọi 1 lần mỗi level
+    public void configureBrickGrid(LevelData ld) {
+        if (ld.cols <= 0 || ld.rows <= 0) {
+            brickGrid.configure(0, 0, BrickGrid.DEFAULT_CELL_W, BrickGrid.DEFAULT_CELL_H, 17, 20);
+            slotRows = 0;
+            slotCols = 0;
+        } else {
+            brickGrid.configure(ld.originX, ld.originY, ld.cellW, ld.cellH, ld.cols, ld.rows);
+            slotRows = ld.rows;
+            slotCols = ld.cols;
+        }
+        slots = new Brick[slotRows * slotCols];
+        reindexBricks();
+    }
+
+    // true nếu lưới đã dựng theo slot của level (ô lưới = bước giữa hai gạch kề nhau)
+    public boolean hasLevelGrid() {
+        return slotRows > 0 && slotCols > 0;
+    }
+
+    // true nếu mọi gạch đứng yên đều tra được qua bảng slot (khi đó có thể tìm lân cận O(1))
+    public boolean hasSlotLookup() {
+        return slots.length > 0 && unslottedStatic == 0;
+    }
+
+    // Gạch đứng yên tại ô (row, col), hoặc null
+    public Brick brickAtSlot(int row, int col) {
+        if (row < 0 || col < 0 || row >= slotRows || col >= slotCols) return null;
+        return slots[row * slotCols + col];
+    }
+
+    // Gạch di chuyển theo đúng thứ tự tương đối trong danh sách gạch
+    public List<Brick> getMovingBricks() {
+        return movingBricks;
+    }
+
+    int getMovingVersion() {
+        return movingVersion;
+    }
+
+    private void indexSlot(Brick b) {
+        if (b instanceof MovingBrick) {
+            movingBricks.add(b);
+            movingVersion++;
+            return;
+        }
+        int r = b.slotRow, c = b.slotCol;
+        if (r >= 0 && c >= 0 && r < slotRows && c < slotCols && slots[r * slotCols + c] == null) {
+            slots[r * slotCols + c] = b;
+        } else {
+            unslottedStatic++;
+        }
+    }
+
+    private void unindexSlot(Brick b) {
+        if (b instanceof MovingBrick) {
+            movingBricks.remove(b);
+            movingVersion++;
+            return;
+        }
+        int r = b.slotRow, c = b.slotCol;
+        if (r >= 0 && c >= 0 && r < slotRows && c < slotCols && slots[r * slotCols + c] == b) {
+            slots[r * slotCols + c] = null;
+        } else {
+            unslottedStatic--;
+        }
+    }
+
+    // Lấy các gạch có thể giao với vùng [minX,maxX] x [minY,maxY], theo đúng thứ tự danh sách
+    public void queryBricks(double minX, double minY, double maxX, double maxY, List<Brick> out) {
+        brickGrid.query(minX, minY, maxX, maxY, out);
+    }
+
+    private void reindexBricks() {
+        brickGrid.clear();
+        resetSlots();
+        nextBrickSeq = 0;
+        for (Brick b : bricks) {
+            brickGrid.insert(b, nextBrickSeq++);
+            indexSlot(b);
+        }
+    }
+
+    private void resetSlots() {
+        java.util.Arrays.fill(slots, null);
+        movingBricks.clear();
+        movingVersion++;
+        unslottedStatic = 0;
+    }
+
     // Clearers
     public void clearAll() {
         balls.clear();
-        bricks.clear();
+        clearBricks();
         powerUps.clear();
         bullets.clear();
         activeEffects.clear();
@@ -121,6 +250,9 @@ public class EntityManager {
 
     public void clearBricks() {
         bricks.clear();
+        brickGrid.clear();
+        resetSlots();
+        nextBrickSeq = 0;
     }
 
     public void clearBalls() {
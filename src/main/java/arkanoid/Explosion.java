@@ -1,6 +1,11 @@
 package arkanoid;
 
+import javafx.scene.paint.Color;
+
 public class Explosion {
+    private static final Color FILL = Color.rgb(255, 180, 60);
+    private static final Color STROKE = Color.rgb(255, 240, 200);
+
     double x, y; // trung tâm vụ nổ
     double maxRadius;
     double radius;
@@ -8,6 +13,11 @@ public class Explosion {
     double maxLife;  // initial life (s)
 
     Explosion(double x, double y, double maxRadius, double maxLife) {
+        init(x, y, maxRadius, maxLife);
+    }
+
+    // khởi tạo lại để dùng lại đối tượng từ pool
+    void init(double x, double y, double maxRadius, double maxLife) {
         this.x = x;
         this.y = y;
         this.maxRadius = maxRadius;
@@ -31,10 +41,10 @@ public class Explosion {
     void render(javafx.scene.canvas.GraphicsContext gc) {
         double alpha = Math.max(0, life / maxLife);
         gc.setGlobalAlpha(alpha * 0.9);
-        gc.setFill(javafx.scene.paint.Color.rgb(255, 180, 60));
+        gc.setFill(FILL);
         gc.fillOval(x - radius, y - radius, radius * 2, radius * 2);
         gc.setGlobalAlpha(alpha);
-        gc.setStroke(javafx.scene.paint.Color.rgb(255, 240, 200));
+        gc.setStroke(STROKE);
         gc.strokeOval(x - radius, y - radius, radius * 2, radius * 2);
         gc.setGlobalAlpha(1.0);
     }
@@ -0,0 +1,45 @@
+package arkanoid;
+
+/**
+ * Bộ đếm bước mô phỏng cố định (fixed timestep).
+ * Mỗi khung hình cộng dt thực vào accumulator rồi trả về số bước STEP cần chạy;
+ * phần dư còn lại dùng làm hệ số nội suy khi vẽ (0..1).
+ * Số bước bù mỗi khung bị giới hạn để một lần giật lớn không kéo theo "vòng xoáy chết".
+ */
+public class FixedTimestep {
+    private final double step;
+    private final int maxStepsPerFrame;
+    private double accumulator = 0.0;
+
+    public FixedTimestep(double hz, int maxStepsPerFrame) {
+        this.step = 1.0 / hz;
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    public double getStep() {
+        return step;
+    }
+
+    // Cộng thời gian khung hình, trả về số bước mô phỏng cần chạy
+    public int advance(double frameDt) {
+        if (frameDt > 0) accumulator += frameDt;
+        int steps = (int) (accumulator / step);
+        if (steps > maxStepsPerFrame) {
+            // bỏ phần thời gian không kịp bù, chỉ giữ lại phần lẻ của 1 bước
+            steps = maxStepsPerFrame;
+            accumulator = accumulator % step;
+        } else {
+            accumulator -= steps * step;
+        }
+        return steps;
+    }
+
+    // Hệ số nội suy giữa trạng thái bước trước và bước hiện tại
+    public double alpha() {
+        return Math.min(1.0, accumulator / step);
+    }
+
+    public void reset() {
+        accumulator = 0.0;
+    }
+}
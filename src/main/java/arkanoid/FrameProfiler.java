@@ -0,0 +1,332 @@
+package arkanoid;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Đo thời gian từng pha của mô phỏng và của bước vẽ, theo từng khung hình.
+ * - Mỗi pha cộng dồn thời gian trong khung (nhiều bước mô phỏng cộng lại), endFrame() đẩy vào cửa sổ WINDOW khung.
+ * - Mỗi SUMMARY_FRAMES khung tính p50/p95/p99 một lần; overlay, JMX và CSV đều đọc bản tổng hợp này.
+ * Tắt (mặc định) thì begin()/lap() chỉ là một phép so sánh, không gọi System.nanoTime().
+ * Ghi số liệu trên luồng chạy game; JMX đọc bản tổng hợp (bất biến) từ luồng khác.
+ */
+public class FrameProfiler implements FrameProfilerMXBean {
+    public enum Phase {
+        SIM("sim total"),
+        WARP_FLASH("warp/flash"),
+        EMITTERS("emitters"),
+        ENTITIES("entities"),
+        COLLISIONS("collisions"),
+        MOVING_BRICKS("moving bricks"),
+        BOSS("boss"),
+        EFFECTS("effects"),
+        EVENTS("events"),
+        RENDER("render total"),
+        R_BACKGROUND("r:background"),
+        R_HUD("r:hud"),
+        R_ENTITIES("r:entities"),
+        R_OVERLAYS("r:overlays"),
+        R_PARTICLES("r:particles"),
+        FRAME("frame");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Counter {
+        BRICKS, BALLS, BULLETS, POWER_UPS, PARTICLES, DEBRIS, EXPLOSIONS, POPUPS, SIM_STEPS
+    }
+
+    static final int WINDOW = 240;          // số khung giữ lại để tính phân vị
+    static final int SUMMARY_FRAMES = 60;   // tổng hợp lại sau mỗi chừng này khung
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    // Bản tổng hợp bất biến (thay cả đối tượng khi tính lại)
+    static final class Summary {
+        final long frame;
+        final double[] p50, p95, p99; // ms
+        final int[] counts;
+
+        Summary(long frame, double[] p50, double[] p95, double[] p99, int[] counts) {
+            this.frame = frame;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.counts = counts;
+        }
+    }
+
+    private volatile boolean enabled = false;
+    private boolean overlayVisible = false;
+    private final long[] acc = new long[PHASES.length];
+    private final long[][] samples = new long[PHASES.length][WINDOW];
+    private final long[] scratch = new long[WINDOW];
+    private final int[] counts = new int[COUNTERS.length];
+    private int head = 0, filled = 0;
+    private long frames = 0;
+    private volatile Summary summary = new Summary(0, new double[PHASES.length], new double[PHASES.length],
+            new double[PHASES.length], new int[COUNTERS.length]);
+
+    // CSV
+    private ExecutorService csvWriter;
+    private BufferedWriter csv;
+
+    public FrameProfiler() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    // Phím tắt: bật overlay thì bật đo luôn
+    public void toggleOverlay() {
+        overlayVisible = !overlayVisible;
+        if (overlayVisible) enabled = true;
+    }
+
+    // Mốc bắt đầu đo; 0 khi đang tắt
+    public long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Cộng thời gian từ mốc t vào pha p, trả về mốc mới cho pha kế tiếp.
+    // t == 0: begin() chạy lúc còn tắt (bật qua JMX giữa khung) nên bỏ qua lần đo này
+    public long lap(Phase p, long t) {
+        if (!enabled) return 0;
+        long now = System.nanoTime();
+        if (t != 0) acc[p.ordinal()] += now - t;
+        return now;
+    }
+
+    public void count(Counter c, int value) {
+        counts[c.ordinal()] = value;
+    }
+
+    public void add(Counter c, int delta) {
+        if (enabled) counts[c.ordinal()] += delta;
+    }
+
+    // Kết thúc một khung hình: đẩy thời gian cộng dồn của từng pha vào cửa sổ
+    public void endFrame() {
+        if (!enabled) return;
+        for (int p = 0; p < PHASES.length; p++) {
+            samples[p][head] = acc[p];
+            acc[p] = 0;
+        }
+        head = (head + 1) % WINDOW;
+        if (filled < WINDOW) filled++;
+        frames++;
+        if (frames % SUMMARY_FRAMES == 0) summarize();
+        counts[Counter.SIM_STEPS.ordinal()] = 0;
+    }
+
+    private void summarize() {
+        double[] p50 = new double[PHASES.length], p95 = new double[PHASES.length], p99 = new double[PHASES.length];
+        for (int p = 0; p < PHASES.length; p++) {
+            System.arraycopy(samples[p], 0, scratch, 0, filled);
+            Arrays.sort(scratch, 0, filled);
+            p50[p] = percentile(filled, 0.50);
+            p95[p] = percentile(filled, 0.95);
+            p99[p] = percentile(filled, 0.99);
+        }
+        Summary s = new Summary(frames, p50, p95, p99, counts.clone());
+        summary = s;
+        if (csv != null) writeCsvRow(s);
+    }
+
+    // Phân vị theo hạng gần nhất trên scratch đã sắp, đổi sang ms
+    private double percentile(int n, double q) {
+        if (n == 0) return 0;
+        int rank = (int) Math.ceil(q * n) - 1;
+        return scratch[Math.max(0, Math.min(n - 1, rank))] / 1e6;
+    }
+
+    Summary getSummary() {
+        return summary;
+    }
+
+    // Vẽ bảng p50/p95/p99 từng pha và số lượng thực thể ở góc màn hình
+    public void renderOverlay(GraphicsContext gc, double x, double y) {
+        if (!overlayVisible) return;
+        Summary s = summary;
+        double lineH = 13;
+        double h = lineH * (PHASES.length + 3 + (COUNTERS.length + 2) / 3) + 8;
+        gc.save();
+        gc.setGlobalAlpha(0.75);
+        gc.setFill(Color.BLACK);
+        gc.fillRect(x, y, 300, h);
+        gc.setGlobalAlpha(1.0);
+        gc.setFont(Font.font("Monospaced", 11));
+        gc.setFill(Color.LIME);
+        double ty = y + lineH;
+        gc.fillText(String.format("%-14s %6s %6s %6s", "phase (ms)", "p50", "p95", "p99"), x + 6, ty);
+        for (Phase p : PHASES) {
+            ty += lineH;
+            int i = p.ordinal();
+            gc.fillText(String.format("%-14s %6.2f %6.2f %6.2f", p.label, s.p50[i], s.p95[i], s.p99[i]), x + 6, ty);
+        }
+        ty += lineH;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < COUNTERS.length; i++) {
+            sb.append(String.format("%-10s%5d ", COUNTERS[i].name().toLowerCase(), s.counts[i]));
+            if (i % 3 == 2 || i == COUNTERS.length - 1) {
+                ty += lineH;
+                gc.fillText(sb.toString(), x + 6, ty);
+                sb.setLength(0);
+            }
+        }
+        gc.restore();
+    }
+
+    // Đăng ký với MBean server của JVM; lỗi (đã đăng ký, không có JMX) chỉ ghi log
+    public void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("arkanoid:type=FrameProfiler");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("Không đăng ký được FrameProfiler MBean: " + e.getMessage());
+        }
+    }
+
+    // Ghi bản tổng hợp ra CSV (mỗi SUMMARY_FRAMES khung một dòng) trên luồng nền; bật đo luôn
+    public synchronized void startCsv(Path file) {
+        stopCsv();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            csv = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Không mở được file CSV profiler: " + e.getMessage());
+            return;
+        }
+        csvWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "profiler-csv");
+            t.setDaemon(true);
+            return t;
+        });
+        StringBuilder header = new StringBuilder("time_ms,frame");
+        for (Phase p : PHASES) {
+            String n = p.name().toLowerCase();
+            header.append(',').append(n).append("_p50,").append(n).append("_p95,").append(n).append("_p99");
+        }
+        for (Counter c : COUNTERS) header.append(',').append(c.name().toLowerCase());
+        writeLine(header.toString());
+        enabled = true;
+    }
+
+    // Đóng file CSV sau khi ghi xong các dòng còn chờ
+    public synchronized void stopCsv() {
+        if (csv == null) return;
+        BufferedWriter w = csv;
+        csv = null;
+        csvWriter.submit(() -> {
+            try {
+                w.close();
+            } catch (IOException e) {
+                System.err.println("Lỗi đóng file CSV profiler: " + e.getMessage());
+            }
+        });
+        csvWriter.shutdown();
+        try {
+            csvWriter.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        csvWriter = null;
+    }
+
+    private synchronized void writeCsvRow(Summary s) {
+        if (csv == null) return;
+        StringBuilder row = new StringBuilder();
+        row.append(System.currentTimeMillis()).append(',').append(s.frame);
+        for (int p = 0; p < PHASES.length; p++) {
+            row.append(',').append(String.format(Locale.ROOT, "%.3f,%.3f,%.3f", s.p50[p], s.p95[p], s.p99[p]));
+        }
+        for (int c : s.counts) row.append(',').append(c);
+        writeLine(row.toString());
+    }
+
+    private void writeLine(String line) {
+        BufferedWriter w = csv;
+        csvWriter.submit(() -> {
+            try {
+                w.write(line);
+                w.newLine();
+                w.flush();
+            } catch (IOException e) {
+                System.err.println("Lỗi ghi CSV profiler: " + e.getMessage());
+            }
+        });
+    }
+
+    // --- JMX ---
+
+    @Override
+    public long getFrameCount() {
+        return summary.frame;
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        String[] names = new String[PHASES.length];
+        for (int i = 0; i < names.length; i++) names[i] = PHASES[i].name();
+        return names;
+    }
+
+    @Override
+    public double[] getP50Millis() {
+        return summary.p50.clone();
+    }
+
+    @Override
+    public double[] getP95Millis() {
+        return summary.p95.clone();
+    }
+
+    @Override
+    public double[] getP99Millis() {
+        return summary.p99.clone();
+    }
+
+    @Override
+    public String[] getCounterNames() {
+        String[] names = new String[COUNTERS.length];
+        for (int i = 0; i < names.length; i++) names[i] = COUNTERS[i].name();
+        return names;
+    }
+
+    @Override
+    public int[] getCounters() {
+        return summary.counts.clone();
+    }
+}
@@ -0,0 +1,25 @@
+package arkanoid;
+
+/**
+ * Bộ đếm thời gian khung hình xuất qua JMX (jconsole / VisualVM: arkanoid:type=FrameProfiler).
+ * Các mảng theo đúng thứ tự của getPhaseNames() / getCounterNames(); số liệu là của lần tổng hợp gần nhất.
+ */
+public interface FrameProfilerMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFrameCount();
+
+    String[] getPhaseNames();
+
+    double[] getP50Millis();
+
+    double[] getP95Millis();
+
+    double[] getP99Millis();
+
+    String[] getCounterNames();
+
+    int[] getCounters();
+}
@@ -0,0 +1,124 @@
+package arkanoid;
+
+/**
+ * Hàng đợi vòng sự kiện gameplay, cấp phát sẵn (mảng song song, không tạo đối tượng khi phát sự kiện).
+ * Phần vật lý (va chạm, boss, power-up) chỉ ghi sự kiện vào đây; âm thanh, hạt, mảnh vỡ, popup điểm
+ * đọc ra một lần sau mỗi bước mô phỏng (xem Simulation.dispatchEvents). Nhờ vậy vòng lặp va chạm
+ * không gọi thẳng vào JavaFX/SoundManager và chạy được headless.
+ * Đầy thì bỏ sự kiện mới (chỉ mất hiệu ứng), số lượng bị bỏ đếm trong {@link #getDropped()}.
+ */
+public class GameEvents {
+    // Loại sự kiện
+    public static final int BOUNCE_WALL = 1;        // bóng chạm tường/trần
+    public static final int BOUNCE_PADDLE = 2;      // bóng chạm paddle
+    public static final int BRICK_BOUNCE = 3;       // bóng nảy khỏi gạch bất tử
+    public static final int BRICK_HIT = 4;          // bóng trúng gạch; value = 1 nếu là gạch nổ
+    public static final int BRICK_DESTROYED = 5;    // gạch vỡ: tâm (x, y), kích thước (w, h), value = điểm hiển thị
+    public static final int EXPLOSION = 6;          // một viên bị xoá trong vụ nổ có tâm (x, y)
+    public static final int LASER_HIT = 7;          // đạn laser phá gạch
+    public static final int BARRIER_BREAK = 8;      // rào chắn đỡ bóng
+    public static final int POWER_UP_SPAWNED = 9;   // power-up rơi ra tại (x, y)
+    public static final int POWER_UP_APPLIED = 10;  // nhặt power-up; value = ordinal của PowerType
+    public static final int BOSS_SHOOT = 11;
+    public static final int BOSS_HIT = 12;
+    public static final int BOSS_DEATH = 13;
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int mask;
+    private final int[] type;
+    private final int[] value;
+    private final double[] x, y, w, h;
+    private int head = 0, size = 0;
+    private int dropped = 0;
+
+    public GameEvents() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // capacity được làm tròn lên lũy thừa của 2
+    public GameEvents(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = cap - 1;
+        type = new int[cap];
+        value = new int[cap];
+        x = new double[cap];
+        y = new double[cap];
+        w = new double[cap];
+        h = new double[cap];
+    }
+
+    public void publish(int eventType) {
+        publish(eventType, 0, 0, 0, 0, 0);
+    }
+
+    public void publish(int eventType, double ex, double ey) {
+        publish(eventType, ex, ey, 0, 0, 0);
+    }
+
+    public void publish(int eventType, double ex, double ey, double ew, double eh, int v) {
+        if (size > mask) {
+            dropped++;
+            return;
+        }
+        int i = (head + size) & mask;
+        type[i] = eventType;
+        x[i] = ex;
+        y[i] = ey;
+        w[i] = ew;
+        h[i] = eh;
+        value[i] = v;
+        size++;
+    }
+
+    // Sự kiện kế tiếp: trả về chỉ số ô để đọc bằng các getter, hoặc -1 nếu rỗng.
+    // Ô còn hợp lệ tới lần poll/publish tiếp theo.
+    public int poll() {
+        if (size == 0) return -1;
+        int i = head;
+        head = (head + 1) & mask;
+        size--;
+        return i;
+    }
+
+    public int type(int slot) {
+        return type[slot];
+    }
+
+    public int value(int slot) {
+        return value[slot];
+    }
+
+    public double x(int slot) {
+        return x[slot];
+    }
+
+    public double y(int slot) {
+        return y[slot];
+    }
+
+    public double w(int slot) {
+        return w[slot];
+    }
+
+    public double h(int slot) {
+        return h[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
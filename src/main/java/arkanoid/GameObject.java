@@ -5,12 +5,17 @@ import javafx.scene.canvas.GraphicsContext;
 public abstract class GameObject {
     protected double x, y;
     protected double width, height;
+    // vị trí ở bước mô phỏng trước và hệ số nội suy khi vẽ (1 = vẽ đúng vị trí hiện tại)
+    protected double prevX, prevY;
+    protected double interpAlpha = 1.0;
 
     public GameObject(double x, double y, double width, double height) {
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
+        this.prevX = x;
+        this.prevY = y;
     }
 
     // cập nhật trạng thái đối tượng mỗi khung hình
@@ -19,6 +24,26 @@ public abstract class GameObject {
     // vẽ đối tượng lên GraphicsContext
     public abstract void render(GraphicsContext gc);
 
+    // lưu vị trí trước khi chạy một bước mô phỏng; cũng dùng khi dịch chuyển tức thời
+    // (đặt lại vị trí giữa bước) để khung hình sau không vẽ vệt từ chỗ cũ sang chỗ mới
+    public void snapshotPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    public void setInterpAlpha(double alpha) {
+        this.interpAlpha = alpha;
+    }
+
+    // vị trí nội suy giữa bước trước và bước hiện tại, dùng khi vẽ
+    protected double renderX() {
+        return prevX + (x - prevX) * interpAlpha;
+    }
+
+    protected double renderY() {
+        return prevY + (y - prevY) * interpAlpha;
+    }
+
     public double getX() {
         return x;
     }
@@ -0,0 +1,43 @@
+package arkanoid;
+
+import java.util.SplittableRandom;
+
+/**
+ * Nguồn ngẫu nhiên của một Simulation (bóng, boss, power-up, hạt, mảnh vỡ).
+ * Mỗi Simulation sở hữu một instance và truyền xuống các manager/emitter/boss của nó, nên replay
+ * headless hay nhiều Simulation trên các luồng khác nhau không làm lệch chuỗi số của nhau.
+ * Đặt lại seed trước mỗi lượt chơi để có thể ghi và phát lại y hệt (xem {@link Replay}).
+ * Chỉ dùng trên luồng mô phỏng; phần thuần hình ảnh theo khung hình (rung màn hình) không được dùng,
+ * nếu không số lần vẽ sẽ làm lệch chuỗi số.
+ */
+public class GameRandom {
+    private long seed;
+    private SplittableRandom random;
+
+    public GameRandom() {
+        this(System.nanoTime());
+    }
+
+    public GameRandom(long seed) {
+        reseed(seed);
+    }
+
+    public void reseed(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // [0, 1)
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    // [0, bound)
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+}
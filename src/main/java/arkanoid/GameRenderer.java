@@ -1,57 +1,39 @@
 package arkanoid;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class GameRenderer {
     private final GraphicsContext gc;
     private final double width, height;
-    private final Image heartImage;
+    // Gạch tĩnh được vẽ sẵn thành một ảnh
+    private final BrickLayer brickLayer;
+    // Đo thời gian vẽ từng lớp
+    private final FrameProfiler profiler;
 
-    // Danh sách để lưu trữ các ảnh nền đã tải
-    private final List<Image> backgroundImages = new ArrayList<>();
     // Màu nền dự phòng nếu không tải được ảnh
     private final Color fallbackBackgroundColor = Color.rgb(20, 24, 30);
 
-    public GameRenderer(GraphicsContext gc, double width, double height) {
+    public GameRenderer(GraphicsContext gc, double width, double height, FrameProfiler profiler) {
         this.gc = gc;
         this.width = width;
         this.height = height;
-        // Lấy ảnh trái tim (EXTRA_LIFE) từ lớp PowerUp
-        this.heartImage = PowerUp.getPowerUpImage(PowerUp.PowerType.EXTRA_LIFE);
+        this.profiler = profiler;
+        this.brickLayer = new BrickLayer(width, height);
         loadBackgrounds();
     }
 
-    // Hàm tải ảnh
-    // Tải trước tất cả ảnh nền từ /Image/Background/
-
+    // Tạo trước ảnh nền /Image/Background/level_bN.png đã thu phóng vừa màn hình
     private void loadBackgrounds() {
-        for (int i = 1; i <= 8; i++) {
-            String path = "/Image/Background/level_b" + i + ".png";
-            try {
-                Image img = new Image(getClass().getResourceAsStream(path));
-                if (img.isError()) {
-                    System.err.println("Lỗi tải ảnh nền: " + path);
-                    backgroundImages.add(null);
-                } else {
-                    backgroundImages.add(img);
-                }
-            } catch (Exception e) {
-                System.err.println("Không tìm thấy tài nguyên ảnh nền: " + path);
-                backgroundImages.add(null);
-            }
-        }
+        Assets.get().prepare(Assets.Img.LEVEL_BACKGROUNDS, width, height);
     }
 
     // Hàm render chính, nhận dữ liệu từ các Manager
     public void render(GameState state, EntityManager entities, CollisionManager collisionManager,
                        PowerUpManager power, Paddle paddle, Boss boss, boolean bossLevel) {
         gc.save();
+        long lt = profiler.begin();
 
         // apply screen shake
         double offsetX = 0, offsetY = 0;
@@ -65,27 +47,27 @@ public class GameRenderer {
 
         // Vẽ nền
         int levelIndex = state.getCurrentLevelIndex();
-        Image bgToDraw = null;
+        boolean bgDrawn = false;
 
         // Kiểm tra xem có ảnh cho màn này không
-        if (levelIndex >= 0 && levelIndex < backgroundImages.size()) {
-            bgToDraw = backgroundImages.get(levelIndex);
+        if (levelIndex >= 0 && levelIndex < Assets.Img.LEVEL_BACKGROUNDS.length) {
+            // Vẽ ảnh nền (đã thu phóng sẵn vừa màn hình)
+            bgDrawn = Assets.get().draw(gc, Assets.Img.LEVEL_BACKGROUNDS[levelIndex], 0, 0, width, height);
         }
 
-        if (bgToDraw != null) {
-            // Vẽ ảnh nền (kéo dãn để vừa màn hình)
-            gc.drawImage(bgToDraw, 0, 0, width, height);
-        } else {
+        if (!bgDrawn) {
             // Nếu không có ảnh, vẽ màu nền dự phòng
             gc.setFill(fallbackBackgroundColor);
             gc.fillRect(0, 0, width, height);
         }
 
+        lt = profiler.lap(FrameProfiler.Phase.R_BACKGROUND, lt);
+
         // Vẽ HUD (Điểm, Mạng)
         gc.setFill(Color.WHITE);
         gc.setFont(Font.font(18));
         gc.fillText("Score: " + state.getScore(), 10, 42);
-        if (heartImage != null) {
+        if (Assets.get().isAvailable(Assets.Img.PU_EXTRA_LIFE)) {
             int lives = state.getLives();
             double heartWidth = 20;
             double heartHeight = 20;
@@ -95,7 +77,7 @@ public class GameRenderer {
             for (int i = 0; i < lives; i++) {
                 // Vẽ 1 trái tim
                 // Vị trí X = startX + (số thứ tự * (chiều rộng + 4px đệm))
-                gc.drawImage(heartImage, startX + (i * (heartWidth + 4)), startY, heartWidth, heartHeight);
+                Assets.get().draw(gc, Assets.Img.PU_EXTRA_LIFE, startX + (i * (heartWidth + 4)), startY, heartWidth, heartHeight);
             }
         } else {
             // Nếu ảnh trái tim tải lỗi, vẽ lại text cũ
@@ -112,14 +94,17 @@ public class GameRenderer {
         gc.fillText("Level: " + (levelHuman > 3 ? levelHuman - 1 : levelHuman), 350, 22);
 
 
+        lt = profiler.lap(FrameProfiler.Phase.R_HUD, lt);
+
         // Vẽ các đối tượng game
         paddle.render(gc);
         for (Ball bl : entities.getBalls()) bl.render(gc);
-        for (Brick b : entities.getBricks()) b.render(gc);
+        brickLayer.render(gc, entities.getBricks());
         for (PowerUp pu : entities.getPowerUps()) pu.render(gc);
         for (Explosion ex : collisionManager.getExplosions()) ex.render(gc);
         for (ScorePopup sp : collisionManager.getScorePopups()) sp.render(gc);
         for (Bullet bu : entities.getBullets()) bu.render(gc);
+        lt = profiler.lap(FrameProfiler.Phase.R_ENTITIES, lt);
 
         // Vẽ cổng + flying bricks khi nó hoạt động
         if (power.isNextLevelInProgress()) {
@@ -215,6 +200,7 @@ public class GameRenderer {
         }
 
         gc.restore();
+        lt = profiler.lap(FrameProfiler.Phase.R_OVERLAYS, lt);
 
         // vẽ gạch vỡ
         collisionManager.getEmitter().render(gc);
@@ -227,5 +213,6 @@ public class GameRenderer {
             gc.fillRect(0, 0, width, height);
             gc.setGlobalAlpha(1.0);
         }
+        profiler.lap(FrameProfiler.Phase.R_PARTICLES, lt);
     }
 }
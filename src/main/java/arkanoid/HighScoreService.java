@@ -1,120 +1,549 @@
 package arkanoid;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-// Quản lý bảng xếp hạng Top 10, lưu ở file data/highscore
-// định dạng "score<TAB>timestamp<TAB>name" mỗi dòng
+// Lịch sử điểm và bảng xếp hạng.
+// Mọi lần submit được ghi nối đuôi vào data/highscore.log; định kỳ toàn bộ lịch sử được nén vào
+// data/highscore.seg (bản ghi kích thước cố định + bảng tên) và log được làm mới.
+// File data/highscore cũ (Top 10 dạng "score<TAB>timestamp<TAB>name") chỉ còn được đọc một lần để chuyển đổi.
+// Khi nạp, lịch sử được giữ trong RAM dạng cột (mảng nguyên thủy) cùng các chỉ mục:
+// top toàn bộ / theo level, điểm cao nhất từng người chơi và mảng điểm đã sắp xếp để tính percentile.
 public final class HighScoreService {
 
     public static final int MAX_ENTRIES = 10;
-    private static final HighScoreService I = new HighScoreService();
+    // số entry đầu bảng giữ sẵn đã sắp xếp (toàn bộ và theo từng level)
+    static final int TOP_CAPACITY = 100;
+    static final int MAX_LEVELS = 128;
+    private static final int SEG_MAGIC = 0x41524B48; // "ARKH"
+    private static final int LOG_MAGIC = 0x41524B4C; // "ARKL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOG_HEADER_BYTES = 10;
+    private static final int MIN_COMPACT_RECORDS = 4096;
+    private static final HighScoreService I = new HighScoreService(null);
 
     public static HighScoreService get() {
         return I;
     }
 
-    private HighScoreService() {
+    private final Path file; // null = file mặc định trong thư mục data
+
+    // ---- Lịch sử dạng cột, chỉ sửa trong synchronized ----
+    private int count = 0;
+    private int[] scores = new int[256];
+    private long[] times = new long[256];
+    private int[] nameIds = new int[256];
+    private byte[] levels = new byte[256];
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+    private int[] bestByName = new int[64]; // chỉ số entry cao điểm nhất của từng người chơi
+
+    // Chỉ số entry đầu bảng, giảm dần theo điểm; cùng điểm thì bản ghi trước xếp trên
+    private final int[] topIdx = new int[TOP_CAPACITY];
+    private int topSize = 0;
+    private final int[][] levelTopIdx = new int[MAX_LEVELS][];
+    private final int[] levelTopSize = new int[MAX_LEVELS];
+
+    // Điểm đã sắp xếp tăng dần + phần mới chưa gộp, dùng cho percentile
+    private int[] sortedScores = new int[0];
+    private int[] recentScores = new int[1024];
+    private int recentCount = 0;
+
+    // Top đã dựng sẵn thành Entry, mảng không bao giờ bị sửa: mỗi lần submit tạo mảng mới
+    // rồi gán lại, nên getTop/qualifyRank đọc không cần khóa. null = chưa nạp
+    private volatile Entry[] top;
+    // điểm cao nhất (kể cả điểm ván đang chơi), GameRenderer đọc mỗi khung hình; -1 = chưa nạp
+    private final AtomicInteger best = new AtomicInteger(-1);
+
+    // ---- Ghi file ở luồng nền; nhiều lần submit liên tiếp gộp thành một lần ghi ----
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "highscore-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean writeQueued = new AtomicBoolean(false);
+    private final List<Entry> pendingLog = new ArrayList<>(); // chưa ghi vào log
+    // Các trường dưới chỉ luồng ghi dùng (sau khi nạp xong)
+    private int persisted = 0; // số entry đã nằm trong seg + log
+    private int segCount = 0;  // số entry trong seg
+    private int epoch = 0;     // log chỉ hợp lệ khi cùng epoch với seg
+
+    HighScoreService(Path file) {
+        this.file = file;
     }
 
     public static final class Entry {
         public final String name;
         public final int score;
         public final long ts;
+        public final int level; // -1 = không gắn level
 
         public Entry(String name, int score, long ts) {
+            this(name, score, ts, -1);
+        }
+
+        public Entry(String name, int score, long ts, int level) {
             this.name = name;
             this.score = score;
             this.ts = ts;
+            this.level = level;
         }
     }
 
-    // đọc từ file một lần, sau đó chỉ cập nhật trong RAM khi score lớn hơn
-    private int cachedBest = -1;
+    // Trả về thứ hạng nếu score lọt Top 10, ngược lại -1
+    public int qualifyRank(int score) {
+        int pos = insertionPoint(entries(), score);
+        return pos < MAX_ENTRIES ? pos + 1 : -1;
+    }
 
-    private boolean initialized = false;
+    // Ghi nhận điểm người chơi (không gắn level)
+    public void submit(String rawName, int score) {
+        submit(rawName, score, -1);
+    }
 
+    // Ghi nhận điểm vào lịch sử; level là chỉ số màn lúc kết thúc ván
+    public synchronized void submit(String rawName, int score, int level) {
+        entries();
+        if (level < -1 || level >= MAX_LEVELS) level = -1;
+        Entry e = new Entry(sanitize(rawName), score, System.currentTimeMillis(), level);
+        int idx = append(e.name, e.score, e.ts, e.level);
+        addScore(score);
+        if (insertTop(topIdx, topSize, idx)) {
+            topSize = Math.min(TOP_CAPACITY, topSize + 1);
+            top = buildTop();
+        }
+        indexLevel(idx);
+        pendingLog.add(e);
+        scheduleWrite();
+        maybeUpdateBest(score);
+    }
 
-    // Trả về thứ hạng nếu score lọt Top 10, ngược lại -1
-    public synchronized int qualifyRank(int score) {
-        List<Entry> list = readAll();
-        list.sort(this::cmp);
-        if (list.size() < MAX_ENTRIES) {
-            int pos = 0;
-            while (pos < list.size() && score <= list.get(pos).score) pos++;
-            return pos + 1;
-        } else {
-            Entry last = list.get(MAX_ENTRIES - 1);
-            if (score > last.score) {
-                int pos = 0;
-                while (pos < list.size() && score <= list.get(pos).score) pos++;
-                return pos + 1;
-            }
-            return -1;
+    // lấy top n của toàn bộ lịch sử
+    public List<Entry> getTop(int n) {
+        Entry[] t = entries();
+        if (n > t.length && t.length == TOP_CAPACITY) return scanTop(n, Integer.MIN_VALUE);
+        return new ArrayList<>(Arrays.asList(t).subList(0, Math.min(n, t.length)));
+    }
+
+    // lấy top n của một level
+    public synchronized List<Entry> getTopForLevel(int level, int n) {
+        entries();
+        List<Entry> out = new ArrayList<>();
+        if (level < 0 || level >= MAX_LEVELS || levelTopIdx[level] == null) return out;
+        if (n > TOP_CAPACITY) return scanTop(n, level);
+        for (int i = 0; i < Math.min(n, levelTopSize[level]); i++) out.add(entryAt(levelTopIdx[level][i]));
+        return out;
+    }
+
+    // điểm cao nhất của một người chơi, null nếu chưa có
+    public synchronized Entry getPersonalBest(String rawName) {
+        entries();
+        Integer id = nameIndex.get(sanitize(rawName));
+        return id == null ? null : entryAt(bestByName[id]);
+    }
+
+    // phần trăm số lần chơi có điểm thấp hơn score (0..100)
+    public synchronized double percentileRank(int score) {
+        entries();
+        if (count == 0) return 0;
+        int below = lowerBound(sortedScores, score);
+        for (int i = 0; i < recentCount; i++) if (recentScores[i] < score) below++;
+        return 100.0 * below / count;
+    }
+
+    // số lần submit đã ghi nhận
+    public synchronized int getHistorySize() {
+        entries();
+        return count;
+    }
+
+    // Lấy điểm cao nhất trong bảng xếp hạng
+    public int getBestScore() {
+        Entry[] t = entries();
+        return t.length > 0 ? t[0].score : 0;
+    }
+
+    // lấy highscore đang có trong RAM (không khóa, gọi mỗi khung hình)
+    public int getCachedBest() {
+        int b = best.get();
+        if (b < 0) {
+            entries();
+            b = best.get();
         }
+        return Math.max(0, b);
     }
 
-    // Ghi nhận điểm người chơi vào bảng xếp hạng, tự cắt còn Top 10
-    public synchronized void submit(String rawName, int score) {
-        String name = sanitize(rawName);
-        long ts = System.currentTimeMillis();
-        List<Entry> list = readAll();
-        list.add(new Entry(name, score, ts));
-        list.sort(this::cmp);
-        if (list.size() > MAX_ENTRIES) {
-            list = new ArrayList<>(list.subList(0, MAX_ENTRIES));
+    // Nếu score hiện tại vượt best thì cập nhật best trong RAM
+    public void maybeUpdateBest(int score) {
+        int b = best.get();
+        if (b < 0) {
+            entries();
+            b = best.get();
         }
-        writeAll(list);
-        // cập nhật cache
-        if (cachedBest < score) {
-            cachedBest = score;
+        while (score > b && !best.compareAndSet(b, score)) b = best.get();
+    }
+
+    // Nạp lịch sử ở luồng nền ngay khi mở game để lần truy vấn đầu không phải chờ
+    public void preload() {
+        writer.execute(this::entries);
+    }
+
+    // Chờ các lần ghi đang xếp hàng hoàn tất (gọi trước khi thoát app)
+    public void flush() {
+        try {
+            writer.submit(() -> {
+            }).get(5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            System.err.println("Chờ ghi highscore thất bại: " + ex.getMessage());
         }
     }
 
-    // lấy top n
-    public synchronized List<Entry> getTop(int n) {
-        List<Entry> list = readAll();
-        list.sort(this::cmp);
-        if (list.size() > n) return new ArrayList<>(list.subList(0, n));
-        return list;
+    // ---------- Chỉ mục trong RAM ----------
+
+    private Entry[] entries() {
+        Entry[] t = top;
+        return t != null ? t : load();
     }
 
-    // Lấy điểm cao nhất để hiển thị HUD
+    private synchronized Entry[] load() {
+        if (top != null) return top;
+        Path seg = segFile(), log = logFile();
+        boolean tornLog = false;
+        try {
+            if (Files.exists(seg)) readSegment(ByteBuffer.wrap(Files.readAllBytes(seg)));
+            segCount = count;
+            if (Files.exists(log)) tornLog = !readLog(ByteBuffer.wrap(Files.readAllBytes(log)));
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("Đọc lịch sử highscore thất bại: " + ex.getMessage());
+        }
+        persisted = count;
+        boolean legacy = count == 0 && !Files.exists(seg) && !Files.exists(log);
 
-    public synchronized int getBestScore() {
-        return readAll().stream().mapToInt(e -> e.score).max().orElse(0);
+        // dựng chỉ mục một lượt trên toàn bộ lịch sử
+        sortedScores = Arrays.copyOf(scores, count);
+        Arrays.sort(sortedScores);
+        for (int i = 0; i < count; i++) {
+            if (insertTop(topIdx, topSize, i)) topSize = Math.min(TOP_CAPACITY, topSize + 1);
+            indexLevel(i);
+        }
+        top = buildTop();
+
+        if (legacy) {
+            // chuyển Top 10 từ file cũ sang log
+            List<Entry> old = readAll();
+            old.sort(this::cmp);
+            for (Entry e : old) submitLoaded(e);
+        } else if (tornLog) {
+            // cuối log bị ghi dở: nén lại để bỏ phần hỏng trước khi ghi tiếp
+            writer.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException ex) {
+                    System.err.println("Nén lịch sử highscore thất bại: " + ex.getMessage());
+                }
+            });
+        }
+        // best tính sau khi đã chuyển file cũ (submitLoaded không đụng tới best)
+        int fileBest = topSize > 0 ? scores[topIdx[0]] : 0;
+        int b = best.get();
+        while (fileBest > b && !best.compareAndSet(b, fileBest)) b = best.get();
+        return top;
     }
 
-    // cachedBest đã được nạp từ file một lần
-    private void ensureInit() {
-        if (!initialized) {
-            cachedBest = getBestScore();
-            initialized = true;
+    private void submitLoaded(Entry e) {
+        int idx = append(e.name, e.score, e.ts, e.level);
+        addScore(e.score);
+        if (insertTop(topIdx, topSize, idx)) topSize = Math.min(TOP_CAPACITY, topSize + 1);
+        indexLevel(idx);
+        pendingLog.add(e);
+        top = buildTop();
+        scheduleWrite();
+    }
+
+    private int append(String name, int score, long ts, int level) {
+        if (count == scores.length) {
+            int n = count * 2;
+            scores = Arrays.copyOf(scores, n);
+            times = Arrays.copyOf(times, n);
+            nameIds = Arrays.copyOf(nameIds, n);
+            levels = Arrays.copyOf(levels, n);
         }
+        int id = nameId(name);
+        int i = count++;
+        scores[i] = score;
+        times[i] = ts;
+        nameIds[i] = id;
+        levels[i] = (byte) level;
+        int prev = bestByName[id];
+        if (prev < 0 || score > scores[prev]) bestByName[id] = i;
+        return i;
     }
 
-    // lấy highscore đang có trong RAM
-    public synchronized int getCachedBest() {
-        ensureInit();
-        return Math.max(0, cachedBest);
+    private int nameId(String name) {
+        Integer id = nameIndex.get(name);
+        if (id != null) return id;
+        int n = names.size();
+        names.add(name);
+        nameIndex.put(name, n);
+        if (n == bestByName.length) bestByName = Arrays.copyOf(bestByName, n * 2);
+        bestByName[n] = -1;
+        return n;
     }
 
-    // Nếu score hiện tại vượt cachedBest thì cập nhật cachedBest trong RAM
-    public synchronized void maybeUpdateBest(int score) {
-        ensureInit();
-        if (score > cachedBest) cachedBest = score;
+    private void indexLevel(int idx) {
+        int lv = levels[idx];
+        if (lv < 0) return;
+        if (levelTopIdx[lv] == null) levelTopIdx[lv] = new int[TOP_CAPACITY];
+        if (insertTop(levelTopIdx[lv], levelTopSize[lv], idx)) {
+            levelTopSize[lv] = Math.min(TOP_CAPACITY, levelTopSize[lv] + 1);
+        }
+    }
+
+    // chèn entry idx vào danh sách top (đã sắp xếp); false nếu không lọt top
+    private boolean insertTop(int[] arr, int size, int idx) {
+        int score = scores[idx];
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (scores[arr[mid]] >= score) lo = mid + 1;
+            else hi = mid;
+        }
+        if (lo >= TOP_CAPACITY) return false;
+        int tail = Math.min(size, TOP_CAPACITY - 1) - lo;
+        System.arraycopy(arr, lo, arr, lo + 1, tail);
+        arr[lo] = idx;
+        return true;
+    }
+
+    private Entry[] buildTop() {
+        Entry[] t = new Entry[topSize];
+        for (int i = 0; i < topSize; i++) t[i] = entryAt(topIdx[i]);
+        return t;
+    }
+
+    private Entry entryAt(int i) {
+        return new Entry(names.get(nameIds[i]), scores[i], times[i], levels[i]);
+    }
+
+    // điểm mới vào vùng tạm; gộp vào mảng đã sắp xếp khi vùng tạm đủ lớn so với lịch sử
+    private void addScore(int score) {
+        if (recentCount == recentScores.length) {
+            if (recentCount >= Math.max(1024, count / 16)) mergeRecent();
+            else recentScores = Arrays.copyOf(recentScores, recentCount * 2);
+        }
+        recentScores[recentCount++] = score;
+    }
+
+    private void mergeRecent() {
+        Arrays.sort(recentScores, 0, recentCount);
+        int[] merged = new int[sortedScores.length + recentCount];
+        int i = 0, j = 0, k = 0;
+        while (i < sortedScores.length && j < recentCount) {
+            merged[k++] = sortedScores[i] <= recentScores[j] ? sortedScores[i++] : recentScores[j++];
+        }
+        while (i < sortedScores.length) merged[k++] = sortedScores[i++];
+        while (j < recentCount) merged[k++] = recentScores[j++];
+        sortedScores = merged;
+        recentCount = 0;
+    }
+
+    // Quét toàn bộ lịch sử khi cần nhiều hơn TOP_CAPACITY entry (level = MIN_VALUE: mọi level)
+    private synchronized List<Entry> scanTop(int n, int level) {
+        Integer[] idx = new Integer[count];
+        int m = 0;
+        for (int i = 0; i < count; i++) if (level == Integer.MIN_VALUE || levels[i] == level) idx[m++] = i;
+        Arrays.sort(idx, 0, m, (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[b], scores[a])
+                : Integer.compare(a, b));
+        List<Entry> out = new ArrayList<>(Math.min(n, m));
+        for (int i = 0; i < Math.min(n, m); i++) out.add(entryAt(idx[i]));
+        return out;
+    }
+
+    // số entry có điểm >= score (mảng giảm dần theo điểm), tức vị trí chèn của score
+    private static int insertionPoint(Entry[] t, int score) {
+        int lo = 0, hi = t.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (t[mid].score >= score) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // số phần tử < score trong mảng tăng dần
+    private static int lowerBound(int[] a, int score) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < score) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // ---------- Lưu trữ: highscore.seg (đã nén) + highscore.log (nối đuôi) ----------
+
+    private void scheduleWrite() {
+        if (!writeQueued.compareAndSet(false, true)) return;
+        writer.execute(() -> {
+            writeQueued.set(false); // submit sau thời điểm này sẽ xếp thêm một lần ghi
+            List<Entry> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(pendingLog);
+                pendingLog.clear();
+            }
+            if (batch.isEmpty()) return;
+            try {
+                appendLog(batch);
+                persisted += batch.size();
+                if (persisted - segCount > Math.max(MIN_COMPACT_RECORDS, segCount / 4)) compact();
+            } catch (IOException ex) {
+                System.err.println("Ghi highscore thất bại: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Bản ghi log: int score, long ts, byte level, short độ dài tên, tên UTF-8
+    private void appendLog(List<Entry> batch) throws IOException {
+        Path log = logFile();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 32 + LOG_HEADER_BYTES);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (!Files.exists(log) || Files.size(log) < LOG_HEADER_BYTES) {
+            SaveLoad.writeAtomically(log, logHeader(epoch));
+        }
+        for (Entry e : batch) {
+            byte[] name = e.name.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(e.score);
+            out.writeLong(e.ts);
+            out.writeByte(e.level);
+            out.writeShort(name.length);
+            out.write(name);
+        }
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+    }
+
+    // Gộp seg + log thành seg mới rồi làm mới log. Có crash giữa chừng thì log cũ (khác epoch) bị bỏ qua
+    // vì nội dung của nó đã nằm trong seg mới.
+    private void compact() throws IOException {
+        int n = persisted;
+        int[] s;
+        long[] t;
+        int[] nid;
+        byte[] lv;
+        String[] nm;
+        synchronized (this) {
+            // các entry < count không bao giờ bị sửa nên chỉ cần lấy tham chiếu mảng trong khóa
+            s = scores;
+            t = times;
+            nid = nameIds;
+            lv = levels;
+            nm = names.toArray(new String[0]);
+        }
+        byte[][] nameBytes = new byte[nm.length][];
+        int size = 14;
+        for (int i = 0; i < nm.length; i++) {
+            nameBytes[i] = nm[i].getBytes(StandardCharsets.UTF_8);
+            size += 2 + nameBytes[i].length;
+        }
+        size += 4 + n * 17;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(SEG_MAGIC).putShort((short) FORMAT_VERSION).putInt(epoch + 1).putInt(nm.length);
+        for (byte[] b : nameBytes) buf.putShort((short) b.length).put(b);
+        buf.putInt(n);
+        for (int i = 0; i < n; i++) buf.putInt(s[i]).putLong(t[i]).put(lv[i]).putInt(nid[i]);
+
+        SaveLoad.writeAtomically(segFile(), buf.array());
+        epoch++;
+        SaveLoad.writeAtomically(logFile(), logHeader(epoch));
+        segCount = n;
+    }
+
+    private void readSegment(ByteBuffer in) throws IOException {
+        if (in.getInt() != SEG_MAGIC || in.getShort() != FORMAT_VERSION) {
+            throw new IOException("File highscore.seg không hợp lệ");
+        }
+        epoch = in.getInt();
+        int nameCount = in.getInt();
+        int[] remap = new int[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            byte[] b = new byte[in.getShort() & 0xFFFF];
+            in.get(b);
+            remap[i] = nameId(new String(b, StandardCharsets.UTF_8));
+        }
+        int n = in.getInt();
+        if (n < 0 || (long) n * 17 > in.remaining()) throw new IOException("File highscore.seg bị cắt");
+        for (int i = 0; i < n; i++) {
+            int score = in.getInt();
+            long ts = in.getLong();
+            int level = in.get();
+            int id = in.getInt();
+            if (id < 0 || id >= nameCount) throw new IOException("Tên không hợp lệ trong highscore.seg");
+            append(names.get(remap[id]), score, ts, level);
+        }
+    }
+
+    // false nếu cuối log có bản ghi ghi dở
+    private boolean readLog(ByteBuffer in) {
+        if (in.remaining() < LOG_HEADER_BYTES || in.getInt() != LOG_MAGIC || in.getShort() != FORMAT_VERSION) {
+            return in.capacity() == 0;
+        }
+        if (in.getInt() != epoch) return true; // log cũ đã được gộp vào seg
+        try {
+            while (in.hasRemaining()) {
+                int score = in.getInt();
+                long ts = in.getLong();
+                int level = in.get();
+                byte[] b = new byte[in.getShort() & 0xFFFF];
+                in.get(b);
+                append(new String(b, StandardCharsets.UTF_8), score, ts, level);
+            }
+            return true;
+        } catch (BufferUnderflowException ex) {
+            return false;
+        }
+    }
+
+    private static byte[] logHeader(int epoch) {
+        return ByteBuffer.allocate(LOG_HEADER_BYTES).putInt(LOG_MAGIC).putShort((short) FORMAT_VERSION)
+                .putInt(epoch).array();
     }
 
     public Path getHighScoreFile() {
-        return resolveDataDir().resolve("highscore");
+        return file != null ? file : resolveDataDir().resolve("highscore");
+    }
+
+    private Path logFile() {
+        Path f = getHighScoreFile();
+        return f.resolveSibling(f.getFileName() + ".log");
+    }
+
+    private Path segFile() {
+        Path f = getHighScoreFile();
+        return f.resolveSibling(f.getFileName() + ".seg");
     }
 
     // sắp xếp
@@ -151,22 +580,6 @@ public final class HighScoreService {
         return out;
     }
 
-    private void writeAll(List<Entry> entries) {
-        Path file = getHighScoreFile();
-        try {
-            Files.createDirectories(file.getParent());
-            try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                for (Entry e : entries) {
-                    bw.write(e.score + "\t" + e.ts + "\t" + e.name);
-                    bw.newLine();
-                }
-            }
-        } catch (IOException ex) {
-            System.err.println("Ghi highscore thất bại: " + ex.getMessage());
-        }
-    }
-
     private int parseInt(String s, int def) {
         try {
             return Integer.parseInt(s.trim());
@@ -117,9 +117,10 @@ public final class HighScoreUI {
         return l;
     }
 
-    // nhập tên khi lọt Top 10
+    // nhập tên khi lọt Top 10 (level: màn lúc kết thúc ván, dùng cho bảng xếp hạng theo level)
     public static boolean promptNameIfQualified(Pane overlayParent,
                                                 int score,
+                                                int level,
                                                 HighScoreService svc,
                                                 Runnable afterSaved) {
         int rank = svc.qualifyRank(score);
@@ -161,7 +162,7 @@ public final class HighScoreUI {
                 warn.setText("Name is required");
                 return;
             }
-            svc.submit(name, score);
+            svc.submit(name, score, level);
             overlayParent.getChildren().remove(mask);
             if (afterSaved != null) afterSaved.run();
         });
@@ -1,9 +1,14 @@
 package arkanoid;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyEvent;
@@ -14,12 +19,16 @@ import javafx.scene.paint.Color;
 import javafx.util.Duration;
 
 // Quản lý Scene và Animation cho màn hình Intro sử dụng IntroBackground.jpg
+// Trong lúc Intro chạy, tài nguyên được tải nền; thanh tiến trình hiện ở đáy màn hình
+// và Intro chỉ chuyển cảnh khi tải xong.
 public class IntroScene {
 
     private final Scene scene;
     private final SequentialTransition sequence;
+    private final AnimationTimer progressTimer;
+    private boolean finished = false;
 
-    public IntroScene(double width, double height, Runnable onFinishedCallback) {
+    public IntroScene(double width, double height, AssetPreloader loader, Runnable onFinishedCallback) {
 
         StackPane root = new StackPane();
         root.setPrefSize(width, height);
@@ -47,6 +56,24 @@ public class IntroScene {
             root.getChildren().add(new javafx.scene.text.Text("Loading..."));
         }
 
+        // Thanh tiến trình tải tài nguyên
+        ProgressBar progress = new ProgressBar(0);
+        progress.setPrefWidth(width * 0.5);
+        StackPane.setAlignment(progress, Pos.BOTTOM_CENTER);
+        StackPane.setMargin(progress, new Insets(0, 0, 40, 0));
+        root.getChildren().add(progress);
+        this.progressTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                progress.setProgress(loader.getProgress());
+                if (loader.isDone()) {
+                    progress.setProgress(1.0);
+                    progress.setVisible(false);
+                    stop();
+                }
+            }
+        };
+
         this.scene = new Scene(root, width, height);
 
         // Tạo hiệu ứng mờ dần rồi biến mất
@@ -64,13 +91,18 @@ public class IntroScene {
 
         this.sequence = new SequentialTransition(fadeIn, hold, fadeOut);
 
-        // Khi kết thúc thì gọi callback chuyển sang Menu
-        sequence.setOnFinished(e -> onFinishedCallback.run());
+        // Khi kết thúc thì gọi callback chuyển sang Menu (đợi tải xong nếu chưa xong)
+        Runnable finish = () -> {
+            if (finished) return;
+            finished = true;
+            loader.future().thenRun(() -> Platform.runLater(onFinishedCallback));
+        };
+        sequence.setOnFinished(e -> finish.run());
 
         // Xử lý skip intro khi nhấn phím bất kỳ
         this.scene.setOnKeyPressed((KeyEvent event) -> {
             sequence.stop();
-            onFinishedCallback.run();
+            finish.run();
         });
     }
 
@@ -79,6 +111,7 @@ public class IntroScene {
     }
 
     public void play() {
+        this.progressTimer.start();
         this.sequence.play();
     }
 }
@@ -9,6 +9,14 @@ public class LevelData {
     public final List<Brick> bricks = new ArrayList<>();
     public boolean hasBoss = false;
 
+    // Hình học lưới slot gạch (LevelLoader): dùng để dựng BrickGrid
+    public double originX = 30;
+    public double originY = 60;
+    public double cellW = BrickGrid.DEFAULT_CELL_W;
+    public double cellH = BrickGrid.DEFAULT_CELL_H;
+    public int cols = 0;
+    public int rows = 0;
+
     public LevelData() {
     }
 }
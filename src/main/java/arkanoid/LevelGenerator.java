@@ -0,0 +1,138 @@
+package arkanoid;
+
+import java.util.SplittableRandom;
+
+/**
+ * Sinh level ngẫu nhiên theo seed (chế độ vô tận, thử tải với lưới lớn như 100x60).
+ * Cùng seed và cùng cấu hình luôn cho cùng bố cục; mỗi hàng dùng RNG riêng tách từ seed
+ * nên kết quả không phụ thuộc thứ tự sinh hàng.
+ */
+public class LevelGenerator {
+    private final long seed;
+    private final int rows, cols;
+
+    // Tỉ lệ các loại gạch (trọng số tương đối)
+    private double normalWeight = 0.80;
+    private double explosiveWeight = 0.08;
+    private double indestructibleWeight = 0.05;
+    private double movingWeight = 0.07;
+    // Xác suất một ô có gạch
+    private double density = 0.85;
+    // Chiều cao tối đa của vùng gạch (px); lưới cao hơn sẽ được thu nhỏ hàng
+    private double maxHeight = 330;
+    private boolean boss = false;
+
+    public LevelGenerator(long seed, int rows, int cols) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("Kích thước lưới không hợp lệ: " + rows + "x" + cols);
+        this.seed = seed;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    public void setMix(double normal, double explosive, double indestructible, double moving) {
+        if (normal < 0 || explosive < 0 || indestructible < 0 || moving < 0
+                || normal + explosive + indestructible + moving <= 0) {
+            throw new IllegalArgumentException("Tỉ lệ gạch không hợp lệ");
+        }
+        this.normalWeight = normal;
+        this.explosiveWeight = explosive;
+        this.indestructibleWeight = indestructible;
+        this.movingWeight = moving;
+    }
+
+    public void setDensity(double density) {
+        this.density = Math.max(0, Math.min(1, density));
+    }
+
+    public void setMaxHeight(double maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public void setBoss(boolean boss) {
+        this.boss = boss;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // Tỉ lệ gạch theo thứ tự của setMix: thường, nổ, không phá được, di chuyển
+    public double[] getMix() {
+        return new double[]{normalWeight, explosiveWeight, indestructibleWeight, movingWeight};
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    public double getMaxHeight() {
+        return maxHeight;
+    }
+
+    public boolean isBoss() {
+        return boss;
+    }
+
+    // Màn kế tiếp của chế độ vô tận: seed suy ra từ seed hiện tại, giữ nguyên kích thước và tỉ lệ gạch
+    public LevelGenerator next() {
+        LevelGenerator g = new LevelGenerator(mix(seed + 0x9E3779B97F4A7C15L), rows, cols);
+        g.normalWeight = normalWeight;
+        g.explosiveWeight = explosiveWeight;
+        g.indestructibleWeight = indestructibleWeight;
+        g.movingWeight = movingWeight;
+        g.density = density;
+        g.maxHeight = maxHeight;
+        g.boss = boss;
+        return g;
+    }
+
+    // Sinh lưới mã ô; gạch thật được dựng sau qua LevelTemplate.instantiate/stream
+    public LevelTemplate generate() {
+        byte[] cells = new byte[rows * cols];
+        double total = normalWeight + explosiveWeight + indestructibleWeight + movingWeight;
+        for (int r = 0; r < rows; r++) {
+            SplittableRandom rnd = new SplittableRandom(mix(seed + r * 0x9E3779B97F4A7C15L));
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                if (rnd.nextDouble() >= density) continue;
+                double roll = rnd.nextDouble() * total;
+                byte code;
+                if ((roll -= normalWeight) < 0) {
+                    code = (byte) (1 + rnd.nextInt(3)); // gạch thường 1-3 hit
+                } else if ((roll -= explosiveWeight) < 0) {
+                    code = LevelTemplate.EXPLOSIVE;
+                } else if ((roll -= indestructibleWeight) < 0) {
+                    code = LevelTemplate.INDESTRUCTIBLE;
+                } else {
+                    code = (byte) (LevelTemplate.MOVING_WEAK + rnd.nextInt(4));
+                }
+                cells[base + c] = code;
+            }
+        }
+        // Gạch không phá được chiếm hết lưới thì không thể qua màn: đảm bảo còn ít nhất 1 gạch phá được
+        if (!hasDestructible(cells)) cells[0] = 1;
+        return new LevelTemplate(rows, cols, cells, boss, maxHeight);
+    }
+
+    private static boolean hasDestructible(byte[] cells) {
+        for (byte b : cells) {
+            if (b != 0 && b != LevelTemplate.INDESTRUCTIBLE) return true;
+        }
+        return false;
+    }
+
+    // Trộn bit (splitmix64) để seed của các hàng liền nhau không tương quan
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,12 +1,15 @@
 package arkanoid;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 0: trống
@@ -18,86 +21,44 @@ import java.util.List;
  * S: gạch di chuyển - 3 hit
  * U: gạch di chuyển - 5 hit
  * B: boss
+ * File cũng có thể ở dạng nhị phân của {@link LevelTemplate} (bắt đầu bằng "ARKV").
  */
 public class LevelLoader {
+    // Level đã biên dịch theo đường dẫn resource; mỗi file chỉ đọc và parse một lần
+    private static final Map<String, LevelTemplate> CACHE = new ConcurrentHashMap<>();
+
     public static LevelData loadLevel(String resourcePath, double gameWidth) throws IOException {
-        InputStream in = LevelLoader.class.getResourceAsStream(resourcePath);
-        if (in == null) throw new IOException("Level resource not found: " + resourcePath);
+        return template(resourcePath).instantiate(gameWidth);
+    }
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-        String line;
-        List<String> grid = new ArrayList<>();
-        LevelData data = new LevelData();
+    // Lấy level đã biên dịch (đọc file ở lần đầu). Resource có thể là text hoặc dạng nhị phân của LevelTemplate
+    public static LevelTemplate template(String resourcePath) throws IOException {
+        LevelTemplate t = CACHE.get(resourcePath);
+        if (t != null) return t;
+        t = compileResource(resourcePath);
+        LevelTemplate prev = CACHE.putIfAbsent(resourcePath, t);
+        return prev != null ? prev : t;
+    }
 
-        while ((line = br.readLine()) != null) {
-            line = line.trim();
-            if (line.isEmpty() || line.startsWith("#")) {
-                // Nếu dòng chứa '#boss' thì bật cờ boss
-                if (line.toLowerCase().contains("boss")) {
-                    data.hasBoss = true;
-                }
-                continue;
-            }
-            grid.add(line);
+    private static LevelTemplate compileResource(String resourcePath) throws IOException {
+        byte[] bytes;
+        try (InputStream in = LevelLoader.class.getResourceAsStream(resourcePath)) {
+            if (in == null) throw new IOException("Level resource not found: " + resourcePath);
+            bytes = in.readAllBytes();
         }
+        if (LevelTemplate.isBinary(bytes)) return LevelTemplate.decode(bytes);
 
-        br.close();
-
-        if (grid.isEmpty()) return data;
-
-        int rows = grid.size();
-        int cols = grid.get(0).length();
-
-        double startX = 30;
-        double startY = 60;
-        double brickW = (gameWidth - 60) / cols;
-        double brickH = 24;
-
-        for (int r = 0; r < rows; r++) {
-            String row = grid.get(r);
-            for (int c = 0; c < Math.min(cols, row.length()); c++) {
-                char ch = row.charAt(c);
-                if (ch == '0') continue;
-
-                Brick brick = null;
-
-                double x = startX + c * brickW;
-                double y = startY + r * (brickH + 6);
-                double w = brickW - 8;
-                double h = brickH;
-
-                if (ch == 'X' || ch == 'x') {
-                    brick = new Brick(x, y, w, h, Brick.Type.INDESTRUCTIBLE, Integer.MAX_VALUE);
-                } else if (ch == 'E' || ch == 'e') {
-                    brick = new Brick(x, y, w, h, Brick.Type.EXPLOSIVE, 1);
-                } else if (ch == 'W') {
-                    brick = new MovingBrick(x, y, w, h, 1, MovingBrick.BrickType.WEAK);
-                } else if (ch == 'M') {
-                    brick = new MovingBrick(x, y, w, h, 2, MovingBrick.BrickType.MEDIUM);
-                } else if (ch == 'S') {
-                    brick = new MovingBrick(x, y, w, h, 3, MovingBrick.BrickType.STRONG);
-                } else if (ch == 'U') {
-                    brick = new MovingBrick(x, y, w, h, 4, MovingBrick.BrickType.ULTRA);
-                } else if (ch == 'B' || ch == 'b') {
-                    data.hasBoss = true;
-                } else if (Character.isDigit(ch)) {
-                    int hits = Character.getNumericValue(ch);
-                    brick = new Brick(x, y, w, h, hits);
-                } else {
-                    // Ký tự khác thì coi như gạch thường 1 hit
-                    brick = new Brick(x, y, w, h, 1);
-                }
-
-                if (brick != null) {
-                    data.bricks.add(brick);
-                }
-
-                // Gạch di chuyển xen kẽ hướng
-                if (r % 2 == 1 && brick instanceof MovingBrick mb) {
-                    mb.setDirection(-1);
-                }
-            }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) lines.add(line);
         }
-        return data;
+        return LevelTemplate.compile(lines);
+    }
+
+    // Dựng LevelData từ các dòng văn bản theo định dạng ở trên
+    public static LevelData parse(List<String> lines, double gameWidth) {
+        return LevelTemplate.compile(lines).instantiate(gameWidth);
     }
 }
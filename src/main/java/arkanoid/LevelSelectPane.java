@@ -26,6 +26,7 @@ public class LevelSelectPane extends StackPane {
             Runnable level4Callback,
             Runnable level5Callback,
             Runnable level6Callback,
+            Runnable endlessCallback,
             Runnable backCallback
     ) {
         setPrefSize(WIDTH, HEIGHT);
@@ -72,16 +73,26 @@ public class LevelSelectPane extends StackPane {
         backBtn.setPrefWidth(240);
         backBtn.setOnAction(e -> backCallback.run());
 
+        // Nút chế độ vô tận (level sinh ngẫu nhiên)
+        Button endlessBtn = new Button("Endless ∞");
+        endlessBtn.setFont(javafx.scene.text.Font.font(24));
+        endlessBtn.setPrefWidth(240);
+        endlessBtn.setOnAction(e -> endlessCallback.run());
+
         // Thêm tất cả vào StackPane
         getChildren().addAll(
                 bgView,
                 hotspotPane,
-                backBtn
+                backBtn,
+                endlessBtn
         );
 
         // Đặt nút Back ở góc dưới bên trái
         StackPane.setAlignment(backBtn, Pos.BOTTOM_LEFT);
         StackPane.setMargin(backBtn, new Insets(20));
+        // Nút Endless ở góc dưới bên phải
+        StackPane.setAlignment(endlessBtn, Pos.BOTTOM_RIGHT);
+        StackPane.setMargin(endlessBtn, new Insets(20));
     }
 
     // Thiết lập hiệu ứng và logic cho một vùng chọn level
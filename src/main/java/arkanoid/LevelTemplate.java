@@ -0,0 +1,225 @@
+package arkanoid;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Level đã biên dịch: lưới mã ô 1 byte/ô cùng cờ boss, không phụ thuộc kích thước màn hình.
+ * Được dựng một lần từ file text (hoặc đọc thẳng từ dạng nhị phân) rồi giữ trong cache;
+ * mỗi lần vào/chơi lại màn chỉ cần {@link #instantiate(double)} để tạo bộ gạch mới.
+ */
+public class LevelTemplate {
+    // Mã ô: 0 = trống, 1-9 = gạch thường với số hits tương ứng
+    static final byte INDESTRUCTIBLE = 10;
+    static final byte EXPLOSIVE = 11;
+    static final byte MOVING_WEAK = 12;
+    static final byte MOVING_MEDIUM = 13;
+    static final byte MOVING_STRONG = 14;
+    static final byte MOVING_ULTRA = 15;
+    static final byte BOSS = 16;
+
+    // "ARKV" + phiên bản
+    static final int MAGIC = 0x41524B56;
+    private static final int FORMAT_VERSION = 1;
+
+    final int rows, cols;
+    final byte[] cells; // rows * cols, theo hàng
+    final boolean hasBoss;
+    // chiều cao tối đa của vùng gạch; level vẽ tay không giới hạn (mỗi hàng 30px)
+    final double maxHeight;
+
+    LevelTemplate(int rows, int cols, byte[] cells, boolean hasBoss) {
+        this(rows, cols, cells, hasBoss, Double.POSITIVE_INFINITY);
+    }
+
+    LevelTemplate(int rows, int cols, byte[] cells, boolean hasBoss, double maxHeight) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.hasBoss = hasBoss;
+        this.maxHeight = maxHeight;
+    }
+
+    // Biên dịch từ các dòng text theo định dạng mô tả ở LevelLoader
+    public static LevelTemplate compile(List<String> lines) {
+        List<String> grid = new ArrayList<>();
+        boolean boss = false;
+        for (String raw : lines) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                // Nếu dòng chứa '#boss' thì bật cờ boss
+                if (line.toLowerCase().contains("boss")) boss = true;
+                continue;
+            }
+            grid.add(line);
+        }
+        if (grid.isEmpty()) return new LevelTemplate(0, 0, new byte[0], boss);
+
+        int rows = grid.size();
+        int cols = grid.get(0).length();
+        byte[] cells = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            String row = grid.get(r);
+            for (int c = 0; c < Math.min(cols, row.length()); c++) {
+                byte code = code(row.charAt(c));
+                if (code == BOSS) boss = true;
+                cells[r * cols + c] = code;
+            }
+        }
+        return new LevelTemplate(rows, cols, cells, boss);
+    }
+
+    private static byte code(char ch) {
+        switch (ch) {
+            case '0':
+                return 0;
+            case 'X':
+            case 'x':
+                return INDESTRUCTIBLE;
+            case 'E':
+            case 'e':
+                return EXPLOSIVE;
+            case 'W':
+                return MOVING_WEAK;
+            case 'M':
+                return MOVING_MEDIUM;
+            case 'S':
+                return MOVING_STRONG;
+            case 'U':
+                return MOVING_ULTRA;
+            case 'B':
+            case 'b':
+                return BOSS;
+            default:
+                // Ký tự khác thì coi như gạch thường 1 hit
+                return Character.isDigit(ch) ? (byte) Math.max(1, Character.getNumericValue(ch)) : 1;
+        }
+    }
+
+    // Tạo bộ gạch mới theo bề rộng màn chơi
+    public LevelData instantiate(double gameWidth) {
+        RowStream rs = stream(gameWidth);
+        rs.appendAll();
+        return rs.data;
+    }
+
+    // Dựng gạch dần theo từng hàng (level rất lớn): data có sẵn hình học lưới, gạch được thêm khi gọi next
+    public RowStream stream(double gameWidth) {
+        return new RowStream(gameWidth);
+    }
+
+    public final class RowStream {
+        public final LevelData data = new LevelData();
+        private final double startX = 30, startY = 60;
+        private final double brickW, brickH, gapX, rowStride;
+        private int nextRow = 0;
+
+        private RowStream(double gameWidth) {
+            data.hasBoss = hasBoss;
+            brickW = cols > 0 ? (gameWidth - 60) / cols : 0;
+            // level thường: cao 24, cách 6, khe ngang 8; lưới quá lớn thì thu nhỏ cho vừa maxHeight
+            rowStride = rows > 0 ? Math.min(30, maxHeight / rows) : 30;
+            brickH = rowStride * 0.8;
+            gapX = Math.min(8, brickW * 0.2);
+            if (rows == 0 || cols == 0) {
+                nextRow = rows;
+                return;
+            }
+            data.originX = startX;
+            data.originY = startY;
+            data.cellW = brickW;
+            data.cellH = rowStride;
+            data.cols = cols;
+            data.rows = rows;
+        }
+
+        public boolean isDone() {
+            return nextRow >= rows;
+        }
+
+        // Thêm các hàng tiếp theo vào data.bricks cho tới khi đủ ít nhất maxBricks gạch; trả về số gạch đã thêm
+        public int next(int maxBricks) {
+            int added = 0;
+            while (nextRow < rows && added < maxBricks) added += appendRow(nextRow++);
+            return added;
+        }
+
+        void appendAll() {
+            while (nextRow < rows) appendRow(nextRow++);
+        }
+
+        private int appendRow(int r) {
+            int added = 0;
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                byte code = cells[base + c];
+                if (code == 0 || code == BOSS) continue;
+                Brick brick = makeBrick(code, startX + c * brickW, startY + r * rowStride, brickW - gapX, brickH);
+                brick.slotRow = r;
+                brick.slotCol = c;
+                // Gạch di chuyển xen kẽ hướng
+                if (r % 2 == 1 && brick instanceof MovingBrick mb) mb.setDirection(-1);
+                data.bricks.add(brick);
+                added++;
+            }
+            return added;
+        }
+    }
+
+    static Brick makeBrick(byte code, double x, double y, double w, double h) {
+        switch (code) {
+            case INDESTRUCTIBLE:
+                return new Brick(x, y, w, h, Brick.Type.INDESTRUCTIBLE, Integer.MAX_VALUE);
+            case EXPLOSIVE:
+                return new Brick(x, y, w, h, Brick.Type.EXPLOSIVE, 1);
+            case MOVING_WEAK:
+                return new MovingBrick(x, y, w, h, 1, MovingBrick.BrickType.WEAK);
+            case MOVING_MEDIUM:
+                return new MovingBrick(x, y, w, h, 2, MovingBrick.BrickType.MEDIUM);
+            case MOVING_STRONG:
+                return new MovingBrick(x, y, w, h, 3, MovingBrick.BrickType.STRONG);
+            case MOVING_ULTRA:
+                return new MovingBrick(x, y, w, h, 4, MovingBrick.BrickType.ULTRA);
+            default:
+                return new Brick(x, y, w, h, code);
+        }
+    }
+
+    // Dạng nhị phân: magic, short phiên bản, byte cờ, int rows, int cols, rows*cols byte mã ô
+    public byte[] encode() {
+        ByteBuffer buf = ByteBuffer.allocate(15 + cells.length);
+        buf.putInt(MAGIC).putShort((short) FORMAT_VERSION).put((byte) (hasBoss ? 1 : 0))
+                .putInt(rows).putInt(cols).put(cells);
+        return buf.array();
+    }
+
+    public static LevelTemplate decode(byte[] bytes) throws IOException {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if (buf.getInt() != MAGIC) throw new IOException("Không phải level nhị phân");
+            int version = buf.getShort();
+            if (version != FORMAT_VERSION) throw new IOException("Phiên bản level không hỗ trợ: " + version);
+            boolean boss = (buf.get() & 1) != 0;
+            int rows = buf.getInt();
+            int cols = buf.getInt();
+            if (rows < 0 || cols < 0 || (long) rows * cols != buf.remaining()) {
+                throw new IOException("Kích thước level không hợp lệ: " + rows + "x" + cols);
+            }
+            byte[] cells = new byte[rows * cols];
+            buf.get(cells);
+            for (byte b : cells) {
+                if (b < 0 || b > BOSS) throw new IOException("Mã ô không hợp lệ: " + b);
+            }
+            return new LevelTemplate(rows, cols, cells, boss);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("File level bị cắt", ex);
+        }
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt() == MAGIC;
+    }
+}
@@ -15,6 +15,9 @@ public class Main extends Application {
     public void start(Stage stage) {
         double width = 800, height = 600;
 
+        // Bắt đầu giải mã song song sprite, ảnh nền và âm thanh trong lúc Intro chạy
+        AssetPreloader loader = AssetPreloader.start(width, height);
+
         // Holder để tham chiếu scene trong callback Game
         class MenuSceneHolder {
             Scene scene;
@@ -27,6 +30,7 @@ public class Main extends Application {
 
         // Khai báo biến HighScore service
         HighScoreService highScoreService = HighScoreService.get();
+        highScoreService.preload();
 
         // Tạo Game trước nhưng không bắt đầu trận
         Game game = new Game(
@@ -105,6 +109,13 @@ public class Main extends Application {
                                 stage.setScene(gameScene);
                                 game.requestFocus();
                             },
+                            () -> { // chế độ vô tận: level sinh ngẫu nhiên theo seed
+                                game.resetScore();
+                                game.resetLives();
+                                game.startEndless(System.nanoTime());
+                                stage.setScene(gameScene);
+                                game.requestFocus();
+                            },
                             () -> stage.setScene(menuSceneHolder.scene) // Nút Back
                     );
                     stage.setScene(new Scene(levelSelectPane, width, height));
@@ -145,6 +156,9 @@ public class Main extends Application {
                 // Exit thì lưu rồi thoát
                 () -> {
                     SaveLoad.get().save(game);
+                    game.saveReplay();
+                    SaveLoad.get().flush();
+                    HighScoreService.get().flush();
                     Platform.exit();
                 }
         );
@@ -159,7 +173,7 @@ public class Main extends Application {
             SoundManager.get().startBgm(SoundManager.Bgm.MENU);
         });
         // Tạo IntroScene, kết thúc sẽ chuyển sang StoryScene và chạy StoryScene
-        IntroScene introScene = new IntroScene(width, height, () -> {
+        IntroScene introScene = new IntroScene(width, height, loader, () -> {
             stage.setScene(storyScene.getScene());
             storyScene.play(); // Bắt đầu cuộn chữ
 
@@ -176,6 +190,9 @@ public class Main extends Application {
         stage.setOnCloseRequest(e -> {
             try {
                 SaveLoad.get().save(game);
+                game.saveReplay();
+                SaveLoad.get().flush();
+                HighScoreService.get().flush();
             } catch (Exception ignored) {
             }
         });
@@ -188,7 +205,7 @@ public class Main extends Application {
             if (!promptedThisRun[0] && ended) {
                 int score = s.getScore();
                 boolean shown = HighScoreUI.promptNameIfQualified(
-                        gameContainer, score, highScoreService,
+                        gameContainer, score, s.getCurrentLevelIndex(), highScoreService,
                         () -> game.pause()
                 );
                 // Ghi nhận đã xử lý để không lặp
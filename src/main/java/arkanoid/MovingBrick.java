@@ -10,6 +10,8 @@ public class MovingBrick extends Brick {
     private final double rightBound;
     private final double x0;
     private final BrickType type;
+    // Chỉ số dùng bởi MovingBrickBroadphase: thứ tự trong danh sách, vị trí trong mảng hàng, hàng
+    int sapIndex = -1, sapPos = -1, sapRow = -1;
 
     public enum BrickType {
         WEAK(1, Color.LIGHTGREEN),
@@ -37,8 +39,15 @@ public class MovingBrick extends Brick {
         this.rightBound = 860 - width;
     }
 
+    // Dịch chuyển tức thời (khôi phục save): không nội suy từ chỗ cũ
     public void setX(double x) {
         this.x = x;
+        this.prevX = x;
+    }
+
+    // Kẹp vào tường hoặc tách gạch chồng nhau: vẫn nội suy từ vị trí đầu bước
+    public void correctX(double x) {
+        this.x = x;
     }
 
     public double getX() {
@@ -53,6 +62,18 @@ public class MovingBrick extends Brick {
         return x0;
     }
 
+    public double getDirection() {
+        return direction;
+    }
+
+    public double getLeftBound() {
+        return leftBound;
+    }
+
+    public double getRightBound() {
+        return rightBound;
+    }
+
     public javafx.geometry.Rectangle2D getBounds() {
         return new javafx.geometry.Rectangle2D(x, y, width, height);
     }
@@ -73,9 +94,16 @@ public class MovingBrick extends Brick {
     public void render(GraphicsContext gc) {
         Color fill = colorByHits(getHits());
         gc.setFill(fill);
-        gc.fillRoundRect(x, y, width, height, 6, 6);
+        double rx = renderX(), ry = renderY();
+        gc.fillRoundRect(rx, ry, width, height, 6, 6);
         gc.setStroke(Color.DARKGRAY);
-        gc.strokeRoundRect(x, y, width, height, 6, 6);
+        gc.strokeRoundRect(rx, ry, width, height, 6, 6);
+    }
+
+    // gạch di chuyển luôn được vẽ trực tiếp, không vẽ sẵn vào BrickLayer
+    @Override
+    boolean isLayerStatic() {
+        return false;
     }
 
     public void setDirection(double dir) {
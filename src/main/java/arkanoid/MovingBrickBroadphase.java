@@ -0,0 +1,167 @@
+package arkanoid;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cập nhật gạch di chuyển và tách các viên chồng nhau (sweep-and-prune theo hàng).
+ * Gạch chỉ chạy ngang nên được gom thành các hàng (các khoảng y chồng nhau); mỗi hàng giữ mảng sắp theo x,
+ * mỗi bước chỉ cần sắp chèn lại (gần như đã sắp). Một viên chỉ xét các viên cùng hàng có khoảng x chồng lên.
+ * Kết quả giống hệt vòng lặp đôi cũ: duyệt theo thứ tự danh sách, mỗi viên lần lượt xử lý viên chồng lấn
+ * có thứ tự danh sách nhỏ nhất đứng sau nó (và sau viên vừa xử lý), theo vị trí hiện tại.
+ */
+public class MovingBrickBroadphase {
+    private static final Comparator<MovingBrick> BY_Y = Comparator.comparingDouble(MovingBrick::getY);
+    private static final Comparator<MovingBrick> BY_X = Comparator.comparingDouble(MovingBrick::getX);
+
+    private MovingBrick[] order = new MovingBrick[0];  // theo thứ tự danh sách
+    private MovingBrick[] sorted = new MovingBrick[0]; // gom theo hàng, trong hàng sắp theo x
+    private int[] rowStart = new int[0], rowEnd = new int[0];
+    private double[] rowMaxW = new double[0];
+    private int count = 0, rows = 0;
+    private int builtVersion = -1;
+    private EntityManager builtFor;
+
+    // Di chuyển mọi gạch động một bước, giữ trong [0, width] và đẩy các viên chồng nhau ra
+    public void update(EntityManager entities, double width, double dt) {
+        List<Brick> movers = entities.getMovingBricks();
+        if (entities != builtFor || entities.getMovingVersion() != builtVersion) {
+            rebuild(movers);
+            builtFor = entities;
+            builtVersion = entities.getMovingVersion();
+        } else {
+            for (int r = 0; r < rows; r++) insertionSort(rowStart[r], rowEnd[r]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            MovingBrick mb = order[i];
+            mb.update(dt);
+            // Giới hạn biên
+            if (mb.getX() <= 0) {
+                mb.correctX(0);
+                mb.setDirection(1);
+            } else if (mb.getX() + mb.getWidth() >= width) {
+                mb.correctX(width - mb.getWidth());
+                mb.setDirection(-1);
+            }
+            reposition(mb);
+
+            // Kiểm tra va chạm với các gạch đứng sau trong danh sách
+            int last = i;
+            MovingBrick ob;
+            while ((ob = firstOverlapAfter(mb, last)) != null) {
+                // Hai viên gạch chạm nhau → ép sát rồi đổi hướng
+                if (mb.getX() < ob.getX()) {
+                    mb.correctX(ob.getX() - mb.getWidth());
+                    mb.setDirection(-1);
+                    ob.setDirection(1);
+                } else {
+                    mb.correctX(ob.getX() + ob.getWidth());
+                    mb.setDirection(1);
+                    ob.setDirection(-1);
+                }
+                reposition(mb);
+                last = ob.sapIndex;
+            }
+        }
+    }
+
+    // Viên cùng hàng chồng lấn mb (so sánh chặt như Rectangle2D.intersects) có thứ tự danh sách nhỏ nhất > after
+    private MovingBrick firstOverlapAfter(MovingBrick mb, int after) {
+        int r = mb.sapRow;
+        double mx = mb.getX(), mRight = mx + mb.getWidth();
+        double my = mb.getY(), mBottom = my + mb.getHeight();
+        // viên có x <= mx - maxW không thể với tới mb
+        double minX = mx - rowMaxW[r];
+        int lo = rowStart[r], hi = rowEnd[r];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].getX() > minX) hi = mid;
+            else lo = mid + 1;
+        }
+        MovingBrick best = null;
+        for (int p = lo; p < rowEnd[r]; p++) {
+            MovingBrick o = sorted[p];
+            if (o.getX() >= mRight) break;
+            if (o.sapIndex <= after || (best != null && o.sapIndex >= best.sapIndex)) continue;
+            if (o.getX() + o.getWidth() > mx && o.getY() + o.getHeight() > my && o.getY() < mBottom) best = o;
+        }
+        return best;
+    }
+
+    // Giữ mảng hàng đúng thứ tự x sau khi mb đổi vị trí
+    private void reposition(MovingBrick mb) {
+        int p = mb.sapPos, start = rowStart[mb.sapRow], end = rowEnd[mb.sapRow];
+        while (p > start && sorted[p - 1].getX() > mb.getX()) {
+            move(sorted[p - 1], p);
+            p--;
+        }
+        while (p < end - 1 && sorted[p + 1].getX() < mb.getX()) {
+            move(sorted[p + 1], p);
+            p++;
+        }
+        move(mb, p);
+    }
+
+    private void move(MovingBrick b, int p) {
+        sorted[p] = b;
+        b.sapPos = p;
+    }
+
+    private void insertionSort(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            MovingBrick b = sorted[i];
+            int j = i - 1;
+            while (j >= from && sorted[j].getX() > b.getX()) {
+                move(sorted[j], j + 1);
+                j--;
+            }
+            move(b, j + 1);
+        }
+    }
+
+    // Dựng lại các hàng khi tập gạch động thay đổi
+    private void rebuild(List<Brick> movers) {
+        count = movers.size();
+        if (order.length < count) {
+            order = new MovingBrick[count];
+            sorted = new MovingBrick[count];
+            rowStart = new int[count];
+            rowEnd = new int[count];
+            rowMaxW = new double[count];
+        }
+        for (int i = 0; i < count; i++) {
+            MovingBrick mb = (MovingBrick) movers.get(i);
+            mb.sapIndex = i;
+            order[i] = mb;
+            sorted[i] = mb;
+        }
+        Arrays.fill(order, count, order.length, null);
+        Arrays.fill(sorted, count, sorted.length, null);
+
+        // Gom các khoảng y chồng nhau thành hàng
+        Arrays.sort(sorted, 0, count, BY_Y);
+        rows = 0;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            MovingBrick mb = sorted[i];
+            if (rows == 0 || !(mb.getY() < bottom)) {
+                if (rows > 0) rowEnd[rows - 1] = i;
+                rowStart[rows] = i;
+                rowMaxW[rows] = 0;
+                rows++;
+                bottom = Double.NEGATIVE_INFINITY;
+            }
+            bottom = Math.max(bottom, mb.getY() + mb.getHeight());
+            rowMaxW[rows - 1] = Math.max(rowMaxW[rows - 1], mb.getWidth());
+            mb.sapRow = rows - 1;
+        }
+        if (rows > 0) rowEnd[rows - 1] = count;
+
+        for (int r = 0; r < rows; r++) {
+            Arrays.sort(sorted, rowStart[r], rowEnd[r], BY_X);
+            for (int p = rowStart[r]; p < rowEnd[r]; p++) sorted[p].sapPos = p;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package arkanoid;
 
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 
@@ -23,19 +22,17 @@ public class Paddle extends GameObject {
     private long blinkDuration = 400;
 
 
-    private Image platformImage;
-    private Image platformBaseImage;
-    private Image platformReducedImage;
-    private Image platformEnlargedImage;
-    private Image laserImage;
-
+    // Kích thước gốc (px) của ảnh platform_base-Sheet.png và laser.png.
+    // Hình học paddle dựa vào các hằng số này nên không phụ thuộc việc ảnh đã được tải hay chưa.
+    private static final double NATIVE_BASE_WIDTH = 137;
+    private static final double NATIVE_BASE_HEIGHT = 41;
+    private static final double NATIVE_LASER_WIDTH = 62;
+    private static final double NATIVE_LASER_HEIGHT = 54;
 
     private final double initialWidth;
     double newPlatformHeight;
-    private double baseWidth;
-    private double baseHeight;
-    private double nativeLaserWidth;
-    private double nativeLaserHeight;
+    private final double baseWidth;
+    private final double baseHeight;
 
 
     public Paddle(double x, double y, double width, double height, double arenaWidth) {
@@ -46,40 +43,11 @@ public class Paddle extends GameObject {
         this.arenaWidth = arenaWidth;
         this.initialWidth = width;
 
+        this.baseHeight = NATIVE_BASE_HEIGHT / 2.0;
+        this.baseWidth = NATIVE_BASE_WIDTH / 2.0;
 
-        try {
-            platformImage = new Image(getClass().getResourceAsStream("/Image/Paddle/platform.png"));
-            platformBaseImage = new Image(getClass().getResourceAsStream("/Image/Paddle/platform_base-Sheet.png"));
-            platformReducedImage = new Image(getClass().getResourceAsStream("/Image/Paddle/platform_reduced.png"));
-            platformEnlargedImage = new Image(getClass().getResourceAsStream("/Image/Paddle/platform_enlarged.png"));
-            laserImage = new Image(getClass().getResourceAsStream("/Image/Paddle/laser.png"));
-
-
-            // Lấy kích thước gốc của các ảnh
-            double nativeBaseWidth = platformBaseImage.getWidth();
-            double nativeBaseHeight = platformBaseImage.getHeight();
-            nativeLaserWidth = laserImage.getWidth();
-            nativeLaserHeight = laserImage.getHeight();
-
-
-            this.baseHeight = nativeBaseHeight / 2.0;
-            this.baseWidth = nativeBaseWidth / 2.0;
-
-
-            // Cập nhật chiều cao tổng thể của GameObject
-            this.height = newPlatformHeight + baseHeight;
-
-
-        } catch (Exception e) {
-            System.err.println("LỖI: Không thể tải ảnh Paddle từ /Image/Paddle/: " + e.getMessage());
-            e.printStackTrace();
-            // Nếu tải lỗi sẽ dùng render() dự phòng
-            platformImage = null;
-            platformBaseImage = null;
-            platformReducedImage = null;
-            platformEnlargedImage = null;
-            laserImage = null;
-        }
+        // Cập nhật chiều cao tổng thể của GameObject
+        this.height = newPlatformHeight + baseHeight;
     }
 
 
@@ -151,18 +119,22 @@ public class Paddle extends GameObject {
 
     @Override
     public void render(GraphicsContext gc) {
-        if (platformImage != null && platformBaseImage != null
-                && platformReducedImage != null && platformEnlargedImage != null) {
+        // vị trí nội suy giữa 2 bước mô phỏng
+        double rx = renderX();
+        double ry = renderY();
+        Assets assets = Assets.get();
+        if (assets.isAvailable(Assets.Img.PADDLE) && assets.isAvailable(Assets.Img.PADDLE_BASE)
+                && assets.isAvailable(Assets.Img.PADDLE_REDUCED) && assets.isAvailable(Assets.Img.PADDLE_ENLARGED)) {
 
 
             // Chọn ảnh platform dựa theo chiều rộng hiện tại
-            Image imageToDraw;
+            Assets.Img imageToDraw;
             if (this.width < this.initialWidth) {
-                imageToDraw = platformReducedImage;
+                imageToDraw = Assets.Img.PADDLE_REDUCED;
             } else if (this.width > this.initialWidth) {
-                imageToDraw = platformEnlargedImage;
+                imageToDraw = Assets.Img.PADDLE_ENLARGED;
             } else {
-                imageToDraw = platformImage;
+                imageToDraw = Assets.Img.PADDLE;
             }
 
             double alpha = 1.0;
@@ -176,25 +148,25 @@ public class Paddle extends GameObject {
 
 
             // Vẽ platform
-            gc.drawImage(imageToDraw, x, y, width, newPlatformHeight);
+            assets.draw(gc, imageToDraw, rx, ry, width, newPlatformHeight);
 
 
             // Vẽ base
-            double baseX = x + (width / 2.0) - (baseWidth / 2.0);
-            double baseY = y + newPlatformHeight;
-            gc.drawImage(platformBaseImage, baseX, baseY, baseWidth, baseHeight);
+            double baseX = rx + (width / 2.0) - (baseWidth / 2.0);
+            double baseY = ry + newPlatformHeight;
+            assets.draw(gc, Assets.Img.PADDLE_BASE, baseX, baseY, baseWidth, baseHeight);
 
 
             //  Vẽ laser nếu có
-            if (this.hasLaser && laserImage != null) {
-                double renderLaserWidth = nativeLaserWidth / 4.0;
-                double renderLaserHeight = nativeLaserHeight / 4.0;
+            if (this.hasLaser && assets.isAvailable(Assets.Img.PADDLE_LASER)) {
+                double renderLaserWidth = NATIVE_LASER_WIDTH / 4.0;
+                double renderLaserHeight = NATIVE_LASER_HEIGHT / 4.0;
                 double[] pos = getLaserGunPositions();
-                double laserX1 = pos[0] - (renderLaserWidth / 2.0);
-                double laserX2 = pos[2] - (renderLaserWidth / 2.0);
-                double laserY = pos[1] - renderLaserHeight + 8;
-                gc.drawImage(laserImage, laserX1, laserY, renderLaserWidth, renderLaserHeight);
-                gc.drawImage(laserImage, laserX2, laserY, renderLaserWidth, renderLaserHeight);
+                double laserX1 = pos[0] - x + rx - (renderLaserWidth / 2.0);
+                double laserX2 = pos[2] - x + rx - (renderLaserWidth / 2.0);
+                double laserY = pos[1] - y + ry - renderLaserHeight + 8;
+                assets.draw(gc, Assets.Img.PADDLE_LASER, laserX1, laserY, renderLaserWidth, renderLaserHeight);
+                assets.draw(gc, Assets.Img.PADDLE_LASER, laserX2, laserY, renderLaserWidth, renderLaserHeight);
             }
 
 
@@ -208,7 +180,7 @@ public class Paddle extends GameObject {
             } else {
                 gc.setFill(Color.DODGERBLUE);
             }
-            gc.fillRoundRect(x, y, width, height, 10, 10);
+            gc.fillRoundRect(rx, ry, width, height, 10, 10);
         }
     }
 }
@@ -4,94 +4,189 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.effect.BlendMode;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
+import java.util.Arrays;
 
+/**
+ * Hệ hạt lưu theo kiểu structure-of-arrays: mỗi thuộc tính là một mảng nguyên thủy,
+ * màu được nén thành int ARGB. Hạt chết được xóa bằng cách chép hạt cuối vào chỗ trống
+ * (swap-remove) nên update/render không cấp phát gì sau khi mảng đã đủ lớn.
+ */
 public class ParticleEmitter {
-    private final List<Particle> active = new ArrayList<>();
-    private final List<Particle> pool = new ArrayList<>();
-
-    private Particle obtain(double x, double y, double vx, double vy,
-                            double life, double size, Color color) {
-        if (!pool.isEmpty()) {
-            Particle p = pool.remove(pool.size() - 1);
-            p.init(x, y, vx, vy, life, size, color);
-            return p;
-        }
-        return new Particle(x, y, vx, vy, life, size, color);
+    private static final int INITIAL_CAPACITY = 256;
+    private static final double GRAVITY = 200;
+    private static final Color SMOKE_HALO = Color.rgb(120, 120, 120, 0.35);
+    private static final int SMOKE_ARGB = argb(120, 120, 120, 153); // rgb(120,120,120,0.6)
+
+    private int count = 0;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] vx = new double[INITIAL_CAPACITY];
+    private double[] vy = new double[INITIAL_CAPACITY];
+    private double[] life = new double[INITIAL_CAPACITY];
+    private double[] maxLife = new double[INITIAL_CAPACITY];
+    private double[] size = new double[INITIAL_CAPACITY];
+    private int[] color = new int[INITIAL_CAPACITY];
+
+    // Bộ nhớ đệm ARGB -> Color để render không tạo Color mới mỗi hạt
+    private final ColorCache colors = new ColorCache(4096);
+    private GameRandom random = new GameRandom();
+
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
+    private void add(double px, double py, double pvx, double pvy, double plife, double psize, int argb) {
+        if (count == x.length) grow();
+        int i = count++;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = pvx;
+        vy[i] = pvy;
+        life[i] = plife;
+        maxLife[i] = plife;
+        size[i] = psize;
+        color[i] = argb;
+    }
+
+    private void grow() {
+        int n = x.length * 2;
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        vx = Arrays.copyOf(vx, n);
+        vy = Arrays.copyOf(vy, n);
+        life = Arrays.copyOf(life, n);
+        maxLife = Arrays.copyOf(maxLife, n);
+        size = Arrays.copyOf(size, n);
+        color = Arrays.copyOf(color, n);
     }
 
     public void emitExplosion(double cx, double cy, int count) {
         for (int i = 0; i < count; i++) {
-            double angle = Math.random() * Math.PI * 2;
-            double speed = 80 + Math.random() * 380;
-            double vx = Math.cos(angle) * speed;
-            double vy = Math.sin(angle) * speed * 0.6 - Math.random() * 120;
-            double life = 0.35 + Math.random() * 0.45;
-            double size = 2 + Math.random() * 6;
-            int r = 200 + (int) (Math.random() * 55);
-            int g = 80 + (int) (Math.random() * 80);
-            int b = 20 + (int) (Math.random() * 40);
-            Color col = Color.rgb(r, g, b);
-            active.add(obtain(cx, cy, vx, vy, life, size, col));
+            double angle = random.nextDouble() * Math.PI * 2;
+            double speed = 80 + random.nextDouble() * 380;
+            double pvx = Math.cos(angle) * speed;
+            double pvy = Math.sin(angle) * speed * 0.6 - random.nextDouble() * 120;
+            double plife = 0.35 + random.nextDouble() * 0.45;
+            double psize = 2 + random.nextDouble() * 6;
+            // làm tròn kênh màu xuống bội số của 4 để số màu khác nhau đủ nhỏ cho cache
+            int r = (200 + (int) (random.nextDouble() * 55)) & ~3;
+            int g = (80 + (int) (random.nextDouble() * 80)) & ~3;
+            int b = (20 + (int) (random.nextDouble() * 40)) & ~3;
+            add(cx, cy, pvx, pvy, plife, psize, argb(r, g, b, 255));
         }
     }
 
     public void emitSmoke(double cx, double cy, int count) {
         for (int i = 0; i < count; i++) {
-            double angle = -Math.PI / 2 + (Math.random() - 0.5) * Math.PI * 0.4;
-            double speed = 10 + Math.random() * 40;
-            double vx = Math.cos(angle) * speed;
-            double vy = Math.sin(angle) * speed - Math.random() * 40;
-            double life = 0.6 + Math.random() * 0.8;
-            double size = 8 + Math.random() * 10;
-            Color col = Color.rgb(120, 120, 120, 0.6);
-            active.add(obtain(cx, cy, vx, vy, life, size, col));
+            double angle = -Math.PI / 2 + (random.nextDouble() - 0.5) * Math.PI * 0.4;
+            double speed = 10 + random.nextDouble() * 40;
+            double pvx = Math.cos(angle) * speed;
+            double pvy = Math.sin(angle) * speed - random.nextDouble() * 40;
+            double plife = 0.6 + random.nextDouble() * 0.8;
+            double psize = 8 + random.nextDouble() * 10;
+            add(cx, cy, pvx, pvy, plife, psize, SMOKE_ARGB);
         }
     }
 
     public void update(double dt) {
-        Iterator<Particle> it = active.iterator();
-        while (it.hasNext()) {
-            Particle p = it.next();
-            p.update(dt);
-            if (!p.isAlive()) {
-                it.remove();
-                pool.add(p);
+        int i = 0;
+        while (i < count) {
+            life[i] -= dt;
+            if (life[i] <= 0) {
+                // swap-remove: đưa hạt cuối vào vị trí i rồi xét lại vị trí i
+                removeAt(i);
+                continue;
             }
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            vy[i] += GRAVITY * dt;
+            i++;
         }
     }
 
+    private void removeAt(int i) {
+        int last = --count;
+        if (i == last) return;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        life[i] = life[last];
+        maxLife[i] = maxLife[last];
+        size[i] = size[last];
+        color[i] = color[last];
+    }
+
     public void render(GraphicsContext gc) {
-        if (active.isEmpty()) return;
+        if (count == 0) return;
 
         // Vẽ tia lửa
         gc.setGlobalBlendMode(BlendMode.ADD);
-        for (Particle p : active) {
-            double a = Math.min(1.0, p.alpha() * 1.2);
+        for (int i = 0; i < count; i++) {
+            double a = Math.min(1.0, alpha(i) * 1.2);
             gc.setGlobalAlpha(a);
-            gc.setFill(p.color);
-            double s = p.size;
-            gc.fillOval(p.x - s / 2.0, p.y - s / 2.0, s, s);
+            gc.setFill(colors.get(color[i]));
+            double s = size[i];
+            gc.fillOval(x[i] - s / 2.0, y[i] - s / 2.0, s, s);
         }
         gc.setGlobalAlpha(1.0);
         gc.setGlobalBlendMode(BlendMode.SRC_OVER);
 
-        for (Particle p : active) {
-            if (p.size > 6) {
-                double a = p.alpha() * 0.6;
+        gc.setFill(SMOKE_HALO);
+        for (int i = 0; i < count; i++) {
+            if (size[i] > 6) {
+                double a = alpha(i) * 0.6;
                 gc.setGlobalAlpha(a);
-                gc.setFill(Color.rgb(120, 120, 120, 0.35));
-                double s = p.size * 1.4;
-                gc.fillOval(p.x - s / 2.0, p.y - s / 2.0, s, s);
+                double s = size[i] * 1.4;
+                gc.fillOval(x[i] - s / 2.0, y[i] - s / 2.0, s, s);
             }
         }
         gc.setGlobalAlpha(1.0);
     }
 
+    private double alpha(int i) {
+        return Math.max(0, life[i] / maxLife[i]);
+    }
+
     public int activeCount() {
-        return active.size();
+        return count;
+    }
+
+    private static int argb(int r, int g, int b, int a) {
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Bảng băm địa chỉ mở ARGB -> Color, kích thước cố định (lũy thừa của 2).
+     * Khi bảng đầy thì ghi đè ô đang xét; màu bị ghi đè sẽ được tạo lại khi cần.
+     */
+    private static final class ColorCache {
+        private final int[] keys;
+        private final Color[] values;
+        private final int mask;
+
+        ColorCache(int capacity) {
+            keys = new int[capacity];
+            values = new Color[capacity];
+            mask = capacity - 1;
+        }
+
+        Color get(int argb) {
+            int h = (argb * 0x9E3779B9) >>> 16;
+            for (int probe = 0; probe < 8; probe++) {
+                int slot = (h + probe) & mask;
+                Color c = values[slot];
+                if (c == null) return put(slot, argb);
+                if (keys[slot] == argb) return c;
+            }
+            return put(h & mask, argb);
+        }
+
+        private Color put(int slot, int argb) {
+            Color c = Color.rgb((argb >>> 16) & 0xFF, (argb >>> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+            keys[slot] = argb;
+            values[slot] = c;
+            return c;
+        }
     }
 }
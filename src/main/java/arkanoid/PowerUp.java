@@ -2,12 +2,8 @@ package arkanoid;
 
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 
 public class PowerUp {
     public enum PowerType {
@@ -19,52 +15,36 @@ public class PowerUp {
     double x, y, w = 24, h = 24;
     double vy = 80;
     PowerType type;
-    private Image image;
-
-
-    // Map tĩnh để lưu trữ tất cả ảnh đã được tải trước
-    private static final Map<PowerType, Image> powerUpImages = new EnumMap<>(PowerType.class);
-
-
-    // Khối tĩnh này sẽ chạy một lần khi lớp PowerUp được tải và lưu vào Map
-    static {
-        String fileExtension = ".png";
+    // vị trí ở bước mô phỏng trước và hệ số nội suy khi vẽ
+    private double prevX, prevY;
+    private double interpAlpha = 1.0;
 
 
-        for (PowerType pt : PowerType.values()) {
-            String fileName = pt.name() + fileExtension;
-            // Đường dẫn tuyệt đối từ gốc thư mục resources
-            String path = "/Image/PowerUp/" + fileName;
-
-
-            try {
-                // Tải ảnh
-                Image img = new Image(PowerUp.class.getResourceAsStream(path));
-
+    public PowerUp(double x, double y, PowerType type) {
+        this.x = x;
+        this.y = y;
+        this.prevX = x;
+        this.prevY = y;
+        this.type = type;
+    }
 
-                if (img.isError()) {
-                    // Báo lỗi nếu ảnh bị lỗi hoặc không tìm thấy
-                    System.err.println("LỖI: Không tải được ảnh power-up: " + path);
-                } else {
-                    powerUpImages.put(pt, img); // Thêm ảnh đã tải vào Map
-                }
-            } catch (Exception e) {
-                // Báo lỗi nếu không tìm thấy file
-                System.err.println("LỖI: Không tìm thấy tài nguyên: " + path);
-            }
-        }
+    // lưu vị trí trước khi chạy một bước mô phỏng (nội suy khi vẽ, như GameObject)
+    public void snapshotPosition() {
+        prevX = x;
+        prevY = y;
     }
 
-    public static Image getPowerUpImage(PowerType type) {
-        return powerUpImages.get(type);
+    public void setInterpAlpha(double alpha) {
+        this.interpAlpha = alpha;
     }
 
+    // vị trí nội suy giữa bước trước và bước hiện tại, dùng khi vẽ
+    double renderX() {
+        return prevX + (x - prevX) * interpAlpha;
+    }
 
-    public PowerUp(double x, double y, PowerType type) {
-        this.x = x;
-        this.y = y;
-        this.type = type;
-        this.image = powerUpImages.get(type);
+    double renderY() {
+        return prevY + (y - prevY) * interpAlpha;
     }
 
 
@@ -74,15 +54,15 @@ public class PowerUp {
 
 
     public void render(GraphicsContext gc) {
-        if (this.image != null) {
-            // Nếu có ảnh thì vẽ ảnh
-            gc.drawImage(image, x - w / 2, y - h / 2, w, h);
-        } else {
+        double rx = renderX();
+        double ry = renderY();
+        // Nếu có ảnh thì vẽ ảnh (bản thu phóng sẵn trong atlas)
+        if (!Assets.get().draw(gc, Assets.Img.powerUp(type), rx - w / 2, ry - h / 2, w, h)) {
             // Nếu không có ảnh thì tải lỗi và vẽ hình tròn màu như cũ
             gc.setFill(colorForType(type));
-            gc.fillOval(x - w / 2, y - h / 2, w, h);
+            gc.fillOval(rx - w / 2, ry - h / 2, w, h);
             gc.setStroke(Color.WHITE);
-            gc.strokeOval(x - w / 2, y - h / 2, w, h);
+            gc.strokeOval(rx - w / 2, ry - h / 2, w, h);
         }
     }
 
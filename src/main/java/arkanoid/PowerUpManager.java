@@ -5,7 +5,6 @@ import java.util.*;
 
 
 public class PowerUpManager {
-    private final Random random = new Random();
     private boolean weakenInProgress = false;
     private Shockwave currentShockwave = null;
     // bộ gạch đã bị ảnh hưởng bởi sóng xung kích
@@ -21,12 +20,24 @@ public class PowerUpManager {
     private double whiteFlashAlpha = 0.0;
     private final double WHITE_FLASH_DURATION = 0.32; // thời gian fade trắng
     private boolean whiteFlashActive = false;
+    // Sự kiện nhặt/rơi power-up cho âm thanh; Simulation gắn hàng đợi chung
+    private GameEvents events = new GameEvents();
+    private GameRandom random = new GameRandom();
 
 
     public PowerUpManager() {
     }
 
 
+    public void setEvents(GameEvents events) {
+        this.events = events;
+    }
+
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
+
     public boolean isWeakenInProgress() {
         return weakenInProgress;
     }
@@ -187,9 +198,9 @@ public class PowerUpManager {
 
     // Được gọi khi paddle nhặt được power-up
     public void applyPowerUp(PowerUp.PowerType type, EntityManager entities, GameState state, Paddle paddle, double gameHeight) {
+        events.publish(GameEvents.POWER_UP_APPLIED, 0, 0, 0, 0, type.ordinal());
         switch (type) {
             case SHRINK_PADDLE: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_BAD);
                 if (!checkActiveEffect(type, entities, 10.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 10.0);
                     eff.originalPaddleWidth = 120;
@@ -200,7 +211,6 @@ public class PowerUpManager {
                 break;
             }
             case EXPAND_PADDLE: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 10.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 10.0);
                     eff.originalPaddleWidth = 120;
@@ -211,7 +221,6 @@ public class PowerUpManager {
                 break;
             }
             case TINY_BALL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 10.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 10.0);
                     for (Ball bl : entities.getBalls()) {
@@ -224,8 +233,6 @@ public class PowerUpManager {
                 break;
             }
             case MULTI_BALL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
-                SoundManager.get().play(SoundManager.Sfx.MULTIBALL);
                 List<Ball> newBalls = new ArrayList<>();
                 for (int i = 0; i < 2; i++) {
                     double existingSpeed = 350;
@@ -251,7 +258,6 @@ public class PowerUpManager {
                 break;
             }
             case SLOW_BALL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 8.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 8.0);
                     for (Ball bl : entities.getBalls()) {
@@ -264,7 +270,6 @@ public class PowerUpManager {
                 break;
             }
             case FAST_BALL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_BAD);
                 if (!checkActiveEffect(type, entities, 8.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 8.0);
                     for (Ball bl : entities.getBalls()) {
@@ -277,26 +282,21 @@ public class PowerUpManager {
                 break;
             }
             case NEXT_LEVEL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 entities.addHUDMessage(new HUDMessage("NEXT LEVEL", 2.5));
                 triggerNextLevelEffect(-1, -1, entities);
-                SoundManager.get().play(SoundManager.Sfx.PORTAL);
                 break;
             }
             case EXTRA_LIFE: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 state.incrementLives();
                 entities.addHUDMessage(new HUDMessage("+1 LIFE", 2.5));
                 break;
             }
             case SUDDEN_DEATH: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_BAD);
                 state.setLives(Math.max(1, state.getLives()));
                 entities.addHUDMessage(new HUDMessage("SUDDEN DEATH", 2.5));
                 break;
             }
             case LASER_PADDLE: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 10.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 10.0);
                     eff.originalHasLaser = paddle.hasLaser();
@@ -307,7 +307,6 @@ public class PowerUpManager {
                 break;
             }
             case FIREBALL: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 8.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 8.0);
                     for (Ball bl : entities.getBalls()) {
@@ -320,15 +319,11 @@ public class PowerUpManager {
                 break;
             }
             case BARRIER: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
-                SoundManager.get().play(SoundManager.Sfx.BARRIER_ON);
                 state.setBarrierActive(true, gameHeight - 24); // Đặt rào chắn gần đáy
                 entities.addHUDMessage(new HUDMessage("BARRIER (1 lần)", 2.5));
                 break;
             }
             case WEAKEN: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
-                SoundManager.get().play(SoundManager.Sfx.SHOCKWAVE);
                 int reduced = 0;
                 for (Brick br : entities.getBricks()) {
                     if (br.getType() == Brick.Type.NORMAL && br.getHits() > 1) {
@@ -341,7 +336,6 @@ public class PowerUpManager {
                 break;
             }
             case SCORE_MULTIPLIER: {
-                SoundManager.get().play(SoundManager.Sfx.POWER_PICK_GOOD);
                 if (!checkActiveEffect(type, entities, 15.0)) {
                     ActiveEffect eff = new ActiveEffect(type, 15.0);
                     eff.originalScoreMultiplier = state.getScoreMultiplier();
@@ -392,7 +386,7 @@ public class PowerUpManager {
 
 
         entities.addPowerUp(new PowerUp(x, y, chosen));
-        SoundManager.get().play(SoundManager.Sfx.PORTAL);
+        events.publish(GameEvents.POWER_UP_SPAWNED, x, y);
     }
 
 
@@ -453,7 +447,7 @@ public class PowerUpManager {
         }
 
 
-        entities.getBricks().clear();
+        entities.clearBricks();
 
 
         entities.getFlyingBricks().clear();
@@ -468,10 +462,10 @@ public class PowerUpManager {
             double dy = portalY - by;
             double dist = Math.max(1.0, Math.hypot(dx, dy));
             double dirx = dx / dist, diry = dy / dist;
-            double speed = 220 + Math.random() * 180 + dist * 0.15;
+            double speed = 220 + random.nextDouble() * 180 + dist * 0.15;
             double vx = dirx * speed;
             double vy = diry * speed;
-            double angV = (Math.random() - 0.5) * 8.0;
+            double angV = (random.nextDouble() - 0.5) * 8.0;
             FlyingBrick fb = new FlyingBrick(b, bx, by, vx, vy, angV);
             entities.getFlyingBricks().add(fb);
         }
@@ -0,0 +1,190 @@
+package arkanoid;
+
+import javafx.scene.input.KeyCode;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ghi lại input theo từng tick của một lượt chơi (từ lúc vào màn) để phát lại y hệt.
+ * Mô phỏng là tất định khi biết seed của {@link GameRandom}, trạng thái lúc bắt đầu màn
+ * và chuỗi input gắn với số tick; phát lại chạy headless nhanh nhất có thể.
+ * Dạng nhị phân: header cố định rồi mỗi sự kiện là [varint tick tăng thêm][byte loại][varint mã phím].
+ */
+public class Replay {
+    // "ARKR" + phiên bản
+    static final int MAGIC = 0x41524B52;
+    private static final int FORMAT_VERSION = 1;
+
+    // Loại sự kiện
+    static final byte PRESS = 1;
+    static final byte RELEASE = 2;
+    static final byte CLEAR = 3;
+    static final byte FIRE = 4;
+    static final byte LAUNCH = 5;
+
+    private static final Map<Integer, KeyCode> KEYS = new HashMap<>();
+
+    static {
+        for (KeyCode k : KeyCode.values()) KEYS.putIfAbsent(k.getCode(), k);
+    }
+
+    // Trạng thái lúc bắt đầu
+    final long seed;
+    final int levelIndex;
+    final double width, height, step;
+    final double paddleX;
+    final int score, lives;
+
+    // Sự kiện theo thứ tự tick
+    private long[] ticks = new long[64];
+    private byte[] types = new byte[64];
+    private int[] args = new int[64];
+    private int count = 0;
+    private long endTick = 0;
+
+    Replay(long seed, int levelIndex, double width, double height, double step,
+           double paddleX, int score, int lives) {
+        this.seed = seed;
+        this.levelIndex = levelIndex;
+        this.width = width;
+        this.height = height;
+        this.step = step;
+        this.paddleX = paddleX;
+        this.score = score;
+        this.lives = lives;
+    }
+
+    void record(long tick, byte type, int arg) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            types = Arrays.copyOf(types, count * 2);
+            args = Arrays.copyOf(args, count * 2);
+        }
+        ticks[count] = tick;
+        types[count] = type;
+        args[count] = arg;
+        count++;
+    }
+
+    void setEndTick(long tick) {
+        endTick = tick;
+    }
+
+    public long getEndTick() {
+        return endTick;
+    }
+
+    public int getEventCount() {
+        return count;
+    }
+
+    // Chạy lại toàn bộ lượt chơi trên một Simulation mới (headless), trả về trạng thái cuối
+    public Simulation play() {
+        Simulation sim = new Simulation(width, height);
+        sim.getPaddle().x = paddleX;
+        sim.getGameState().setScore(score);
+        sim.getGameState().setLives(lives);
+        sim.getRandom().reseed(seed);
+        sim.startLevel(levelIndex);
+
+        int next = 0;
+        for (long t = 0; t < endTick; t++) {
+            while (next < count && ticks[next] == t) apply(sim, types[next], args[next++]);
+            if (!sim.getGameState().isRunning()) break;
+            sim.step(step);
+        }
+        // input sau bước cuối cùng (ví dụ nhả phím) vẫn được áp dụng
+        while (next < count) apply(sim, types[next], args[next++]);
+        return sim;
+    }
+
+    private static void apply(Simulation sim, byte type, int arg) {
+        switch (type) {
+            case PRESS:
+                sim.pressKey(KEYS.get(arg));
+                break;
+            case RELEASE:
+                sim.releaseKey(KEYS.get(arg));
+                break;
+            case CLEAR:
+                sim.clearKeys();
+                break;
+            case FIRE:
+                sim.tryShoot();
+                break;
+            case LAUNCH:
+                sim.launchBalls();
+                break;
+            default:
+                throw new IllegalStateException("Sự kiện replay không hợp lệ: " + type);
+        }
+    }
+
+    public byte[] encode() {
+        ByteBuffer buf = ByteBuffer.allocate(80 + count * 16);
+        buf.putInt(MAGIC).putShort((short) FORMAT_VERSION)
+                .putLong(seed).putInt(levelIndex)
+                .putDouble(width).putDouble(height).putDouble(step)
+                .putDouble(paddleX).putInt(score).putInt(lives)
+                .putLong(endTick).putInt(count);
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            putVarLong(buf, ticks[i] - prev);
+            prev = ticks[i];
+            buf.put(types[i]);
+            putVarLong(buf, args[i]);
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    public static Replay decode(byte[] bytes) throws IOException {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if (buf.getInt() != MAGIC) throw new IOException("Không phải file replay");
+            int version = buf.getShort();
+            if (version != FORMAT_VERSION) throw new IOException("Phiên bản replay không hỗ trợ: " + version);
+            Replay r = new Replay(buf.getLong(), buf.getInt(), buf.getDouble(), buf.getDouble(), buf.getDouble(),
+                    buf.getDouble(), buf.getInt(), buf.getInt());
+            r.endTick = buf.getLong();
+            int n = buf.getInt();
+            if (n < 0 || n > buf.remaining()) throw new IOException("Số sự kiện không hợp lệ: " + n);
+            long tick = 0;
+            for (int i = 0; i < n; i++) {
+                tick += getVarLong(buf);
+                byte type = buf.get();
+                int arg = (int) getVarLong(buf);
+                if (type < PRESS || type > LAUNCH) throw new IOException("Sự kiện replay không hợp lệ: " + type);
+                if ((type == PRESS || type == RELEASE) && !KEYS.containsKey(arg)) {
+                    throw new IOException("Mã phím không hợp lệ: " + arg);
+                }
+                r.record(tick, type, arg);
+            }
+            return r;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("File replay bị cắt", ex);
+        }
+    }
+
+    private static void putVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    private static long getVarLong(ByteBuffer buf) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint quá dài");
+    }
+}
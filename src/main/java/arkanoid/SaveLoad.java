@@ -3,23 +3,39 @@ package arkanoid;
 import javafx.application.Platform;
 
 import java.io.*;
-import java.lang.reflect.Field;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
 
 // Vị trí lưu: Ưu tiên: src/main/resources/data/save.dat (IDE/dev)
 // Nếu chạy JAR (resources read-only): fallback {user.home}/.arkanoid/save.dat
 public final class SaveLoad {
     private static final SaveLoad I = new SaveLoad();
 
+    // "ARKS" ở đầu file save nhị phân
+    static final int MAGIC = 0x41524B53;
+    static final int FORMAT_VERSION = 3;
+    // chặn file hỏng khai báo số phần tử quá lớn
+    private static final int MAX_ENTITIES = 1 << 20;
+
     public static SaveLoad get() {
         return I;
     }
@@ -27,53 +43,347 @@ public final class SaveLoad {
     private volatile boolean printedSavePathOnce = false;
     private volatile boolean printedLoadPathOnce = false;
 
+    private static final int FLUSH_TIMEOUT_SECONDS = 5;
+    // Một luồng ghi nền duy nhất nên các lần ghi luôn theo đúng thứ tự yêu cầu
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "save-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicReference<PendingSave> pending = new AtomicReference<>();
+    private volatile int writes = 0;
+
+    // Autosave
+    private static final double AUTOSAVE_INTERVAL = 5.0; // giây
+    private static final String AUTOSAVE_FILE = "autosave.dat";
+    private static final String REPLAY_FILE = "last.replay";
+    private static final String JOURNAL_FILE = "autosave.journal";
+    private static final int JOURNAL_MAGIC = 0x41524B4A; // "ARKJ"
+    private volatile Path autosaveDir;
+    private volatile int journalLimit = 32 * 1024;
+    private volatile int journalBytes = 0; // chỉ luồng ghi cập nhật
+    private volatile boolean compactRequested = false;
+    // Các trường dưới chỉ dùng trên luồng mô phỏng
+    private long autoBaseTs = 0;
+    private double autoTimer = 0;
+    private Brick[] autoBricks;
+    private int[] autoHits;
+    private boolean[] autoGone;
+    private int[] autoSeen;
+    private int autoStamp = 0;
+    private IdentityHashMap<Brick, Integer> autoIndex;
+
     private SaveLoad() {
     }
 
     // Kiểm tra có file save cho Continue lần đầu khi mở app
     public boolean hasSave() {
-        return Files.exists(resolveSavePath());
+        return Files.exists(resolveSavePath()) || Files.exists(autosaveDir().resolve(AUTOSAVE_FILE));
     }
 
-    // Lưu trạng thái hiện tại (ghi đè)
+    // Lưu trạng thái hiện tại (ghi đè). Chỉ chụp trạng thái trên luồng FX; mã hóa và ghi file chạy nền
     public void save(Game game) {
         if (!Platform.isFxApplicationThread()) {
             Platform.runLater(() -> save(game));
             return;
         }
-        SaveData data = snapshot(game);
-        Path path = resolveSavePath();
-        if (!printedSavePathOnce) {
-            System.out.println("[SaveLoad] Lưu vào: " + path.toAbsolutePath());
-            printedSavePathOnce = true;
-        }
+        enqueue(snapshot(game.getSimulation()), null);
+        clearAutosave(); // save thường đã mới nhất: autosave cũ không được thắng ở Continue
+    }
+
+    // Chờ các lần ghi đang xếp hàng hoàn tất (gọi trước khi thoát app hoặc đọc lại file)
+    public void flush() {
         try {
-            Files.createDirectories(path.getParent());
+            writer.submit(() -> {
+            }).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            System.err.println("Chờ ghi save thất bại: " + ex.getMessage());
+        }
+    }
+
+    // Ghi snapshot vào path (null = đường dẫn save mặc định) ở luồng nền.
+    // Snapshot là bản sao riêng, không ai sửa sau khi giao cho luồng ghi.
+    // Nếu đã có yêu cầu chờ ghi thì chỉ thay dữ liệu: nhiều lần save liên tiếp gộp lại thành một lần ghi.
+    void enqueue(SaveData data, Path target) {
+        if (pending.getAndSet(new PendingSave(data, target)) == null) {
+            writer.execute(this::drainPending);
+        }
+    }
 
-            // Ghi đè trực tiếp
-            try (ObjectOutputStream oos = new ObjectOutputStream(
-                    new BufferedOutputStream(Files.newOutputStream(
-                            path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)))) {
-                oos.writeObject(data);
+    // số lần thực sự ghi file (dùng để kiểm tra / đo đạc)
+    int getWriteCount() {
+        return writes;
+    }
+
+    private void drainPending() {
+        PendingSave job = pending.getAndSet(null);
+        if (job == null) return;
+        try {
+            Path path = job.target != null ? job.target : resolveSavePath();
+            if (job.target == null && !printedSavePathOnce) {
+                System.out.println("[SaveLoad] Lưu vào: " + path.toAbsolutePath());
+                printedSavePathOnce = true;
             }
+            writeAtomically(path, encode(job.data));
+            writes++;
         } catch (Exception ex) {
             System.err.println("Save thất bại: " + ex.getMessage());
         }
     }
 
+    // Ghi ra file tạm cùng thư mục, fsync rồi đổi tên đè lên file cũ:
+    // chết giữa chừng thì file save cũ vẫn còn nguyên
+    static void writeAtomically(Path path, byte[] bytes) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ---------- Autosave: snapshot gốc khi vào màn + journal các thay đổi nhỏ ----------
+
+    // Ghi snapshot gốc (autosave.dat) và làm mới journal; gọi khi bắt đầu màn hoặc khi cần nén journal
+    public void beginAutosave(Simulation sim) {
+        SaveData base = snapshot(sim);
+        base.ts = Math.max(base.ts, autoBaseTs + 1); // id của bản gốc phải tăng dần
+        autoBaseTs = base.ts;
+        autoTimer = 0;
+        compactRequested = false;
+
+        List<Brick> bricks = sim.getEntityManager().getBricks();
+        int n = bricks.size();
+        autoBricks = bricks.toArray(new Brick[0]);
+        autoHits = new int[n];
+        autoGone = new boolean[n];
+        autoSeen = new int[n];
+        autoIndex = new IdentityHashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            autoHits[i] = autoBricks[i].getHits();
+            autoIndex.put(autoBricks[i], i);
+        }
+
+        long baseTs = base.ts;
+        writer.execute(() -> {
+            try {
+                Path dir = autosaveDir();
+                writeAtomically(dir.resolve(AUTOSAVE_FILE), encode(base));
+                writeAtomically(dir.resolve(JOURNAL_FILE), journalHeader(baseTs));
+                journalBytes = 0;
+            } catch (Exception ex) {
+                System.err.println("Autosave thất bại: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Gọi mỗi khung hình khi game đang chạy; cứ AUTOSAVE_INTERVAL giây ghi một bản ghi delta
+    public void autosaveTick(Simulation sim, double dt) {
+        if (autoBricks == null) return;
+        autoTimer += dt;
+        if (autoTimer < AUTOSAVE_INTERVAL) return;
+        autoTimer = 0;
+        checkpoint(sim);
+    }
+
+    // Chụp delta so với bản ghi trước (gạch bị phá, đổi số hit, gạch động) cùng trạng thái động hiện tại
+    void checkpoint(Simulation sim) {
+        if (autoBricks == null) return;
+        if (compactRequested) {
+            beginAutosave(sim);
+            return;
+        }
+        DeltaM d = new DeltaM();
+        List<Brick> bricks = sim.getEntityManager().getBricks();
+        autoStamp++;
+        for (int i = 0; i < bricks.size(); i++) {
+            Brick b = bricks.get(i);
+            Integer idx = autoIndex.get(b);
+            if (idx == null) {
+                // gạch mới không có trong bản gốc: ghi lại bản gốc
+                beginAutosave(sim);
+                return;
+            }
+            int k = idx;
+            autoSeen[k] = autoStamp;
+            if (b.getHits() != autoHits[k]) {
+                autoHits[k] = b.getHits();
+                d.hits.add(k, autoHits[k]);
+            }
+            if (b instanceof MovingBrick mb) d.moving.add(k, mb.getX(), mb.getDirection());
+        }
+        for (int k = 0; k < autoBricks.length; k++) {
+            if (!autoGone[k] && autoSeen[k] != autoStamp) {
+                autoGone[k] = true;
+                d.destroyed.add(k, 0);
+            }
+        }
+
+        d.state = GState.from(sim.getGameState());
+        d.paddle = PaddleM.from(sim.getPaddle());
+        EntityManager em = sim.getEntityManager();
+        for (Ball b : em.getBalls()) d.balls.add(BallM.from(b));
+        Map<Ball, Integer> ballIdx = new HashMap<>();
+        for (int i = 0; i < em.getBalls().size(); i++) ballIdx.put(em.getBalls().get(i), i);
+        for (ActiveEffect ae : em.getActiveEffects()) d.effects.add(EffM.from(ae, ballIdx));
+        d.boss = BossM.withoutBullets(sim.getBoss());
+
+        long baseTs = autoBaseTs;
+        writer.execute(() -> {
+            try {
+                byte[] rec = d.toRecord();
+                appendJournal(autosaveDir().resolve(JOURNAL_FILE), baseTs, rec);
+                journalBytes += rec.length;
+                if (journalBytes > journalLimit) compactRequested = true;
+            } catch (Exception ex) {
+                System.err.println("Autosave thất bại: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Bỏ autosave và journal khi lượt chơi kết thúc (game over, qua màn) hoặc sau save thường,
+    // để Continue không khôi phục lại lượt đã thua. Việc xóa xếp sau các lần ghi đang chờ.
+    public void clearAutosave() {
+        autoBricks = null;
+        autoIndex = null;
+        autoTimer = 0;
+        compactRequested = false;
+        writer.execute(() -> {
+            try {
+                Path dir = autosaveDir();
+                Files.deleteIfExists(dir.resolve(AUTOSAVE_FILE));
+                Files.deleteIfExists(dir.resolve(JOURNAL_FILE));
+                journalBytes = 0;
+            } catch (IOException ex) {
+                System.err.println("Xóa autosave thất bại: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Dựng lại trạng thái từ autosave.dat + các bản ghi hợp lệ trong journal; null nếu không có autosave
+    SaveData recoverAutosave() throws IOException {
+        Path dir = autosaveDir();
+        Path basePath = dir.resolve(AUTOSAVE_FILE);
+        if (!Files.exists(basePath)) return null;
+        SaveData d = decode(Files.readAllBytes(basePath));
+        Path journal = dir.resolve(JOURNAL_FILE);
+        if (Files.exists(journal)) replayJournal(d, Files.readAllBytes(journal));
+        return d;
+    }
+
+    // Bản ghi bị ghi dở (crash) hoặc sai checksum ở cuối journal thì dừng ở bản ghi hợp lệ trước đó
+    private static void replayJournal(SaveData d, byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < 14 || in.readInt() != JOURNAL_MAGIC) return;
+        if (in.readUnsignedShort() != FORMAT_VERSION || in.readLong() != d.ts) return; // journal của bản gốc khác
+
+        boolean[] gone = new boolean[d.bricks.size()];
+        boolean applied = false;
+        CRC32 crc = new CRC32();
+        while (in.available() >= 8) {
+            int len = in.readInt();
+            int sum = in.readInt();
+            if (len < 0 || len > in.available()) break;
+            byte[] payload = new byte[len];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != sum) break;
+            try {
+                DeltaM.read(new DataInputStream(new ByteArrayInputStream(payload))).applyTo(d, gone);
+                applied = true;
+            } catch (IOException ex) {
+                break;
+            }
+        }
+        if (!applied) return;
+        List<BrickM> alive = new ArrayList<>(d.bricks.size());
+        for (int i = 0; i < gone.length; i++) if (!gone[i]) alive.add(d.bricks.get(i));
+        d.bricks = alive;
+        // vật thể tồn tại ngắn không có trong delta: bỏ thay vì hiện lại trạng thái cũ
+        d.powerUps.clear();
+        d.bullets.clear();
+        d.huds.clear();
+    }
+
+    private static byte[] journalHeader(long baseTs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(baseTs);
+        return bytes.toByteArray();
+    }
+
+    private static void appendJournal(Path journal, long baseTs, byte[] record) throws IOException {
+        if (!Files.exists(journal)) writeAtomically(journal, journalHeader(baseTs));
+        try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(record);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        }
+    }
+
+    private Path autosaveDir() {
+        return autosaveDir != null ? autosaveDir : resolveSavePath().getParent();
+    }
+
+    // Ghi replay của lượt chơi gần nhất cạnh autosave (người chơi gửi kèm khi báo lỗi / giật lag)
+    public void saveReplay(Replay replay) {
+        byte[] bytes = replay.encode();
+        writer.execute(() -> {
+            try {
+                writeAtomically(autosaveDir().resolve(REPLAY_FILE), bytes);
+            } catch (IOException ex) {
+                System.err.println("Ghi replay thất bại: " + ex.getMessage());
+            }
+        });
+    }
+
+    // Dùng cho test: đặt thư mục chứa autosave (null = cạnh save.dat)
+    void setAutosaveDir(Path dir) {
+        this.autosaveDir = dir;
+    }
+
+    // Dùng cho test: ngưỡng kích thước journal trước khi nén lại thành bản gốc mới
+    void setJournalLimit(int bytes) {
+        this.journalLimit = bytes;
+    }
+
+    int getJournalBytes() {
+        return journalBytes;
+    }
+
     // Load trạng thái game đã lưu và hiện menu Pause
     public boolean loadIntoAndPrepareContinue(Game game) {
+        flush(); // save vừa yêu cầu có thể chưa ghi xong
         Path path = resolveSavePath();
-        if (!Files.exists(path)) return false;
         if (!printedLoadPathOnce) {
             System.out.println("[SaveLoad] Load từ: " + path.toAbsolutePath());
             printedLoadPathOnce = true;
         }
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new BufferedInputStream(Files.newInputStream(path)))) {
-            SaveData data = (SaveData) ois.readObject();
+        try {
+            SaveData data = Files.exists(path) ? decode(Files.readAllBytes(path)) : null;
+            // autosave mới hơn save thường (vd. app bị tắt đột ngột) thì khôi phục từ autosave
+            SaveData auto = null;
+            try {
+                auto = recoverAutosave();
+            } catch (IOException ex) {
+                System.err.println("Autosave hỏng, bỏ qua: " + ex.getMessage());
+            }
+            if (auto != null && (data == null || auto.ts > data.ts)) data = auto;
+            if (data == null) return false;
+            SaveData loaded = data;
             Platform.runLater(() -> {
-                apply(game, data);
+                restore(game.getSimulation(), loaded);
+                beginAutosave(game.getSimulation());
                 // Tắt các overlay phụ nếu có r sau đó chuyển sang trạng thái Pause để hiện menu
                 GameState st = game.getGameState();
                 st.setConfirmOverlay(false);
@@ -95,6 +405,53 @@ public final class SaveLoad {
         }
     }
 
+    // Mã hóa save sang định dạng nhị phân hiện tại
+    static byte[] encode(SaveData data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        data.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // Đọc save ở mọi phiên bản đã biết: nhị phân (v2+) hoặc Java serialization cũ (v1)
+    static SaveData decode(byte[] bytes) throws IOException {
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xAC && (bytes[1] & 0xFF) == 0xED) {
+            return readLegacy(bytes);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < 6 || in.readInt() != MAGIC) throw new IOException("Không phải file save Arkanoid");
+        int version = in.readUnsignedShort();
+        if (version < 2 || version > FORMAT_VERSION) {
+            throw new IOException("Phiên bản save không hỗ trợ: " + version);
+        }
+        return SaveData.read(in, version);
+    }
+
+    // v1: SaveData ghi bằng ObjectOutputStream (chỉ chấp nhận đúng các lớp save của SaveLoad)
+    private static SaveData readLegacy(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            ois.setObjectInputFilter(info -> {
+                Class<?> c = info.serialClass();
+                while (c != null && c.isArray()) c = c.getComponentType(); // HashMap kiểm tra mảng Map.Entry[]
+                if (c == null || c.isPrimitive()) return ObjectInputFilter.Status.UNDECIDED;
+                if (c.getEnclosingClass() == SaveLoad.class || c == PowerUp.PowerType.class
+                        || c.getName().startsWith("java.")) {
+                    return ObjectInputFilter.Status.ALLOWED;
+                }
+                return ObjectInputFilter.Status.REJECTED;
+            });
+            SaveData d = (SaveData) ois.readObject();
+            // các trường thêm sau v1 không có trong file cũ
+            if (d.boss != null && d.boss.bullets == null) d.boss.bullets = new ArrayList<>();
+            return d;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Save cũ không đọc được: " + e.getMessage(), e);
+        }
+    }
+
     // Ưu tiên dev path: src/main/resources/data/save.dat; rồi target/classes/data; cuối cùng user.home
     private Path resolveSavePath() {
         Path dev = Paths.get("src", "main", "resources", "data", "save.dat");
@@ -133,18 +490,15 @@ public final class SaveLoad {
         }
     }
 
-    // Snapshot toàn bộ trạng thái Game
-    private SaveData snapshot(Game game) {
+    // Snapshot toàn bộ trạng thái mô phỏng (gọi trên luồng đang chạy mô phỏng)
+    SaveData snapshot(Simulation sim) {
         SaveData d = new SaveData();
 
-        GameState gs = game.getGameState();
-        d.state = GState.from(gs);
+        d.state = GState.from(sim.getGameState());
 
-        // Lấy các thành phần private của Game qua reflection
-        Paddle paddle = (Paddle) getField(game, "paddle");
-        EntityManager em = (EntityManager) getField(game, "entityManager");
-        Boss boss = (Boss) getField(game, "boss");
-        d.bossLevel = getBoolean(game, "bossLevel", false);
+        Paddle paddle = sim.getPaddle();
+        EntityManager em = sim.getEntityManager();
+        d.bossLevel = sim.isBossLevel();
 
         d.paddle = PaddleM.from(paddle);
 
@@ -165,18 +519,22 @@ public final class SaveLoad {
         for (ActiveEffect ae : em.getActiveEffects()) d.effects.add(EffM.from(ae, idx));
 
         // Boss
-        d.boss = BossM.from(boss);
+        d.boss = BossM.from(sim.getBoss());
+
+        // Chế độ vô tận: cấu hình bộ sinh level
+        d.generator = GenM.from(sim.getGenerator());
 
         return d;
     }
 
-    // Áp dữ liệu đã load vào Game, giữ nguyên stuck/vị trí/vận tốc của bóng
-    private void apply(Game game, SaveData d) {
-        GameState gs = game.getGameState();
-        Paddle paddle = (Paddle) getField(game, "paddle");
-        EntityManager em = (EntityManager) getField(game, "entityManager");
+    // Áp dữ liệu đã load vào mô phỏng, giữ nguyên stuck/vị trí/vận tốc của bóng
+    void restore(Simulation sim, SaveData d) {
+        GameState gs = sim.getGameState();
+        Paddle paddle = sim.getPaddle();
+        EntityManager em = sim.getEntityManager();
 
         gs.setRunning(false);
+        sim.prepareForRestore(d.generator != null ? d.generator.toGenerator() : null);
         em.clearAll();
 
         d.state.applyTo(gs);
@@ -203,12 +561,66 @@ public final class SaveLoad {
 
         // Boss + cờ bossLevel
         Boss newBoss = d.boss != null && d.boss.present ? d.boss.toBoss() : null;
-        setField(game, "boss", newBoss);
-        setBoolean(game, "bossLevel", d.bossLevel);
+        sim.setBoss(newBoss, d.bossLevel);
     }
 
+    private static final class PendingSave {
+        final SaveData data;
+        final Path target;
+
+        PendingSave(SaveData data, Path target) {
+            this.data = data;
+            this.target = target;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writePowerType(DataOutputStream out, PowerUp.PowerType t) throws IOException {
+        out.writeByte(t == null ? -1 : t.ordinal());
+    }
+
+    // Ghi theo ordinal nên chỉ được THÊM loại power-up mới vào cuối enum
+    private static PowerUp.PowerType readPowerType(DataInputStream in) throws IOException {
+        int o = in.readByte();
+        PowerUp.PowerType[] all = PowerUp.PowerType.values();
+        if (o < 0) return null;
+        if (o >= all.length) throw new IOException("Loại power-up không hợp lệ: " + o);
+        return all[o];
+    }
+
+    private static void writeIndexMap(DataOutputStream out, Map<Integer, ?> m) throws IOException {
+        out.writeInt(m.size());
+        for (Map.Entry<Integer, ?> e : m.entrySet()) {
+            out.writeInt(e.getKey());
+            Object v = e.getValue();
+            if (v instanceof Boolean b) out.writeDouble(b ? 1 : 0);
+            else out.writeDouble((Double) v);
+        }
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > MAX_ENTITIES) throw new IOException("Số phần tử không hợp lệ: " + n);
+        return n;
+    }
+
+    /*
+     * Định dạng nhị phân (v2): "ARKS" + short phiên bản, sau đó là các bản ghi cố định kích thước
+     * ghi bằng DataOutputStream; cờ boolean gộp thành bit. Phiên bản 1 là SaveData ghi bằng Java
+     * serialization nên các lớp bên dưới vẫn Serializable với serialVersionUID cố định để đọc được save cũ.
+     * Thêm trường mới: tăng FORMAT_VERSION, ghi ở cuối bản ghi và chỉ đọc khi version >= phiên bản đó.
+     */
+    static class SaveData implements Serializable {
+        private static final long serialVersionUID = 6634616237478072837L;
 
-    private static class SaveData implements Serializable {
         String version = "1.0";
         long ts = System.currentTimeMillis();
         GState state;
@@ -221,9 +633,117 @@ public final class SaveLoad {
         List<EffM> effects = new ArrayList<>();
         BossM boss;
         boolean bossLevel;
+        GenM generator; // v3; null = level thường
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(ts);
+            out.writeBoolean(bossLevel);
+            state.write(out);
+            paddle.write(out);
+            out.writeInt(balls.size());
+            for (BallM b : balls) b.write(out);
+            out.writeInt(bricks.size());
+            for (BrickM b : bricks) b.write(out);
+            out.writeInt(powerUps.size());
+            for (PowerUpM p : powerUps) p.write(out);
+            out.writeInt(bullets.size());
+            for (BulletM b : bullets) b.write(out);
+            out.writeInt(huds.size());
+            for (HUDM h : huds) h.write(out);
+            out.writeInt(effects.size());
+            for (EffM e : effects) e.write(out);
+            (boss != null ? boss : new BossM()).write(out);
+            out.writeBoolean(generator != null);
+            if (generator != null) generator.write(out);
+        }
+
+        static SaveData read(DataInputStream in, int version) throws IOException {
+            SaveData d = new SaveData();
+            d.version = String.valueOf(version);
+            d.ts = in.readLong();
+            d.bossLevel = in.readBoolean();
+            d.state = GState.read(in);
+            d.paddle = PaddleM.read(in);
+            for (int i = readCount(in); i > 0; i--) d.balls.add(BallM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.bricks.add(BrickM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.powerUps.add(PowerUpM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.bullets.add(BulletM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.huds.add(HUDM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.effects.add(EffM.read(in));
+            d.boss = BossM.read(in);
+            if (version >= 3 && in.readBoolean()) d.generator = GenM.read(in);
+            return d;
+        }
+    }
+
+    // Cấu hình LevelGenerator của chế độ vô tận (seed, kích thước, tỉ lệ gạch)
+    private static class GenM implements Serializable {
+        private static final long serialVersionUID = 2981570461180372419L;
+
+        long seed;
+        int rows, cols;
+        double[] mix;
+        double density, maxHeight;
+        boolean boss;
+
+        static GenM from(LevelGenerator g) {
+            if (g == null) return null;
+            GenM d = new GenM();
+            d.seed = g.getSeed();
+            d.rows = g.getRows();
+            d.cols = g.getCols();
+            d.mix = g.getMix();
+            d.density = g.getDensity();
+            d.maxHeight = g.getMaxHeight();
+            d.boss = g.isBoss();
+            return d;
+        }
+
+        LevelGenerator toGenerator() {
+            LevelGenerator g = new LevelGenerator(seed, rows, cols);
+            g.setMix(mix[0], mix[1], mix[2], mix[3]);
+            g.setDensity(density);
+            g.setMaxHeight(maxHeight);
+            g.setBoss(boss);
+            return g;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(seed);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            for (double w : mix) out.writeDouble(w);
+            out.writeDouble(density);
+            out.writeDouble(maxHeight);
+            out.writeBoolean(boss);
+        }
+
+        static GenM read(DataInputStream in) throws IOException {
+            GenM d = new GenM();
+            d.seed = in.readLong();
+            d.rows = in.readInt();
+            d.cols = in.readInt();
+            if (d.rows <= 0 || d.cols <= 0 || (long) d.rows * d.cols > MAX_ENTITIES) {
+                throw new IOException("Kích thước level sinh không hợp lệ: " + d.rows + "x" + d.cols);
+            }
+            d.mix = new double[4];
+            double total = 0;
+            for (int i = 0; i < 4; i++) {
+                d.mix[i] = in.readDouble();
+                if (!(d.mix[i] >= 0)) throw new IOException("Tỉ lệ gạch không hợp lệ");
+                total += d.mix[i];
+            }
+            if (!(total > 0)) throw new IOException("Tỉ lệ gạch không hợp lệ");
+            d.density = in.readDouble();
+            d.maxHeight = in.readDouble();
+            d.boss = in.readBoolean();
+            return d;
+        }
     }
 
     private static class GState implements Serializable {
+        private static final long serialVersionUID = 6855929768681638870L;
+
         int lives, score, currentLevelIndex;
         double scoreMul, barrierY, barrierThickness;
         boolean running, win, showMsg, gameStarted, pauseOverlay, confirmOverlay,
@@ -264,9 +784,45 @@ public final class SaveLoad {
             s.setLevelComplete(levelComplete);
             s.setGameComplete(gameComplete);
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(lives);
+            out.writeInt(score);
+            out.writeInt(currentLevelIndex);
+            out.writeDouble(scoreMul);
+            out.writeDouble(barrierY);
+            out.writeDouble(barrierThickness);
+            int flags = (running ? 1 : 0) | (win ? 1 << 1 : 0) | (showMsg ? 1 << 2 : 0)
+                    | (gameStarted ? 1 << 3 : 0) | (pauseOverlay ? 1 << 4 : 0) | (confirmOverlay ? 1 << 5 : 0)
+                    | (barrierActive ? 1 << 6 : 0) | (levelComplete ? 1 << 7 : 0) | (gameComplete ? 1 << 8 : 0);
+            out.writeShort(flags);
+        }
+
+        static GState read(DataInputStream in) throws IOException {
+            GState d = new GState();
+            d.lives = in.readInt();
+            d.score = in.readInt();
+            d.currentLevelIndex = in.readInt();
+            d.scoreMul = in.readDouble();
+            d.barrierY = in.readDouble();
+            d.barrierThickness = in.readDouble();
+            int flags = in.readUnsignedShort();
+            d.running = (flags & 1) != 0;
+            d.win = (flags & 1 << 1) != 0;
+            d.showMsg = (flags & 1 << 2) != 0;
+            d.gameStarted = (flags & 1 << 3) != 0;
+            d.pauseOverlay = (flags & 1 << 4) != 0;
+            d.confirmOverlay = (flags & 1 << 5) != 0;
+            d.barrierActive = (flags & 1 << 6) != 0;
+            d.levelComplete = (flags & 1 << 7) != 0;
+            d.gameComplete = (flags & 1 << 8) != 0;
+            return d;
+        }
     }
 
     private static class PaddleM implements Serializable {
+        private static final long serialVersionUID = 138224184596591877L;
+
         double x, y, w, h;
         boolean hasLaser;
 
@@ -287,9 +843,29 @@ public final class SaveLoad {
             p.setWidth(w);
             p.setHasLaser(hasLaser);
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(w);
+            out.writeDouble(h);
+            out.writeBoolean(hasLaser);
+        }
+
+        static PaddleM read(DataInputStream in) throws IOException {
+            PaddleM d = new PaddleM();
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.w = in.readDouble();
+            d.h = in.readDouble();
+            d.hasLaser = in.readBoolean();
+            return d;
+        }
     }
 
     private static class BallM implements Serializable {
+        private static final long serialVersionUID = -7612480319484103375L;
+
         double cx, cy, r, vx, vy, baseSpeed;
         boolean stuck, fireball;
 
@@ -301,9 +877,8 @@ public final class SaveLoad {
             d.baseSpeed = b.getBaseSpeed();
             d.fireball = b.isFireball();
             d.stuck = b.isStuck();
-            // vx, vy lấy qua reflection
-            d.vx = getDouble(b, "vx", 0);
-            d.vy = getDouble(b, "vy", -d.baseSpeed);
+            d.vx = b.getVx();
+            d.vy = b.getVy();
             return d;
         }
 
@@ -317,10 +892,36 @@ public final class SaveLoad {
             nb.setY(cy - r);
             return nb;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(cx);
+            out.writeDouble(cy);
+            out.writeDouble(r);
+            out.writeDouble(vx);
+            out.writeDouble(vy);
+            out.writeDouble(baseSpeed);
+            out.writeByte((stuck ? 1 : 0) | (fireball ? 2 : 0));
+        }
+
+        static BallM read(DataInputStream in) throws IOException {
+            BallM d = new BallM();
+            d.cx = in.readDouble();
+            d.cy = in.readDouble();
+            d.r = in.readDouble();
+            d.vx = in.readDouble();
+            d.vy = in.readDouble();
+            d.baseSpeed = in.readDouble();
+            int flags = in.readByte();
+            d.stuck = (flags & 1) != 0;
+            d.fireball = (flags & 2) != 0;
+            return d;
+        }
     }
 
     // Brick (type: 0=NORMAL, 1=INDESTRUCTIBLE, 2=EXPLOSIVE, 3=MOVING)
     private static class BrickM implements Serializable {
+        private static final long serialVersionUID = -5301425606760190523L;
+
         int type;
         double x, y, w, h;
         int hits;
@@ -335,14 +936,10 @@ public final class SaveLoad {
             d.hits = b.getHits();
             if (b instanceof MovingBrick mb) {
                 d.type = 3;
-                d.direction = getDouble(mb, "direction", 1);
-                d.leftBound = getDouble(mb, "leftBound", 0);
-                d.rightBound = getDouble(mb, "rightBound", 800);
-                try {
-                    d.x0 = mb.getX0();
-                } catch (Throwable t) {
-                    d.x0 = getDouble(mb, "x0", d.x);
-                }
+                d.direction = mb.getDirection();
+                d.leftBound = mb.getLeftBound();
+                d.rightBound = mb.getRightBound();
+                d.x0 = mb.getX0();
             } else {
                 Brick.Type t = b.getType();
                 d.type = (t == Brick.Type.INDESTRUCTIBLE) ? 1 : (t == Brick.Type.EXPLOSIVE ? 2 : 0);
@@ -353,9 +950,6 @@ public final class SaveLoad {
         Brick toBrick() {
             if (type == 3) {
                 // Khôi phục đúng vị trí và giới hạn di chuyển của brick động theo dữ liệu đã lưu
-                double leftParam = leftBound;
-                double rightParam = rightBound + w;
-
                 double initX0 = (x0 == 0.0 ? x : x0);
                 MovingBrick mb = new MovingBrick(initX0, y, w, h, Math.max(1, hits), MovingBrick.BrickType.WEAK);
 
@@ -372,9 +966,45 @@ public final class SaveLoad {
             if (type == 2) return new Brick(x, y, w, h, Brick.Type.EXPLOSIVE, 1);
             return new Brick(x, y, w, h, Math.max(1, hits));
         }
+
+        // gạch động ghi thêm hướng/giới hạn/x0; gạch thường chỉ có phần chung
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(w);
+            out.writeDouble(h);
+            out.writeInt(hits);
+            if (type == 3) {
+                out.writeDouble(leftBound);
+                out.writeDouble(rightBound);
+                out.writeDouble(direction);
+                out.writeDouble(x0);
+            }
+        }
+
+        static BrickM read(DataInputStream in) throws IOException {
+            BrickM d = new BrickM();
+            d.type = in.readByte();
+            if (d.type < 0 || d.type > 3) throw new IOException("Loại gạch không hợp lệ: " + d.type);
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.w = in.readDouble();
+            d.h = in.readDouble();
+            d.hits = in.readInt();
+            if (d.type == 3) {
+                d.leftBound = in.readDouble();
+                d.rightBound = in.readDouble();
+                d.direction = in.readDouble();
+                d.x0 = in.readDouble();
+            }
+            return d;
+        }
     }
 
     private static class PowerUpM implements Serializable {
+        private static final long serialVersionUID = 6275263097371959292L;
+
         double x, y, vy;
         PowerUp.PowerType type;
 
@@ -392,9 +1022,27 @@ public final class SaveLoad {
             pu.vy = vy;
             return pu;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(vy);
+            writePowerType(out, type);
+        }
+
+        static PowerUpM read(DataInputStream in) throws IOException {
+            PowerUpM d = new PowerUpM();
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.vy = in.readDouble();
+            d.type = readPowerType(in);
+            return d;
+        }
     }
 
     private static class BulletM implements Serializable {
+        private static final long serialVersionUID = 7583640042020732440L;
+
         double x, y, w, h;
         boolean alive;
 
@@ -417,9 +1065,29 @@ public final class SaveLoad {
             if (!alive) nb.kill();
             return nb;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(w);
+            out.writeDouble(h);
+            out.writeBoolean(alive);
+        }
+
+        static BulletM read(DataInputStream in) throws IOException {
+            BulletM d = new BulletM();
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.w = in.readDouble();
+            d.h = in.readDouble();
+            d.alive = in.readBoolean();
+            return d;
+        }
     }
 
     private static class HUDM implements Serializable {
+        private static final long serialVersionUID = 8224390945848644239L;
+
         String text;
         double life, maxLife;
 
@@ -436,9 +1104,25 @@ public final class SaveLoad {
             h.life = life;
             return h;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            writeString(out, text);
+            out.writeDouble(life);
+            out.writeDouble(maxLife);
+        }
+
+        static HUDM read(DataInputStream in) throws IOException {
+            HUDM d = new HUDM();
+            d.text = readString(in);
+            d.life = in.readDouble();
+            d.maxLife = in.readDouble();
+            return d;
+        }
     }
 
     private static class EffM implements Serializable {
+        private static final long serialVersionUID = -6767309885173038440L;
+
         PowerUp.PowerType type;
         double remaining;
         double originalScoreMul = 1.0, originalPaddleW = -1;
@@ -450,7 +1134,7 @@ public final class SaveLoad {
         static EffM from(ActiveEffect ae, Map<Ball, Integer> index) {
             EffM d = new EffM();
             d.type = ae.type;
-            d.remaining = getDouble(ae, "remaining", 0);
+            d.remaining = ae.getRemaining();
             d.originalScoreMul = ae.originalScoreMultiplier;
             d.originalPaddleW = ae.originalPaddleWidth;
             d.originalHasLaser = ae.originalHasLaser;
@@ -488,14 +1172,47 @@ public final class SaveLoad {
             }
             return ae;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            writePowerType(out, type);
+            out.writeDouble(remaining);
+            out.writeDouble(originalScoreMul);
+            out.writeDouble(originalPaddleW);
+            out.writeBoolean(originalHasLaser);
+            writeIndexMap(out, speedByBall);
+            writeIndexMap(out, radiusByBall);
+            writeIndexMap(out, fireByBall);
+        }
+
+        static EffM read(DataInputStream in) throws IOException {
+            EffM d = new EffM();
+            d.type = readPowerType(in);
+            d.remaining = in.readDouble();
+            d.originalScoreMul = in.readDouble();
+            d.originalPaddleW = in.readDouble();
+            d.originalHasLaser = in.readBoolean();
+            for (int i = readCount(in); i > 0; i--) d.speedByBall.put(in.readInt(), in.readDouble());
+            for (int i = readCount(in); i > 0; i--) d.radiusByBall.put(in.readInt(), in.readDouble());
+            for (int i = readCount(in); i > 0; i--) d.fireByBall.put(in.readInt(), in.readDouble() != 0);
+            return d;
+        }
     }
 
     private static class BossM implements Serializable {
+        private static final long serialVersionUID = 2768741458452245383L;
+
         boolean present = false;
         double x, y, w, h, leftBound, rightBound, health, maxHealth;
+        double direction; // 0 = save cũ chưa lưu hướng
         List<BossBulletM> bullets = new ArrayList<>();
 
         static BossM from(Boss b) {
+            BossM d = withoutBullets(b);
+            if (b != null) for (BossBullet bb : b.getBullets()) d.bullets.add(BossBulletM.from(bb));
+            return d;
+        }
+
+        static BossM withoutBullets(Boss b) {
             BossM d = new BossM();
             if (b == null) return d;
             d.present = true;
@@ -503,29 +1220,63 @@ public final class SaveLoad {
             d.y = b.getY();
             d.w = b.getWidth();
             d.h = b.getHeight();
-            d.leftBound = getDouble(b, "leftBound", 100);
-            d.rightBound = getDouble(b, "rightBound", 770);
-            d.health = getDouble(b, "health", 500);
-            d.maxHealth = getDouble(b, "maxHealth", 500);
-            for (BossBullet bb : b.getBullets()) d.bullets.add(BossBulletM.from(bb));
+            d.leftBound = b.getLeftBound();
+            d.rightBound = b.getRightBound();
+            d.health = b.getHealth();
+            d.maxHealth = b.getMaxHealth();
+            d.direction = b.getDirection();
             return d;
         }
 
         Boss toBoss() {
             Boss boss = new Boss(x, y, w, h, leftBound, rightBound);
-            // Khớp HP bằng cách trừ chênh lệch
-            double curMax = getDouble(boss, "maxHealth", maxHealth);
-            double cur = getDouble(boss, "health", curMax);
-            double delta = cur - health;
-            if (delta > 0) boss.takeDamage(delta, null, null);
+            boss.setHealth(health);
+            if (direction != 0) boss.setDirection(direction);
             boss.getBullets().clear();
             for (BossBulletM bm : bullets) boss.getBullets().add(bm.toBullet());
             return boss;
         }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeBoolean(present);
+            if (!present) return;
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(w);
+            out.writeDouble(h);
+            out.writeDouble(leftBound);
+            out.writeDouble(rightBound);
+            out.writeDouble(health);
+            out.writeDouble(maxHealth);
+            out.writeDouble(direction);
+            out.writeInt(bullets.size());
+            for (BossBulletM bm : bullets) bm.write(out);
+        }
+
+        static BossM read(DataInputStream in) throws IOException {
+            BossM d = new BossM();
+            d.present = in.readBoolean();
+            if (!d.present) return d;
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.w = in.readDouble();
+            d.h = in.readDouble();
+            d.leftBound = in.readDouble();
+            d.rightBound = in.readDouble();
+            d.health = in.readDouble();
+            d.maxHealth = in.readDouble();
+            d.direction = in.readDouble();
+            for (int i = readCount(in); i > 0; i--) d.bullets.add(BossBulletM.read(in));
+            return d;
+        }
     }
 
     private static class BossBulletM implements Serializable {
+        private static final long serialVersionUID = 4892223975881247973L;
+
         double x, y, w, h;
+        double vx, vy;
+        boolean hasVelocity; // save cũ không có vận tốc
 
         static BossBulletM from(BossBullet b) {
             BossBulletM d = new BossBulletM();
@@ -533,59 +1284,165 @@ public final class SaveLoad {
             d.y = b.getY();
             d.w = b.getWidth();
             d.h = b.getHeight();
+            d.vx = b.getVx();
+            d.vy = b.getVy();
+            d.hasVelocity = true;
             return d;
         }
 
         BossBullet toBullet() {
-            return new BossBullet(x, y, w, h, 300, 10);
+            BossBullet b = new BossBullet(x, y, w, h, 300, 10);
+            if (hasVelocity) b.setVelocity(vx, vy);
+            return b;
         }
-    }
 
-    private static Object getField(Object target, String name) {
-        try {
-            Field f = target.getClass().getDeclaredField(name);
-            f.setAccessible(true);
-            return f.get(target);
-        } catch (Exception e) {
-            return null;
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(w);
+            out.writeDouble(h);
+            out.writeDouble(vx);
+            out.writeDouble(vy);
         }
-    }
 
-    private static void setField(Object target, String name, Object val) {
-        try {
-            Field f = target.getClass().getDeclaredField(name);
-            f.setAccessible(true);
-            f.set(target, val);
-        } catch (Exception ignored) {
+        static BossBulletM read(DataInputStream in) throws IOException {
+            BossBulletM d = new BossBulletM();
+            d.x = in.readDouble();
+            d.y = in.readDouble();
+            d.w = in.readDouble();
+            d.h = in.readDouble();
+            d.vx = in.readDouble();
+            d.vy = in.readDouble();
+            d.hasVelocity = true;
+            return d;
         }
     }
 
-    private static double getDouble(Object target, String name, double def) {
-        try {
-            Field f = target.getClass().getDeclaredField(name);
-            f.setAccessible(true);
-            return f.getDouble(target);
-        } catch (Exception e) {
-            return def;
+    // Bản ghi journal autosave: thay đổi gạch so với bản ghi trước + trạng thái động hiện tại
+    private static class DeltaM {
+        long ts = System.currentTimeMillis();
+        final Changes destroyed = new Changes(0);
+        final Changes hits = new Changes(1);
+        final Changes moving = new Changes(2); // x, direction
+        GState state;
+        PaddleM paddle;
+        List<BallM> balls = new ArrayList<>();
+        List<EffM> effects = new ArrayList<>();
+        BossM boss;
+
+        // [độ dài][CRC32][payload]
+        byte[] toRecord() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(ts);
+            destroyed.write(out);
+            hits.write(out);
+            moving.write(out);
+            state.write(out);
+            paddle.write(out);
+            out.writeInt(balls.size());
+            for (BallM b : balls) b.write(out);
+            out.writeInt(effects.size());
+            for (EffM e : effects) e.write(out);
+            boss.write(out);
+            out.flush();
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return ByteBuffer.allocate(8 + payload.length)
+                    .putInt(payload.length).putInt((int) crc.getValue()).put(payload).array();
         }
-    }
 
-    private static boolean getBoolean(Object target, String name, boolean def) {
-        try {
-            Field f = target.getClass().getDeclaredField(name);
-            f.setAccessible(true);
-            return f.getBoolean(target);
-        } catch (Exception e) {
-            return def;
+        static DeltaM read(DataInputStream in) throws IOException {
+            DeltaM d = new DeltaM();
+            d.ts = in.readLong();
+            d.destroyed.read(in);
+            d.hits.read(in);
+            d.moving.read(in);
+            d.state = GState.read(in);
+            d.paddle = PaddleM.read(in);
+            for (int i = readCount(in); i > 0; i--) d.balls.add(BallM.read(in));
+            for (int i = readCount(in); i > 0; i--) d.effects.add(EffM.read(in));
+            d.boss = BossM.read(in);
+            return d;
+        }
+
+        void applyTo(SaveData d, boolean[] gone) throws IOException {
+            for (int i = 0; i < destroyed.size; i++) gone[brickIndex(destroyed.idx[i], gone)] = true;
+            for (int i = 0; i < hits.size; i++) {
+                d.bricks.get(brickIndex(hits.idx[i], gone)).hits = (int) hits.a[i];
+            }
+            for (int i = 0; i < moving.size; i++) {
+                BrickM bm = d.bricks.get(brickIndex(moving.idx[i], gone));
+                bm.x = moving.a[i];
+                bm.direction = moving.b[i];
+            }
+            d.ts = ts;
+            d.state = state;
+            d.paddle = paddle;
+            d.balls = balls;
+            d.effects = effects;
+            if (boss.present && d.boss != null && d.boss.present) {
+                d.boss.x = boss.x;
+                d.boss.y = boss.y;
+                d.boss.health = boss.health;
+                d.boss.direction = boss.direction;
+                d.boss.bullets.clear();
+            } else {
+                d.boss = boss;
+            }
+        }
+
+        private static int brickIndex(int i, boolean[] gone) throws IOException {
+            if (i < 0 || i >= gone.length) throw new IOException("Chỉ số gạch không hợp lệ: " + i);
+            return i;
         }
     }
 
-    private static void setBoolean(Object target, String name, boolean val) {
-        try {
-            Field f = target.getClass().getDeclaredField(name);
-            f.setAccessible(true);
-            f.setBoolean(target, val);
-        } catch (Exception ignored) {
+    // Danh sách (chỉ số gạch, tối đa 2 giá trị) tăng dần kích thước, dùng trong DeltaM
+    private static final class Changes {
+        final int width;
+        int size = 0;
+        int[] idx = new int[8];
+        double[] a = new double[8];
+        double[] b = new double[8];
+
+        Changes(int width) {
+            this.width = width;
+        }
+
+        void add(int i, double va) {
+            add(i, va, 0);
+        }
+
+        void add(int i, double va, double vb) {
+            if (size == idx.length) {
+                idx = Arrays.copyOf(idx, size * 2);
+                a = Arrays.copyOf(a, size * 2);
+                b = Arrays.copyOf(b, size * 2);
+            }
+            idx[size] = i;
+            a[size] = va;
+            b[size] = vb;
+            size++;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(idx[i]);
+                if (width > 0) out.writeDouble(a[i]);
+                if (width > 1) out.writeDouble(b[i]);
+            }
+        }
+
+        void read(DataInputStream in) throws IOException {
+            for (int n = readCount(in); n > 0; n--) {
+                int i = in.readInt();
+                double va = width > 0 ? in.readDouble() : 0;
+                double vb = width > 1 ? in.readDouble() : 0;
+                add(i, va, vb);
+            }
         }
     }
 }
@@ -10,25 +10,44 @@ public class ScorePopup {
     private double x, y;
     private double vy;
     private double life;
-    private final double maxLife;
-    private final String text;
-    private final Font font;
-    private final Color color;
+    private double maxLife;
+    private String text;
+    private Font font; // null = font mặc định
+    private Color color;
+    // kích thước text đã đo cho (measuredText, measuredFont); đo lại khi text/font đổi
+    private String measuredText;
+    private Font measuredFont;
+    private double textW, textH;
 
 
     // CẤU HÌNH MỚI (đã tăng kích thước/màu/thời gian)
     public static final double DEFAULT_LIFE = 1.40;
     public static final double DEFAULT_VY = -46.0;
-    public static final Font DEFAULT_FONT = Font.font("Arial", 26);
     public static final Color DEFAULT_COLOR = Color.web("#FFDF5A");
+    private static final Color SHADOW = Color.rgb(6, 6, 6, 0.65);
+    private static final Color OUTLINE = Color.rgb(10, 10, 10, 0.85);
+
+    // Font mặc định tạo khi vẽ lần đầu (lớp holder): tạo Font cần JavaFX toolkit
+    private static final class DefaultFont {
+        static final Font FONT = Font.font("Arial", 26);
+    }
+
+    public static Font defaultFont() {
+        return DefaultFont.FONT;
+    }
 
 
     public ScorePopup(double centerX, double centerY, String text) {
-        this(centerX, centerY, text, DEFAULT_FONT, DEFAULT_COLOR, DEFAULT_LIFE, DEFAULT_VY);
+        this(centerX, centerY, text, null, DEFAULT_COLOR, DEFAULT_LIFE, DEFAULT_VY);
     }
 
 
     public ScorePopup(double centerX, double centerY, String text, Font font, Color color, double life, double initialVy) {
+        init(centerX, centerY, text, font, color, life, initialVy);
+    }
+
+    // khởi tạo lại để dùng lại đối tượng từ pool (kích thước đo được giữ lại nếu text không đổi)
+    void init(double centerX, double centerY, String text, Font font, Color color, double life, double initialVy) {
         this.x = centerX;
         this.y = centerY;
         this.text = text;
@@ -67,11 +86,17 @@ public class ScorePopup {
         double alpha = Math.pow(t, 0.9);
 
 
-        // đo kích thước text để canh giữa
-        Text meas = new Text(text);
-        meas.setFont(font);
-        double textW = meas.getLayoutBounds().getWidth();
-        double textH = meas.getLayoutBounds().getHeight();
+        Font font = this.font != null ? this.font : defaultFont();
+
+        // đo kích thước text để canh giữa (chỉ đo lại khi text/font thay đổi)
+        if (!text.equals(measuredText) || font != measuredFont) {
+            Text meas = new Text(text);
+            meas.setFont(font);
+            textW = meas.getLayoutBounds().getWidth();
+            textH = meas.getLayoutBounds().getHeight();
+            measuredText = text;
+            measuredFont = font;
+        }
 
 
         gc.save();
@@ -85,13 +110,13 @@ public class ScorePopup {
 
         // shadow để nổi chữ trên background
         gc.setGlobalAlpha(alpha * 0.9);
-        gc.setFill(Color.rgb(6, 6, 6, 0.65)); // bóng đen mờ
+        gc.setFill(SHADOW); // bóng đen mờ
         gc.fillText(text, -textW / 2.0 + 2, -textH / 2.0 + 4);
 
 
         // outline để chữ rõ nét trên mọi nền
         gc.setLineWidth(2.5);
-        gc.setStroke(Color.rgb(10, 10, 10, 0.85));
+        gc.setStroke(OUTLINE);
         gc.setGlobalAlpha(alpha);
         gc.strokeText(text, -textW / 2.0, -textH / 2.0);
 
@@ -0,0 +1,204 @@
+package arkanoid;
+
+import arkanoid.SoundManager.Sfx;
+
+import java.util.Arrays;
+
+/**
+ * Bộ trộn SFX: quyết định lệnh phát nào thật sự được phát, không phụ thuộc JavaFX.
+ * - Gom yêu cầu trong cùng một khung hình: một Sfx gọi nhiều lần chỉ phát một lần.
+ * - Số voice tối đa cố định; mỗi Sfx có giới hạn số voice đồng thời và cooldown riêng.
+ * - Hết voice thì cướp voice có độ ưu tiên thấp nhất (cũ nhất nếu bằng nhau), không cướp của Sfx ưu tiên cao hơn.
+ * Mọi trạng thái nằm trong mảng theo ordinal, không cấp phát khi phát.
+ */
+final class SfxMixer {
+    // Nơi thật sự phát/dừng âm thanh (SoundManager trên FX thread, hoặc test)
+    interface VoiceSink {
+        void start(Sfx sfx, int voice);
+
+        void stop(Sfx sfx, int voice);
+    }
+
+    static final int MAX_VOICES = 12;
+
+    private static final Sfx[] SFX = Sfx.values();
+    private static final long MS = 1_000_000L;
+
+    // Cấu hình theo Sfx
+    private final int[] cap = new int[SFX.length];
+    private final int[] priority = new int[SFX.length];
+    private final long[] cooldownNs = new long[SFX.length];
+    private final long[] lengthNs = new long[SFX.length];
+
+    // Trạng thái theo Sfx
+    private final long[] lastStartNs = new long[SFX.length];
+    private final int[] playing = new int[SFX.length];
+    private final boolean[] pending = new boolean[SFX.length];
+    private final int[] pendingOrder = new int[SFX.length];
+    private int pendingCount = 0;
+
+    // Voice: Sfx đang chiếm (-1 = trống), thời điểm bắt đầu và dự kiến kết thúc
+    private final int[] voiceSfx = new int[MAX_VOICES];
+    private final long[] voiceStart = new long[MAX_VOICES];
+    private final long[] voiceEnd = new long[MAX_VOICES];
+
+    // Thống kê cho debug/test
+    private int dropped = 0, stolen = 0;
+
+    SfxMixer() {
+        Arrays.fill(voiceSfx, -1);
+        Arrays.fill(lastStartNs, Long.MIN_VALUE / 2);
+        for (Sfx s : SFX) configure(s, 2, 1, 0, 300);
+
+        // Va chạm dày đặc: ưu tiên thấp, cooldown ngắn
+        configure(Sfx.BOUNCE_WALL, 2, 0, 40, 150);
+        configure(Sfx.BOUNCE_PADDLE, 2, 1, 40, 150);
+        configure(Sfx.BRICK_HIT, 2, 0, 40, 150);
+        configure(Sfx.BRICK_BREAK, 3, 1, 30, 250);
+        configure(Sfx.EXPLOSION, 2, 2, 60, 900);
+        configure(Sfx.LASER_SHOT, 2, 1, 50, 300);
+        configure(Sfx.BOSS_SHOOT, 2, 1, 50, 400);
+
+        // Sự kiện quan trọng: luôn nghe được
+        configure(Sfx.BALL_LOST, 1, 3, 0, 1200);
+        configure(Sfx.BOSS_HIT, 2, 2, 0, 300);
+        configure(Sfx.BOSS_DEATH, 1, 3, 0, 1500);
+        configure(Sfx.GAME_OVER, 1, 4, 0, 3000);
+        configure(Sfx.VICTORY, 1, 4, 0, 3000);
+        configure(Sfx.POWER_PICK_GOOD, 1, 2, 0, 600);
+        configure(Sfx.POWER_PICK_BAD, 1, 2, 0, 600);
+
+        // UI
+        configure(Sfx.CLICK, 1, 3, 0, 200);
+        configure(Sfx.BUTTON, 1, 3, 0, 200);
+        configure(Sfx.HOVER, 1, 2, 30, 150);
+        configure(Sfx.PAUSE, 1, 3, 0, 400);
+    }
+
+    // Giới hạn voice đồng thời, độ ưu tiên, cooldown và độ dài ước lượng (ms) của một Sfx
+    void configure(Sfx sfx, int maxVoices, int prio, long cooldownMs, long lengthMs) {
+        int i = sfx.ordinal();
+        cap[i] = maxVoices;
+        priority[i] = prio;
+        cooldownNs[i] = cooldownMs * MS;
+        lengthNs[i] = lengthMs * MS;
+    }
+
+    // Ghi nhận yêu cầu phát; cùng Sfx trong một khung chỉ giữ một. Trả về true nếu là yêu cầu đầu tiên của khung
+    synchronized boolean request(Sfx sfx) {
+        int i = sfx.ordinal();
+        if (pending[i]) return false;
+        pending[i] = true;
+        pendingOrder[pendingCount++] = i;
+        return true;
+    }
+
+    synchronized boolean hasPending() {
+        return pendingCount > 0;
+    }
+
+    // Phát các yêu cầu đang chờ, ưu tiên cao trước (giữ thứ tự gọi nếu bằng nhau)
+    synchronized void flush(long nowNs, VoiceSink sink) {
+        expire(nowNs);
+        // sắp chèn theo độ ưu tiên giảm dần, ổn định
+        for (int a = 1; a < pendingCount; a++) {
+            int v = pendingOrder[a], b = a - 1;
+            while (b >= 0 && priority[pendingOrder[b]] < priority[v]) {
+                pendingOrder[b + 1] = pendingOrder[b];
+                b--;
+            }
+            pendingOrder[b + 1] = v;
+        }
+        for (int k = 0; k < pendingCount; k++) {
+            int i = pendingOrder[k];
+            pending[i] = false;
+            admit(i, nowNs, sink);
+        }
+        pendingCount = 0;
+    }
+
+    // Bỏ các yêu cầu chưa phát (khi tắt tiếng)
+    synchronized void clearPending() {
+        for (int k = 0; k < pendingCount; k++) pending[pendingOrder[k]] = false;
+        pendingCount = 0;
+    }
+
+    private void admit(int i, long nowNs, VoiceSink sink) {
+        if (nowNs - lastStartNs[i] < cooldownNs[i] || playing[i] >= cap[i]) {
+            dropped++;
+            return;
+        }
+        int v = freeVoice();
+        if (v < 0) {
+            v = victim(priority[i]);
+            if (v < 0) {
+                dropped++;
+                return;
+            }
+            int old = voiceSfx[v];
+            release(v);
+            stolen++;
+            sink.stop(SFX[old], v);
+        }
+        voiceSfx[v] = i;
+        voiceStart[v] = nowNs;
+        voiceEnd[v] = nowNs + lengthNs[i];
+        playing[i]++;
+        lastStartNs[i] = nowNs;
+        sink.start(SFX[i], v);
+    }
+
+    private int freeVoice() {
+        for (int v = 0; v < MAX_VOICES; v++) if (voiceSfx[v] < 0) return v;
+        return -1;
+    }
+
+    // Voice ưu tiên thấp nhất (cũ nhất nếu bằng nhau) mà không cao hơn prio
+    private int victim(int prio) {
+        int best = -1;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            int p = priority[voiceSfx[v]];
+            if (p > prio) continue;
+            if (best < 0 || p < priority[voiceSfx[best]]
+                    || (p == priority[voiceSfx[best]] && voiceStart[v] < voiceStart[best])) best = v;
+        }
+        return best;
+    }
+
+    private void expire(long nowNs) {
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSfx[v] >= 0 && voiceEnd[v] <= nowNs) release(v);
+        }
+    }
+
+    // Giải phóng voice (hết tiếng hoặc bị dừng bên ngoài)
+    synchronized void release(int v) {
+        int i = voiceSfx[v];
+        if (i < 0) return;
+        playing[i]--;
+        voiceSfx[v] = -1;
+    }
+
+    // Giải phóng mọi voice của một Sfx (AudioClip.stop dừng tất cả các lần phát của clip)
+    synchronized void releaseAll(Sfx sfx) {
+        for (int v = 0; v < MAX_VOICES; v++) if (voiceSfx[v] == sfx.ordinal()) release(v);
+    }
+
+    synchronized int activeVoices() {
+        int n = 0;
+        for (int v = 0; v < MAX_VOICES; v++) if (voiceSfx[v] >= 0) n++;
+        return n;
+    }
+
+    synchronized int playingCount(Sfx sfx) {
+        return playing[sfx.ordinal()];
+    }
+
+    int getDropped() {
+        return dropped;
+    }
+
+    int getStolen() {
+        return stolen;
+    }
+}
@@ -0,0 +1,833 @@
+package arkanoid;
+
+import javafx.scene.input.KeyCode;
+import javafx.scene.paint.Color;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lõi mô phỏng của game: toàn bộ trạng thái và update(dt), không dùng Canvas, Scene hay AnimationTimer.
+ * Game (JavaFX) chỉ chuyển input, gọi step() theo bước cố định và vẽ kết quả.
+ * Có thể chạy headless (test, bot, benchmark) bằng cách tạo Simulation rồi gọi step() trong vòng lặp;
+ * ảnh và âm thanh chỉ được tải khi thực sự vẽ/phát.
+ */
+public class Simulation {
+    // Thành phần cốt lõi
+    private final double width;
+    private final double height;
+    private final Paddle paddle;
+    private Boss boss;
+    private boolean bossLevel = false;
+
+    // Các Trình quản lý
+    private final GameState gameState;
+    private final EntityManager entityManager;
+    private final PowerUpManager powerUpManager;
+    private final CollisionManager collisionManager;
+    private final MovingBrickBroadphase moverBroadphase = new MovingBrickBroadphase();
+    // Danh sách tạm của bước boss, dùng lại mỗi bước để không cấp phát
+    private final List<BossBullet> bossBulletsHit = new ArrayList<>();
+    private final List<Bullet> bulletsHitBoss = new ArrayList<>();
+    // Sự kiện gameplay của bước hiện tại, đọc ra cho âm thanh/hiệu ứng ở cuối step()
+    private final GameEvents events = new GameEvents();
+    // Nguồn ngẫu nhiên riêng của mô phỏng này (power-up, hạt, mảnh vỡ, boss, hướng phóng bóng)
+    private final GameRandom random = new GameRandom();
+    private static final PowerUp.PowerType[] POWER_TYPES = PowerUp.PowerType.values();
+    // Đo thời gian từng pha (tắt mặc định); Game đọc ra để vẽ overlay / xuất JMX, CSV
+    private final FrameProfiler profiler = new FrameProfiler();
+    private Runnable onStop; // gọi khi mô phỏng tự dừng (game over, qua màn)
+
+    // Level data
+    private final String[] levelFiles = new String[]{
+            "/levels/level2.txt",
+            "/levels/level3.txt",
+            "/levels/level1.txt",
+            "/levels/level4.txt",
+            "/levels/level5.txt",
+            "/levels/level6.txt"
+    };
+
+    // Cooldown bắn
+    private double shootCooldown = 0.25;
+    private double timeSinceLastShot = 0.0;
+
+    public enum WarpStyle {FADE_IN, SCALE_UP, RIPPLE_LTR, RIPPLE_CENTER}
+
+    private boolean warpInProgress = false;
+
+    // Level sinh ngẫu nhiên rất lớn: gạch được đưa vào dần theo hàng, tối đa ROW_STREAM_BUDGET gạch mỗi bước
+    private LevelTemplate.RowStream rowStream;
+    private static final int ROW_STREAM_BUDGET = 600;
+    // Level sinh ngẫu nhiên đang chơi (null nếu level từ file): chơi lại / qua màn sinh lại từ đây
+    private LevelGenerator generator;
+
+    // Số bước đã chạy từ lúc vào màn; input được ghi kèm tick này để phát lại (Replay)
+    private long tick = 0;
+    private Replay recorder;
+
+    // Vệt khói của paddle khi di chuyển
+    private double lastPaddleX = 0.0;
+    private double paddleTrailTimer = 0.0;
+    private final double PADDLE_TRAIL_INTERVAL = 0.02;   // sinh 1 hạt mỗi 0.03s
+    private final double PADDLE_TRAIL_MIN_SPEED = 60.0;  // px/s (ngưỡng để bắt đầu sinh trail)
+
+    public Simulation(double w, double h) {
+        this.width = w;
+        this.height = h;
+
+        // Khởi tạo đối tượng cốt lõi
+        paddle = new Paddle((width - 120) / 2, height - 40, 120, 16, width);
+
+        // Khởi tạo các Manager
+        this.gameState = new GameState();
+        this.entityManager = new EntityManager();
+        this.powerUpManager = new PowerUpManager();
+        this.collisionManager = new CollisionManager();
+        powerUpManager.setEvents(events);
+        collisionManager.setEvents(events);
+        powerUpManager.setRandom(random);
+        collisionManager.setRandom(random);
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public Paddle getPaddle() {
+        return paddle;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public PowerUpManager getPowerUpManager() {
+        return powerUpManager;
+    }
+
+    public CollisionManager getCollisionManager() {
+        return collisionManager;
+    }
+
+    public Boss getBoss() {
+        return boss;
+    }
+
+    public boolean isBossLevel() {
+        return bossLevel;
+    }
+
+    // Dùng khi khôi phục save
+    public void setBoss(Boss boss, boolean bossLevel) {
+        this.boss = boss;
+        if (boss != null) {
+            boss.setEvents(events);
+            boss.setRandom(random);
+        }
+        this.bossLevel = bossLevel;
+    }
+
+    public int getLevelCount() {
+        return levelFiles.length;
+    }
+
+    public void setOnStop(Runnable r) {
+        this.onStop = r;
+    }
+
+    // Dừng mô phỏng và báo cho lớp giao diện (nếu có)
+    private void stop() {
+        gameState.setRunning(false);
+        if (onStop != null) onStop.run();
+    }
+
+    // Đặt lại trạng thái và nạp level (chưa chạy; gọi setRunning(true) để bắt đầu)
+    public void startLevel(int levelIndex) {
+        boss = null;         // Xóa boss cũ
+        bossLevel = false;   // Tắt cờ boss level
+        gameState.resetForNewGame();
+        entityManager.clearAll();
+        paddle.setWidth(120); // Reset paddle width
+        paddle.setHasLaser(false); // Reset laser
+        resetStepState();
+        generator = null;
+        loadLevel(levelIndex);
+        createNewBall();
+    }
+
+    // Như startLevel(int) nhưng đặt seed cho nguồn ngẫu nhiên và ghi lại input để phát lại được
+    public Replay startRecordedLevel(int levelIndex, long seed, double step) {
+        Replay r = new Replay(seed, levelIndex, width, height, step,
+                paddle.getX(), gameState.getScore(), gameState.getLives());
+        random.reseed(seed);
+        startLevel(levelIndex);
+        recorder = r;
+        return r;
+    }
+
+    // Như startLevel(int) nhưng với level sinh từ LevelGenerator
+    public void startLevel(LevelGenerator generator) {
+        boss = null;
+        bossLevel = false;
+        gameState.resetForNewGame();
+        entityManager.clearAll();
+        paddle.setWidth(120);
+        paddle.setHasLaser(false);
+        resetStepState();
+        this.generator = generator;
+        loadLevel(generator);
+        createNewBall();
+    }
+
+    // Level đang chơi có phải level sinh ngẫu nhiên (chế độ vô tận) không
+    public boolean isGeneratedLevel() {
+        return generator != null;
+    }
+
+    public LevelGenerator getGenerator() {
+        return generator;
+    }
+
+    // Trạng thái theo bước phải bắt đầu lại mỗi màn để lượt chơi chỉ phụ thuộc seed và input
+    private void resetStepState() {
+        tick = 0;
+        recorder = null;
+        paddle.clearKeys(); // phím giữ từ màn trước không được ghi vào replay nên không mang sang màn mới
+        timeSinceLastShot = 0.0;
+        lastPaddleX = paddle.getX();
+        paddleTrailTimer = 0.0;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // Replay đang ghi của màn hiện tại (null nếu màn không được ghi, ví dụ nạp từ save)
+    public Replay getReplay() {
+        return recorder;
+    }
+
+    // ---------- Input: mọi thao tác người chơi đi qua đây để ghi replay ----------
+
+    public void pressKey(KeyCode code) {
+        if (recorder != null) recorder.record(tick, Replay.PRESS, code.getCode());
+        paddle.press(code);
+    }
+
+    public void releaseKey(KeyCode code) {
+        if (recorder != null) recorder.record(tick, Replay.RELEASE, code.getCode());
+        paddle.release(code);
+    }
+
+    public void clearKeys() {
+        if (recorder != null) recorder.record(tick, Replay.CLEAR, 0);
+        paddle.clearKeys();
+    }
+
+    // Phóng các bóng đang dính paddle
+    public void launchBalls() {
+        if (recorder != null) recorder.record(tick, Replay.LAUNCH, 0);
+        for (Ball bl : entityManager.getBalls()) {
+            if (bl.isStuck()) bl.launch(random);
+        }
+    }
+
+    // Một bước mô phỏng cố định: lưu vị trí cũ để nội suy khi vẽ rồi cập nhật
+    public void step(double dt) {
+        snapshotPositions();
+        long t0 = profiler.begin();
+        update(dt);
+        long t = profiler.begin();
+        dispatchEvents();
+        profiler.lap(FrameProfiler.Phase.EVENTS, t);
+        profiler.lap(FrameProfiler.Phase.SIM, t0);
+        profiler.add(FrameProfiler.Counter.SIM_STEPS, 1);
+        tick++;
+        if (recorder != null) recorder.setEndTick(tick);
+    }
+
+    // Vị trí đầu bước của mọi thực thể di chuyển, để Game nội suy khi vẽ giữa hai bước
+    private void snapshotPositions() {
+        paddle.snapshotPosition();
+        List<Ball> balls = entityManager.getBalls();
+        for (int i = 0; i < balls.size(); i++) balls.get(i).snapshotPosition();
+        List<Brick> movers = entityManager.getMovingBricks();
+        for (int i = 0; i < movers.size(); i++) movers.get(i).snapshotPosition();
+        List<PowerUp> powerUps = entityManager.getPowerUps();
+        for (int i = 0; i < powerUps.size(); i++) powerUps.get(i).snapshotPosition();
+        List<Bullet> bullets = entityManager.getBullets();
+        for (int i = 0; i < bullets.size(); i++) bullets.get(i).snapshotPosition();
+        if (boss != null) boss.snapshotPosition();
+    }
+
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    public GameEvents getEvents() {
+        return events;
+    }
+
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    // Đọc hết sự kiện của bước vừa chạy: phát âm thanh (SoundManager tự gom theo khung hình),
+    // tạo mảnh vỡ / hạt / popup điểm. Hiệu ứng dùng GameRandom nên vẫn chạy ở đây để replay khớp.
+    private void dispatchEvents() {
+        SoundManager sound = SoundManager.get();
+        int e;
+        while ((e = events.poll()) >= 0) {
+            switch (events.type(e)) {
+                case GameEvents.BOUNCE_WALL -> sound.play(SoundManager.Sfx.BOUNCE_WALL);
+                case GameEvents.BOUNCE_PADDLE, GameEvents.BRICK_BOUNCE -> sound.play(SoundManager.Sfx.BOUNCE_PADDLE);
+                case GameEvents.BRICK_HIT -> sound.play(events.value(e) != 0
+                        ? SoundManager.Sfx.EXPLOSION : SoundManager.Sfx.BRICK_BREAK);
+                case GameEvents.BRICK_DESTROYED -> collisionManager.onBrickDestroyed(
+                        events.x(e), events.y(e), events.w(e), events.h(e), events.value(e));
+                case GameEvents.EXPLOSION -> collisionManager.onExplosion(events.x(e), events.y(e));
+                case GameEvents.LASER_HIT -> sound.play(SoundManager.Sfx.LASER_SHOT);
+                case GameEvents.BARRIER_BREAK -> sound.play(SoundManager.Sfx.BARRIER_BREAK);
+                case GameEvents.POWER_UP_SPAWNED -> sound.play(SoundManager.Sfx.PORTAL);
+                case GameEvents.POWER_UP_APPLIED -> playPowerUpSound(sound, POWER_TYPES[events.value(e)]);
+                case GameEvents.BOSS_SHOOT -> sound.play(SoundManager.Sfx.BOSS_SHOOT);
+                case GameEvents.BOSS_HIT -> sound.play(SoundManager.Sfx.BOSS_HIT);
+                case GameEvents.BOSS_DEATH -> sound.play(SoundManager.Sfx.BOSS_DEATH);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static void playPowerUpSound(SoundManager sound, PowerUp.PowerType type) {
+        switch (type) {
+            case SHRINK_PADDLE, FAST_BALL, SUDDEN_DEATH -> sound.play(SoundManager.Sfx.POWER_PICK_BAD);
+            default -> sound.play(SoundManager.Sfx.POWER_PICK_GOOD);
+        }
+        switch (type) {
+            case MULTI_BALL -> sound.play(SoundManager.Sfx.MULTIBALL);
+            case NEXT_LEVEL -> sound.play(SoundManager.Sfx.PORTAL);
+            case BARRIER -> sound.play(SoundManager.Sfx.BARRIER_ON);
+            case WEAKEN -> sound.play(SoundManager.Sfx.SHOCKWAVE);
+            default -> {
+            }
+        }
+    }
+
+    // Vòng lặp Update chính. Các hệ chạy theo thứ tự cố định, mỗi thực thể được cập nhật đúng một lần mỗi bước:
+    // 1. hoạt ảnh gạch, paddle, đạn/power-up/HUD, hạt và mảnh vỡ (chỉ ở đây, kể cả lúc warp/weaken/qua màn)
+    // 2. va chạm: di chuyển bóng (quét va chạm), popup điểm, vụ nổ — trong CollisionManager.handleCollisions
+    // 3. hậu quả va chạm: power-up, mất bóng, weaken, hiệu ứng qua màn
+    // 4. gạch di chuyển, boss, hiệu ứng có thời hạn
+    // Bóng chỉ di chuyển trong handleCollisions; riêng lúc warp (không xét va chạm) bóng được cập nhật ở cổng warp.
+    private void update(double dt) {
+        timeSinceLastShot += dt;
+        Brick.updateAnimation(dt);
+        Boss.updateAnimation(dt);
+        if (rowStream != null) streamRows();
+        FrameProfiler prof = profiler;
+        long t = prof.begin();
+
+        // 1. Cập nhật vị trí các đối tượng
+        for (Brick b : entityManager.getBricks()) {
+            b.updateWarp(dt);
+            b.updateFlash(dt);
+        }
+        t = prof.lap(FrameProfiler.Phase.WARP_FLASH, t);
+        paddle.update(dt);
+        t = prof.lap(FrameProfiler.Phase.ENTITIES, t);
+        collisionManager.getEmitter().update(dt);
+        collisionManager.getDebrisEmitter().update(dt);
+        t = prof.lap(FrameProfiler.Phase.EMITTERS, t);
+        entityManager.updateAll(dt); // Cập nhật đạn, power-up rơi, HUD...
+        t = prof.lap(FrameProfiler.Phase.ENTITIES, t);
+
+        // Kiểm tra kết thúc warp-in
+        if (warpInProgress) {
+            boolean anyWarping = false;
+            for (Brick b : entityManager.getBricks()) {
+                if (b.isWarpAnimating()) {
+                    anyWarping = true;
+                    break;
+                }
+            }
+            if (!anyWarping && rowStream == null) {
+                // kết thúc warp
+                warpInProgress = false;
+                // dán bóng vào paddle
+                for (Ball bl : entityManager.getBalls()) bl.setStuck(true);
+            } else {
+                // vẫn đang warp: không xét va chạm, chỉ giữ bóng bám theo paddle rồi dừng update game chính
+                for (Ball bl : entityManager.getBalls()) bl.update(dt);
+                return;
+            }
+        }
+
+        // vệt tên lửa Paddle (tạo khói phía sau paddle khi di chuyển)
+        if (dt > 0) {
+            double paddleVX = (paddle.getX() - lastPaddleX) / dt; // px/s
+            if (Math.abs(paddleVX) > PADDLE_TRAIL_MIN_SPEED) {
+                paddleTrailTimer += dt;
+                while (paddleTrailTimer >= PADDLE_TRAIL_INTERVAL) {
+                    paddleTrailTimer -= PADDLE_TRAIL_INTERVAL;
+                    // tính vị trí spawn hạt
+                    double spawnX;
+                    if (paddleVX > 0) {
+                        // di chuyển phải => trail phía trái
+                        spawnX = paddle.getX() - 6;
+                    } else {
+                        // di chuyển trái => trail phía phải
+                        spawnX = paddle.getX() + paddle.getWidth() + 6;
+                    }
+                    // spawn một chút thấp hơn tâm paddle để giống khói đẩy ra
+                    double spawnY = paddle.getY() + paddle.getHeight() * 0.55 + 6;
+                    if (collisionManager.getEmitter() != null) {
+                        collisionManager.getEmitter().emitSmoke(spawnX, spawnY, 1); // 1 particle mỗi lần; tăng count nếu muốn vệt dày hơn
+                    }
+                }
+            } else {
+                // reset timer nếu không di chuyển đủ nhanh để tránh "tụ" hạt
+                paddleTrailTimer = 0.0;
+            }
+            lastPaddleX = paddle.getX();
+        }
+
+        t = prof.lap(FrameProfiler.Phase.EFFECTS, t); // vệt khói paddle
+
+        // 2. Xử lý Va chạm
+        CollisionResult collisionResult = collisionManager.handleCollisions(
+                entityManager, gameState, paddle, powerUpManager, width, height, dt
+        );
+        t = prof.lap(FrameProfiler.Phase.COLLISIONS, t);
+
+        // 3. Xử lý các Sự kiện từ va chạm
+        // 3a. Xử lý nhặt PowerUp
+        for (PowerUp pu : collisionResult.collectedPowerUps) {
+            powerUpManager.applyPowerUp(pu.type, entityManager, gameState, paddle, height);
+        }
+
+        // 3b. Xử lý Mất bóng
+        if (collisionResult.ballLost) {
+            handleBallLost();
+        }
+
+        // 3c. Xử lý Qua màn
+        if (collisionResult.allDestructibleBricksCleared) {
+            boolean bossDead = !bossLevel || (boss != null && boss.isDead());
+            if (bossDead) {
+                if (!powerUpManager.isNextLevelInProgress()) {
+                    powerUpManager.triggerNextLevelEffect(-1, -1, entityManager);
+                }
+            }
+        }
+
+        // weanken
+        if (powerUpManager.isWeakenInProgress() && powerUpManager.getCurrentShockwave() != null) {
+            powerUpManager.getCurrentShockwave().update(dt);
+
+            for (Brick b : entityManager.getBricks()) {
+                if (powerUpManager.getShockAffected().contains(b)) continue;
+                if (!b.isDestructible()) continue;
+                if (powerUpManager.getCurrentShockwave().touchesBrick(b)) {
+                    powerUpManager.getShockAffected().add(b);
+                    b.flash(Color.WHITE, Brick.FLASH_DURATION);
+                    if (collisionManager.getEmitter() != null) {
+                        double cx = b.getX() + b.getWidth() / 2.0;
+                        double cy = b.getY() + b.getHeight() / 2.0;
+                        collisionManager.getEmitter().emitExplosion(cx, cy, 6);
+                    }
+                }
+            }
+            if (powerUpManager.getCurrentShockwave().finished) {
+                powerUpManager.setWeakenInProgress(false);
+                powerUpManager.setCurrentShockwave(null);
+                powerUpManager.getShockAffected().clear();
+            }
+        }
+
+        // 3d. Next level effect
+        if (powerUpManager.isNextLevelInProgress()) {
+
+            Iterator<FlyingBrick> it = entityManager.getFlyingBricks().iterator();
+            while (it.hasNext()) {
+                FlyingBrick fb = it.next();
+
+
+                double dx = powerUpManager.getPortalX() - fb.x;
+                double dy = powerUpManager.getPortalY() - fb.y;
+                double dist = Math.max(1.0, Math.hypot(dx, dy));
+                double pull = 1200.0 / (dist + 120.0);
+
+                fb.vx += (dx / dist) * pull * dt;
+                fb.vy += (dy / dist) * pull * dt;
+
+
+                fb.x += fb.vx * dt;
+                fb.y += fb.vy * dt;
+                fb.angle += fb.angularV * dt;
+
+                double arrivalFactor = Math.min(1.0, Math.max(0.0, 1.0 - (dist / (Math.hypot(width, height)))));
+                fb.scale = Math.max(0.12, 1.0 - 0.9 * (1.0 - Math.exp(-dist * 0.01)));
+
+
+                if (dist < Math.max(12.0, powerUpManager.getPortalBaseRadius() * 0.9)) {
+                    // tạo ra vụ nổ nhỏ ở cổng
+                    if (collisionManager.getEmitter() != null)
+                        collisionManager.getEmitter().emitExplosion(powerUpManager.getPortalX() + (random.nextDouble() - 0.5) * 8, powerUpManager.getPortalY() + (random.nextDouble() - 0.5) * 8, 6);
+                    if (collisionManager.getDebrisEmitter() != null)
+                        collisionManager.getDebrisEmitter().emitDebris(powerUpManager.getPortalX(), powerUpManager.getPortalY(), fb.brick.getWidth(), fb.brick.getHeight(), 6, Color.rgb(220, 180, 80)); // optional
+                    it.remove();
+                }
+            }
+
+            // cổng phát sáng xung tăng lên trong khi có những viên gạch bay
+            powerUpManager.setPortalGlow(Math.min(1.0, powerUpManager.getPortalGlow() + dt * 3.5));
+
+            // khi tất cả các viên gạch bay được loại bỏ -> kích hoạt đèn flash màu trắng rồi cấp độ tiếp theo
+            if (entityManager.getFlyingBricks().isEmpty() && !powerUpManager.isWhiteFlashActive()) {
+                powerUpManager.setWhiteFlashActive(true);
+                powerUpManager.setWhiteFlashAlpha(1.0);
+            }
+
+            // xử lý flash màu trắng mờ dần
+            if (powerUpManager.isWhiteFlashActive()) {
+                double x = powerUpManager.getWhiteFlashAlpha();
+                powerUpManager.setWhiteFlashAlpha(x -= dt / powerUpManager.getWHITE_FLASH_DURATION());
+                if (powerUpManager.getWhiteFlashAlpha() <= 0.0) {
+                    powerUpManager.setWhiteFlashAlpha(0.0);
+                    powerUpManager.setWhiteFlashActive(false);
+                    powerUpManager.setNextLevelInProgress(false);
+                    nextLevel();
+                }
+            }
+
+            // bỏ qua quá trình xử lý trò chơi thông thường trong khi chạy quá trình chuyển đổi
+            return;
+        }
+
+        t = prof.lap(FrameProfiler.Phase.EFFECTS, t); // power-up, weaken, next level
+
+        // cập nhật gạch di chuyển và không đè lên nhau
+        moverBroadphase.update(entityManager, width, dt);
+        // đồng bộ vị trí gạch di chuyển vào lưới va chạm
+        List<Brick> movers = entityManager.getMovingBricks();
+        for (int i = 0; i < movers.size(); i++) entityManager.onBrickMoved(movers.get(i));
+        t = prof.lap(FrameProfiler.Phase.MOVING_BRICKS, t);
+
+        // Cập nhật boss
+        if (bossLevel && boss != null) {
+            boss.update(dt);
+
+            List<Ball> balls = entityManager.getBalls();
+            for (int i = 0; i < balls.size(); i++) {
+                Ball b = balls.get(i);
+                Boss.CollisionSide side = boss.checkCollision(b);
+                if (side != Boss.CollisionSide.NONE) {
+                    boss.takeDamage(5, powerUpManager, entityManager);
+                    gameState.addScore(200);
+                    collisionManager.addScorePopup(boss.getX() + boss.getWidth() / 2, boss.getY() + 2 * boss.getHeight(), "+200");
+                    switch (side) {
+                        case LEFT -> {
+                            b.reverseX();
+                            b.correctX(boss.getX() - b.getRadius());
+                        }
+                        case RIGHT -> {
+                            b.reverseX();
+                            b.correctX(boss.getX() + boss.getWidth() + b.getRadius());
+                        }
+                        case TOP -> {
+                            b.reverseY();
+                            b.correctY(boss.getY() - b.getRadius());
+                        }
+                        case BOTTOM -> {
+                            b.reverseY();
+                            b.correctY(boss.getY() + boss.getHeight() + b.getRadius());
+                        }
+                    }
+                }
+            }
+
+
+            //Đạn boss trúng paddle
+            bossBulletsHit.clear();
+            boolean bossHitThisFrame = false;
+
+            List<BossBullet> bossBullets = boss.getBullets();
+            for (int i = 0; i < bossBullets.size(); i++) {
+                BossBullet bullet = bossBullets.get(i);
+                if (bullet.collidesWith(paddle)) {
+                    bossHitThisFrame = true;      // ghi nhận có ít nhất 1 viên trúng
+                    bossBulletsHit.add(bullet);   // xóa các viên trúng để tránh trừ tiếp ở frame sau
+                }
+            }
+
+            if (!bossBulletsHit.isEmpty()) bossBullets.removeAll(bossBulletsHit);
+
+            // Chỉ trừ 1 mạng cho frame này, dù có nhiều viên trúng
+            if (bossHitThisFrame) {
+                handleBallLost();
+            }
+
+            // Laser của người chơi trúng Boss -> Boss mất máu, có thể rơi PowerUp
+            bulletsHitBoss.clear();
+            List<Bullet> bullets = entityManager.getBullets();
+            for (int i = 0; i < bullets.size(); i++) {
+                Bullet bu = bullets.get(i);
+                double bx1 = bu.x, by1 = bu.y, bx2 = bu.x + bu.w, by2 = bu.y + bu.h;
+                double ox1 = boss.getX(), oy1 = boss.getY(), ox2 = boss.getX() + boss.getWidth(), oy2 = boss.getY() + boss.getHeight();
+                boolean overlap = (bx1 < ox2 && bx2 > ox1 && by1 < oy2 && by2 > oy1);
+                if (overlap) {
+                    bulletsHitBoss.add(bu);                       // xóa đạn sau vòng lặp
+                    boss.takeDamage(5, powerUpManager, entityManager); // sát thương tùy chỉnh
+                    gameState.addScore(100);
+                    collisionManager.addScorePopup(bx1, boss.getY() + 2 * boss.getHeight(), "+100");
+
+                }
+            }
+            if (!bulletsHitBoss.isEmpty()) bullets.removeAll(bulletsHitBoss);
+
+        }
+
+        t = prof.lap(FrameProfiler.Phase.BOSS, t);
+
+        // 4. Cập nhật các Hiệu ứng (kiểm tra hết hạn)
+        powerUpManager.updateActiveEffects(dt, entityManager, gameState, paddle);
+
+        // cập nhật thời gian rung
+        if (collisionManager.getShakeTime() > 0) {
+            double k = collisionManager.getShakeTime() - dt;
+            collisionManager.setShakeTime(k);
+            if (collisionManager.getShakeTime() < 0) collisionManager.setShakeTime(0.0);
+        }
+
+        // cập nhật flash fade
+        if (collisionManager.getFlashAlpha() > 0) {
+            // giảm nhanh để là 1 chớp ngắn; điều chỉnh tốc độ (2.5)
+            double g = collisionManager.getFlashAlpha() - dt * 2.8;
+            collisionManager.setFlashAlpha(g);
+            if (collisionManager.getFlashAlpha() < 0) collisionManager.setFlashAlpha(0.0);
+        }
+        prof.lap(FrameProfiler.Phase.EFFECTS, t);
+    }
+
+    // Đếm số gạch có thể phá còn lại
+    public int countRemainingDestructibleBricks() {
+        int cnt = 0;
+        for (Brick b : entityManager.getBricks()) {
+            if (b.isDestructible()) cnt++;
+        }
+        return cnt;
+    }
+
+    // Logic Luồng Game (Game Flow)
+
+    private void handleBallLost() {
+        gameState.decrementLives();
+        SoundManager.get().play(SoundManager.Sfx.BALL_LOST);
+        if (gameState.getLives() <= 0) {
+            SoundManager.get().stopLoop(SoundManager.Sfx.FIRE_LOOP);
+            SoundManager.get().stopBgm();
+            SoundManager.get().play(SoundManager.Sfx.GAME_OVER);
+
+            // Game Over
+            gameState.setWin(false);
+            gameState.setShowMessage(true);
+            stop();
+        } else {
+            // Mất 1 mạng, tạo bóng mới
+            createNewBall();
+        }
+    }
+
+    private void nextLevel() {
+        // Kiểm tra xem đây có phải màn cuối không (chế độ vô tận thì không có màn cuối)
+        if (generator == null && gameState.getCurrentLevelIndex() >= levelFiles.length - 1) {
+            // Đây là màn cuối (Level 5)
+            gameState.setGameComplete(true);
+            SoundManager.get().stopBgm();
+            SoundManager.get().play(SoundManager.Sfx.VICTORY);
+            SoundManager.get().startBgm(SoundManager.Bgm.VICTORY_T);
+        } else {
+            // Đây chỉ là thắng màn thường
+            gameState.setLevelComplete(true); // Đặt cờ
+            SoundManager.get().stopBgm();
+        }
+        stop(); // Dừng game
+    }
+
+    // Tạo bóng mới và dán vào paddle
+    public void createNewBall() {
+        entityManager.clearBalls(); // Xóa bóng cũ (nếu có)
+        Ball b = new Ball(paddle.getX() + paddle.getWidth() / 2, paddle.getY() - 10, 8, paddle);
+        // Áp dụng các hiệu ứng (như tiny ball) nếu chúng còn hoạt động
+        powerUpManager.applyActiveEffectsToBall(b, entityManager.getActiveEffects());
+        entityManager.addBall(b);
+        b.resetToPaddle();
+    }
+
+    // Tải dữ liệu gạch từ file
+    public void loadLevel(int levelIndex) {
+        if (levelIndex < 0 || levelIndex >= levelFiles.length) {
+            return;
+        }
+        rowStream = null;
+        try {
+            LevelData ld = LevelLoader.loadLevel(levelFiles[levelIndex], width);
+            entityManager.clearBricks(); // Xóa gạch cũ
+            entityManager.addBricks(ld.bricks);
+            entityManager.configureBrickGrid(ld); // lưới va chạm theo slot của level
+            gameState.setCurrentLevelIndex(levelIndex);
+            WarpStyle style = getWarpStyleForLevel(levelIndex);
+            double[] params = getWarpParamsForLevel(levelIndex);
+            warpInBricks(style, params[0], params[1], entityManager);
+            warpInProgress = true;
+            //Tạo boss
+            if (ld.hasBoss) {
+                boss = new Boss(width / 2 - 100, 50, 150, 80, 100, width - 30);
+                boss.setEvents(events);
+                boss.setRandom(random);
+                bossLevel = true;
+            }
+
+        } catch (IOException ex) {
+            System.err.println("Failed to load level: " + levelFiles[levelIndex]);
+        }
+    }
+
+    // Nạp level sinh ngẫu nhiên: dựng lưới ngay, phần gạch đầu tiên thêm luôn, các hàng còn lại thêm dần trong update
+    public void loadLevel(LevelGenerator generator) {
+        LevelTemplate template = generator.generate();
+        rowStream = template.stream(width);
+        entityManager.clearBricks();
+        entityManager.configureBrickGrid(rowStream.data);
+        streamRows();
+        warpInProgress = true;
+        if (template.hasBoss) {
+            boss = new Boss(width / 2 - 100, 50, 150, 80, 100, width - 30);
+            boss.setEvents(events);
+            boss.setRandom(random);
+            bossLevel = true;
+        }
+    }
+
+    // Thêm lượt hàng tiếp theo của level đang stream, gạch mới hiện dần (FADE)
+    private void streamRows() {
+        List<Brick> all = rowStream.data.bricks;
+        int from = all.size();
+        rowStream.next(ROW_STREAM_BUDGET);
+        for (Brick b : all.subList(from, all.size())) {
+            b.startWarp(Brick.WarpMode.FADE, 0.0, 0.5);
+            entityManager.addBrick(b);
+        }
+        if (rowStream.isDone()) rowStream = null;
+    }
+
+    // Khôi phục save: bỏ phần level đang stream dở, ngừng ghi replay; generator là bộ sinh của
+    // chế độ vô tận đã lưu (null = màn thường) để chơi lại / qua màn vẫn sinh từ đúng seed
+    void prepareForRestore(LevelGenerator generator) {
+        rowStream = null;
+        recorder = null;
+        this.generator = generator;
+    }
+
+    public boolean isStreamingLevel() {
+        return rowStream != null;
+    }
+
+    // Bắn đạn
+    public void tryShoot() {
+        if (recorder != null) recorder.record(tick, Replay.FIRE, 0);
+        if (!paddle.hasLaser() || timeSinceLastShot < shootCooldown) return;
+        timeSinceLastShot = 0.0;
+        double[] pos = paddle.getLaserGunPositions();
+        entityManager.addBullet(new Bullet(pos[0], pos[1]));
+        entityManager.addBullet(new Bullet(pos[2], pos[3]));
+        SoundManager.get().play(SoundManager.Sfx.LASER_SHOT);
+    }
+
+    private void warpInBricks(WarpStyle style, double duration, double maxStagger, EntityManager entities) {
+        if (entities.getBricks() == null || entities.getBricks().isEmpty()) return;
+
+        // tìm minX,minY, brickW, brickH
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double brickW = -1, brickH = -1;
+        for (Brick b : entities.getBricks()) {
+            minX = Math.min(minX, b.getX());
+            minY = Math.min(minY, b.getY());
+            maxX = Math.max(maxX, b.getX());
+            maxY = Math.max(maxY, b.getY());
+            if (brickW < 0) brickW = b.getWidth();
+            if (brickH < 0) brickH = b.getHeight();
+        }
+
+        // trung tâm gợn sóng
+        double centerX = (minX + maxX + brickW) / 2.0;
+        double centerY = (minY + maxY + brickH) / 2.0;
+
+        // xác định độ trễ trên mỗi viên gạch
+        double minDelay = 0.0;
+        double maxDelay = maxStagger;
+
+        for (Brick b : entities.getBricks()) {
+            double delay = 0.0;
+            if (style == WarpStyle.FADE_IN || style == WarpStyle.SCALE_UP) {
+                delay = 0.0;
+            } else if (style == WarpStyle.RIPPLE_LTR) {
+                int col = (int) Math.round((b.getX() - minX) / Math.max(1.0, brickW));
+                int row = (int) Math.round((b.getY() - minY) / Math.max(1.0, brickH));
+                delay = (row * 10 + col) * (maxStagger / 100.0);
+            } else if (style == WarpStyle.RIPPLE_CENTER) {
+                double dx = (b.getX() + b.getWidth() / 2.0) - centerX;
+                double dy = (b.getY() + b.getHeight() / 2.0) - centerY;
+                double dist = Math.sqrt(dx * dx + dy * dy);
+                double maxDist = Math.sqrt((maxX - minX) * (maxX - minX) + (maxY - minY) * (maxY - minY)) + 0.0001;
+                double norm = dist / maxDist;
+                delay = norm * maxStagger;
+            }
+            if (delay < minDelay) delay = minDelay;
+            if (delay > maxDelay) delay = maxDelay;
+
+            Brick.WarpMode mode = (style == WarpStyle.SCALE_UP) ? Brick.WarpMode.SCALE : Brick.WarpMode.FADE;
+            b.startWarp(mode, delay, duration);
+        }
+
+        warpInProgress = true;
+    }
+
+    // Lấy WarpStyle cho level (cố định theo levelIndex 1-based)
+    private WarpStyle getWarpStyleForLevel(int levelIdx) {
+        switch (levelIdx % 3) {
+            case 0:
+                return WarpStyle.FADE_IN;
+            case 1:
+                return WarpStyle.SCALE_UP;
+            default:
+                return WarpStyle.RIPPLE_LTR;
+        }
+    }
+
+    // Lấy duration và maxStagger phù hợp với level
+    private double[] getWarpParamsForLevel(int levelIdx) {
+        // trả về array {duration, maxStagger}
+        switch (levelIdx % 3) {
+            case 0: // FADE_IN - nhanh, cùng lúc
+                return new double[]{0.5, 0.0};
+            case 1: // SCALE_UP - hơi pop
+                return new double[]{0.5, 0.05};
+            default: // RIPPLE_LTR - ripple rõ ràng
+                return new double[]{0.5, 0.32};
+        }
+    }
+}
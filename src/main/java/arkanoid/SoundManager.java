@@ -7,9 +7,14 @@ import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public final class SoundManager {
@@ -84,6 +89,8 @@ public final class SoundManager {
     private final Map<Sfx, Media> sfxMedias = new EnumMap<>(Sfx.class);
     private final Map<Sfx, MediaPlayer> loopPlayers = new EnumMap<>(Sfx.class);
     private final Map<Bgm, Media> bgmMedias = new EnumMap<>(Bgm.class);
+    // BGM đang nạp sẵn trên luồng nền (chỉ những bản phát ngay sau khởi động)
+    private final Map<Bgm, CompletableFuture<Media>> warmBgm = new ConcurrentHashMap<>();
     private MediaPlayer bgmPlayer;
 
 
@@ -91,11 +98,31 @@ public final class SoundManager {
     private double sfxVolume = 1.0;
     private double bgmVolume = 1.0;
     private boolean muted = false;
+    // true khi không có JavaFX toolkit (test/bot/benchmark): mọi lệnh âm thanh bị bỏ qua
+    private volatile boolean headless = false;
+    // Nạp SFX: null = chưa bắt đầu; map SFX chỉ được đọc sau khi future này xong
+    private CompletableFuture<Void> sfxLoading;
+
+
+    // Bộ trộn: gom yêu cầu theo khung, giới hạn voice, cooldown, cướp voice theo độ ưu tiên
+    private final SfxMixer mixer = new SfxMixer();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Runnable flushTask = this::flushPending;
+    private final SfxMixer.VoiceSink sink = new SfxMixer.VoiceSink() {
+        @Override
+        public void start(Sfx sfx, int voice) {
+            startVoice(sfx, voice);
+        }
 
-
-    // cooldown để tránh spam SFX quá dày
-    private final Map<Sfx, Long> lastPlayMs = new HashMap<>();
-    private final long bounceCooldownMs = 40;
+        @Override
+        public void stop(Sfx sfx, int voice) {
+            stopVoice(sfx, voice);
+        }
+    };
+    // MediaPlayer dùng lại cho SFX fallback: player đang giữ mỗi voice và player rảnh theo Sfx
+    private final MediaPlayer[] voicePlayers = new MediaPlayer[SfxMixer.MAX_VOICES];
+    private final Sfx[] voicePlayerSfx = new Sfx[SfxMixer.MAX_VOICES];
+    private final Map<Sfx, ArrayDeque<MediaPlayer>> idlePlayers = new EnumMap<>(Sfx.class);
 
 
     public boolean isMuted() {
@@ -103,58 +130,87 @@ public final class SoundManager {
     }
 
 
+    // Tên file trong thư mục sound
+    private static final Map<Sfx, String> SFX_FILES = new EnumMap<>(Sfx.class);
+    private static final Map<Bgm, String> BGM_FILES = new EnumMap<>(Bgm.class);
+    // BGM phát ngay sau khởi động (intro → menu → màn chơi); các bản khác nạp khi cần
+    private static final Bgm[] EAGER_BGM = {Bgm.INTRO, Bgm.MENU, Bgm.LEVEL};
+
+    static {
+        SFX_FILES.put(Sfx.BOUNCE_WALL, "genericballhit.wav");
+        SFX_FILES.put(Sfx.BOUNCE_PADDLE, "steelballhit.wav");
+        SFX_FILES.put(Sfx.BRICK_HIT, "genericballhit.wav");
+        SFX_FILES.put(Sfx.BRICK_BREAK, "blockdestroyed.wav");
+        SFX_FILES.put(Sfx.EXPLOSION, "explosion.wav");
+        SFX_FILES.put(Sfx.BALL_LOST, "balllost.wav");
+        SFX_FILES.put(Sfx.POWER_PICK_GOOD, "poweruppicked.wav");
+        SFX_FILES.put(Sfx.POWER_PICK_BAD, "negativepowerup.wav");
+        SFX_FILES.put(Sfx.MULTIBALL, "machinegun.wav");
+        SFX_FILES.put(Sfx.BARRIER_ON, "electric.wav");
+        SFX_FILES.put(Sfx.BARRIER_BREAK, "steelballhit.wav");
+        SFX_FILES.put(Sfx.SHOCKWAVE, "electric.wav");
+        SFX_FILES.put(Sfx.PORTAL, "electric.wav");
+        SFX_FILES.put(Sfx.LASER_SHOT, "laser.wav");
+        SFX_FILES.put(Sfx.LASER_CHARGE1, "lasercharge1.wav");
+        SFX_FILES.put(Sfx.LASER_CHARGE2, "lasercharge2.wav");
+        SFX_FILES.put(Sfx.LASER_CHARGE3, "lasercharge3.wav");
+        SFX_FILES.put(Sfx.FIRE_START, "electric.wav");
+        SFX_FILES.put(Sfx.FIRE_LOOP, "lasercharge2.wav");
+        SFX_FILES.put(Sfx.FIRE_END, "steelballhit.wav");
+        SFX_FILES.put(Sfx.BOSS_SHOOT, "machinegun.wav");
+        SFX_FILES.put(Sfx.BOSS_HIT, "blockdestroyed.wav");
+        SFX_FILES.put(Sfx.BOSS_DEATH, "explosion.wav");
+        SFX_FILES.put(Sfx.CLICK, "click.wav");
+        SFX_FILES.put(Sfx.BUTTON, "button.wav");
+        SFX_FILES.put(Sfx.HOVER, "hover.wav");
+        SFX_FILES.put(Sfx.PAUSE, "pause.wav");
+        SFX_FILES.put(Sfx.GAME_OVER, "defeat.wav");
+        SFX_FILES.put(Sfx.VICTORY, "victory.wav");
+
+        BGM_FILES.put(Bgm.INTRO, "main-menu-space-120280.wav");
+        BGM_FILES.put(Bgm.STORY, "lady-of-the-80x27s-128379.wav");
+        BGM_FILES.put(Bgm.MENU, "lady-of-the-80x27s-128379.wav");
+        BGM_FILES.put(Bgm.LEVEL, "cyberpunk-2099-10701.wav");
+        BGM_FILES.put(Bgm.LEVEL_ALT, "this-minimal-technology-pure-12327.wav");
+        BGM_FILES.put(Bgm.BOSS, "cyber-attack-dark-epic-and-mystically-music-7594.wav");
+        BGM_FILES.put(Bgm.VICTORY_T, "victory.wav");
+        BGM_FILES.put(Bgm.GAMEOVER_T, "defeat.wav");
+    }
+
+
     private SoundManager() {
-        // Map Sfx đến filename trong thư mục sound
-        mapSfx(Sfx.BOUNCE_WALL, "genericballhit.wav");
-        mapSfx(Sfx.BOUNCE_PADDLE, "steelballhit.wav");
-        mapSfx(Sfx.BRICK_HIT, "genericballhit.wav");
-        mapSfx(Sfx.BRICK_BREAK, "blockdestroyed.wav");
-        mapSfx(Sfx.EXPLOSION, "explosion.wav");
-        mapSfx(Sfx.BALL_LOST, "balllost.wav");
-
-
-        mapSfx(Sfx.POWER_PICK_GOOD, "poweruppicked.wav");
-        mapSfx(Sfx.POWER_PICK_BAD, "negativepowerup.wav");
-        mapSfx(Sfx.MULTIBALL, "machinegun.wav");
-        mapSfx(Sfx.BARRIER_ON, "electric.wav");
-        mapSfx(Sfx.BARRIER_BREAK, "steelballhit.wav");
-        mapSfx(Sfx.SHOCKWAVE, "electric.wav");
-        mapSfx(Sfx.PORTAL, "electric.wav");
-
-
-        mapSfx(Sfx.LASER_SHOT, "laser.wav");
-        mapSfx(Sfx.LASER_CHARGE1, "lasercharge1.wav");
-        mapSfx(Sfx.LASER_CHARGE2, "lasercharge2.wav");
-        mapSfx(Sfx.LASER_CHARGE3, "lasercharge3.wav");
-        mapSfx(Sfx.FIRE_START, "electric.wav");
-        mapSfx(Sfx.FIRE_LOOP, "lasercharge2.wav");
-        mapSfx(Sfx.FIRE_END, "steelballhit.wav");
-
-
-        mapSfx(Sfx.BOSS_SHOOT, "machinegun.wav");
-        mapSfx(Sfx.BOSS_HIT, "blockdestroyed.wav");
-        mapSfx(Sfx.BOSS_DEATH, "explosion.wav");
-
-
-        mapSfx(Sfx.CLICK, "click.wav");
-        mapSfx(Sfx.BUTTON, "button.wav");
-        mapSfx(Sfx.HOVER, "hover.wav");
-        mapSfx(Sfx.PAUSE, "pause.wav");
-        mapSfx(Sfx.GAME_OVER, "defeat.wav");
-        mapSfx(Sfx.VICTORY, "victory.wav");
-
-
-        // Map Bgm -> filename
-        mapBgm(Bgm.INTRO, "main-menu-space-120280.wav");
-        mapBgm(Bgm.STORY, "lady-of-the-80x27s-128379.wav");
-        mapBgm(Bgm.MENU, "lady-of-the-80x27s-128379.wav");
-        mapBgm(Bgm.LEVEL, "cyberpunk-2099-10701.wav");
-        mapBgm(Bgm.LEVEL_ALT, "this-minimal-technology-pure-12327.wav");
-        mapBgm(Bgm.BOSS, "cyber-attack-dark-epic-and-mystically-music-7594.wav");
-        mapBgm(Bgm.VICTORY_T, "victory.wav");
-        mapBgm(Bgm.GAMEOVER_T, "defeat.wav");
     }
 
+    /**
+     * Gửi việc nạp toàn bộ SFX và các BGM hay dùng vào loader (chạy song song lúc Intro).
+     * Các BGM còn lại nạp ở lần phát đầu tiên. Không làm gì khi headless.
+     */
+    public synchronized void preload(AssetPreloader loader) {
+        if (headless || sfxLoading != null) return;
+        List<CompletableFuture<?>> jobs = new ArrayList<>();
+        for (Map.Entry<Sfx, String> e : SFX_FILES.entrySet()) {
+            jobs.add(loader.submit(() -> {
+                mapSfx(e.getKey(), e.getValue());
+                return null;
+            }));
+        }
+        sfxLoading = CompletableFuture.allOf(jobs.toArray(new CompletableFuture<?>[0]));
+        for (Bgm b : EAGER_BGM) warmBgm.put(b, loader.submit(() -> loadBgm(b)));
+    }
+
+    // SFX đã nạp xong chưa; chưa ai gọi preload thì nạp đồng bộ ngay (trên FX thread)
+    private boolean ensureLoaded() {
+        CompletableFuture<Void> f;
+        synchronized (this) {
+            if (sfxLoading == null) {
+                for (Map.Entry<Sfx, String> e : SFX_FILES.entrySet()) mapSfx(e.getKey(), e.getValue());
+                sfxLoading = CompletableFuture.completedFuture(null);
+            }
+            f = sfxLoading;
+        }
+        // đang nạp song song: bỏ qua tiếng này thay vì chặn khung hình
+        return f.isDone();
+    }
 
     private void mapSfx(Sfx key, String filename) {
         URL url = getClass().getResource("/sound/" + filename);
@@ -165,70 +221,141 @@ public final class SoundManager {
         try {
             // thử nạp AudioClip trước
             AudioClip clip = new AudioClip(url.toExternalForm());
-            sfxClips.put(key, clip);
+            synchronized (this) {
+                sfxClips.put(key, clip);
+            }
         } catch (Throwable t) {
             // fallback Media
             try {
                 Media m = new Media(url.toExternalForm());
-                sfxMedias.put(key, m);
+                synchronized (this) {
+                    sfxMedias.put(key, m);
+                }
             } catch (Throwable t2) {
                 System.err.println("[Sound] Unsupported SFX format: " + filename + " (" + t2.getMessage() + ")");
             }
         }
     }
 
+    // Media của BGM: lấy bản đã nạp sẵn nếu có, không thì nạp ngay lần đầu dùng
+    private Media bgmMedia(Bgm key) {
+        Media media = bgmMedias.get(key);
+        if (media != null) return media;
+        CompletableFuture<Media> warm = warmBgm.remove(key);
+        media = warm != null ? warm.join() : loadBgm(key);
+        if (media != null) bgmMedias.put(key, media);
+        return media;
+    }
 
-    private void mapBgm(Bgm key, String filename) {
+    private Media loadBgm(Bgm key) {
+        String filename = BGM_FILES.get(key);
         URL url = getClass().getResource("/sound/" + filename);
         if (url == null) {
             System.err.println("[Sound] Missing BGM file: " + filename);
-            return;
+            return null;
         }
         try {
-            Media media = new Media(url.toExternalForm());
-            bgmMedias.put(key, media);
+            return new Media(url.toExternalForm());
         } catch (Throwable t) {
             System.err.println("[Sound] Unsupported BGM format: " + filename + " (" + t.getMessage() + ")");
+            return null;
+        }
+    }
+
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    // Chạy r trên FX thread; nếu toolkit chưa khởi động thì chuyển sang chế độ headless
+    private void runOnFx(Runnable r) {
+        if (headless) return;
+        try {
+            if (Platform.isFxApplicationThread()) r.run();
+            else Platform.runLater(r);
+        } catch (IllegalStateException e) {
+            headless = true;
         }
     }
 
+    // Chỉ ghi nhận yêu cầu; các yêu cầu trong cùng khung được phát một lượt sau khung (Platform.runLater)
     public void play(Sfx sfx) {
-        if (muted) return;
-        Runnable r = () -> {
-            // cooldown cho một vài SFX dễ spam
-            if (sfx == Sfx.BOUNCE_WALL || sfx == Sfx.BOUNCE_PADDLE || sfx == Sfx.BRICK_HIT) {
-                long now = System.currentTimeMillis();
-                long last = lastPlayMs.getOrDefault(sfx, 0L);
-                if (now - last < bounceCooldownMs) return;
-                lastPlayMs.put(sfx, now);
+        if (muted || headless) return;
+        if (mixer.request(sfx) && flushScheduled.compareAndSet(false, true)) {
+            try {
+                Platform.runLater(flushTask);
+            } catch (IllegalStateException e) {
+                headless = true;
+                mixer.clearPending();
             }
+        }
+    }
 
+    private void flushPending() {
+        flushScheduled.set(false);
+        if (!ensureLoaded()) {
+            mixer.clearPending();
+            return;
+        }
+        mixer.flush(System.nanoTime(), sink);
+    }
 
-            AudioClip clip = sfxClips.get(sfx);
-            if (clip != null) {
-                clip.play(masterVolume * sfxVolume);
-                return;
-            }
-            Media media = sfxMedias.get(sfx);
-            if (media != null) {
-                MediaPlayer p = new MediaPlayer(media);
-                p.setVolume(muted ? 0.0 : masterVolume * sfxVolume);
-                p.setOnError(() -> System.err.println("[Sound] SFX play error: " + p.getError()));
-                p.setOnEndOfMedia(() -> {
-                    p.stop();
-                    p.dispose();
-                });
-                p.play();
-            }
-        };
-        if (Platform.isFxApplicationThread()) r.run();
-        else Platform.runLater(r);
+    private void startVoice(Sfx sfx, int voice) {
+        double vol = muted ? 0.0 : masterVolume * sfxVolume;
+        AudioClip clip = sfxClips.get(sfx);
+        if (clip != null) {
+            clip.play(vol);
+            return;
+        }
+        Media media = sfxMedias.get(sfx);
+        if (media == null) return;
+        recycleVoicePlayer(voice);
+        ArrayDeque<MediaPlayer> idle = idlePlayers.get(sfx);
+        MediaPlayer p = idle == null ? null : idle.poll();
+        if (p == null) {
+            MediaPlayer np = new MediaPlayer(media);
+            np.setOnError(() -> System.err.println("[Sound] SFX play error: " + np.getError()));
+            // giữ player để phát lại, stop() đưa về đầu file
+            np.setOnEndOfMedia(np::stop);
+            p = np;
+        }
+        p.setVolume(vol);
+        voicePlayers[voice] = p;
+        voicePlayerSfx[voice] = sfx;
+        p.play();
+    }
+
+    // Voice bị cướp: dừng tiếng đang phát trên voice đó
+    private void stopVoice(Sfx sfx, int voice) {
+        if (voicePlayers[voice] != null) {
+            recycleVoicePlayer(voice);
+            return;
+        }
+        AudioClip clip = sfxClips.get(sfx);
+        if (clip != null) {
+            // AudioClip không dừng riêng từng lần phát được: dừng cả clip và trả mọi voice của nó
+            clip.stop();
+            mixer.releaseAll(sfx);
+        }
+    }
+
+    private void recycleVoicePlayer(int voice) {
+        MediaPlayer p = voicePlayers[voice];
+        if (p == null) return;
+        p.stop();
+        idlePlayers.computeIfAbsent(voicePlayerSfx[voice], k -> new ArrayDeque<>()).push(p);
+        voicePlayers[voice] = null;
+        voicePlayerSfx[voice] = null;
     }
 
 
     public void loop(Sfx sfx) {
         if (muted) return;
         Runnable r = () -> {
+            if (!ensureLoaded()) return;
             stopLoop(sfx);
             AudioClip clip = sfxClips.get(sfx);
             if (clip != null) {
@@ -245,8 +372,7 @@ public final class SoundManager {
                 p.play();
             }
         };
-        if (Platform.isFxApplicationThread()) r.run();
-        else Platform.runLater(r);
+        runOnFx(r);
     }
 
 
@@ -267,15 +393,14 @@ public final class SoundManager {
 
 
         };
-        if (Platform.isFxApplicationThread()) r.run();
-        else Platform.runLater(r);
+        runOnFx(r);
     }
 
 
     public void startBgm(Bgm bgm) {
         Runnable r = () -> {
             stopBgm();
-            Media media = bgmMedias.get(bgm);
+            Media media = bgmMedia(bgm);
             if (media == null) {
                 System.err.println("[Sound] BGM not loaded: " + bgm);
                 return;
@@ -286,8 +411,7 @@ public final class SoundManager {
             bgmPlayer.setOnError(() -> System.err.println("[Sound] BGM error: " + bgmPlayer.getError()));
             bgmPlayer.play();
         };
-        if (Platform.isFxApplicationThread()) r.run();
-        else Platform.runLater(r);
+        runOnFx(r);
     }
 
 
@@ -317,6 +441,7 @@ public final class SoundManager {
 
     public void setMuted(boolean m) {
         muted = m;
+        if (muted) mixer.clearPending();
         applyVolumes();
         if (bgmPlayer != null) {
             if (muted) bgmPlayer.pause();
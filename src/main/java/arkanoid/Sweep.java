@@ -0,0 +1,62 @@
+package arkanoid;
+
+/**
+ * Va chạm liên tục (swept) giữa hình tròn chuyển động thẳng và hình chữ nhật đứng yên.
+ * Tương đương tia từ tâm bóng với hình chữ nhật nới thêm bán kính, bo tròn ở 4 góc:
+ * xét 4 cạnh (dịch ra r) và 4 đường tròn bán kính r tại các góc, lấy thời điểm chạm sớm nhất.
+ * Kết quả ghi vào các trường của đối tượng (dùng lại, không cấp phát mỗi lần gọi).
+ */
+final class Sweep {
+    // Thời điểm chạm theo tỉ lệ quãng đường (0..1) và pháp tuyến tại điểm chạm (hướng ra ngoài hình chữ nhật)
+    double t;
+    double nx, ny;
+
+    // Tâm (cx, cy), bán kính r, dịch chuyển trong bước (dx, dy); hình chữ nhật (bx, by, bw, bh).
+    // Trả về true nếu chạm trong [0, 1] khi đang đi vào hình chữ nhật (bắt đầu đã chồng lấn thì không tính).
+    boolean circleVsBox(double cx, double cy, double r, double dx, double dy,
+                        double bx, double by, double bw, double bh) {
+        double right = bx + bw, bottom = by + bh;
+        t = Double.POSITIVE_INFINITY;
+
+        // 4 cạnh, chỉ tính khi điểm chạm nằm trong đoạn cạnh (phần còn lại thuộc góc bo tròn)
+        if (dx > 0) face((bx - r - cx) / dx, cy, dy, by, bottom, -1, 0);
+        else if (dx < 0) face((right + r - cx) / dx, cy, dy, by, bottom, 1, 0);
+        if (dy > 0) face((by - r - cy) / dy, cx, dx, bx, right, 0, -1);
+        else if (dy < 0) face((bottom + r - cy) / dy, cx, dx, bx, right, 0, 1);
+
+        // 4 góc
+        corner(cx, cy, r, dx, dy, bx, by);
+        corner(cx, cy, r, dx, dy, right, by);
+        corner(cx, cy, r, dx, dy, bx, bottom);
+        corner(cx, cy, r, dx, dy, right, bottom);
+
+        return t <= 1;
+    }
+
+    private void face(double tHit, double c, double d, double lo, double hi, double fnx, double fny) {
+        if (tHit < 0 || tHit > 1 || tHit >= t) return;
+        double p = c + d * tHit;
+        if (p < lo || p > hi) return;
+        t = tHit;
+        nx = fnx;
+        ny = fny;
+    }
+
+    // Tia (cx, cy) + (dx, dy)*s với đường tròn tâm (kx, ky) bán kính r: lấy nghiệm vào
+    private void corner(double cx, double cy, double r, double dx, double dy, double kx, double ky) {
+        double mx = cx - kx, my = cy - ky;
+        double a = dx * dx + dy * dy;
+        if (a == 0) return;
+        double b = mx * dx + my * dy;
+        if (b >= 0) return; // đang đi ra xa góc
+        double c = mx * mx + my * my - r * r;
+        double disc = b * b - a * c;
+        if (disc < 0) return;
+        double tHit = (-b - Math.sqrt(disc)) / a;
+        if (tHit < 0 || tHit > 1 || tHit >= t) return;
+        // điểm chạm nằm trong dải cạnh thì cạnh đó đã cho thời điểm sớm hơn hoặc bằng, lấy min là đủ
+        t = tHit;
+        nx = (mx + dx * tHit) / r;
+        ny = (my + dy * tHit) / r;
+    }
+}
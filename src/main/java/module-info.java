@@ -8,6 +8,7 @@ module arkanoid {
     requires org.kordamp.bootstrapfx.core;
     requires com.almasb.fxgl.all;
     requires javafx.graphics;
+    requires java.management;
 
     opens arkanoid to javafx.fxml;
     exports arkanoid;
@@ -0,0 +1,56 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tải trước song song: các việc chạy đồng thời trên nhiều luồng, tiến trình tăng dần tới 1, việc lỗi không chặn.
+ */
+public class AssetPreloaderTest {
+
+    @Test
+    void testTasksRunInParallelAndProgressReachesOne() throws Exception {
+        AssetPreloader loader = new AssetPreloader();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Integer>> jobs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            int v = i;
+            jobs.add(loader.submit(() -> {
+                threads.add(Thread.currentThread().getName());
+                bothStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return v;
+            }));
+        }
+        loader.submit(() -> {
+            throw new IllegalStateException("tài nguyên hỏng");
+        });
+        CompletableFuture<Void> all = loader.seal();
+
+        assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "Hai việc phải chạy đồng thời");
+        assertTrue(loader.getProgress() < 1.0, "Chưa xong thì tiến trình phải nhỏ hơn 1");
+        assertFalse(loader.isDone());
+        assertTrue(threads.stream().allMatch(n -> n.equals("asset-loader")), "Phải chạy trên luồng tải nền");
+
+        release.countDown();
+        all.get(5, TimeUnit.SECONDS);
+        assertTrue(loader.isDone(), "Việc lỗi không được chặn hoàn tất");
+        assertEquals(1, jobs.get(1).join());
+        assertThrows(IllegalStateException.class, () -> loader.submit(() -> 1), "Không gửi thêm việc sau seal");
+    }
+}
@@ -62,4 +62,22 @@ public class BallPhysicsTest {
         assertEquals(vx0, ball.getVx(), 1e-6, "Fireball không đổi vx");
         assertEquals(vy0, ball.getVy(), 1e-6, "Fireball không đổi vy");
     }
+
+    @Test
+    void testTrailStaysBoundedAndExpires() {
+        Paddle paddle = new Paddle(300, 560, 120, 16, 800);
+        Ball ball = new Ball(400, 300, 8, paddle);
+        ball.setStuck(false);
+        ball.setVelocity(0, 0);
+        for (int i = 0; i < 240; i++) {
+            ball.update(1.0 / 120);
+            assertTrue(ball.trailSize() <= 30, "Trail không vượt quá số segment tối đa");
+        }
+        // sinh 1 segment mỗi 0.02s, sống 0.45s -> khoảng 22 segment còn sống
+        assertTrue(ball.trailSize() >= 20 && ball.trailSize() <= 23,
+                "Số segment ổn định sai, thực tế = " + ball.trailSize());
+
+        ball.update(0.5); // mọi segment (kể cả mới sinh) đều hết hạn
+        assertEquals(0, ball.trailSize(), "Trail phải rỗng khi mọi segment đã hết hạn");
+    }
 }
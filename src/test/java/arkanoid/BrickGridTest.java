@@ -0,0 +1,92 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra BrickGrid cho cùng kết quả với duyệt tuyến tính:
+ * mọi viên gạch giao vùng truy vấn phải có mặt và theo đúng thứ tự danh sách.
+ */
+public class BrickGridTest {
+
+    @Test
+    void queryContainsEveryOverlappingBrickInListOrder() throws Exception {
+        LevelData ld = LevelLoader.loadLevel("/levels/level1.txt", 800);
+        EntityManager em = new EntityManager();
+        em.addBricks(ld.bricks);
+        em.configureBrickGrid(ld);
+
+        Random rnd = new Random(42);
+        List<Brick> out = new ArrayList<>();
+        for (int k = 0; k < 2000; k++) {
+            double x = rnd.nextDouble() * 820 - 10;
+            double y = rnd.nextDouble() * 620 - 10;
+            double w = 4 + rnd.nextDouble() * 40;
+            double h = 4 + rnd.nextDouble() * 40;
+            em.queryBricks(x, y, x + w, y + h, out);
+            assertMatchesLinear(em.getBricks(), out, x, y, w, h);
+
+            // xóa ngẫu nhiên để kiểm tra cập nhật tăng dần
+            if (k % 50 == 0 && !em.getBricks().isEmpty()) {
+                Brick victim = em.getBricks().get(rnd.nextInt(em.getBricks().size()));
+                assertTrue(em.removeBrick(victim));
+                em.queryBricks(victim.getX(), victim.getY(),
+                        victim.getX() + victim.getWidth(), victim.getY() + victim.getHeight(), out);
+                assertFalse(out.contains(victim), "Gạch đã xóa không được trả về");
+            }
+        }
+    }
+
+    @Test
+    void movedBrickIsFoundAtNewPosition() {
+        EntityManager em = new EntityManager();
+        MovingBrick mb = new MovingBrick(40, 60, 40, 24, 1, MovingBrick.BrickType.WEAK);
+        em.addBrick(mb);
+
+        mb.setX(600);
+        em.onBrickMoved(mb);
+
+        List<Brick> out = new ArrayList<>();
+        em.queryBricks(610, 65, 620, 70, out);
+        assertTrue(out.contains(mb), "Gạch di chuyển phải được tìm thấy ở vị trí mới");
+        em.queryBricks(45, 65, 50, 70, out);
+        assertFalse(out.contains(mb), "Gạch di chuyển không còn ở ô cũ");
+    }
+
+    @Test
+    void bricksListCannotBypassIndex() {
+        EntityManager em = new EntityManager();
+        Brick a = new Brick(40, 60, 40, 24, 1);
+        em.addBrick(a);
+        Brick b = new Brick(40, 60, 40, 24, 1);
+        assertThrows(UnsupportedOperationException.class, () -> em.getBricks().set(0, b),
+                "Đổi gạch cùng kích thước danh sách không được bỏ qua chỉ mục");
+        assertThrows(UnsupportedOperationException.class, () -> em.getBricks().add(b));
+
+        em.removeBrick(a);
+        em.addBrick(b);
+        List<Brick> out = new ArrayList<>();
+        em.queryBricks(45, 65, 50, 70, out);
+        assertEquals(List.of(b), out, "Chỉ mục phải theo đúng gạch hiện tại");
+    }
+
+    private void assertMatchesLinear(List<Brick> all, List<Brick> got, double x, double y, double w, double h) {
+        int last = -1;
+        for (Brick b : got) {
+            int idx = all.indexOf(b);
+            assertTrue(idx >= 0, "Ứng viên phải thuộc danh sách gạch");
+            assertTrue(idx > last, "Ứng viên phải theo đúng thứ tự danh sách");
+            last = idx;
+        }
+        for (Brick b : all) {
+            boolean overlap = x <= b.getX() + b.getWidth() && x + w >= b.getX()
+                    && y <= b.getY() + b.getHeight() && y + h >= b.getY();
+            if (overlap) assertTrue(got.contains(b), "Thiếu gạch giao với vùng truy vấn");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra điều kiện dựng lại ảnh gạch của BrickLayer (không cần JavaFX Toolkit).
+ */
+public class BrickLayerTest {
+
+    @Test
+    void layerIsRebuiltOnlyWhenStaticBricksChange() {
+        BrickLayer layer = new BrickLayer(800, 600);
+        List<Brick> bricks = new ArrayList<>();
+        Brick a = new Brick(10, 10, 40, 20, 2);
+        Brick b = new Brick(60, 10, 40, 20, 1);
+        bricks.add(a);
+        bricks.add(b);
+        bricks.add(new Brick(110, 10, 40, 20, Brick.Type.EXPLOSIVE, 1));
+        bricks.add(new MovingBrick(160, 10, 40, 20, 1, MovingBrick.BrickType.WEAK));
+
+        assertTrue(layer.isStale(bricks), "Lớp mới phải được dựng");
+        layer.markBaked(bricks);
+        assertFalse(layer.isStale(bricks), "Không có thay đổi thì không dựng lại");
+
+        // gạch nổ (animation) và gạch di chuyển không nằm trong ảnh
+        ((MovingBrick) bricks.get(3)).setX(300);
+        assertFalse(layer.isStale(bricks), "Gạch di chuyển không làm ảnh cũ");
+
+        // flash chỉ vẽ đè, không cần dựng lại
+        a.flash(null, Brick.FLASH_DURATION);
+        assertFalse(layer.isStale(bricks), "Flash không làm ảnh cũ");
+
+        assertFalse(a.hit(), "Gạch 2 hit chưa vỡ");
+        assertTrue(layer.isStale(bricks), "Gạch bị đánh đổi hình phải dựng lại");
+        layer.markBaked(bricks);
+
+        bricks.remove(b);
+        assertTrue(layer.isStale(bricks), "Gạch bị phá phải dựng lại");
+        layer.markBaked(bricks);
+
+        Brick c = new Brick(210, 10, 40, 20, 1);
+        c.startWarp(Brick.WarpMode.FADE, 0, 0.5);
+        bricks.add(c);
+        assertFalse(layer.isStale(bricks), "Gạch đang warp được vẽ trực tiếp");
+        c.updateWarp(1.0);
+        assertTrue(layer.isStale(bricks), "Gạch warp xong phải được vẽ vào ảnh");
+    }
+}
@@ -43,4 +43,39 @@ public class ExplosionChainTest {
         int remaining = em.countRemainingDestructibleBricks();
         assertTrue(remaining < 5, "Sau nổ phải xoá bớt gạch, còn lại = " + remaining);
     }
+
+    @Test
+    void testExplosionEffectsAndResultAreReused() {
+        CollisionManager cm = new CollisionManager();
+        EntityManager em = new EntityManager();
+        GameState gs = new GameState();
+        PowerUpManager pm = new PowerUpManager();
+        Paddle paddle = new Paddle(300, 560, 120, 16, 800);
+
+        em.addBrick(new Brick(300, 200, 40, 20, Brick.Type.EXPLOSIVE, 1));
+        em.addBrick(new Brick(300 + 48, 200, 40, 20, 1));
+        Ball ball = new Ball(320, 210, 8, paddle);
+        ball.setFireball(true);
+        ball.setStuck(false);
+        ball.setVelocity(0, 0);
+        em.addBall(ball);
+
+        CollisionResult first = cm.handleCollisions(em, gs, paddle, pm, 800, 600, 1 / 60.0);
+        assertFalse(cm.getExplosions().isEmpty(), "Vụ nổ phải tạo hiệu ứng");
+        java.util.Set<Explosion> used = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        used.addAll(cm.getExplosions());
+
+        // chạy tới khi mọi hiệu ứng nổ hết hạn
+        for (int i = 0; i < 60; i++) cm.handleCollisions(em, gs, paddle, pm, 800, 600, 1 / 60.0);
+        assertTrue(cm.getExplosions().isEmpty(), "Hiệu ứng nổ phải hết hạn");
+
+        em.addBrick(new Brick(300, 200, 40, 20, Brick.Type.EXPLOSIVE, 1));
+        CollisionResult again = cm.handleCollisions(em, gs, paddle, pm, 800, 600, 1 / 60.0);
+        assertSame(first, again, "CollisionResult phải được dùng lại");
+        assertTrue(again.collectedPowerUps.isEmpty() && !again.ballLost, "CollisionResult phải được reset");
+        assertFalse(cm.getExplosions().isEmpty(), "Vụ nổ thứ hai phải tạo hiệu ứng");
+        for (Explosion ex : cm.getExplosions()) {
+            assertTrue(used.contains(ex), "Hiệu ứng nổ phải lấy lại từ pool");
+        }
+    }
 }
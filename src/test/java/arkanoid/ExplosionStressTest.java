@@ -0,0 +1,139 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nổ dây chuyền trên lưới 40x40 toàn gạch nổ: tra lân cận qua bảng slot phải
+ * phá hết gạch và cho cùng kết quả với cách tìm theo tọa độ.
+ */
+public class ExplosionStressTest {
+    private static final int N = 40;
+
+    @BeforeAll
+    static void mute() {
+        try { SoundManager.get().setMuted(true); } catch (Throwable ignored) {}
+    }
+
+    @Test
+    void fullExplosiveGridIsCleared() {
+        int[] score = new int[1];
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            EntityManager em = detonate(false, score);
+            assertEquals(0, em.countRemainingDestructibleBricks(), "Toàn bộ gạch nổ phải bị phá");
+        });
+    }
+
+    @Test
+    void slotLookupMatchesCoordinateLookup() {
+        int[] slotScore = new int[1];
+        int[] coordScore = new int[1];
+        EntityManager slot = detonate(false, slotScore);
+        EntityManager coord = detonate(true, coordScore);
+        assertEquals(coord.countRemainingDestructibleBricks(), slot.countRemainingDestructibleBricks(),
+                "Số gạch còn lại phải giống nhau");
+        assertEquals(coordScore[0], slotScore[0], "Điểm phải giống nhau");
+    }
+
+    @Test
+    void slotLookupFindsMovingNeighbours() {
+        int[] slotScore = new int[1];
+        int[] coordScore = new int[1];
+        EntityManager slot = detonate(false, slotScore, 'W');
+        EntityManager coord = detonate(true, coordScore, 'W');
+        assertTrue(slot.getMovingBricks().isEmpty(), "Gạch di chuyển cạnh gạch nổ phải bị phá");
+        assertEquals(coord.countRemainingDestructibleBricks(), slot.countRemainingDestructibleBricks(),
+                "Số gạch còn lại phải giống nhau");
+        assertEquals(coordScore[0], slotScore[0], "Điểm phải giống nhau");
+    }
+
+    @Test
+    void blastReachFollowsCellPitchOnLargeGeneratedGrid() {
+        // lưới 60x100: khe giữa gạch co lại, một ô nhỏ hơn nhiều so với (rộng + 8) x (cao + 6)
+        LevelGenerator gen = new LevelGenerator(11, 60, 100);
+        gen.setDensity(0);
+        LevelTemplate t = gen.generate();
+        java.util.Arrays.fill(t.cells, (byte) 0);
+        int r = 30, c = 10;
+        t.cells[r * 100 + c] = LevelTemplate.EXPLOSIVE;
+        t.cells[r * 100 + c + 1] = LevelTemplate.MOVING_WEAK;       // kề phải: trong tầm nổ
+        t.cells[r * 100 + c + 4] = LevelTemplate.MOVING_WEAK;       // cách 4 ô: ngoài tầm nổ (2 ô)
+        t.cells[(r + 1) * 100 + c] = LevelTemplate.MOVING_WEAK;     // kề dưới
+        t.cells[(r + 4) * 100 + c] = LevelTemplate.MOVING_WEAK;     // cách 4 hàng
+        LevelData ld = t.instantiate(800);
+
+        EntityManager em = new EntityManager();
+        em.addBricks(ld.bricks);
+        em.configureBrickGrid(ld);
+        Brick center = null, right = null, far = null, below = null, farBelow = null;
+        for (Brick b : ld.bricks) {
+            if (b.slotRow == r && b.slotCol == c) center = b;
+            if (b.slotRow == r && b.slotCol == c + 1) right = b;
+            if (b.slotRow == r && b.slotCol == c + 4) far = b;
+            if (b.slotRow == r + 1 && b.slotCol == c) below = b;
+            if (b.slotRow == r + 4 && b.slotCol == c) farBelow = b;
+        }
+        assertNotNull(center);
+
+        Paddle paddle = new Paddle(300, 2000, 120, 16, 800);
+        Ball ball = new Ball(center.getX() + center.getWidth() / 2.0,
+                center.getY() + center.getHeight() / 2.0, 1, paddle);
+        ball.setFireball(true);
+        ball.setStuck(false);
+        em.addBall(ball);
+        new CollisionManager().handleCollisions(em, new GameState(), paddle, new PowerUpManager(), 800, 2000, 1 / 60.0);
+
+        assertFalse(em.getBricks().contains(center), "Gạch nổ phải bị phá");
+        assertFalse(em.getBricks().contains(right), "Gạch di chuyển kề bên phải phải bị phá");
+        assertFalse(em.getBricks().contains(below), "Gạch di chuyển kề bên dưới phải bị phá");
+        assertTrue(em.getBricks().contains(far), "Gạch cách 4 ô không được bị nổ");
+        assertTrue(em.getBricks().contains(farBelow), "Gạch cách 4 hàng không được bị nổ");
+    }
+
+    private EntityManager detonate(boolean forceFallback, int[] scoreOut) {
+        return detonate(forceFallback, scoreOut, 'E');
+    }
+
+    // forceFallback: thêm 1 gạch đứng yên ngoài bảng slot để buộc dùng truy vấn theo tọa độ;
+    // mỗi ô thứ 7 là ký tự mixed (gạch di chuyển nằm xen giữa gạch nổ)
+    private EntityManager detonate(boolean forceFallback, int[] scoreOut, char mixed) {
+        List<String> lines = new ArrayList<>();
+        for (int r = 0; r < N; r++) {
+            StringBuilder row = new StringBuilder();
+            for (int c = 0; c < N; c++) row.append((r * N + c) % 7 == 3 ? mixed : 'E');
+            lines.add(row.toString());
+        }
+        LevelData ld = LevelLoader.parse(lines, 800);
+        assertEquals(N * N, ld.bricks.size());
+
+        EntityManager em = new EntityManager();
+        em.addBricks(ld.bricks);
+        em.configureBrickGrid(ld);
+        if (forceFallback) {
+            em.addBrick(new Brick(30, 5000, 10, 10, Brick.Type.INDESTRUCTIBLE, Integer.MAX_VALUE));
+        }
+        assertEquals(!forceFallback, em.hasSlotLookup());
+
+        CollisionManager cm = new CollisionManager();
+        GameState gs = new GameState();
+        PowerUpManager pm = new PowerUpManager();
+        Paddle paddle = new Paddle(300, 2000, 120, 16, 800);
+
+        Brick target = ld.bricks.get((N / 2) * N + N / 2);
+        Ball ball = new Ball(target.getX() + target.getWidth() / 2.0,
+                target.getY() + target.getHeight() / 2.0, 4, paddle);
+        ball.setFireball(true);
+        ball.setStuck(false);
+        em.addBall(ball);
+
+        cm.handleCollisions(em, gs, paddle, pm, 800, 2000, 1 / 60.0);
+        scoreOut[0] = gs.getScore();
+        return em;
+    }
+}
@@ -0,0 +1,29 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixedTimestepTest {
+
+    @Test
+    void stepCountIndependentOfFrameRate() {
+        // 1 giây ở 60Hz và 144Hz phải cho cùng số bước mô phỏng 120Hz
+        FixedTimestep a = new FixedTimestep(120, 8);
+        FixedTimestep b = new FixedTimestep(120, 8);
+        int stepsA = 0, stepsB = 0;
+        for (int i = 0; i < 60; i++) stepsA += a.advance(1.0 / 60);
+        for (int i = 0; i < 144; i++) stepsB += b.advance(1.0 / 144);
+        assertTrue(Math.abs(stepsA - 120) <= 1, "60Hz: số bước = " + stepsA);
+        assertTrue(Math.abs(stepsB - 120) <= 1, "144Hz: số bước = " + stepsB);
+    }
+
+    @Test
+    void hitchIsCappedAndAlphaInRange() {
+        FixedTimestep t = new FixedTimestep(120, 8);
+        assertEquals(8, t.advance(2.0), "Khung giật 2s chỉ được bù tối đa 8 bước");
+        double alpha = t.alpha();
+        assertTrue(alpha >= 0 && alpha < 1, "Hệ số nội suy phải trong [0,1), alpha = " + alpha);
+        assertTrue(t.advance(1.0 / 120) <= 2, "Sau khi giật không được dồn bước bù");
+    }
+}
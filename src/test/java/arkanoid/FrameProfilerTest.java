@@ -0,0 +1,85 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Đo thời gian theo pha: tắt thì không ghi gì, bật thì có phân vị hợp lệ và xuất được CSV.
+ */
+public class FrameProfilerTest {
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testDisabledProfilerRecordsNothing() {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(0);
+        FrameProfiler prof = sim.getProfiler();
+        for (int i = 0; i < FrameProfiler.SUMMARY_FRAMES * 2; i++) {
+            sim.step(1 / 120.0);
+            prof.endFrame();
+        }
+        assertEquals(0, prof.getFrameCount(), "Profiler tắt không được tổng hợp");
+        assertEquals(0, prof.begin());
+    }
+
+    @Test
+    void testEnablingMidFrameSkipsLapFromDisabledBegin() {
+        FrameProfiler prof = new FrameProfiler();
+        long t = prof.begin(); // còn tắt: mốc 0
+        prof.setEnabled(true); // bật qua JMX giữa khung
+        t = prof.lap(FrameProfiler.Phase.SIM, t);
+        assertNotEquals(0, t, "Lần đo sau phải có mốc thật");
+        for (int i = 0; i < FrameProfiler.SUMMARY_FRAMES; i++) prof.endFrame();
+
+        int sim = List.of(prof.getPhaseNames()).indexOf("SIM");
+        assertTrue(prof.getP99Millis()[sim] < 1000, "Không được cộng nanoTime() - 0 vào pha");
+    }
+
+    @Test
+    void testPercentilesAndCsvExport(@TempDir Path dir) throws Exception {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(0);
+        FrameProfiler prof = sim.getProfiler();
+        Path csv = dir.resolve("profile.csv");
+        prof.startCsv(csv);
+        assertTrue(prof.isEnabled(), "Ghi CSV phải bật đo");
+
+        for (int i = 0; i < FrameProfiler.SUMMARY_FRAMES * 2; i++) {
+            sim.step(1 / 120.0);
+            sim.step(1 / 120.0);
+            prof.count(FrameProfiler.Counter.BRICKS, sim.getEntityManager().getBricks().size());
+            prof.endFrame();
+        }
+        prof.stopCsv();
+
+        assertEquals(FrameProfiler.SUMMARY_FRAMES * 2, prof.getFrameCount());
+        String[] names = prof.getPhaseNames();
+        double[] p50 = prof.getP50Millis(), p95 = prof.getP95Millis(), p99 = prof.getP99Millis();
+        int sim50 = List.of(names).indexOf("SIM");
+        assertTrue(p50[sim50] > 0, "Pha mô phỏng phải có thời gian đo được");
+        for (int i = 0; i < names.length; i++) {
+            assertTrue(p50[i] <= p95[i] && p95[i] <= p99[i], "Phân vị phải tăng dần ở pha " + names[i]);
+        }
+        int[] counts = prof.getCounters();
+        List<String> counterNames = List.of(prof.getCounterNames());
+        assertEquals(sim.getEntityManager().getBricks().size(), counts[counterNames.indexOf("BRICKS")]);
+        assertEquals(2, counts[counterNames.indexOf("SIM_STEPS")], "Mỗi khung có 2 bước mô phỏng");
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(3, lines.size(), "CSV phải có tiêu đề và một dòng cho mỗi lần tổng hợp");
+        int columns = lines.get(0).split(",").length;
+        assertEquals(2 + names.length * 3 + counts.length, columns);
+        assertEquals(columns, lines.get(2).split(",").length);
+    }
+}
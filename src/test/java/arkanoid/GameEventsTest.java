@@ -0,0 +1,78 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hàng đợi sự kiện: vòng đúng thứ tự, đầy thì bỏ sự kiện mới; va chạm chỉ ghi sự kiện, hiệu ứng tạo khi đọc ra.
+ */
+public class GameEventsTest {
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testRingKeepsOrderAndDropsWhenFull() {
+        GameEvents ev = new GameEvents(6);
+        assertEquals(8, ev.capacity(), "Dung lượng làm tròn lên lũy thừa của 2");
+
+        // quay vòng nhiều lần qua mảng
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5; i++) ev.publish(GameEvents.BRICK_DESTROYED, i, round, 1, 2, i * 10);
+            for (int i = 0; i < 5; i++) {
+                int e = ev.poll();
+                assertEquals(GameEvents.BRICK_DESTROYED, ev.type(e));
+                assertEquals(i, ev.x(e), 0.0, "Sai thứ tự sự kiện");
+                assertEquals(round, ev.y(e), 0.0);
+                assertEquals(i * 10, ev.value(e));
+            }
+            assertEquals(-1, ev.poll());
+        }
+
+        for (int i = 0; i < 10; i++) ev.publish(GameEvents.BOUNCE_WALL, i, 0);
+        assertEquals(8, ev.size());
+        assertEquals(2, ev.getDropped(), "Sự kiện vượt dung lượng phải bị bỏ và đếm lại");
+        assertEquals(0, ev.x(ev.poll()), 0.0, "Giữ các sự kiện cũ nhất");
+    }
+
+    @Test
+    void testCollisionsOnlyPublishAndSimulationDispatches() {
+        Simulation sim = new Simulation(800, 600);
+        CollisionManager cm = sim.getCollisionManager();
+        EntityManager em = sim.getEntityManager();
+        Paddle paddle = sim.getPaddle();
+
+        Brick brick = new Brick(300, 200, 40, 20, 1);
+        em.addBrick(brick);
+        Ball ball = new Ball(312, 212, 8, paddle);
+        ball.setStuck(false);
+        ball.setVelocity(0, -1);
+        em.addBall(ball);
+
+        cm.handleCollisions(em, sim.getGameState(), paddle, sim.getPowerUpManager(), 800, 600, 1 / 120.0);
+        assertFalse(em.getBricks().contains(brick), "Gạch 1 máu phải vỡ");
+        assertTrue(cm.getScorePopups().isEmpty(), "Va chạm không được tự tạo popup");
+
+        boolean destroyed = false;
+        GameEvents ev = sim.getEvents();
+        for (int e = ev.poll(); e >= 0; e = ev.poll()) {
+            if (ev.type(e) != GameEvents.BRICK_DESTROYED) continue;
+            destroyed = true;
+            assertEquals(320, ev.x(e), 1e-9, "Sự kiện phải mang tâm viên gạch");
+            assertEquals(100, ev.value(e), "Sự kiện phải mang điểm hiển thị");
+        }
+        assertTrue(destroyed, "Phải có sự kiện gạch vỡ");
+
+        // Qua step(): sự kiện được đọc hết và tạo hiệu ứng
+        em.addBrick(new Brick(300, 200, 40, 20, 1));
+        ball.setX(312);
+        ball.setY(212);
+        sim.step(1 / 120.0);
+        assertEquals(0, ev.size(), "Cuối mỗi bước phải đọc hết sự kiện");
+        assertFalse(cm.getScorePopups().isEmpty(), "Popup điểm phải được tạo khi đọc sự kiện");
+    }
+}
@@ -1,8 +1,14 @@
 package arkanoid;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HighScoreServiceTest {
 
@@ -15,4 +21,87 @@ public class HighScoreServiceTest {
         // Chỉ kiểm tra best ≥ 1200, không kiểm tra qualifyRank(900) vì phụ thuộc dữ liệu file hiện có
         assertTrue(svc.getBestScore() >= 1200, "Best score phải >= 1200 sau khi submit");
     }
+
+    @Test
+    void testTopTenKeptInMemoryAndWrittenBack(@TempDir Path dir) {
+        Path file = dir.resolve("highscore");
+        HighScoreService svc = new HighScoreService(file);
+        for (int i = 1; i <= 12; i++) svc.submit("P" + i, i * 100);
+
+        assertEquals(-1, svc.qualifyRank(300), "Điểm bằng hạng 10 không được lọt Top 10");
+        assertEquals(1, svc.qualifyRank(5000), "Điểm cao nhất phải đứng hạng 1");
+        assertEquals(4, svc.qualifyRank(1000), "Điểm bằng nhau xếp sau người đến trước");
+        svc.submit("Same", 1000);
+        List<HighScoreService.Entry> top = svc.getTop(HighScoreService.MAX_ENTRIES);
+        assertEquals("P10", top.get(2).name, "Người đạt điểm trước phải đứng trên");
+        assertEquals("Same", top.get(3).name, "Điểm mới bằng điểm cũ xếp ngay sau");
+
+        svc.maybeUpdateBest(9999);
+        assertEquals(9999, svc.getCachedBest(), "Best trong RAM phải cập nhật theo điểm ván đang chơi");
+        assertEquals(1200, svc.getBestScore(), "Best của bảng xếp hạng không đổi khi chưa submit");
+
+        svc.flush();
+        HighScoreService reloaded = new HighScoreService(file);
+        List<HighScoreService.Entry> again = reloaded.getTop(HighScoreService.MAX_ENTRIES);
+        assertEquals(HighScoreService.MAX_ENTRIES, again.size(), "getTop chỉ trả về đúng số entry yêu cầu");
+        for (int i = 0; i < again.size(); i++) {
+            assertEquals(top.get(i).name, again.get(i).name, "Thứ tự sau khi đọc lại phải giữ nguyên");
+        }
+    }
+
+    @Test
+    void testHistoryKeepsPersonalAndLevelBests(@TempDir Path dir) {
+        Path file = dir.resolve("highscore");
+        HighScoreService svc = new HighScoreService(file);
+        svc.submit("An", 500, 0);
+        svc.submit("Binh", 900, 1);
+        svc.submit("An", 700, 1);
+        svc.submit("An", 300, 2);
+
+        assertEquals(4, svc.getHistorySize(), "Lịch sử phải giữ mọi lần submit");
+        assertEquals(700, svc.getPersonalBest("An").score, "Điểm cao nhất của người chơi");
+        assertNull(svc.getPersonalBest("Chi"), "Người chơi chưa có điểm");
+        List<HighScoreService.Entry> lv1 = svc.getTopForLevel(1, 10);
+        assertEquals(2, lv1.size(), "Bảng xếp hạng level 1 có 2 entry");
+        assertEquals("Binh", lv1.get(0).name, "Binh đứng đầu level 1");
+        assertEquals(50.0, svc.percentileRank(600), 1e-9, "Một nửa số lần chơi thấp hơn 600");
+
+        svc.flush();
+        HighScoreService reloaded = new HighScoreService(file);
+        assertEquals(4, reloaded.getHistorySize(), "Đọc lại log phải đủ lịch sử");
+        assertEquals(700, reloaded.getPersonalBest("An").score, "Điểm cá nhân giữ nguyên sau khi đọc lại");
+        assertEquals(50.0, reloaded.percentileRank(600), 1e-9, "Percentile giữ nguyên sau khi đọc lại");
+    }
+
+    @Test
+    void testLegacyTopTenMigratedIntoCachedBest(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("highscore");
+        // file cũ: mỗi dòng "điểm<TAB>thời điểm<TAB>tên"
+        Files.writeString(file, "1500\t1000\tAn\n4200\t2000\tBinh\n800\t3000\tChi\n");
+        HighScoreService svc = new HighScoreService(file);
+
+        assertEquals(4200, svc.getCachedBest(), "Best trong RAM phải lấy từ Top 10 của file cũ");
+        assertEquals(4200, svc.getBestScore());
+        assertEquals(3, svc.getHistorySize(), "Các entry cũ phải được chuyển sang lịch sử");
+    }
+
+    @Test
+    void testLargeHistorySurvivesCompaction(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("highscore");
+        HighScoreService svc = new HighScoreService(file);
+        Random rnd = new Random(3);
+        int n = 100_000;
+        for (int i = 0; i < n; i++) svc.submit("P" + rnd.nextInt(5000), rnd.nextInt(100_000), rnd.nextInt(6));
+        svc.submit("Top", 200_000, 5);
+        svc.flush();
+        assertTrue(Files.size(file.resolveSibling("highscore.seg")) > 0, "Lịch sử phải được nén vào file seg");
+        assertTrue(Files.size(file.resolveSibling("highscore.log")) < Files.size(file.resolveSibling("highscore.seg")),
+                "Log sau khi nén phải nhỏ hơn seg");
+
+        // độ trễ truy vấn với 1 triệu entry đo bằng JMH: benchmarks/HighScoreBenchmark
+        HighScoreService reloaded = new HighScoreService(file);
+        assertEquals(n + 1, reloaded.getHistorySize(), "Đọc lại phải đủ lịch sử");
+        assertEquals("Top", reloaded.getTop(1).get(0).name, "Top 1 sau khi đọc lại");
+        assertEquals(50.0, reloaded.percentileRank(50_000), 1.0, "Percentile của điểm giữa phải ~50");
+    }
 }
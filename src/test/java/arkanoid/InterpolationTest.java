@@ -0,0 +1,93 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nội suy khi vẽ: mọi thực thể di chuyển được vẽ giữa vị trí đầu và cuối bước,
+ * dịch chuyển tức thời trong bước thì không vẽ vệt từ chỗ cũ.
+ */
+public class InterpolationTest {
+    private static final double DT = 1.0 / 120.0;
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testEveryMovingEntityIsInterpolated() {
+        Simulation sim = new Simulation(800, 600);
+        EntityManager em = sim.getEntityManager();
+        em.addBrick(new Brick(0, 0, 40, 20, 1)); // còn gạch để không qua màn
+        MovingBrick mb = new MovingBrick(200, 100, 40, 20, 1, MovingBrick.BrickType.WEAK);
+        em.addBrick(mb);
+        PowerUp pu = new PowerUp(400, 200, PowerUp.PowerType.EXTRA_LIFE);
+        em.addPowerUp(pu);
+        Bullet bu = new Bullet(600, 400);
+        em.addBullet(bu);
+        Boss boss = new Boss(300, 50, 150, 80, 100, 770);
+        sim.setBoss(boss, true);
+
+        double mbX = mb.getX(), puY = pu.getY(), buY = bu.y, bossX = boss.getX();
+        sim.step(DT);
+        assertNotEquals(mbX, mb.getX(), "Gạch di chuyển phải đi trong bước");
+        assertNotEquals(bossX, boss.getX(), "Boss phải đi trong bước");
+
+        mb.setInterpAlpha(0.5);
+        pu.setInterpAlpha(0.5);
+        bu.setInterpAlpha(0.5);
+        boss.setInterpAlpha(0.5);
+        assertEquals((mbX + mb.getX()) / 2, mb.renderX(), 1e-9, "MovingBrick phải nội suy");
+        assertEquals((puY + pu.getY()) / 2, pu.renderY(), 1e-9, "PowerUp phải nội suy");
+        assertEquals((buY + bu.y) / 2, bu.renderY(), 1e-9, "Đạn phải nội suy");
+        assertEquals((bossX + boss.getX()) / 2, boss.renderX(), 1e-9, "Boss phải nội suy");
+    }
+
+    @Test
+    void testContactCorrectionKeepsInterpolation() {
+        EntityManager em = new EntityManager();
+        MovingBrick mb = new MovingBrick(750, 100, 40, 20, 1, MovingBrick.BrickType.WEAK);
+        em.addBrick(mb);
+        mb.snapshotPosition();
+        new MovingBrickBroadphase().update(em, 790, 0.5); // chạm tường phải, bị kẹp lại
+        assertEquals(750, mb.getX(), 1e-9, "Gạch phải bị kẹp vào tường");
+        mb.snapshotPosition();
+        double start = mb.getX();
+        mb.setDirection(-1);
+        em.addBrick(new MovingBrick(700, 100, 40, 20, 1, MovingBrick.BrickType.WEAK));
+        new MovingBrickBroadphase().update(em, 790, 0.2); // chạm gạch bên trái, bị tách ra
+        mb.setInterpAlpha(0.0);
+        assertEquals(start, mb.renderX(), 1e-9, "Tách gạch không được xóa mốc nội suy");
+
+        Paddle paddle = new Paddle(340, 560, 120, 16, 800);
+        Ball ball = new Ball(9, 300, 8, paddle); // cách tường trái 1px
+        ball.setStuck(false);
+        ball.setVelocity(-200, 0);
+        em.addBall(ball);
+        ball.snapshotPosition();
+        double bx = ball.getX();
+        new CollisionManager().handleCollisions(em, new GameState(), paddle, new PowerUpManager(), 800, 600, DT);
+        assertTrue(ball.getVx() > 0, "Bóng phải bật khỏi tường trái");
+        ball.setInterpAlpha(0.0);
+        assertEquals(bx, ball.renderX(), 1e-9, "Chạm tường không được xóa mốc nội suy");
+    }
+
+    @Test
+    void testTeleportDoesNotStreak() {
+        Paddle paddle = new Paddle(340, 560, 120, 16, 800);
+        Ball ball = new Ball(100, 100, 8, paddle);
+        ball.setStuck(false);
+        ball.snapshotPosition();
+        ball.setY(300); // dịch chuyển tức thời giữa bước
+        ball.setInterpAlpha(0.0);
+        assertEquals(ball.getY(), ball.renderY(), 1e-9, "Sau khi đặt vị trí không được nội suy từ chỗ cũ");
+
+        ball.snapshotPosition();
+        ball.resetToPaddle();
+        assertEquals(ball.getX(), ball.renderX(), 1e-9, "Về paddle là dịch chuyển tức thời");
+        assertEquals(ball.getY(), ball.renderY(), 1e-9);
+    }
+}
@@ -0,0 +1,87 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LevelGeneratorTest {
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testSameSeedGivesSameLayout() {
+        LevelTemplate a = new LevelGenerator(42, 60, 100).generate();
+        LevelTemplate b = new LevelGenerator(42, 60, 100).generate();
+        LevelTemplate c = new LevelGenerator(43, 60, 100).generate();
+        assertArrayEquals(a.cells, b.cells, "Cùng seed phải cho cùng bố cục");
+        assertFalse(java.util.Arrays.equals(a.cells, c.cells), "Seed khác phải cho bố cục khác");
+
+        LevelData x = a.instantiate(800);
+        LevelData y = b.instantiate(800);
+        assertEquals(x.bricks.size(), y.bricks.size(), "Cùng seed phải cho cùng số gạch");
+        for (int i = 0; i < x.bricks.size(); i++) {
+            assertEquals(x.bricks.get(i).getX(), y.bricks.get(i).getX(), 1e-9, "Vị trí gạch phải trùng nhau");
+            assertEquals(x.bricks.get(i).getHits(), y.bricks.get(i).getHits(), "Số hit phải trùng nhau");
+        }
+    }
+
+    @Test
+    void testLargeGridContainsEveryBrickTypeAndFitsScreen() {
+        LevelData d = new LevelGenerator(7, 60, 100).generate().instantiate(800);
+        assertEquals(60, d.rows);
+        assertEquals(100, d.cols);
+        assertTrue(d.bricks.stream().anyMatch(b -> b instanceof MovingBrick), "Phải có MovingBrick");
+        assertTrue(d.bricks.stream().anyMatch(b -> b.getType() == Brick.Type.EXPLOSIVE), "Phải có gạch nổ");
+        assertTrue(d.bricks.stream().anyMatch(b -> b.getType() == Brick.Type.INDESTRUCTIBLE), "Phải có gạch không phá được");
+        assertTrue(d.bricks.stream().anyMatch(b -> b.getType() == Brick.Type.NORMAL), "Phải có gạch thường");
+        for (Brick b : d.bricks) {
+            assertTrue(b.getX() + b.getWidth() <= 770 + 1e-6, "Gạch không được tràn ra ngoài màn hình");
+            assertTrue(b.getY() + b.getHeight() <= 60 + 330 + 1e-6, "Vùng gạch phải nằm gọn trên paddle");
+        }
+    }
+
+    @Test
+    void testHugeLevelIsStreamedInOverSeveralSteps() {
+        Simulation sim = new Simulation(800, 600);
+        LevelGenerator gen = new LevelGenerator(99, 60, 100);
+        int expected = gen.generate().instantiate(800).bricks.size();
+
+        sim.startLevel(gen);
+        int firstChunk = sim.getEntityManager().getBricks().size();
+        assertTrue(firstChunk > 0 && firstChunk < expected, "Lúc nạp chỉ thêm phần gạch đầu tiên, có " + firstChunk);
+        assertTrue(sim.isStreamingLevel());
+
+        sim.getGameState().setRunning(true);
+        for (int i = 0; i < 600 && sim.isStreamingLevel(); i++) sim.step(1 / 120.0);
+        assertFalse(sim.isStreamingLevel(), "Phải stream xong toàn bộ hàng");
+        assertEquals(expected, sim.getEntityManager().getBricks().size(), "Sau khi stream phải đủ gạch");
+        assertTrue(sim.getEntityManager().hasSlotLookup(), "Gạch stream vào phải được đánh chỉ số slot");
+
+        // Warp chỉ kết thúc sau khi stream xong, bóng được dán lại vào paddle
+        for (int i = 0; i < 120; i++) sim.step(1 / 120.0);
+        assertTrue(sim.getEntityManager().getBalls().get(0).isStuck(), "Bóng phải chờ trên paddle sau warp");
+    }
+
+    @Test
+    void testSimulationKeepsGeneratorForRestartAndNextLevel() {
+        Simulation sim = new Simulation(800, 600);
+        LevelGenerator gen = new LevelGenerator(5, 8, 12);
+        sim.startLevel(gen);
+        assertTrue(sim.isGeneratedLevel());
+        assertSame(gen, sim.getGenerator(), "Simulation phải giữ generator để chơi lại");
+
+        // màn kế tiếp suy ra từ seed của màn hiện tại
+        LevelGenerator next = sim.getGenerator().next();
+        assertArrayEquals(next.generate().cells, gen.next().generate().cells, "Màn kế tiếp phải xác định theo seed");
+        assertFalse(java.util.Arrays.equals(gen.generate().cells, next.generate().cells), "Màn kế tiếp phải khác màn hiện tại");
+        sim.startLevel(next);
+        assertEquals(next.getSeed(), sim.getGenerator().getSeed());
+
+        sim.startLevel(0);
+        assertFalse(sim.isGeneratedLevel(), "Level từ file thì thoát chế độ vô tận");
+    }
+}
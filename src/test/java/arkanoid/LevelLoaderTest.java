@@ -32,4 +32,40 @@ public class LevelLoaderTest {
         }
         assertTrue(hasMoving, "Ít nhất một level phải có MovingBrick (W/M/S/U) trong bộ level của bạn");
     }
+
+    @Test
+    void testTemplateIsCachedAndClonedIntoFreshBricks() throws Exception {
+        LevelTemplate t = LevelLoader.template("/levels/level1.txt");
+        assertSame(t, LevelLoader.template("/levels/level1.txt"), "Level đã biên dịch phải được cache");
+
+        LevelData a = LevelLoader.loadLevel("/levels/level1.txt", 800);
+        LevelData b = LevelLoader.loadLevel("/levels/level1.txt", 800);
+        assertEquals(a.bricks.size(), b.bricks.size(), "Hai lần tải phải cùng số gạch");
+        assertNotSame(a.bricks.get(0), b.bricks.get(0), "Mỗi lần tải phải có bộ gạch mới");
+        a.bricks.get(0).hit();
+        assertEquals(t.instantiate(800).bricks.get(0).getHits(), b.bricks.get(0).getHits(),
+                "Đánh gạch của lần tải trước không ảnh hưởng lần sau");
+    }
+
+    @Test
+    void testBinaryFormatRoundTrip() throws Exception {
+        for (int i = 1; i <= 6; i++) {
+            LevelTemplate text = LevelLoader.template("/levels/level" + i + ".txt");
+            LevelTemplate bin = LevelTemplate.decode(text.encode());
+            LevelData x = text.instantiate(800);
+            LevelData y = bin.instantiate(800);
+            assertEquals(x.hasBoss, y.hasBoss, "Cờ boss phải giữ nguyên (level " + i + ")");
+            assertEquals(x.bricks.size(), y.bricks.size(), "Số gạch phải giữ nguyên (level " + i + ")");
+            for (int k = 0; k < x.bricks.size(); k++) {
+                Brick p = x.bricks.get(k), q = y.bricks.get(k);
+                assertEquals(p.getClass(), q.getClass(), "Loại gạch phải giữ nguyên");
+                assertEquals(p.getType(), q.getType(), "Kiểu gạch phải giữ nguyên");
+                assertEquals(p.getHits(), q.getHits(), "Số hit phải giữ nguyên");
+                assertEquals(p.getX(), q.getX(), 1e-9, "Vị trí phải giữ nguyên");
+                assertEquals(p.getY(), q.getY(), 1e-9, "Vị trí phải giữ nguyên");
+            }
+        }
+        assertThrows(java.io.IOException.class, () -> LevelTemplate.decode(new byte[]{0x41, 0x52, 0x4B, 0x56, 0, 1}),
+                "File level bị cắt phải báo lỗi");
+    }
 }
@@ -0,0 +1,111 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovingBrickBroadphaseTest {
+
+    @Test
+    void testMatchesPairwiseLoopExactly() {
+        Random rnd = new Random(2024);
+        List<MovingBrick> a = new ArrayList<>();
+        List<MovingBrick> b = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // vài hàng lệch nhau nửa ô để có cả khoảng y chồng nhau; x dày đặc để có nhiều va chạm
+            double y = 60 + rnd.nextInt(12) * 15;
+            double x = rnd.nextDouble() * 740;
+            double w = 30 + rnd.nextInt(30);
+            double dir = rnd.nextBoolean() ? 1 : -1;
+            a.add(brick(x, y, w, dir));
+            b.add(brick(x, y, w, dir));
+        }
+        EntityManager em = new EntityManager();
+        em.addBricks(b);
+        MovingBrickBroadphase sap = new MovingBrickBroadphase();
+
+        for (int frame = 0; frame < 300; frame++) {
+            if (frame % 50 == 49) {
+                // gỡ vài viên giữa chừng để buộc dựng lại các hàng
+                for (int k = 0; k < 5; k++) {
+                    int idx = rnd.nextInt(a.size());
+                    a.remove(idx);
+                    em.removeBrick(em.getMovingBricks().get(idx));
+                }
+            }
+            pairwise(a, 800, 1 / 60.0);
+            sap.update(em, 800, 1 / 60.0);
+
+            List<Brick> movers = em.getMovingBricks();
+            assertEquals(a.size(), movers.size());
+            for (int i = 0; i < a.size(); i++) {
+                MovingBrick x = a.get(i), y = (MovingBrick) movers.get(i);
+                assertEquals(x.getX(), y.getX(), 0.0, "Vị trí gạch " + i + " lệch ở khung " + frame);
+                assertEquals(x.getDirection(), y.getDirection(), 0.0, "Hướng gạch " + i + " lệch ở khung " + frame);
+            }
+        }
+    }
+
+    @Test
+    void testLargeRowsMatchPairwiseLoop() {
+        // lưới 60x100 gạch động (chi phí đo ở MovingBrickBenchmark)
+        List<MovingBrick> a = new ArrayList<>();
+        EntityManager em = new EntityManager();
+        for (int r = 0; r < 60; r++) {
+            for (int c = 0; c < 100; c++) {
+                double dir = c % 2 == 0 ? 1 : -1;
+                a.add(brick(30 + c * 7.4, 60 + r * 14, 6, dir));
+                em.addBrick(brick(30 + c * 7.4, 60 + r * 14, 6, dir));
+            }
+        }
+        MovingBrickBroadphase sap = new MovingBrickBroadphase();
+        for (int frame = 0; frame < 5; frame++) {
+            pairwise(a, 800, 1 / 60.0);
+            sap.update(em, 800, 1 / 60.0);
+        }
+        List<Brick> movers = em.getMovingBricks();
+        assertEquals(6000, movers.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getX(), movers.get(i).getX(), 0.0, "Vị trí gạch " + i + " lệch");
+        }
+    }
+
+    private static MovingBrick brick(double x, double y, double w, double dir) {
+        MovingBrick mb = new MovingBrick(x, y, w, 12, 1, MovingBrick.BrickType.WEAK);
+        mb.setDirection(dir);
+        return mb;
+    }
+
+    // Vòng lặp đôi trước đây trong Simulation.update (chỉ gồm gạch động)
+    private static void pairwise(List<MovingBrick> bricks, double width, double dt) {
+        for (int i = 0; i < bricks.size(); i++) {
+            MovingBrick mb = bricks.get(i);
+            mb.update(dt);
+            if (mb.getX() <= 0) {
+                mb.setX(0);
+                mb.setDirection(1);
+            } else if (mb.getX() + mb.getWidth() >= width) {
+                mb.setX(width - mb.getWidth());
+                mb.setDirection(-1);
+            }
+            for (int j = i + 1; j < bricks.size(); j++) {
+                MovingBrick ob = bricks.get(j);
+                if (mb.getBounds().intersects(ob.getBounds())) {
+                    if (mb.getX() < ob.getX()) {
+                        mb.setX(ob.getX() - mb.getWidth());
+                        mb.setDirection(-1);
+                        ob.setDirection(1);
+                    } else {
+                        mb.setX(ob.getX() + ob.getWidth());
+                        mb.setDirection(1);
+                        ob.setDirection(-1);
+                    }
+                }
+            }
+        }
+    }
+}
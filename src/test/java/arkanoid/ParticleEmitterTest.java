@@ -0,0 +1,29 @@
+package arkanoid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticleEmitterTest {
+
+    @Test
+    void deadParticlesAreCompactedAway() {
+        ParticleEmitter pe = new ParticleEmitter();
+        pe.emitExplosion(400, 300, 10000); // sống 0.35..0.8s
+        pe.emitSmoke(400, 300, 500);       // sống 0.6..1.4s
+        assertEquals(10500, pe.activeCount());
+
+        // 0.3s: chưa hạt nào hết hạn
+        for (int i = 0; i < 36; i++) pe.update(1.0 / 120);
+        assertEquals(10500, pe.activeCount(), "Không hạt nào được chết trước 0.35s");
+
+        // 0.9s: toàn bộ tia lửa đã chết, khói vẫn còn một phần
+        for (int i = 0; i < 72; i++) pe.update(1.0 / 120);
+        assertTrue(pe.activeCount() <= 500, "Tia lửa phải bị xoá hết, còn " + pe.activeCount());
+        assertTrue(pe.activeCount() > 0, "Khói sống lâu hơn phải còn lại");
+
+        // 1.5s: hết sạch
+        for (int i = 0; i < 72; i++) pe.update(1.0 / 120);
+        assertEquals(0, pe.activeCount());
+    }
+}
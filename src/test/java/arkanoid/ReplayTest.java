@@ -0,0 +1,134 @@
+package arkanoid;
+
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ghi input của một lượt chơi rồi phát lại headless: trạng thái cuối phải trùng từng bit.
+ */
+public class ReplayTest {
+    private static final double DT = 1.0 / 120.0;
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testReplayReproducesRunExactly() throws IOException {
+        for (int level : new int[]{0, 5}) {
+            Simulation sim = new Simulation(800, 600);
+            sim.getGameState().setScore(150);
+            Replay rec = sim.startRecordedLevel(level, 12345L + level, DT);
+
+            // Bot: đuổi theo bóng bằng phím, thỉnh thoảng phóng bóng / bắn, để lỡ bóng vài lần
+            KeyCode held = null;
+            for (int i = 0; i < 120 * 40 && sim.getGameState().isRunning(); i++) {
+                Ball b = sim.getEntityManager().getBalls().isEmpty() ? null : sim.getEntityManager().getBalls().get(0);
+                KeyCode want = null;
+                if (b != null && (i / 600) % 3 != 2) {
+                    double center = sim.getPaddle().getX() + sim.getPaddle().getWidth() / 2;
+                    if (b.getX() < center - 10) want = KeyCode.LEFT;
+                    else if (b.getX() > center + 10) want = KeyCode.RIGHT;
+                }
+                if (want != held) {
+                    if (held != null) sim.releaseKey(held);
+                    if (want != null) sim.pressKey(want);
+                    held = want;
+                }
+                if (i % 97 == 0) sim.launchBalls();
+                if (i % 31 == 0) sim.tryShoot();
+                sim.step(DT);
+            }
+            sim.clearKeys();
+
+            Replay loaded = Replay.decode(rec.encode());
+            assertEquals(rec.getEventCount(), loaded.getEventCount(), "Phải đọc lại đủ sự kiện");
+            assertEquals(sim.getTick(), loaded.getEndTick(), "Replay phải ghi đủ số tick");
+
+            Simulation replayed = loaded.play();
+            assertSameState(sim, replayed, level);
+            assertSameState(sim, loaded.play(), level);
+        }
+    }
+
+    @Test
+    void testKeysHeldFromPreviousLevelDoNotLeakIntoReplay() {
+        Simulation sim = new Simulation(800, 600);
+        sim.startRecordedLevel(0, 7L, DT);
+        sim.pressKey(KeyCode.LEFT); // giữ phím qua lúc sang màn
+        Replay rec = sim.startRecordedLevel(1, 8L, DT);
+        sim.getGameState().setRunning(true);
+        for (int i = 0; i < 240; i++) sim.step(DT);
+
+        assertSameState(sim, rec.play(), 1);
+    }
+
+    @Test
+    void testConcurrentReplaysDoNotShareRandom() throws Exception {
+        Simulation sim = new Simulation(800, 600);
+        Replay rec = sim.startRecordedLevel(5, 99L, DT);
+        sim.getGameState().setRunning(true);
+        for (int i = 0; i < 120 * 10 && sim.getGameState().isRunning(); i++) {
+            if (i % 60 == 0) sim.launchBalls();
+            sim.step(DT);
+        }
+
+        // hai replay trên hai luồng và một ván khác đang chạy cùng lúc
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(2);
+        try {
+            java.util.concurrent.Future<Simulation> a = pool.submit(rec::play);
+            java.util.concurrent.Future<Simulation> b = pool.submit(rec::play);
+            Simulation live = new Simulation(800, 600);
+            live.startRecordedLevel(5, 1L, DT);
+            live.getGameState().setRunning(true);
+            for (int i = 0; i < 2000; i++) {
+                if (i % 60 == 0) live.launchBalls();
+                live.step(DT);
+            }
+            assertTrue(sim.getTick() > 600, "Ván ghi phải chạy đủ lâu");
+            assertSameState(sim, a.get(), 5);
+            assertSameState(sim, b.get(), 5);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testCorruptReplayIsRejected() {
+        Replay r = new Simulation(800, 600).startRecordedLevel(0, 1, DT);
+        byte[] bytes = r.encode();
+        byte[] bad = bytes.clone();
+        bad[0] = 0;
+        assertThrows(IOException.class, () -> Replay.decode(bad), "Sai magic phải báo lỗi");
+        assertThrows(IOException.class, () -> Replay.decode(java.util.Arrays.copyOf(bytes, 20)),
+                "File replay bị cắt phải báo lỗi");
+    }
+
+    private static void assertSameState(Simulation a, Simulation b, int level) {
+        String where = " (level " + level + ")";
+        assertEquals(a.getTick(), b.getTick(), "Số tick phải trùng" + where);
+        assertEquals(a.getGameState().getScore(), b.getGameState().getScore(), "Điểm phải trùng" + where);
+        assertEquals(a.getGameState().getLives(), b.getGameState().getLives(), "Số mạng phải trùng" + where);
+        assertEquals(a.getPaddle().getX(), b.getPaddle().getX(), 0.0, "Vị trí paddle phải trùng" + where);
+        assertEquals(a.getEntityManager().getBricks().size(), b.getEntityManager().getBricks().size(),
+                "Số gạch còn lại phải trùng" + where);
+        assertEquals(a.getEntityManager().getBalls().size(), b.getEntityManager().getBalls().size(),
+                "Số bóng phải trùng" + where);
+        for (int i = 0; i < a.getEntityManager().getBalls().size(); i++) {
+            Ball x = a.getEntityManager().getBalls().get(i);
+            Ball y = b.getEntityManager().getBalls().get(i);
+            assertEquals(x.getX(), y.getX(), 0.0, "Vị trí bóng phải trùng" + where);
+            assertEquals(x.getY(), y.getY(), 0.0, "Vị trí bóng phải trùng" + where);
+        }
+        if (a.getBoss() != null) {
+            assertEquals(a.getBoss().getHealth(), b.getBoss().getHealth(), 0.0, "Máu boss phải trùng" + where);
+            assertEquals(a.getBoss().getBullets().size(), b.getBoss().getBullets().size(), "Số đạn boss phải trùng" + where);
+        }
+    }
+}
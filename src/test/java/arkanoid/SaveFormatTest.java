@@ -0,0 +1,261 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Định dạng save nhị phân, chạy trên lõi mô phỏng (không cần JavaFX toolkit).
+ */
+public class SaveFormatTest {
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testBossLevelRoundTripIsLossless() throws IOException {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(5);
+        if (sim.getBoss() == null) sim.setBoss(new Boss(300, 50, 200, 100, 100, 770), true);
+        Boss boss = sim.getBoss();
+        boss.setHealth(123.5);
+        boss.setDirection(-1);
+
+        // Vài trăm viên đạn boss với vận tốc khác nhau
+        Random rnd = new Random(7);
+        boss.getBullets().clear();
+        for (int i = 0; i < 300; i++) {
+            BossBullet b = new BossBullet(rnd.nextDouble() * 800, rnd.nextDouble() * 600, 8, 16, 300, 0);
+            b.setVelocity(rnd.nextDouble() * 200 - 100, 100 + rnd.nextDouble() * 200);
+            boss.getBullets().add(b);
+        }
+
+        EntityManager em = sim.getEntityManager();
+        MovingBrick mb = new MovingBrick(200, 150, 60, 20, 1, MovingBrick.BrickType.WEAK);
+        mb.setX(240);
+        mb.setDirection(-1);
+        em.addBrick(mb);
+        em.addBrick(new Brick(100, 200, 60, 20, Brick.Type.EXPLOSIVE, 1));
+
+        Ball ball = new Ball(400, 300, 8, sim.getPaddle());
+        ball.setStuck(false);
+        ball.setVelocity(120, -160);
+        ball.setFireball(true);
+        em.getBalls().add(ball);
+
+        ActiveEffect eff = new ActiveEffect(PowerUp.PowerType.values()[0], 3.25);
+        eff.originalSpeeds.put(ball, 180.0);
+        eff.originalFireball.put(ball, false);
+        em.addActiveEffect(eff);
+        em.addPowerUp(new PowerUp(320, 240, PowerUp.PowerType.values()[1]));
+        em.addHUDMessage(new HUDMessage("Xin chào", 2.0));
+        sim.getGameState().setScore(98765);
+
+        SaveLoad sl = SaveLoad.get();
+        SaveLoad.SaveData first = sl.snapshot(sim);
+        byte[] bytes = SaveLoad.encode(first);
+        assertEquals(SaveLoad.MAGIC, ByteBuffer.wrap(bytes).getInt(), "File save phải bắt đầu bằng magic ARKS");
+
+        Simulation restored = new Simulation(800, 600);
+        sl.restore(restored, SaveLoad.decode(bytes));
+        SaveLoad.SaveData second = sl.snapshot(restored);
+        second.ts = first.ts;
+
+        assertArrayEquals(bytes, SaveLoad.encode(second), "Save -> load -> save phải cho ra đúng các byte ban đầu");
+        assertEquals(300, restored.getBoss().getBullets().size(), "Phải khôi phục đủ đạn boss");
+        assertEquals(123.5, restored.getBoss().getHealth(), 1e-9, "Máu boss phải giữ nguyên");
+        assertEquals(-1, restored.getBoss().getDirection(), 1e-9, "Hướng boss phải giữ nguyên");
+    }
+
+    @Test
+    void testEndlessRunKeepsGeneratorAcrossSaveLoad() throws IOException {
+        LevelGenerator gen = new LevelGenerator(42, 12, 20);
+        gen.setMix(0.5, 0.2, 0.1, 0.2);
+        gen.setDensity(0.6);
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(gen);
+
+        SaveLoad sl = SaveLoad.get();
+        Simulation restored = new Simulation(800, 600);
+        sl.restore(restored, SaveLoad.decode(SaveLoad.encode(sl.snapshot(sim))));
+        assertTrue(restored.isGeneratedLevel(), "Save của chế độ vô tận phải giữ bộ sinh level");
+        LevelGenerator back = restored.getGenerator();
+        assertEquals(42, back.getSeed());
+        assertArrayEquals(gen.generate().cells, back.generate().cells, "Chơi lại phải sinh đúng level đã lưu");
+        assertArrayEquals(gen.next().generate().cells, back.next().generate().cells, "Qua màn phải sinh đúng màn kế tiếp");
+
+        // save v2 (trước khi có bộ sinh level) vẫn đọc được như level thường
+        Simulation campaign = new Simulation(800, 600);
+        campaign.startLevel(0);
+        byte[] v3 = SaveLoad.encode(sl.snapshot(campaign));
+        byte[] v2 = java.util.Arrays.copyOf(v3, v3.length - 1); // bỏ cờ "không có bộ sinh"
+        ByteBuffer.wrap(v2).putShort(4, (short) 2);
+        sl.restore(restored, SaveLoad.decode(v2));
+        assertFalse(restored.isGeneratedLevel(), "Save v2 là level thường");
+    }
+
+    @Test
+    void testLegacySerializedSaveIsMigrated() throws IOException {
+        byte[] legacy;
+        try (InputStream in = SaveFormatTest.class.getResourceAsStream("/saves/legacy_v1.dat")) {
+            assertNotNull(in, "Thiếu file save cũ dùng cho test");
+            legacy = in.readAllBytes();
+        }
+        SaveLoad.SaveData data = SaveLoad.decode(legacy);
+
+        Simulation sim = new Simulation(800, 600);
+        SaveLoad.get().restore(sim, data);
+
+        assertEquals(4321, sim.getGameState().getScore(), "Điểm từ save cũ phải được giữ");
+        assertEquals(2, sim.getGameState().getLives(), "Số mạng từ save cũ phải được giữ");
+        assertEquals(1, sim.getEntityManager().getBalls().size(), "Phải khôi phục bóng");
+        assertTrue(sim.getEntityManager().getBalls().get(0).isFireball(), "Trạng thái fireball phải được giữ");
+        assertEquals(2, sim.getEntityManager().getBricks().size(), "Phải khôi phục gạch");
+        assertInstanceOf(MovingBrick.class, sim.getEntityManager().getBricks().get(1), "Gạch động phải là MovingBrick");
+        assertEquals(1, sim.getEntityManager().getActiveEffects().size(), "Phải khôi phục hiệu ứng");
+        assertNotNull(sim.getBoss(), "Phải khôi phục boss");
+        assertEquals(320, sim.getBoss().getHealth(), 1e-9, "Máu boss phải khớp save cũ");
+        assertEquals(1, sim.getBoss().getBullets().size(), "Phải khôi phục đạn boss");
+
+        // Save lại ở định dạng mới rồi đọc lại được
+        byte[] migrated = SaveLoad.encode(SaveLoad.get().snapshot(sim));
+        Simulation again = new Simulation(800, 600);
+        SaveLoad.get().restore(again, SaveLoad.decode(migrated));
+        assertEquals(4321, again.getGameState().getScore(), "Save đã chuyển đổi phải đọc lại được");
+    }
+
+    @Test
+    void testNewerOrCorruptSaveIsRejected() throws IOException {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(0);
+        byte[] bytes = SaveLoad.encode(SaveLoad.get().snapshot(sim));
+
+        byte[] newer = bytes.clone();
+        ByteBuffer.wrap(newer).putShort(4, (short) (SaveLoad.FORMAT_VERSION + 1));
+        assertThrows(IOException.class, () -> SaveLoad.decode(newer), "Không được đọc save của phiên bản mới hơn");
+
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> SaveLoad.decode(truncated), "File save bị cắt phải báo lỗi");
+    }
+
+    @Test
+    void testBackgroundSavesAreCoalescedAndAtomic(@TempDir Path dir) throws IOException {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(0);
+        Path file = dir.resolve("save.dat");
+        SaveLoad sl = SaveLoad.get();
+
+        int writesBefore = sl.getWriteCount();
+        for (int i = 1; i <= 200; i++) {
+            sim.getGameState().setScore(i);
+            sl.enqueue(sl.snapshot(sim), file);
+        }
+        sl.flush();
+
+        int writes = sl.getWriteCount() - writesBefore;
+        assertTrue(writes >= 1 && writes < 200, "Các lần save liên tiếp phải được gộp, đã ghi " + writes + " lần");
+        assertFalse(Files.exists(dir.resolve("save.dat.tmp")), "Không được để lại file tạm");
+
+        Simulation loaded = new Simulation(800, 600);
+        sl.restore(loaded, SaveLoad.decode(Files.readAllBytes(file)));
+        assertEquals(200, loaded.getGameState().getScore(), "File phải chứa snapshot mới nhất");
+    }
+
+    @Test
+    void testAutosaveJournalRecoversLatestState(@TempDir Path dir) throws IOException {
+        SaveLoad sl = SaveLoad.get();
+        sl.setAutosaveDir(dir);
+        try {
+            Simulation sim = new Simulation(800, 600);
+            sim.startLevel(0);
+            EntityManager em = sim.getEntityManager();
+            Brick tough = new Brick(20, 500, 60, 20, 3);
+            em.addBrick(tough);
+            sl.beginAutosave(sim);
+            int before = em.getBricks().size();
+
+            for (int i = 0; i < 3; i++) em.removeBrick(em.getBricks().get(0));
+            tough.hit();
+            sim.getGameState().setScore(777);
+            sl.checkpoint(sim);
+            sl.flush();
+
+            long base = Files.size(dir.resolve("autosave.dat"));
+            long journal = Files.size(dir.resolve("autosave.journal"));
+            assertTrue(journal * 4 < base, "Delta phải nhỏ hơn nhiều so với snapshot đầy đủ (" + journal + " / " + base + ")");
+
+            // bản ghi ghi dở ở cuối journal (crash) phải bị bỏ qua
+            Files.write(dir.resolve("autosave.journal"), new byte[]{0, 0, 1, 0, 1, 2, 3},
+                    java.nio.file.StandardOpenOption.APPEND);
+
+            Simulation recovered = new Simulation(800, 600);
+            sl.restore(recovered, sl.recoverAutosave());
+            assertEquals(777, recovered.getGameState().getScore(), "Điểm phải lấy từ bản ghi delta mới nhất");
+            assertEquals(before - 3, recovered.getEntityManager().getBricks().size(), "Gạch đã phá không được hiện lại");
+            Brick last = recovered.getEntityManager().getBricks().get(before - 4);
+            assertEquals(2, last.getHits(), "Số hit đã thay đổi phải được khôi phục");
+        } finally {
+            sl.setAutosaveDir(null);
+        }
+    }
+
+    @Test
+    void testAutosaveIsClearedWhenRunEnds(@TempDir Path dir) throws IOException {
+        SaveLoad sl = SaveLoad.get();
+        sl.setAutosaveDir(dir);
+        try {
+            Simulation sim = new Simulation(800, 600);
+            sim.startLevel(0);
+            sl.beginAutosave(sim);
+            sim.getGameState().setScore(50);
+            sl.checkpoint(sim);
+            sl.flush();
+            assertTrue(Files.exists(dir.resolve("autosave.dat")));
+
+            sl.clearAutosave(); // game over
+            sim.getGameState().setScore(60);
+            sl.checkpoint(sim); // không còn bản gốc: không ghi gì
+            sl.flush();
+            assertFalse(Files.exists(dir.resolve("autosave.dat")), "Autosave của lượt đã thua phải bị xóa");
+            assertFalse(Files.exists(dir.resolve("autosave.journal")), "Journal phải bị xóa cùng autosave");
+            assertNull(sl.recoverAutosave(), "Continue không được khôi phục lượt đã kết thúc");
+        } finally {
+            sl.setAutosaveDir(null);
+        }
+    }
+
+    @Test
+    void testAutosaveJournalIsCompacted(@TempDir Path dir) throws IOException {
+        SaveLoad sl = SaveLoad.get();
+        sl.setAutosaveDir(dir);
+        sl.setJournalLimit(2000);
+        try {
+            Simulation sim = new Simulation(800, 600);
+            sim.startLevel(0);
+            sl.beginAutosave(sim);
+            for (int i = 1; i <= 60; i++) {
+                sim.getGameState().setScore(i);
+                sl.checkpoint(sim);
+                sl.flush();
+                assertTrue(Files.size(dir.resolve("autosave.journal")) < 4000, "Journal phải được nén khi quá lớn");
+            }
+            Simulation recovered = new Simulation(800, 600);
+            sl.restore(recovered, sl.recoverAutosave());
+            assertEquals(60, recovered.getGameState().getScore(), "Sau khi nén vẫn phải khôi phục được trạng thái mới nhất");
+        } finally {
+            sl.setJournalLimit(32 * 1024);
+            sl.setAutosaveDir(null);
+        }
+    }
+}
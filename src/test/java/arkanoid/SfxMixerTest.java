@@ -0,0 +1,103 @@
+package arkanoid;
+
+import arkanoid.SoundManager.Sfx;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bộ trộn SFX: số voice luôn bị chặn dù có bao nhiêu yêu cầu, ưu tiên cao được cướp voice của ưu tiên thấp.
+ */
+public class SfxMixerTest {
+    private static final long MS = 1_000_000L;
+
+    // Ghi lại các lệnh start/stop thay cho JavaFX
+    private static class Recorder implements SfxMixer.VoiceSink {
+        final List<Sfx> started = new ArrayList<>();
+        final List<Sfx> stopped = new ArrayList<>();
+
+        @Override
+        public void start(Sfx sfx, int voice) {
+            started.add(sfx);
+        }
+
+        @Override
+        public void stop(Sfx sfx, int voice) {
+            stopped.add(sfx);
+        }
+    }
+
+    @Test
+    void testSameFrameRequestsAreDeduplicated() {
+        SfxMixer mixer = new SfxMixer();
+        Recorder rec = new Recorder();
+        assertTrue(mixer.request(Sfx.BRICK_BREAK));
+        for (int i = 0; i < 50; i++) assertFalse(mixer.request(Sfx.BRICK_BREAK));
+        mixer.request(Sfx.BOUNCE_WALL);
+        mixer.flush(0, rec);
+
+        assertEquals(List.of(Sfx.BRICK_BREAK, Sfx.BOUNCE_WALL), rec.started, "Mỗi Sfx chỉ phát một lần trong khung");
+        assertFalse(mixer.hasPending());
+    }
+
+    @Test
+    void testPerSfxCapAndCooldown() {
+        SfxMixer mixer = new SfxMixer();
+        mixer.configure(Sfx.BRICK_BREAK, 3, 1, 30, 250);
+        Recorder rec = new Recorder();
+        long now = 0;
+        // mỗi khung 1/60 s đều vỡ gạch: cooldown 30 ms cho phép cách một khung, tối đa 3 voice
+        for (int frame = 0; frame < 60; frame++) {
+            mixer.request(Sfx.BRICK_BREAK);
+            mixer.flush(now, rec);
+            assertTrue(mixer.playingCount(Sfx.BRICK_BREAK) <= 3, "Không vượt giới hạn voice của Sfx");
+            now += 16 * MS;
+        }
+        assertTrue(rec.started.size() < 30, "Cooldown phải chặn bớt, đã phát " + rec.started.size());
+        assertTrue(rec.started.size() > 10, "Vẫn phải phát đều đặn, đã phát " + rec.started.size());
+    }
+
+    @Test
+    void testPoolIsBoundedAndHigherPriorityStealsLowest() {
+        SfxMixer mixer = new SfxMixer();
+        Recorder rec = new Recorder();
+        Sfx[] all = Sfx.values();
+        for (Sfx s : all) mixer.configure(s, 4, 1, 0, 10_000);
+        mixer.configure(Sfx.BOUNCE_WALL, 4, 0, 0, 10_000);
+        mixer.configure(Sfx.BOSS_DEATH, 1, 5, 0, 10_000);
+
+        // lấp đầy pool: voice ưu tiên thấp vào trước
+        long now = 0;
+        mixer.request(Sfx.BOUNCE_WALL);
+        mixer.flush(now++, rec);
+        for (Sfx s : all) {
+            if (mixer.activeVoices() == SfxMixer.MAX_VOICES) break;
+            if (s == Sfx.BOUNCE_WALL || s == Sfx.BOSS_DEATH) continue;
+            mixer.request(s);
+            mixer.flush(now++, rec);
+        }
+        assertEquals(SfxMixer.MAX_VOICES, mixer.activeVoices(), "Pool phải đầy");
+        assertTrue(rec.stopped.isEmpty());
+
+        // ưu tiên cao nhất: cướp voice ưu tiên thấp nhất
+        mixer.request(Sfx.BOSS_DEATH);
+        mixer.flush(now++, rec);
+        assertEquals(List.of(Sfx.BOUNCE_WALL), rec.stopped, "Phải cướp voice ưu tiên thấp nhất");
+        assertEquals(1, mixer.playingCount(Sfx.BOSS_DEATH));
+        assertEquals(SfxMixer.MAX_VOICES, mixer.activeVoices());
+
+        // ưu tiên thấp không cướp được của ưu tiên cao hơn → bị bỏ
+        int dropped = mixer.getDropped();
+        mixer.request(Sfx.BOUNCE_WALL);
+        mixer.flush(now++, rec);
+        assertEquals(0, mixer.playingCount(Sfx.BOUNCE_WALL));
+        assertEquals(dropped + 1, mixer.getDropped());
+
+        // hết thời lượng thì voice được trả lại
+        mixer.flush(now + 20_000 * MS, rec);
+        assertEquals(0, mixer.activeVoices(), "Voice hết tiếng phải được giải phóng");
+    }
+}
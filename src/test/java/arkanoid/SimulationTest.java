@@ -0,0 +1,142 @@
+package arkanoid;
+
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chạy lõi mô phỏng không cần JavaFX toolkit (không gọi FxTestLauncher):
+ * một bot đơn giản điều khiển paddle trong nhiều nghìn bước cố định.
+ */
+public class SimulationTest {
+    private static final double DT = 1.0 / 120.0;
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void runsThousandsOfTicksHeadless() {
+        Simulation sim = new Simulation(800, 600);
+        sim.startLevel(0);
+        sim.getGameState().setRunning(true);
+        int bricksBefore = sim.countRemainingDestructibleBricks();
+        assertTrue(bricksBefore > 0, "Level phải có gạch");
+
+        int ticks = 0;
+        while (ticks < 20000 && sim.getGameState().isRunning()) {
+            followBall(sim);
+            sim.launchBalls();
+            sim.step(DT);
+            ticks++;
+        }
+
+        assertTrue(ticks >= 1000, "Mô phỏng phải chạy ít nhất 1000 bước, đã chạy " + ticks);
+        assertTrue(sim.getGameState().getScore() > 0 || sim.countRemainingDestructibleBricks() < bricksBefore,
+                "Bot phải phá được gạch");
+    }
+
+    @Test
+    void losingLastBallStopsSimulation() {
+        Simulation sim = new Simulation(800, 600);
+        boolean[] stopped = {false};
+        sim.setOnStop(() -> stopped[0] = true);
+        sim.startLevel(0);
+        sim.getGameState().setLives(1);
+        sim.getGameState().setRunning(true);
+
+        // không điều khiển paddle: bóng rơi xuống đáy
+        for (int i = 0; i < 120 * 60 && sim.getGameState().isRunning(); i++) {
+            sim.launchBalls();
+            sim.getPaddle().x = 0; // paddle đứng yên ở mép trái
+            sim.step(DT);
+        }
+        assertFalse(sim.getGameState().isRunning(), "Hết mạng thì mô phỏng phải dừng");
+        assertTrue(stopped[0], "Phải báo onStop cho lớp giao diện");
+    }
+
+    // Bóng đếm số lần cập nhật vệt đuôi (đúng một lần mỗi lần bóng được cập nhật)
+    private static class CountingBall extends Ball {
+        int updates = 0;
+
+        CountingBall(double x, double y, Paddle paddle) {
+            super(x, y, 8, paddle);
+        }
+
+        @Override
+        void updateTrail(double deltaTime) {
+            updates++;
+            super.updateTrail(deltaTime);
+        }
+    }
+
+    private static class CountingPopup extends ScorePopup {
+        int updates = 0;
+
+        CountingPopup() {
+            super(400, 300, "+1", null, ScorePopup.DEFAULT_COLOR, 100, 0);
+        }
+
+        @Override
+        public void update(double dt) {
+            updates++;
+            super.update(dt);
+        }
+    }
+
+    @Test
+    void eachBallAndPopupUpdatedOncePerTick() {
+        Simulation sim = new Simulation(800, 600);
+        EntityManager em = sim.getEntityManager();
+        em.addBrick(new Brick(740, 0, 40, 20, 1)); // còn gạch để không qua màn
+        CountingBall[] balls = new CountingBall[3];
+        for (int i = 0; i < balls.length; i++) {
+            balls[i] = new CountingBall(100 + 200 * i, 400, sim.getPaddle());
+            balls[i].setStuck(false);
+            balls[i].setVelocity(0, -1);
+            em.addBall(balls[i]);
+        }
+        CountingPopup popup = new CountingPopup();
+        sim.getCollisionManager().getScorePopups().add(popup);
+
+        int ticks = 30;
+        double y0 = balls[0].getY();
+        for (int i = 0; i < ticks; i++) sim.step(DT);
+
+        for (CountingBall b : balls) assertEquals(ticks, b.updates, "Mỗi bóng chỉ được cập nhật một lần mỗi bước");
+        assertEquals(balls[0].getVy() * DT * ticks, balls[0].getY() - y0, 1e-6,
+                "Bóng phải đi đúng vận tốc, không bị cộng hai lần");
+        assertEquals(ticks, popup.updates, "Popup điểm chỉ cập nhật một lần mỗi bước, không nhân theo số bóng");
+    }
+
+    @Test
+    void emittersUpdatedOnceDuringLevelTransition() {
+        Simulation sim = new Simulation(800, 600);
+        ParticleEmitter emitter = sim.getCollisionManager().getEmitter();
+        emitter.emitExplosion(400, 300, 50); // mỗi hạt sống ít nhất 0.35 s
+
+        // không còn gạch: bước đầu tiên bắt đầu hiệu ứng qua màn (flash trắng 0.32 s)
+        for (int i = 0; i < 36; i++) sim.step(DT);
+        assertTrue(sim.getPowerUpManager().isNextLevelInProgress(), "Phải đang chạy hiệu ứng qua màn");
+        assertEquals(50, emitter.activeCount(), "Sau 0.3 s chưa hạt nào được hết hạn nếu chỉ cập nhật một lần mỗi bước");
+    }
+
+    // Đưa tâm paddle về phía bóng thấp nhất
+    private void followBall(Simulation sim) {
+        Paddle p = sim.getPaddle();
+        Ball target = null;
+        for (Ball b : sim.getEntityManager().getBalls()) {
+            if (target == null || b.getY() > target.getY()) target = b;
+        }
+        p.release(KeyCode.LEFT);
+        p.release(KeyCode.RIGHT);
+        if (target == null) return;
+        double pc = p.getX() + p.getWidth() / 2.0;
+        double bc = target.centerX();
+        if (bc < pc - 10) p.press(KeyCode.LEFT);
+        else if (bc > pc + 10) p.press(KeyCode.RIGHT);
+    }
+}
@@ -0,0 +1,110 @@
+package arkanoid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Va chạm liên tục: bóng rất nhanh với bước dài không được xuyên qua gạch mỏng hay tường.
+ */
+public class SweptCollisionTest {
+
+    @BeforeAll
+    static void headless() {
+        SoundManager.get().setHeadless(true);
+    }
+
+    @Test
+    void testSweepFindsFaceAndCornerImpacts() {
+        Sweep s = new Sweep();
+        // đi thẳng xuống vào mặt trên của gạch (100..140, 200..220), bán kính 8
+        assertTrue(s.circleVsBox(120, 100, 8, 0, 200, 100, 200, 40, 20));
+        assertEquals((200 - 8 - 100) / 200.0, s.t, 1e-9);
+        assertEquals(0, s.nx, 1e-9);
+        assertEquals(-1, s.ny, 1e-9);
+
+        // đi chéo vào góc trên-trái
+        assertTrue(s.circleVsBox(80, 180, 8, 30, 30, 100, 200, 40, 20));
+        assertTrue(s.nx < 0 && s.ny < 0, "Chạm góc phải cho pháp tuyến chéo ra ngoài");
+        assertEquals(1, Math.hypot(s.nx, s.ny), 1e-9);
+
+        // lướt qua sát góc nhưng không chạm
+        assertFalse(s.circleVsBox(80, 180, 8, 100, -10, 100, 200, 40, 20));
+        // đi ra xa
+        assertFalse(s.circleVsBox(120, 100, 8, 0, -200, 100, 200, 40, 20));
+    }
+
+    @Test
+    void testFastBallDoesNotTunnelThroughThinBrick() {
+        CollisionManager cm = new CollisionManager();
+        EntityManager em = new EntityManager();
+        GameState gs = new GameState();
+        PowerUpManager pm = new PowerUpManager();
+        Paddle paddle = new Paddle(600, 580, 120, 16, 800);
+
+        Brick thin = new Brick(300, 200, 80, 6, 3);
+        em.addBrick(thin);
+
+        // Một bước đi 200px xuyên qua vị trí gạch dày 6px
+        Ball ball = new Ball(340, 320, 8, paddle);
+        ball.setStuck(false);
+        ball.setBaseSpeed(6000);
+        ball.setVelocity(0, -1);
+        em.addBall(ball);
+
+        cm.handleCollisions(em, gs, paddle, pm, 800, 600, 1 / 30.0);
+
+        assertEquals(2, thin.getHits(), "Bóng phải chạm gạch thay vì xuyên qua");
+        assertTrue(ball.getVy() > 0, "Bóng phải bật ngược xuống");
+        assertTrue(ball.centerY() > 206, "Bóng không được nằm phía trên gạch, y = " + ball.centerY());
+    }
+
+    @Test
+    void testMultipleImpactsResolvedInTimeOrderWithinOneStep() {
+        CollisionManager cm = new CollisionManager();
+        EntityManager em = new EntityManager();
+        GameState gs = new GameState();
+        PowerUpManager pm = new PowerUpManager();
+        Paddle paddle = new Paddle(0, 580, 120, 16, 800);
+
+        // Gạch A ở trên, gạch B ở bên phải: bóng đi chéo lên phải chạm A trước rồi B
+        Brick a = new Brick(380, 100, 200, 20, 5);
+        Brick b = new Brick(620, 100, 20, 400, 5);
+        em.addBrick(a);
+        em.addBrick(b);
+
+        Ball ball = new Ball(400, 300, 8, paddle);
+        ball.setStuck(false);
+        ball.setBaseSpeed(12000);
+        ball.setVelocity(1, -1);
+        em.addBall(ball);
+
+        cm.handleCollisions(em, gs, paddle, pm, 800, 600, 1 / 30.0);
+
+        assertEquals(4, a.getHits(), "Phải chạm gạch trên");
+        assertEquals(4, b.getHits(), "Phải chạm tiếp gạch bên phải trong cùng bước");
+        assertTrue(ball.getVx() < 0 && ball.getVy() > 0, "Cả hai thành phần vận tốc phải bị đảo");
+        assertTrue(ball.centerX() < 620 && ball.centerY() > 120, "Bóng phải ở trong vùng giới hạn bởi hai gạch");
+    }
+
+    @Test
+    void testFastBallStaysInsideWalls() {
+        CollisionManager cm = new CollisionManager();
+        EntityManager em = new EntityManager();
+        Paddle paddle = new Paddle(0, 580, 120, 16, 800);
+        Ball ball = new Ball(400, 300, 8, paddle);
+        ball.setStuck(false);
+        ball.setBaseSpeed(20000);
+        ball.setVelocity(-1, -0.6);
+        em.addBall(ball);
+
+        for (int i = 0; i < 20; i++) {
+            cm.handleCollisions(em, new GameState(), paddle, new PowerUpManager(), 800, 600, 1 / 30.0);
+            if (em.getBalls().isEmpty()) break;
+            assertTrue(ball.getX() >= -1e-6 && ball.getX() + ball.getWidth() <= 800 + 1e-6,
+                    "Bóng không được ra ngoài tường trái/phải, x = " + ball.getX());
+            assertTrue(ball.getY() >= -1e-6, "Bóng không được vượt trần, y = " + ball.getY());
+        }
+    }
+}